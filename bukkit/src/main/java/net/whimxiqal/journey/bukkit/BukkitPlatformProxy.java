@@ -301,4 +301,41 @@ public class BukkitPlatformProxy implements PlatformProxy {
     }
     return domains;
   }
+
+  @Override
+  public void prefetchChunk(int domain, int chunkX, int chunkZ) {
+    JourneyBukkit.get().getBlockAccessor().prefetch(domain, chunkX, chunkZ);
+  }
+
+  @Override
+  public long chunkStamp(int domain, int chunkX, int chunkZ) {
+    return JourneyBukkit.get().getChunkStamps().stamp(domain, chunkX, chunkZ);
+  }
+
+  @Override
+  public double averageTickMillis() {
+    return Bukkit.getAverageTickTime();
+  }
+
+  @Override
+  public boolean isChunkLoaded(int domain, int chunkX, int chunkZ) {
+    World world;
+    try {
+      world = BukkitUtil.getWorld(domain);
+    } catch (IllegalArgumentException e) {
+      return false;  // not loaded
+    }
+    return world.isChunkLoaded(chunkX, chunkZ);
+  }
+
+  @Override
+  public Optional<Cell> spawn(int domain) {
+    World world;
+    try {
+      world = BukkitUtil.getWorld(domain);
+    } catch (IllegalArgumentException e) {
+      return Optional.empty();  // not loaded
+    }
+    return Optional.of(BukkitUtil.cell(world.getSpawnLocation()));
+  }
 }
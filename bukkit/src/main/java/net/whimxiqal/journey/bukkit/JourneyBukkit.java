@@ -23,6 +23,7 @@
 
 package net.whimxiqal.journey.bukkit;
 
+import java.util.Map;
 import net.whimxiqal.journey.Journey;
 import net.whimxiqal.journey.ProxyImpl;
 import net.whimxiqal.journey.command.JourneyConnectorProvider;
@@ -42,6 +43,7 @@ import net.whimxiqal.journey.bukkit.search.event.BukkitStopPathSearchEvent;
 import net.whimxiqal.journey.bukkit.search.event.BukkitStopSearchEvent;
 import net.whimxiqal.journey.bukkit.search.event.BukkitVisitationSearchEvent;
 import net.whimxiqal.journey.bukkit.config.BukkitConfigManager;
+import net.whimxiqal.journey.bukkit.listener.BlockChangeListener;
 import net.whimxiqal.journey.bukkit.listener.DeathListener;
 import net.whimxiqal.journey.bukkit.listener.NetherListener;
 import net.whimxiqal.journey.bukkit.search.listener.AnimationListener;
@@ -49,12 +51,15 @@ import net.whimxiqal.journey.bukkit.search.listener.DataStorageListener;
 import net.whimxiqal.journey.bukkit.search.listener.PlayerSearchListener;
 import net.whimxiqal.journey.bukkit.util.BukkitLogger;
 import net.whimxiqal.journey.bukkit.util.BukkitSchedulingManager;
+import net.whimxiqal.journey.bukkit.util.ChunkStamps;
 import net.whimxiqal.journey.bukkit.util.ThreadSafeBlockAccessor;
 import net.whimxiqal.mantle.paper.PaperRegistrarProvider;
 import net.whimxiqal.mantle.common.CommandRegistrar;
 import org.bukkit.Bukkit;
 import org.bukkit.World;
 import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.bukkit.plugin.RegisteredListener;
 import org.bukkit.plugin.java.JavaPlugin;
 
 public final class JourneyBukkit extends JavaPlugin {
@@ -72,7 +77,8 @@ public final class JourneyBukkit extends JavaPlugin {
     return instance;
   }
 
-  private final ThreadSafeBlockAccessor blockAccessor = new ThreadSafeBlockAccessor();
+  private final ChunkStamps chunkStamps = new ChunkStamps();
+  private final ThreadSafeBlockAccessor blockAccessor = new ThreadSafeBlockAccessor(chunkStamps);
 
   @Override
   public void onLoad() {
@@ -116,6 +122,24 @@ public final class JourneyBukkit extends JavaPlugin {
     dispatcher.registerEvent(BukkitStopSearchEvent::new, SearchEvent.EventType.STOP);
     dispatcher.registerEvent(BukkitVisitationSearchEvent::new, SearchEvent.EventType.VISITATION);
     dispatcher.setExternalDispatcher(event -> Bukkit.getPluginManager().callEvent(event));
+    // High-frequency events are only worth creating if some other plugin listens to them
+    Map<SearchEvent.EventType, HandlerList> highFrequencyHandlers = Map.of(
+        SearchEvent.EventType.MODE_FAILURE, BukkitModeFailureEvent.getHandlerList(),
+        SearchEvent.EventType.MODE_SUCCESS, BukkitModeSuccessEvent.getHandlerList(),
+        SearchEvent.EventType.STEP, BukkitStepSearchEvent.getHandlerList(),
+        SearchEvent.EventType.VISITATION, BukkitVisitationSearchEvent.getHandlerList());
+    dispatcher.setExternalSubscriptionCheck(type -> {
+      HandlerList handlers = highFrequencyHandlers.get(type);
+      if (handlers == null) {
+        return true;
+      }
+      for (RegisteredListener listener : handlers.getRegisteredListeners()) {
+        if (listener.getPlugin() != this) {
+          return true;
+        }
+      }
+      return false;
+    });
 
     // Initialize common Journey (after proxy is set up)
     Journey.get().init();
@@ -129,6 +153,7 @@ public final class JourneyBukkit extends JavaPlugin {
     Bukkit.getPluginManager().registerEvents(new DataStorageListener(), this);
     Bukkit.getPluginManager().registerEvents(new PlayerSearchListener(), this);
     Bukkit.getPluginManager().registerEvents(new DeathListener(), this);
+    Bukkit.getPluginManager().registerEvents(new BlockChangeListener(), this);
 
     // Initialize tasks for async capabilities
     blockAccessor.init();
@@ -146,4 +171,8 @@ public final class JourneyBukkit extends JavaPlugin {
   public ThreadSafeBlockAccessor getBlockAccessor() {
     return blockAccessor;
   }
+
+  public ChunkStamps getChunkStamps() {
+    return chunkStamps;
+  }
 }
@@ -0,0 +1,289 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.bukkit.listener;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import net.whimxiqal.journey.Journey;
+import net.whimxiqal.journey.bukkit.JourneyBukkit;
+import net.whimxiqal.journey.bukkit.util.BukkitUtil;
+import net.whimxiqal.journey.data.PathChunks;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.data.Openable;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.Action;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockFormEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockGrowEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.block.BlockRedstoneEvent;
+import org.bukkit.event.block.BlockSpreadEvent;
+import org.bukkit.event.block.LeavesDecayEvent;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+
+public class BlockChangeListener implements Listener {
+
+  /**
+   * An event handler for when a player places a block.
+   * Any routes cached across the block's chunk may no longer be possible.
+   *
+   * @param e the event
+   */
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onBlockPlace(BlockPlaceEvent e) {
+    blockChanged(e.getBlock());
+  }
+
+  /**
+   * An event handler for when a player breaks a block.
+   * Any routes cached across the block's chunk may no longer be the best ones.
+   *
+   * @param e the event
+   */
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onBlockBreak(BlockBreakEvent e) {
+    blockChanged(e.getBlock());
+  }
+
+  /**
+   * An event handler for when an entity, like a creeper or TNT, explodes.
+   *
+   * @param e the event
+   */
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onEntityExplode(EntityExplodeEvent e) {
+    blocksChanged(e.getLocation().getWorld(), e.blockList());
+  }
+
+  /**
+   * An event handler for when a block, like a bed in the nether, explodes.
+   *
+   * @param e the event
+   */
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onBlockExplode(BlockExplodeEvent e) {
+    blockChanged(e.getBlock());
+    blocksChanged(e.getBlock().getWorld(), e.blockList());
+  }
+
+  /**
+   * An event handler for when a piston pushes blocks.
+   * The pushed blocks change both where they were and where they end up.
+   *
+   * @param e the event
+   */
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onPistonExtend(BlockPistonExtendEvent e) {
+    pistonMoved(e.getBlock(), e.getBlocks(), e.getDirection());
+  }
+
+  /**
+   * An event handler for when a piston pulls blocks.
+   *
+   * @param e the event
+   */
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onPistonRetract(BlockPistonRetractEvent e) {
+    pistonMoved(e.getBlock(), e.getBlocks(), e.getDirection());
+  }
+
+  /**
+   * An event handler for when a block burns away.
+   *
+   * @param e the event
+   */
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onBlockBurn(BlockBurnEvent e) {
+    blockChanged(e.getBlock());
+  }
+
+  /**
+   * An event handler for when an entity changes a block, like an enderman or a falling block.
+   *
+   * @param e the event
+   */
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onEntityChangeBlock(EntityChangeBlockEvent e) {
+    blockChanged(e.getBlock());
+  }
+
+  /**
+   * An event handler for when liquid flows, or a dragon egg teleports.
+   * This happens all the time, so cached routes are only checked again instead of forgotten.
+   *
+   * @param e the event
+   */
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onBlockFromTo(BlockFromToEvent e) {
+    blockTouched(e.getBlock());
+    blockTouched(e.getToBlock());
+  }
+
+  /**
+   * An event handler for when a block fades, like ice melting or fire burning out.
+   *
+   * @param e the event
+   */
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onBlockFade(BlockFadeEvent e) {
+    blockTouched(e.getBlock());
+  }
+
+  /**
+   * An event handler for when a block forms, like snow falling or concrete hardening.
+   *
+   * @param e the event
+   */
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onBlockForm(BlockFormEvent e) {
+    blockTouched(e.getBlock());
+  }
+
+  /**
+   * An event handler for when a block spreads, like fire or vines.
+   *
+   * @param e the event
+   */
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onBlockSpread(BlockSpreadEvent e) {
+    blockTouched(e.getBlock());
+  }
+
+  /**
+   * An event handler for when a plant grows.
+   *
+   * @param e the event
+   */
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onBlockGrow(BlockGrowEvent e) {
+    blockTouched(e.getBlock());
+  }
+
+  /**
+   * An event handler for when leaves decay.
+   *
+   * @param e the event
+   */
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onLeavesDecay(LeavesDecayEvent e) {
+    blockTouched(e.getBlock());
+  }
+
+  /**
+   * An event handler for when redstone power changes.
+   * Only doors, trapdoors and gates that are switched on or off matter.
+   *
+   * @param e the event
+   */
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onBlockRedstone(BlockRedstoneEvent e) {
+    if ((e.getOldCurrent() > 0) != (e.getNewCurrent() > 0) && e.getBlock().getBlockData() instanceof Openable) {
+      blockTouched(e.getBlock());
+    }
+  }
+
+  /**
+   * An event handler for when a player opens or closes a door, trapdoor or gate.
+   *
+   * @param e the event
+   */
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onPlayerInteract(PlayerInteractEvent e) {
+    Block clicked = e.getClickedBlock();
+    if (e.getAction() == Action.RIGHT_CLICK_BLOCK
+        && e.useInteractedBlock() != Event.Result.DENY
+        && clicked != null
+        && clicked.getBlockData() instanceof Openable) {
+      blockTouched(clicked);
+    }
+  }
+
+  private void pistonMoved(Block piston, List<Block> moved, BlockFace direction) {
+    Set<Long> chunks = new HashSet<>();
+    // the piston head moves too
+    Block head = piston.getRelative(direction);
+    chunks.add(PathChunks.key(head.getX() >> 4, head.getZ() >> 4));
+    for (Block block : moved) {
+      chunks.add(PathChunks.key(block.getX() >> 4, block.getZ() >> 4));
+      Block destination = block.getRelative(direction);
+      chunks.add(PathChunks.key(destination.getX() >> 4, destination.getZ() >> 4));
+    }
+    chunksChanged(piston.getWorld(), chunks);
+  }
+
+  private void blocksChanged(World world, List<Block> blocks) {
+    if (world == null || blocks.isEmpty()) {
+      return;
+    }
+    Set<Long> chunks = new HashSet<>();
+    for (Block block : blocks) {
+      chunks.add(PathChunks.key(block.getX() >> 4, block.getZ() >> 4));
+    }
+    chunksChanged(world, chunks);
+  }
+
+  private void blockChanged(Block block) {
+    chunkChanged(BukkitUtil.getDomain(block.getWorld()), block.getX() >> 4, block.getZ() >> 4);
+  }
+
+  private void chunksChanged(World world, Set<Long> chunks) {
+    int domain = BukkitUtil.getDomain(world);
+    for (long chunk : chunks) {
+      chunkChanged(domain, PathChunks.chunkX(chunk), PathChunks.chunkZ(chunk));
+    }
+  }
+
+  /**
+   * Record a change that happens too often to forget cached routes over, but may still change what is passable.
+   * Cached routes across the chunk are checked again the next time they are used.
+   */
+  private void blockTouched(Block block) {
+    int domain = BukkitUtil.getDomain(block.getWorld());
+    int chunkX = block.getX() >> 4;
+    int chunkZ = block.getZ() >> 4;
+    JourneyBukkit.get().getChunkStamps().bump(domain, chunkX, chunkZ);
+    Journey.get().chunkGraphCache().invalidate(domain, chunkX, chunkZ);
+  }
+
+  private void chunkChanged(int domain, int chunkX, int chunkZ) {
+    JourneyBukkit.get().getChunkStamps().bump(domain, chunkX, chunkZ);
+    Journey.get().chunkGraphCache().invalidate(domain, chunkX, chunkZ);
+    Journey.get().dataManager().pathRecordManager().invalidateChunk(domain, chunkX, chunkZ);
+  }
+
+}
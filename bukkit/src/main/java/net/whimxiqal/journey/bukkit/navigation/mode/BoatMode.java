@@ -23,12 +23,9 @@
 
 package net.whimxiqal.journey.bukkit.navigation.mode;
 
-import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.navigation.ModeType;
 import net.whimxiqal.journey.search.SearchSession;
-import java.util.List;
 import java.util.Set;
-import net.whimxiqal.journey.bukkit.util.BukkitUtil;
 import org.bukkit.Material;
 import org.jetbrains.annotations.NotNull;
 
@@ -50,8 +47,7 @@ public final class BoatMode extends BukkitMode {
     }
 
     @Override
-    protected void collectDestinations(@NotNull Cell origin, @NotNull List<Option> options) {
-        Cell cell;
+    protected void collectDestinations(int domain, int x, int y, int z, @NotNull OptionSink sink) {
         for (int offX = -1; offX <= 1; offX++) {
             outerZ:
             for (int offZ = -1; offZ <= 1; offZ++) {
@@ -63,11 +59,11 @@ public final class BoatMode extends BukkitMode {
                             continue;
                         }
                         for (int offY = 0; offY <= 1; offY++) { // Check two blocks tall
-                            cell = origin.atOffset(insideOffX * offX /* get sign back */,
-                                    offY - 1,
-                                    insideOffZ * offZ /*get sign back */);
-                            if (!isLaterallyPassable(BukkitUtil.getBlock(cell))) {
-                                reject(cell);
+                            int cellX = x + insideOffX * offX /* get sign back */;
+                            int cellY = y + offY - 1;
+                            int cellZ = z + insideOffZ * offZ /*get sign back */;
+                            if (!isLaterallyPassable(domain, cellX, cellY, cellZ)) {
+                                reject(domain, cellX, cellY, cellZ);
                                 continue outerZ;  // Barrier - invalid move
                             }
                         }
@@ -75,12 +71,11 @@ public final class BoatMode extends BukkitMode {
                 }
 
                 // We can move to offX and offY laterally
-                cell = origin.atOffset(offX, 0, offZ);
-                if (BukkitUtil.getBlock(cell.atOffset(0, -1, 0)).getMaterial() == Material.WATER) {
+                if (isWater(domain, x + offX, y - 1, z + offZ)) {
                     // We can boat on it
-                    accept(cell, origin.distanceTo(cell) * DISTANCE_MULTIPLIER, options);
+                    accept(domain, x + offX, y, z + offZ, distance(offX, 0, offZ) * DISTANCE_MULTIPLIER, sink);
                 } else {
-                    reject(cell);
+                    reject(domain, x + offX, y, z + offZ);
                 }
             }
         }
@@ -23,12 +23,15 @@
 
 package net.whimxiqal.journey.bukkit.navigation.mode;
 
+import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.navigation.Mode;
 import net.whimxiqal.journey.search.SearchSession;
+import net.whimxiqal.journey.bukkit.util.BlockFlags;
 import net.whimxiqal.journey.bukkit.util.BukkitUtil;
+import java.util.List;
 import java.util.Set;
 import org.bukkit.Material;
-import org.bukkit.block.data.BlockData;
+import org.jetbrains.annotations.NotNull;
 
 /**
  * A general implementation of modes used in Spigot Minecraft.
@@ -48,26 +51,80 @@ public abstract class BukkitMode extends Mode {
     this.forcePassable = forcePassable;
   }
 
-  // TODO move all of these methods into a static file
-  //  and possibly get it from Baritone
-  protected boolean isVerticallyPassable(BlockData block) {
-    return BukkitUtil.isVerticallyPassable(block, forcePassable);
+  @Override
+  public @NotNull Object behaviorKey() {
+    return List.of(type(), forcePassable);
   }
 
-  protected boolean isLaterallyPassable(BlockData block) {
-    return BukkitUtil.isLaterallyPassable(block, forcePassable);
+  /**
+   * Get the {@link BlockFlags} of the block at a location, considering the materials this mode may pass through.
+   *
+   * @param cell the location
+   * @return the flags
+   */
+  protected int flags(Cell cell) {
+    return flags(cell.domain(), cell.blockX(), cell.blockY(), cell.blockZ());
   }
 
-  protected boolean isPassable(BlockData block) {
-    return BukkitUtil.isPassable(block, forcePassable);
+  /**
+   * Get the {@link BlockFlags} of the block at a location, considering the materials this mode may pass through.
+   *
+   * @param domain the domain
+   * @param x      the x coordinate
+   * @param y      the y coordinate
+   * @param z      the z coordinate
+   * @return the flags
+   */
+  protected int flags(int domain, int x, int y, int z) {
+    return BukkitUtil.getFlags(domain, x, y, z, forcePassable);
   }
 
-  protected boolean canStandOn(BlockData block) {
-    return BukkitUtil.canStandOn(block, forcePassable);
+  protected boolean isVerticallyPassable(int domain, int x, int y, int z) {
+    return BlockFlags.has(flags(domain, x, y, z), BlockFlags.VERTICALLY_PASSABLE);
   }
 
-  protected boolean canStandIn(BlockData block) {
-    return BukkitUtil.canStandIn(block, forcePassable);
+  protected boolean isLaterallyPassable(int domain, int x, int y, int z) {
+    return BlockFlags.has(flags(domain, x, y, z), BlockFlags.LATERALLY_PASSABLE);
+  }
+
+  protected boolean isPassable(int domain, int x, int y, int z) {
+    return BlockFlags.has(flags(domain, x, y, z), BlockFlags.PASSABLE);
+  }
+
+  protected boolean isPassable(Cell cell) {
+    return isPassable(cell.domain(), cell.blockX(), cell.blockY(), cell.blockZ());
+  }
+
+  protected boolean canStandOn(int domain, int x, int y, int z) {
+    return BlockFlags.has(flags(domain, x, y, z), BlockFlags.CAN_STAND_ON);
+  }
+
+  protected boolean canStandIn(int domain, int x, int y, int z) {
+    return BlockFlags.canStandIn(flags(domain, x, y, z));
+  }
+
+  protected boolean isWater(int domain, int x, int y, int z) {
+    return BlockFlags.has(flags(domain, x, y, z), BlockFlags.WATER);
+  }
+
+  protected boolean isDoor(int domain, int x, int y, int z) {
+    return BlockFlags.has(flags(domain, x, y, z), BlockFlags.DOOR);
+  }
+
+  protected boolean isClimbable(int domain, int x, int y, int z) {
+    return BlockFlags.has(flags(domain, x, y, z), BlockFlags.CLIMBABLE);
+  }
+
+  /**
+   * The distance between a location and another one offset from it.
+   *
+   * @param offX the offset along x
+   * @param offY the offset along y
+   * @param offZ the offset along z
+   * @return the cartesian distance
+   */
+  protected static double distance(int offX, int offY, int offZ) {
+    return Math.sqrt(offX * offX + offY * offY + offZ * offZ);
   }
 
 }
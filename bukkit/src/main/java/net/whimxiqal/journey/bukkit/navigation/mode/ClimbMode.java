@@ -23,14 +23,9 @@
 
 package net.whimxiqal.journey.bukkit.navigation.mode;
 
-import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.navigation.ModeType;
 import net.whimxiqal.journey.search.SearchSession;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
-import net.whimxiqal.journey.bukkit.util.BukkitUtil;
 import org.bukkit.Material;
 import org.jetbrains.annotations.NotNull;
 
@@ -40,8 +35,6 @@ import org.jetbrains.annotations.NotNull;
  */
 public final class ClimbMode extends BukkitMode {
 
-  private static final Set<Material> climbable = new HashSet<>(Arrays.asList(Material.LADDER, Material.VINE));
-
   /**
    * General constructor.
    *
@@ -52,33 +45,33 @@ public final class ClimbMode extends BukkitMode {
   }
 
   @Override
-  protected void collectDestinations(@NotNull Cell origin, @NotNull List<Option> options) {
+  protected void collectDestinations(int domain, int x, int y, int z, @NotNull OptionSink sink) {
 
     // TODO we have to make sure that the ladders and vines are oriented correctly
     //  and that the vines have a solid block behind it
-    tryToClimbAdjacent(origin.atOffset(1, 0, 0), options);
-    tryToClimbAdjacent(origin.atOffset(-1, 0, 0), options);
-    tryToClimbAdjacent(origin.atOffset(0, 0, 1), options);
-    tryToClimbAdjacent(origin.atOffset(0, 0, -1), options);
-    tryToClimbAdjacent(origin.atOffset(0, -1, 0), options);
+    tryToClimbAdjacent(domain, x + 1, y, z, sink);
+    tryToClimbAdjacent(domain, x - 1, y, z, sink);
+    tryToClimbAdjacent(domain, x, y, z + 1, sink);
+    tryToClimbAdjacent(domain, x, y, z - 1, sink);
+    tryToClimbAdjacent(domain, x, y - 1, z, sink);
 
     // Going up is a different story
-    if (climbable.contains(BukkitUtil.getBlock(origin).getMaterial())) {
-      if (isVerticallyPassable(BukkitUtil.getBlock(origin.atOffset(0, 1, 0)))
-          && isVerticallyPassable(BukkitUtil.getBlock(origin.atOffset(0, 2, 0)))) {
-        accept(origin.atOffset(0, 1, 0), 1.0d, options);
+    if (isClimbable(domain, x, y, z)) {
+      if (isVerticallyPassable(domain, x, y + 1, z)
+          && isVerticallyPassable(domain, x, y + 2, z)) {
+        accept(domain, x, y + 1, z, 1.0d, sink);
       } else {
-        reject(origin.atOffset(0, 1, 0));
+        reject(domain, x, y + 1, z);
       }
     }
 
   }
 
-  private void tryToClimbAdjacent(Cell cell, List<Option> options) {
-    if (climbable.contains(BukkitUtil.getBlock(cell).getMaterial())) {
-      accept(cell, 1.0d, options);
+  private void tryToClimbAdjacent(int domain, int x, int y, int z, OptionSink sink) {
+    if (isClimbable(domain, x, y, z)) {
+      accept(domain, x, y, z, 1.0d, sink);
     } else {
-      reject(cell);
+      reject(domain, x, y, z);
     }
   }
 
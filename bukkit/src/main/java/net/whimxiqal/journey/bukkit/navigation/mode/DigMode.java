@@ -23,10 +23,7 @@
 
 package net.whimxiqal.journey.bukkit.navigation.mode;
 
-import java.util.List;
 import java.util.Set;
-import net.whimxiqal.journey.Cell;
-import net.whimxiqal.journey.navigation.Mode;
 import net.whimxiqal.journey.navigation.ModeType;
 import net.whimxiqal.journey.search.SearchSession;
 import net.whimxiqal.journey.bukkit.util.BukkitUtil;
@@ -48,13 +45,12 @@ public class DigMode extends BukkitMode {
   }
 
   @Override
-  protected void collectDestinations(@NotNull Cell origin, @NotNull List<Mode.Option> options) {
+  protected void collectDestinations(int domain, int x, int y, int z, @NotNull OptionSink sink) {
     // Can we even stand here?
-    if (!canStandOn(BukkitUtil.getBlock(origin.atOffset(0, -1, 0)))
-        && !canStandIn(BukkitUtil.getBlock(origin.atOffset(0, 0, 0)))) {
+    if (!canStandOn(domain, x, y - 1, z)
+        && !canStandIn(domain, x, y, z)) {
       return;
     }
-    Cell cell;
     // Check every block in a 3x3 grid centered around the current location
     for (int offX = -1; offX <= 1; offX++) {
       for (int offY = -1; offY <= 1; offY++) {
@@ -77,41 +73,39 @@ public class DigMode extends BukkitMode {
                   continue;
                 }
                 // Make sure we get the pillar of y values for the player's body
-                cell = origin.atOffset(// Floor
-                    insideOffX * offX /* get sign back */,
-                    insideOffY * offY /* get sign back */,
-                    insideOffZ * offZ /* get sign back */);
-                if (!isLaterallyPassable(BukkitUtil.getBlock(cell))) {
+                int cellX = x + insideOffX * offX /* get sign back */;
+                int cellZ = z + insideOffZ * offZ /* get sign back */;
+                int floorY = y + insideOffY * offY /* get sign back */;
+                if (!isLaterallyPassable(domain, cellX, floorY, cellZ)) {
                   // we must break it
-                  if (BukkitUtil.getBlock(cell).getMaterial().getHardness() < 0) {
-                    reject(cell);
+                  float hardness = BukkitUtil.getBlock(domain, cellX, floorY, cellZ).getMaterial().getHardness();
+                  if (hardness < 0) {
+                    reject(domain, cellX, floorY, cellZ);
                     continue outerZ;
                   } else {
-                    digTime += BukkitUtil.getBlock(cell).getMaterial().getHardness();
+                    digTime += hardness;
                   }
                 }
                 for (int h = 0; h <= insideOffY; h++) {
                   // The rest of the pillar above the floor
-                  cell = origin.atOffset(
-                      insideOffX * offX /* get sign back */,
-                      ((insideOffY * offY + insideOffY) >> 1) /* 1 for positive, 0 for negative */
-                          + h
-                          + (1 - insideOffY) /* for if offYIn is 0 */,
-                      insideOffZ * offZ /* get sign back */);
-                  if (!isPassable(BukkitUtil.getBlock(cell))) {
-                    if (BukkitUtil.getBlock(cell).getMaterial().getHardness() < 0) {
-                      reject(cell);
+                  int cellY = y
+                      + ((insideOffY * offY + insideOffY) >> 1) /* 1 for positive, 0 for negative */
+                      + h
+                      + (1 - insideOffY) /* for if offYIn is 0 */;
+                  if (!isPassable(domain, cellX, cellY, cellZ)) {
+                    float hardness = BukkitUtil.getBlock(domain, cellX, cellY, cellZ).getMaterial().getHardness();
+                    if (hardness < 0) {
+                      reject(domain, cellX, cellY, cellZ);
                       continue outerZ;
                     } else {
-                      digTime += BukkitUtil.getBlock(cell).getMaterial().getHardness();
+                      digTime += hardness;
                     }
                   }
                 }
               }
             }
           }
-          Cell other = origin.atOffset(offX, offY, offZ);
-          accept(other, origin.distanceTo(other) + digTime * DIG_COST_MULTIPLIER, options);
+          accept(domain, x + offX, y + offY, z + offZ, distance(offX, offY, offZ) + digTime * DIG_COST_MULTIPLIER, sink);
         }
       }
     }
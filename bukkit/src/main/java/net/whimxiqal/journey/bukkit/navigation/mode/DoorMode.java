@@ -23,9 +23,7 @@
 
 package net.whimxiqal.journey.bukkit.navigation.mode;
 
-import java.util.List;
 import java.util.Set;
-import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.navigation.ModeType;
 import net.whimxiqal.journey.search.SearchSession;
 import net.whimxiqal.journey.bukkit.util.BukkitUtil;
@@ -53,155 +51,53 @@ public final class DoorMode extends BukkitMode {
   }
 
   @Override
-  public void collectDestinations(@NotNull Cell origin, @NotNull List<Option> options) {
+  public void collectDestinations(int domain, int x, int y, int z, @NotNull OptionSink sink) {
     // TODO check if there are buttons or levers nearby that may open the door
 
-    Cell cell;
-    BlockData block;
     // Pos X - East
-    cell = origin.atOffset(1, 0, 0);
-    block = BukkitUtil.getBlock(cell);
-    // Check if we found a door
-    if (block instanceof Door) {
-      // Check it's a solid floor
-      if (!isVerticallyPassable(BukkitUtil.getBlock(origin.atOffset(1, -1, 0)))) {
-        Door doorBlock = (Door) block;
-        if (block.getMaterial().equals(Material.IRON_DOOR)) {
-          // Need to check if the door is blocking
-          if (doorBlock.getFacing().equals(BlockFace.NORTH)
-              || doorBlock.getFacing().equals(BlockFace.SOUTH)
-              || doorBlock.isOpen()) {
-            // Nothing blocking
-            accept(origin.atOffset(1, 0, 0), 1.0d, options);
-          } else {
-            // We need to be able to open the door
-            if (MaterialGroups.PRESSURE_PLATES.contains(BukkitUtil.getBlock(origin).getMaterial())) {
-              // We can step on a pressure plate to open it
-              accept(origin.atOffset(1, 0, 0), 1.0d, options);
-            } else {
-              reject(origin.atOffset(1, 0, 0));
-            }
-          }
-          //  If it is blocking, then see if you can open with a switch or something
-        } else {
-          // It's not iron, so its passable
-          accept(origin.atOffset(1, 0, 0), 1.0d, options);
-        }
-      } else {
-        reject(origin.atOffset(1, -1, 0));
-      }
-    } else {
-      reject(cell);
-    }
-
+    tryDoor(domain, x, y, z, 1, 0, sink);
     // Pos Z - North
-    cell = origin.atOffset(0, 0, 1);
-    block = BukkitUtil.getBlock(cell);
-    // Check if we found a door
-    if (block instanceof Door) {
-      // Check it's a solid floor
-      if (!isVerticallyPassable(BukkitUtil.getBlock(origin.atOffset(0, -1, 1)))) {
-        Door doorBlock = (Door) block;
-        if (block.getMaterial().equals(Material.IRON_DOOR)) {
-          // Need to check if the door is blocking
-          if (doorBlock.getFacing().equals(BlockFace.EAST)
-              || doorBlock.getFacing().equals(BlockFace.WEST)
-              || doorBlock.isOpen()) {
-            // Nothing blocking
-            accept(origin.atOffset(0, 0, 1), 1.0d, options);
-          } else {
-            // We need to be able to open the door
-            if (MaterialGroups.PRESSURE_PLATES.contains(BukkitUtil.getBlock(origin).getMaterial())) {
-              // We can step on a pressure plate to open it
-              accept(origin.atOffset(0, 0, 1), 1.0d, options);
-            } else {
-              reject(origin.atOffset(0, 0, 1));
-            }
-          }
-          //  If it is blocking, then see if you can open with a switch or something
-        } else {
-          // It's not iron, so its passable
-          accept(origin.atOffset(0, 0, 1), 1.0d, options);
-        }
-      } else {
-        reject(origin.atOffset(0, -1, 1));
-      }
-    } else {
-      reject(cell);
-    }
-
+    tryDoor(domain, x, y, z, 0, 1, sink);
     // Neg X - West
-    cell = origin.atOffset(-1, 0, 0);
-    block = BukkitUtil.getBlock(cell);
-    // Check if we found a door
-    if (block instanceof Door) {
-      // Check it's a solid floor
-      if (!isVerticallyPassable(BukkitUtil.getBlock(origin.atOffset(-1, -1, 0)))) {
-        Door doorBlock = (Door) block;
-        if (block.getMaterial().equals(Material.IRON_DOOR)) {
-          // Need to check if the door is blocking
-          if (doorBlock.getFacing().equals(BlockFace.NORTH)
-              || doorBlock.getFacing().equals(BlockFace.SOUTH)
-              || doorBlock.isOpen()) {
-            // Nothing blocking
-            accept(origin.atOffset(-1, 0, 0), 1.0d, options);
-          } else {
-            // We need to be able to open the door
-            if (MaterialGroups.PRESSURE_PLATES.contains(BukkitUtil.getBlock(origin).getMaterial())) {
-              // We can step on a pressure plate to open it
-              accept(origin.atOffset(-1, 0, 0), 1.0d, options);
-            } else {
-              reject(origin.atOffset(-1, 0, 0));
-            }
-          }
-          //  If it is blocking, then see if you can open with a switch or something
-        } else {
-          // It's not iron, so its passable
-          accept(origin.atOffset(-1, 0, 0), 1.0d, options);
-        }
-      } else {
-        reject(origin.atOffset(-1, -1, 0));
-      }
-    } else {
-      reject(cell);
-    }
-
+    tryDoor(domain, x, y, z, -1, 0, sink);
     // Neg Z - South
-    cell = origin.atOffset(0, 0, -1);
-    block = BukkitUtil.getBlock(cell);
+    tryDoor(domain, x, y, z, 0, -1, sink);
+  }
+
+  private void tryDoor(int domain, int x, int y, int z, int offX, int offZ, OptionSink sink) {
+    int doorX = x + offX;
+    int doorZ = z + offZ;
     // Check if we found a door
-    if (block instanceof Door) {
-      // Check it's a solid floor
-      if (!isVerticallyPassable(BukkitUtil.getBlock(origin.atOffset(0, -1, -1)))) {
-        Door doorBlock = (Door) block;
-        if (block.getMaterial().equals(Material.IRON_DOOR)) {
-          // Need to check if the door is blocking
-          if (doorBlock.getFacing().equals(BlockFace.EAST)
-              || doorBlock.getFacing().equals(BlockFace.WEST)
-              || doorBlock.isOpen()) {
-            // Nothing blocking
-            accept(origin.atOffset(0, 0, -1), 1.0d, options);
-          } else {
-            // We need to be able to open the door
-            if (MaterialGroups.PRESSURE_PLATES.contains(BukkitUtil.getBlock(origin).getMaterial())) {
-              // We can step on a pressure plate to open it
-              accept(origin.atOffset(0, 0, -1), 1.0d, options);
-            } else {
-              reject(origin.atOffset(0, 0, -1));
-            }
-          }
-          //  If it is blocking, then see if you can open with a switch or something
-        } else {
-          // It's not iron, so its passable
-          accept(origin.atOffset(0, 0, -1), 1.0d, options);
-        }
-      } else {
-        reject(origin.atOffset(0, -1, -1));
-      }
+    if (!isDoor(domain, doorX, y, doorZ)) {
+      reject(domain, doorX, y, doorZ);
+      return;
+    }
+    // Check it's a solid floor
+    if (isVerticallyPassable(domain, doorX, y - 1, doorZ)) {
+      reject(domain, doorX, y - 1, doorZ);
+      return;
+    }
+    BlockData block = BukkitUtil.getBlock(domain, doorX, y, doorZ);
+    if (!block.getMaterial().equals(Material.IRON_DOOR)) {
+      // It's not iron, so its passable
+      accept(domain, doorX, y, doorZ, 1.0d, sink);
+      return;
+    }
+    // Need to check if the door is blocking, which it does if it faces the way we are going
+    Door doorBlock = (Door) block;
+    boolean blocking = offX != 0
+        ? doorBlock.getFacing().equals(BlockFace.EAST) || doorBlock.getFacing().equals(BlockFace.WEST)
+        : doorBlock.getFacing().equals(BlockFace.NORTH) || doorBlock.getFacing().equals(BlockFace.SOUTH);
+    if (!blocking || doorBlock.isOpen()) {
+      // Nothing blocking
+      accept(domain, doorX, y, doorZ, 1.0d, sink);
+    } else if (MaterialGroups.PRESSURE_PLATES.contains(BukkitUtil.getBlock(domain, x, y, z).getMaterial())) {
+      // We can step on a pressure plate to open it
+      accept(domain, doorX, y, doorZ, 1.0d, sink);
     } else {
-      reject(cell);
+      //  If it is blocking, then see if you can open with a switch or something
+      reject(domain, doorX, y, doorZ);
     }
-
   }
 
   @Override
@@ -23,12 +23,9 @@
 
 package net.whimxiqal.journey.bukkit.navigation.mode;
 
-import java.util.List;
 import java.util.Set;
-import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.navigation.ModeType;
 import net.whimxiqal.journey.search.SearchSession;
-import net.whimxiqal.journey.bukkit.util.BukkitUtil;
 import org.bukkit.Material;
 import org.jetbrains.annotations.NotNull;
 
@@ -49,8 +46,7 @@ public class FlyMode extends BukkitMode {
   }
 
   @Override
-  public void collectDestinations(@NotNull Cell origin, @NotNull List<Option> options) {
-    Cell cell;
+  public void collectDestinations(int domain, int x, int y, int z, @NotNull OptionSink sink) {
     // Check every block in a 3x3 grid centered around the current location
     for (int offX = -1; offX <= 1; offX++) {
       for (int offY = -1; offY <= 1; offY++) {
@@ -68,38 +64,41 @@ public class FlyMode extends BukkitMode {
                   continue;
                 }
                 // Make sure we get the pillar of y values for the player's body
-                cell = origin.atOffset(// Floor
-                    insideOffX * offX /* get sign back */,
-                    insideOffY * offY /* get sign back */,
-                    insideOffZ * offZ /* get sign back */);
-                if (!isLaterallyPassable(BukkitUtil.getBlock(cell))) {
-                  reject(cell);
+                int cellX = x + insideOffX * offX /* get sign back */;
+                int cellZ = z + insideOffZ * offZ /* get sign back */;
+                int floorY = y + insideOffY * offY /* get sign back */;
+                if (!isLaterallyPassable(domain, cellX, floorY, cellZ)) {
+                  reject(domain, cellX, floorY, cellZ);
                   continue outerZ;
                 }
                 for (int h = 0; h <= insideOffY; h++) {
                   // The rest of the pillar above the floor
-                  cell = origin.atOffset(
-                      insideOffX * offX /* get sign back */,
-                      ((insideOffY * offY + insideOffY) >> 1) /* 1 for positive, 0 for negative */
-                          + h
-                          + (1 - insideOffY) /* for if offYIn is 0 */,
-                      insideOffZ * offZ /* get sign back */);
-                  if (!isPassable(BukkitUtil.getBlock(cell))) {
-                    reject(cell);
+                  int cellY = y
+                      + ((insideOffY * offY + insideOffY) >> 1) /* 1 for positive, 0 for negative */
+                      + h
+                      + (1 - insideOffY) /* for if offYIn is 0 */;
+                  if (!isPassable(domain, cellX, cellY, cellZ)) {
+                    reject(domain, cellX, cellY, cellZ);
                     continue outerZ;
                   }
                 }
               }
             }
           }
-          Cell other = origin.atOffset(offX, offY, offZ);
-          accept(other, origin.distanceTo(other), options);
+          accept(domain, x + offX, y + offY, z + offZ, distance(offX, offY, offZ), sink);
         }
       }
     }
 
   }
 
+  @Override
+  public boolean isReversible() {
+    // Moves check the same volume in either direction, apart from the end cells,
+    //  and backwards moves are verified before they are used
+    return true;
+  }
+
   @Override
   public @NotNull ModeType type() {
     return ModeType.FLY;
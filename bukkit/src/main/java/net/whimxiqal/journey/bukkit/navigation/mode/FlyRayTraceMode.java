@@ -23,7 +23,6 @@
 
 package net.whimxiqal.journey.bukkit.navigation.mode;
 
-import java.util.List;
 import java.util.Set;
 import net.whimxiqal.journey.Journey;
 import net.whimxiqal.journey.Cell;
@@ -48,7 +47,8 @@ public class FlyRayTraceMode extends RayTraceMode {
     return Journey.get().proxy().platform().isAtSurface(origin);
   }
 
-  protected void finish(Cell origin, Cell destination, List<Option> options) {
-    options.add(Option.between(origin, destination, 1));
+  @Override
+  protected void finish(Cell origin, Cell destination, OptionSink sink) {
+    sink.accept(destination.blockX(), destination.blockY(), destination.blockZ(), origin.distanceTo(destination));
   }
 }
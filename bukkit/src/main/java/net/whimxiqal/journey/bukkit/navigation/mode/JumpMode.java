@@ -23,11 +23,9 @@
 
 package net.whimxiqal.journey.bukkit.navigation.mode;
 
-import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.navigation.Mode;
 import net.whimxiqal.journey.navigation.ModeType;
 import net.whimxiqal.journey.search.SearchSession;
-import java.util.List;
 import java.util.Set;
 import net.whimxiqal.journey.bukkit.util.BukkitUtil;
 import net.whimxiqal.journey.bukkit.util.MaterialGroups;
@@ -51,24 +49,20 @@ public class JumpMode extends BukkitMode {
   }
 
   @Override
-  public void collectDestinations(@NotNull Cell origin, @NotNull List<Option> options) {
-    Cell cell;
-
-    cell = origin.atOffset(0, -1, 0);
-    if (isVerticallyPassable(BukkitUtil.getBlock(cell))) {
+  public void collectDestinations(int domain, int x, int y, int z, @NotNull OptionSink sink) {
+    if (isVerticallyPassable(domain, x, y - 1, z)) {
       // Nothing to jump off of
-      reject(cell);
+      reject(domain, x, y - 1, z);
       return;
     }
 
-    cell = origin.atOffset(0, 2, 0);
-    if (!isVerticallyPassable(BukkitUtil.getBlock(cell))) {
+    if (!isVerticallyPassable(domain, x, y + 2, z)) {
       // No room to jump
-      reject(cell);
+      reject(domain, x, y + 2, z);
       return;
     }
     // 1 block up
-    accept(origin.atOffset(0, 1, 0), 1.0d, options);
+    accept(domain, x, y + 1, z, 1.0d, sink);
 
     // 1 block away and up
     for (int offX = -1; offX <= 1; offX++) {
@@ -80,36 +74,29 @@ public class JumpMode extends BukkitMode {
               continue;
             }
             // Check two blocks tall
-            cell = origin.atOffset(
-                insideOffX * offX /* get sign back */,
-                1,
-                insideOffZ * offZ /* get sign back */);
-            if (!isLaterallyPassable(BukkitUtil.getBlock(cell))) {
-              reject(cell);
+            int cellX = x + insideOffX * offX /* get sign back */;
+            int cellZ = z + insideOffZ * offZ /* get sign back */;
+            if (!isLaterallyPassable(domain, cellX, y + 1, cellZ)) {
+              reject(domain, cellX, y + 1, cellZ);
               continue outerZ;
             }
-            cell = origin.atOffset(
-                insideOffX * offX /* get sign back */,
-                2,
-                insideOffZ * offZ /* get sign back */);
-            if (!isPassable(BukkitUtil.getBlock(cell))) {
-              reject(cell);
+            if (!isPassable(domain, cellX, y + 2, cellZ)) {
+              reject(domain, cellX, y + 2, cellZ);
               continue outerZ;
             }
           }
         }
-        double jumpDistance = MaterialGroups.height(BukkitUtil.getBlock(origin.atOffset(offX, 1, offZ)).getMaterial())
+        double jumpDistance = MaterialGroups.height(BukkitUtil.getBlock(domain, x + offX, y + 1, z + offZ).getMaterial())
             + 1.0
-            - (MaterialGroups.isPassable(BukkitUtil.getBlock(origin.atOffset(0, 0, 0)).getMaterial())
-            ? MaterialGroups.height(BukkitUtil.getBlock(origin.atOffset(0, -1, 0)).getMaterial()) - 1
-            : MaterialGroups.height(BukkitUtil.getBlock(origin.atOffset(0, 0, 0)).getMaterial()));
-        Cell other = origin.atOffset(offX, 1, offZ);
-        if (!isVerticallyPassable(BukkitUtil.getBlock(origin.atOffset(offX, 0, offZ)))
+            - (MaterialGroups.isPassable(BukkitUtil.getBlock(domain, x, y, z).getMaterial())
+            ? MaterialGroups.height(BukkitUtil.getBlock(domain, x, y - 1, z).getMaterial()) - 1
+            : MaterialGroups.height(BukkitUtil.getBlock(domain, x, y, z).getMaterial()));
+        if (!isVerticallyPassable(domain, x + offX, y, z + offZ)
             && jumpDistance <= 1.2) {
           // Can stand here
-          accept(other, origin.distanceTo(other), options);
+          accept(domain, x + offX, y + 1, z + offZ, distance(offX, 1, offZ), sink);
         } else {
-          reject(other);
+          reject(domain, x + offX, y + 1, z + offZ);
         }
       }
     }
@@ -23,7 +23,6 @@
 
 package net.whimxiqal.journey.bukkit.navigation.mode;
 
-import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
@@ -65,8 +64,14 @@ public abstract class RayTraceMode extends BukkitMode {
   }
 
   @Override
-  protected void collectDestinations(@NotNull Cell origin, @NotNull List<Option> options) {
-    if (origin.domain() != domain) {
+  public @NotNull Object behaviorKey() {
+    return this;  // options depend on the destination
+  }
+
+  @Override
+  protected void collectDestinations(int domain, int originX, int originY, int originZ, @NotNull OptionSink sink) {
+    Cell origin = new Cell(originX, originY, originZ, domain);
+    if (domain != this.domain) {
       return;  // this can only be used when we're in the correct world
     }
     if (origin.equals(destinationCell)) {
@@ -135,10 +140,10 @@ public abstract class RayTraceMode extends BukkitMode {
     if (result.get().equals(origin)) {
       return;
     }
-    if (!isPassable(BukkitUtil.getBlock(result.get())) || !isPassable(BukkitUtil.getBlock(result.get().atOffset(0, 1, 0)))) {
+    if (!isPassable(result.get()) || !isPassable(result.get().atOffset(0, 1, 0))) {
       return;  // we can't stand here!
     }
-    finish(origin, result.get(), options);
+    finish(origin, result.get(), sink);
   }
 
   protected Vector direction(Vector origin, Vector destination) {
@@ -147,7 +152,7 @@ public abstract class RayTraceMode extends BukkitMode {
 
   protected abstract boolean check(Cell origin);
 
-  protected abstract void finish(Cell origin, Cell destination, List<Option> options);
+  protected abstract void finish(Cell origin, Cell destination, OptionSink sink);
 
   private RayTraceResult rayTraceSingle(Location location, Vector direction, double totalDistance) {
     return Objects.requireNonNull(location.getWorld()).rayTraceBlocks(location,
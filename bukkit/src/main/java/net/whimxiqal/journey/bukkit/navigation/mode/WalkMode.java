@@ -23,13 +23,10 @@
 
 package net.whimxiqal.journey.bukkit.navigation.mode;
 
-import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.navigation.Mode;
 import net.whimxiqal.journey.navigation.ModeType;
 import net.whimxiqal.journey.search.SearchSession;
-import java.util.List;
 import java.util.Set;
-import net.whimxiqal.journey.bukkit.util.BukkitUtil;
 import org.bukkit.Material;
 import org.jetbrains.annotations.NotNull;
 
@@ -50,21 +47,17 @@ public class WalkMode extends BukkitMode {
   }
 
   @Override
-  public void collectDestinations(@NotNull Cell origin, @NotNull List<Option> options) {
-    Cell cell;
-    Cell cell1;
-    Cell cell2;
+  public void collectDestinations(int domain, int x, int y, int z, @NotNull OptionSink sink) {
 //    // Can you drop into an inhabitable block?
-//    cell = origin.atOffset(0, -1, 0);
-//    if (canStandOn(BukkitUtil.getBlock(origin.atOffset(0, -2, 0))) && isVerticallyPassable(BukkitUtil.getBlock(cell))) {
-//      accept(cell, 1.0d, options);
+//    if (canStandOn(domain, x, y - 2, z) && isVerticallyPassable(domain, x, y - 1, z)) {
+//      accept(domain, x, y - 1, z, 1.0d, sink);
 //    } else {
-//      reject(cell);
+//      reject(domain, x, y - 1, z);
 //    }
 
     // Can we even stand here?
-    if (!canStandOn(BukkitUtil.getBlock(origin.atOffset(0, -1, 0)))
-        && !canStandIn(BukkitUtil.getBlock(origin))) {
+    if (!canStandOn(domain, x, y - 1, z)
+        && !canStandIn(domain, x, y, z)) {
       return;
     }
 
@@ -80,11 +73,11 @@ public class WalkMode extends BukkitMode {
               continue;
             }
             for (int offY = 0; offY <= 1; offY++) { // Check two blocks tall
-              cell = origin.atOffset(insideOffX * offX /* get sign back */,
-                  offY,
-                  insideOffZ * offZ /*get sign back */);
-              if (!isLaterallyPassable(BukkitUtil.getBlock(cell))) {
-                reject(cell);
+              int cellX = x + insideOffX * offX /* get sign back */;
+              int cellY = y + offY;
+              int cellZ = z + insideOffZ * offZ /*get sign back */;
+              if (!isLaterallyPassable(domain, cellX, cellY, cellZ)) {
+                reject(domain, cellX, cellY, cellZ);
                 continue outerZ;  // Barrier - invalid move
               }
             }
@@ -93,39 +86,38 @@ public class WalkMode extends BukkitMode {
         // We can move to offX and offZ laterally
 
         // check at our y coordinate (0 offset)
-        cell = origin.atOffset(offX, 0, offZ);
         if (offX != 0 || offZ != 0) {
           // we are inquiring about other than origin
-          if (canStandIn(BukkitUtil.getBlock(cell))) {
+          if (canStandIn(domain, x + offX, y, z + offZ)) {
             // We can just stand right here (carpets, etc.)
-            accept(cell, origin.distanceTo(cell), options);
+            accept(domain, x + offX, y, z + offZ, distance(offX, 0, offZ), sink);
             continue;
           } else {
-            reject(cell);
+            reject(domain, x + offX, y, z + offZ);
           }
         }
         for (int offY = -1; offY >= -4; offY--) {  // Check for floor anywhere up to a 3 block fall
-          cell = origin.atOffset(offX, offY, offZ);  // floor
-          cell1 = cell.atOffset(0, 1, 0);  // feet
-          cell2 = cell.atOffset(0, 2, 0);  // head
-          if (!isVerticallyPassable(BukkitUtil.getBlock(cell2)) || BukkitUtil.getBlock(cell2).getMaterial().equals(Material.WATER)) {
+          int floorY = y + offY;
+          int feetY = floorY + 1;
+          int headY = floorY + 2;
+          if (!isVerticallyPassable(domain, x + offX, headY, z + offZ) || isWater(domain, x + offX, headY, z + offZ)) {
             // we cannot "fall through" this cell, which means we can't land on the block below
             // or, we are drowning
-            reject(cell1);
+            reject(domain, x + offX, feetY, z + offZ);
             break;
           }
-          if (!isVerticallyPassable(BukkitUtil.getBlock(cell1))) {
+          if (!isVerticallyPassable(domain, x + offX, feetY, z + offZ)) {
             // we cannot put our feet in here
-            reject(cell1);
+            reject(domain, x + offX, feetY, z + offZ);
             continue;
           }
-          if (!canStandOn(BukkitUtil.getBlock(cell))) {
+          if (!canStandOn(domain, x + offX, floorY, z + offZ)) {
             // we cannot stand on here
-            reject(cell1);
+            reject(domain, x + offX, feetY, z + offZ);
             continue;
           }
           // good
-          accept(cell1, origin.distanceTo(cell1), options);
+          accept(domain, x + offX, feetY, z + offZ, distance(offX, offY + 1, offZ), sink);
           break;
         }
       }
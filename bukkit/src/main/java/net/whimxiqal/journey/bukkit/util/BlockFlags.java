@@ -0,0 +1,110 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.bukkit.util;
+
+import java.util.Collections;
+import java.util.Set;
+import org.bukkit.Material;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.block.data.type.Door;
+
+/**
+ * The properties of a block that modes of transportation care about, packed into the bits of an int.
+ * Blocks are classified once, when their chunk is cached, so modes only have to check bits.
+ */
+public final class BlockFlags {
+
+  public static final int PASSABLE = 1;
+  public static final int LATERALLY_PASSABLE = 1 << 1;
+  public static final int VERTICALLY_PASSABLE = 1 << 2;
+  public static final int CAN_STAND_ON = 1 << 3;
+  public static final int WATER = 1 << 4;
+  public static final int DOOR = 1 << 5;
+  public static final int CLIMBABLE = 1 << 6;
+
+  private static final int FORCED_PASSABLE = PASSABLE | LATERALLY_PASSABLE | VERTICALLY_PASSABLE;
+
+  private BlockFlags() {
+  }
+
+  /**
+   * Classify a block, as if no materials were forced to be passable.
+   *
+   * @param block the block
+   * @return the flags
+   */
+  public static int of(BlockData block) {
+    Set<Material> forcePassable = Collections.emptySet();
+    Material material = block.getMaterial();
+    int flags = 0;
+    if (BukkitUtil.isPassable(block, forcePassable)) {
+      flags |= PASSABLE;
+    }
+    if (BukkitUtil.isLaterallyPassable(block, forcePassable)) {
+      flags |= LATERALLY_PASSABLE;
+    }
+    if (BukkitUtil.isVerticallyPassable(block, forcePassable)) {
+      flags |= VERTICALLY_PASSABLE;
+    }
+    if (BukkitUtil.canStandOn(block, forcePassable)) {
+      flags |= CAN_STAND_ON;
+    }
+    if (material == Material.WATER) {
+      flags |= WATER;
+    }
+    if (block instanceof Door) {
+      flags |= DOOR;
+    }
+    if (material == Material.LADDER || material == Material.VINE) {
+      flags |= CLIMBABLE;
+    }
+    return flags;
+  }
+
+  /**
+   * Adjust the flags of a block whose material is forced to be passable.
+   *
+   * @param flags the flags of the block
+   * @return the adjusted flags
+   */
+  public static int forcePassable(int flags) {
+    return (flags | FORCED_PASSABLE) & ~CAN_STAND_ON;
+  }
+
+  public static boolean has(int flags, int flag) {
+    return (flags & flag) != 0;
+  }
+
+  /**
+   * Whether a player can be supported within a block with these flags.
+   *
+   * @param flags the flags
+   * @return true if the player can stand in it
+   * @see BukkitUtil#canStandIn
+   */
+  public static boolean canStandIn(int flags) {
+    return has(flags, LATERALLY_PASSABLE) && !has(flags, VERTICALLY_PASSABLE);
+  }
+
+}
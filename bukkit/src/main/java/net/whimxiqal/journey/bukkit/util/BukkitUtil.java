@@ -187,10 +187,53 @@ public final class BukkitUtil {
    * @return the block data at the cell location
    */
   public static BlockData getBlock(Cell cell) {
+    return getBlock(cell.domain(), cell.blockX(), cell.blockY(), cell.blockZ());
+  }
+
+  /**
+   * Thread safe :)
+   *
+   * @param domain the domain
+   * @param x      the x coordinate
+   * @param y      the y coordinate
+   * @param z      the z coordinate
+   * @return the block data at the location
+   */
+  public static BlockData getBlock(int domain, int x, int y, int z) {
+    if (Bukkit.isPrimaryThread()) {
+      return getWorld(domain).getBlockAt(x, y, z).getBlockData();
+    }
+    return JourneyBukkit.get().getBlockAccessor().getBlock(domain, x, y, z);
+  }
+
+  /**
+   * Thread safe :)
+   *
+   * @param cell          cell
+   * @param forcePassable materials which should be considered passable
+   * @return the {@link BlockFlags} of the block at the cell location
+   */
+  public static int getFlags(Cell cell, Set<Material> forcePassable) {
+    return getFlags(cell.domain(), cell.blockX(), cell.blockY(), cell.blockZ(), forcePassable);
+  }
+
+  /**
+   * Thread safe :)
+   *
+   * @param domain        the domain
+   * @param x             the x coordinate
+   * @param y             the y coordinate
+   * @param z             the z coordinate
+   * @param forcePassable materials which should be considered passable
+   * @return the {@link BlockFlags} of the block at the location
+   */
+  public static int getFlags(int domain, int x, int y, int z, Set<Material> forcePassable) {
     if (Bukkit.isPrimaryThread()) {
-      return getWorld(Journey.get().domainManager().domainId(cell.domain())).getBlockAt(cell.blockX(), cell.blockY(), cell.blockZ()).getBlockData();
+      BlockData block = getBlock(domain, x, y, z);
+      int flags = BlockFlags.of(block);
+      return forcePassable.contains(block.getMaterial()) ? BlockFlags.forcePassable(flags) : flags;
     }
-    return JourneyBukkit.get().getBlockAccessor().getBlock(cell);
+    return JourneyBukkit.get().getBlockAccessor().getFlags(domain, x, y, z, forcePassable);
   }
 
   public static Location toLocation(Cell cell) {
@@ -0,0 +1,201 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.bukkit.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.block.data.BlockData;
+
+/**
+ * A compact, read-only copy of the blocks of a chunk, built once from a {@link ChunkSnapshot}
+ * so the snapshot itself does not have to be kept.
+ *
+ * <p>Every 16x16x16 section keeps a palette of the distinct blocks within it along with their {@link BlockFlags},
+ * and one palette index per block. Sections made of a single block, like those full of air or stone,
+ * keep no indices at all.
+ */
+public final class ChunkFlags {
+
+  private static final int SECTION_VOLUME = 16 * 16 * 16;
+
+  private final int minY;
+  private final int maxY;
+  private final Section[] sections;
+
+  /**
+   * Copy the blocks out of a chunk snapshot.
+   * This is expensive enough that it should not be done on the main thread.
+   *
+   * @param snapshot the snapshot
+   * @param minY     the lowest block height of the world, inclusive
+   * @param maxY     the highest block height of the world, exclusive
+   */
+  public ChunkFlags(ChunkSnapshot snapshot, int minY, int maxY) {
+    this.minY = minY;
+    this.maxY = maxY;
+    this.sections = new Section[(maxY - minY + 15) >> 4];
+    for (int i = 0; i < sections.length; i++) {
+      sections[i] = new Section(snapshot, minY + (i << 4), maxY);
+    }
+  }
+
+  private static int index(int x, int y, int z) {
+    return ((y & 15) << 8) | (z << 4) | x;
+  }
+
+  /**
+   * Get the flags of a block.
+   *
+   * @param x             the x coordinate within the chunk, from 0 to 15
+   * @param y             the y coordinate
+   * @param z             the z coordinate within the chunk, from 0 to 15
+   * @param forcePassable materials which should be considered passable
+   * @return the flags
+   */
+  public int flags(int x, int y, int z, Set<Material> forcePassable) {
+    if (y < minY || y >= maxY) {
+      return Outside.FLAGS;
+    }
+    Section section = sections[(y - minY) >> 4];
+    int paletteIndex = section.paletteIndex(index(x, y, z));
+    int flags = section.paletteFlags[paletteIndex];
+    if (!forcePassable.isEmpty() && forcePassable.contains(section.palette[paletteIndex].getMaterial())) {
+      return BlockFlags.forcePassable(flags);
+    }
+    return flags;
+  }
+
+  /**
+   * Get a block.
+   *
+   * @param x the x coordinate within the chunk, from 0 to 15
+   * @param y the y coordinate
+   * @param z the z coordinate within the chunk, from 0 to 15
+   * @return the block
+   */
+  public BlockData block(int x, int y, int z) {
+    if (y < minY || y >= maxY) {
+      return Outside.AIR;
+    }
+    Section section = sections[(y - minY) >> 4];
+    return section.palette[section.paletteIndex(index(x, y, z))];
+  }
+
+  /**
+   * Estimate the memory taken up by this copy of the chunk.
+   * Block data in palettes is shared with the server, so it is not counted.
+   *
+   * @return the approximate size in bytes
+   */
+  public long memorySize() {
+    long size = 0;
+    for (Section section : sections) {
+      size += section.memorySize();
+    }
+    return size;
+  }
+
+  /**
+   * Blocks outside the world's height limits are treated like air.
+   * These are held here so they are created safely by whichever thread first needs them.
+   */
+  private static final class Outside {
+    private static final BlockData AIR = Bukkit.createBlockData(Material.AIR);
+    private static final int FLAGS = BlockFlags.of(AIR);
+  }
+
+  private static final class Section {
+    private final BlockData[] palette;
+    private final int[] paletteFlags;
+    // one of these holds the palette index of each block, unless there is only one block in the palette
+    private final byte[] indices;
+    private final char[] wideIndices;
+
+    Section(ChunkSnapshot snapshot, int bottomY, int maxY) {
+      Map<BlockData, Integer> paletteIndices = new HashMap<>();
+      List<BlockData> paletteList = new ArrayList<>();
+      char[] blockIndices = new char[SECTION_VOLUME];
+      for (int y = bottomY; y < Math.min(bottomY + 16, maxY); y++) {
+        for (int z = 0; z < 16; z++) {
+          for (int x = 0; x < 16; x++) {
+            BlockData block = snapshot.getBlockData(x, y, z);
+            Integer paletteIndex = paletteIndices.get(block);
+            if (paletteIndex == null) {
+              paletteIndex = paletteList.size();
+              paletteIndices.put(block, paletteIndex);
+              paletteList.add(block);
+            }
+            blockIndices[index(x, y, z)] = (char) (int) paletteIndex;
+          }
+        }
+      }
+      this.palette = paletteList.toArray(new BlockData[0]);
+      this.paletteFlags = new int[palette.length];
+      for (int i = 0; i < palette.length; i++) {
+        paletteFlags[i] = BlockFlags.of(palette[i]);
+      }
+      if (palette.length == 1) {
+        indices = null;
+        wideIndices = null;
+      } else if (palette.length <= 256) {
+        indices = new byte[SECTION_VOLUME];
+        for (int i = 0; i < SECTION_VOLUME; i++) {
+          indices[i] = (byte) blockIndices[i];
+        }
+        wideIndices = null;
+      } else {
+        indices = null;
+        wideIndices = blockIndices;
+      }
+    }
+
+    long memorySize() {
+      // object headers and references, then the palette, then the indices
+      long size = 64 + (long) palette.length * (8 + 4);
+      if (indices != null) {
+        size += indices.length;
+      } else if (wideIndices != null) {
+        size += wideIndices.length * 2L;
+      }
+      return size;
+    }
+
+    int paletteIndex(int index) {
+      if (indices != null) {
+        return indices[index] & 0xFF;
+      } else if (wideIndices != null) {
+        return wideIndices[index];
+      } else {
+        return 0;
+      }
+    }
+  }
+
+}
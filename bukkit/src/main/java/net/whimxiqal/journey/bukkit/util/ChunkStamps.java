@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.bukkit.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Modification stamps of chunks, so anything computed from a chunk's blocks can cheaply tell
+ * whether they may have changed since.
+ *
+ * <p>Every change takes the next value of a single clock and stores it as the stamp of the changed chunk,
+ * so stamps only ever grow, and the greatest stamp of a group of chunks changes whenever any of them does.
+ * Chunks share a fixed number of slots by hash, so memory stays constant; chunks that share a slot
+ * appear to change together, which only ever causes an unnecessary re-check. Thread-safe.
+ */
+public final class ChunkStamps {
+
+  private static final int SLOT_BITS = 16;
+  private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+
+  private final AtomicLong clock = new AtomicLong(0);
+  private final AtomicLongArray stamps = new AtomicLongArray(1 << SLOT_BITS);
+
+  private static int slot(int domain, int chunkX, int chunkZ) {
+    int hash = domain;
+    hash = 31 * hash + chunkX;
+    hash = 31 * hash + chunkZ;
+    // spread the low bits, nearby chunks differ mostly in them
+    hash ^= hash >>> 16;
+    hash *= 0x45d9f3b;
+    hash ^= hash >>> 16;
+    return hash & SLOT_MASK;
+  }
+
+  /**
+   * Record that blocks in a chunk have changed.
+   *
+   * @param domain the domain of the chunk
+   * @param chunkX the chunk's x coordinate
+   * @param chunkZ the chunk's z coordinate
+   */
+  public void bump(int domain, int chunkX, int chunkZ) {
+    stamps.set(slot(domain, chunkX, chunkZ), clock.incrementAndGet());
+  }
+
+  /**
+   * Get the stamp of a chunk, which is greater after any change to its blocks than it was before.
+   *
+   * @param domain the domain of the chunk
+   * @param chunkX the chunk's x coordinate
+   * @param chunkZ the chunk's z coordinate
+   * @return the stamp, at least 0
+   */
+  public long stamp(int domain, int chunkX, int chunkZ) {
+    return stamps.get(slot(domain, chunkX, chunkZ));
+  }
+
+}
@@ -23,61 +23,108 @@
 
 package net.whimxiqal.journey.bukkit.util;
 
-import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import net.whimxiqal.journey.Journey;
-import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.bukkit.JourneyBukkit;
 import org.bukkit.Bukkit;
 import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.data.BlockData;
 import org.bukkit.scheduler.BukkitTask;
-import org.jetbrains.annotations.Nullable;
 
+/**
+ * A cache of the blocks of recently searched chunks, so they can be read from async search threads.
+ * Chunks are snapshotted on the main thread on request, and then converted into compact {@link ChunkFlags}
+ * by the requesting thread, so the snapshots themselves are not kept.
+ *
+ * <p>Reads of cached chunks take no locks. Only one thread loads any given chunk at a time;
+ * other threads that want the same chunk wait for that load to finish, for up to ten seconds.
+ * Once the cached chunks take up more than 64 MiB, chunks that have not been read
+ * since the last pass of the eviction sweep are dropped, in the order they were loaded (the CLOCK algorithm).
+ * Each chunk remembers its {@link ChunkStamps} stamp from when it was snapshotted, and a chunk whose blocks
+ * have changed since is loaded again the next time it is read, see also {@link #invalidate(int, int, int)}.
+ * Many changes to blocks, like flowing fluids, growing plants or edits by other plugins, are never reported,
+ * so a chunk is also loaded again once its snapshot is older than a maximum age.
+ *
+ * <p>Searches may also ask for chunks they expect to need with {@link #prefetch(int, int, int)}.
+ * Those are snapshotted a few per tick, after the chunks that searches are already waiting on,
+ * and converted on a separate thread. Only chunks that the server already has loaded are prefetched.
+ */
 public class ThreadSafeBlockAccessor {
 
-  private static final long CHUNK_SNAPSHOT_LIFETIME_MS = 10000L;
-  private static final long MAX_CACHED_CHUNKS = 1024;
+  private static final long MAX_CACHED_BYTES = 64L * 1024 * 1024;
+  private static final int MAX_PREFETCH_SNAPSHOTS_PER_TICK = 8;
+  private static final long MAX_SNAPSHOT_AGE_NANOS = TimeUnit.SECONDS.toNanos(30);
+  private static final long CHUNK_WAIT_TIMEOUT_MS = 10000;
+
+  private final ChunkStamps chunkStamps;
+  private final Map<Long, Entry> chunks = new ConcurrentHashMap<>();
+  private final Queue<Entry> clock = new ConcurrentLinkedQueue<>();  // loaded entries, swept on the main thread
+  private final Queue<Entry> requestQueue = new ConcurrentLinkedQueue<>();
+  private final Queue<Entry> prefetchQueue = new ConcurrentLinkedQueue<>();
+  private final AtomicLong cachedBytes = new AtomicLong();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder prefetches = new LongAdder();
+  private ExecutorService prefetchExecutor;
+  private BukkitTask task;
+
+  private static long key(int domain, int chunkX, int chunkZ) {
+    // chunk coordinates of a 30 million block world fit in 22 bits, leaving 20 for the domain
+    return ((long) domain << 44) | ((chunkX & 0x3FFFFFL) << 22) | (chunkZ & 0x3FFFFFL);
+  }
 
-  ChunkMap chunkMap = new ChunkMap();                     // synchronized
-  Queue<ChunkItem> chunkList = new LinkedList<>();        // synchronized
-  Queue<ChunkRequest> requestQueue = new LinkedList<>();  // synchronized
-  BukkitTask task;
+  public ThreadSafeBlockAccessor(ChunkStamps chunkStamps) {
+    this.chunkStamps = chunkStamps;
+  }
 
   public void init() {
+    prefetchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "Journey Chunk Prefetcher");
+      thread.setDaemon(true);
+      return thread;
+    });
     task = Bukkit.getScheduler().runTaskTimer(JourneyBukkit.get(), () -> {
-      synchronized (this) {
-        long timeStampThreshold = System.currentTimeMillis() - CHUNK_SNAPSHOT_LIFETIME_MS;
-        while (!chunkList.isEmpty()) {
-          ChunkItem item = chunkList.peek();
-          if (item.timeMs < timeStampThreshold) {
-            chunkMap.drop(item.domain, item.chunk);
-            chunkList.remove();
-          } else {
-            break;
-          }
+      evict();
+      Entry entry;
+      while ((entry = requestQueue.poll()) != null) {
+        if (!entry.snapshot.isDone()) {
+          World world = BukkitUtil.getWorld(entry.domain);
+          entry.stamp = chunkStamps.stamp(entry.domain, entry.x, entry.z);
+          entry.snapshotNanos = System.nanoTime();
+          entry.snapshot.complete(world.getChunkAt(entry.x, entry.z).getChunkSnapshot());
         }
-
-        Map<ChunkRequest.Data, ChunkSnapshot> completedChunkRequests = new HashMap<>();
-        while (!requestQueue.isEmpty() && chunkMap.size() <= MAX_CACHED_CHUNKS) {
-          ChunkRequest req = requestQueue.remove();
-          ChunkSnapshot existingSnapshot = completedChunkRequests.get(req.data);
-          if (existingSnapshot != null) {
-            req.future.complete(existingSnapshot);
-            continue;
-          }
-          World world = BukkitUtil.getWorld(req.data.domain);
-          ChunkSnapshot snapshot = world.getChunkAt(req.data.x, req.data.z).getChunkSnapshot();
-          chunkMap.save(req.data.domain, snapshot);
-          chunkList.add(new ChunkItem(req.data.domain, snapshot));
-          completedChunkRequests.put(req.data, snapshot);
-          req.future.complete(snapshot);
+      }
+      int prefetched = 0;
+      while (prefetched < MAX_PREFETCH_SNAPSHOTS_PER_TICK && (entry = prefetchQueue.poll()) != null) {
+        if (entry.snapshot.isDone()) {
+          // a search needed it first
+          continue;
+        }
+        World world = BukkitUtil.getWorld(entry.domain);
+        if (!world.isChunkLoaded(entry.x, entry.z)) {
+          // not worth loading or generating on a guess. If a search is already waiting on it, it is in the request queue
+          chunks.remove(entry.key, entry);
+          continue;
         }
+        entry.stamp = chunkStamps.stamp(entry.domain, entry.x, entry.z);
+        entry.snapshotNanos = System.nanoTime();
+        entry.snapshot.complete(world.getChunkAt(entry.x, entry.z).getChunkSnapshot());
+        prefetched++;
       }
     }, 0, 1);
     Journey.get().proxy().logger().info("ThreadSafeBlockAccessor initialized");
@@ -87,128 +134,262 @@ public class ThreadSafeBlockAccessor {
     if (task != null) {
       task.cancel();
     }
+    if (prefetchExecutor != null) {
+      prefetchExecutor.shutdownNow();
+    }
+    JourneyBukkit.get().getLogger().info("ThreadSafeBlockAccessor shut down (chunk cache hits: " + hits()
+        + ", misses: " + misses()
+        + ", evictions: " + evictions()
+        + ", prefetches: " + prefetches() + ")");
   }
 
-  public BlockData getBlock(Cell cell) {
-    if (Bukkit.isPrimaryThread()) {
-      throw new RuntimeException("This method was called from the primary thread");  // programmer error
+  public BlockData getBlock(int domain, int x, int y, int z) {
+    return getChunk(domain, x, z).block(x & 15, y, z & 15);
+  }
+
+  /**
+   * Get the {@link BlockFlags} of a block.
+   *
+   * @param domain        the domain of the block
+   * @param x             the x coordinate of the block
+   * @param y             the y coordinate of the block
+   * @param z             the z coordinate of the block
+   * @param forcePassable materials which should be considered passable
+   * @return the flags
+   */
+  public int getFlags(int domain, int x, int y, int z, Set<Material> forcePassable) {
+    return getChunk(domain, x, z).flags(x & 15, y, z & 15, forcePassable);
+  }
+
+  /**
+   * Start loading a chunk in the background, if it is not cached already.
+   * Nothing is loaded while the cache is full, and chunks that the server does not have loaded are skipped.
+   * Thread-safe.
+   *
+   * @param domain the domain of the chunk
+   * @param chunkX the chunk's x coordinate
+   * @param chunkZ the chunk's z coordinate
+   */
+  public void prefetch(int domain, int chunkX, int chunkZ) {
+    if (prefetchExecutor == null || cachedBytes.get() > MAX_CACHED_BYTES) {
+      return;
     }
-    ChunkRequest request;
-    synchronized (this) {
-      BlockData data = chunkMap.get(cell.domain(), cell.blockX(), cell.blockY(), cell.blockZ());
-      if (data != null) {
-        return data;
-      }
-      // data is not in lookup map, queue chunk
-      request = new ChunkRequest(cell.domain(), Math.floorDiv(cell.blockX(), 16), Math.floorDiv(cell.blockZ(), 16));
-      requestQueue.add(request);
+    long key = key(domain, chunkX, chunkZ);
+    if (chunks.containsKey(key)) {
+      return;
+    }
+    Entry created = new Entry(key, domain, chunkX, chunkZ);
+    if (chunks.putIfAbsent(key, created) != null) {
+      return;
     }
+    prefetches.increment();
+    created.snapshot.thenAcceptAsync(snapshot -> convert(created, snapshot), prefetchExecutor)
+        .exceptionally(e -> {
+          chunks.remove(created.key, created);
+          created.chunk.completeExceptionally(e);
+          return null;
+        });
+    prefetchQueue.add(created);
+  }
 
-    // Wait for request to be completed
-    ChunkSnapshot snapshot = BukkitUtil.waitUntil(request.future);
-    return snapshot.getBlockData(Math.floorMod(cell.blockX(), 16), cell.blockY(), Math.floorMod(cell.blockZ(), 16));
+  /**
+   * Drop a chunk from the cache because its blocks have changed.
+   * Searches that are already reading it are unaffected. Thread-safe.
+   *
+   * @param domain the domain of the chunk
+   * @param chunkX the chunk's x coordinate
+   * @param chunkZ the chunk's z coordinate
+   */
+  public void invalidate(int domain, int chunkX, int chunkZ) {
+    // the sweep will find and discount the entry the next time it passes it
+    chunks.remove(key(domain, chunkX, chunkZ));
   }
 
-  private static class ChunkItem {
-    final int domain;
-    final ChunkSnapshot chunk;
-    final long timeMs;
-    ChunkItem(int domain, ChunkSnapshot chunk) {
-      this.domain = domain;
-      this.chunk = chunk;
-      this.timeMs = System.currentTimeMillis();
-    }
+  /**
+   * The number of block reads that found their chunk already cached. Thread-safe.
+   *
+   * @return the number of hits
+   */
+  public long hits() {
+    return hits.sum();
   }
 
-  private static class ChunkRequest {
+  /**
+   * The number of block reads that had to wait for their chunk to be loaded,
+   * either by the reading thread or another. Thread-safe.
+   *
+   * @return the number of misses
+   */
+  public long misses() {
+    return misses.sum();
+  }
 
-    private static class Data {
-      final int domain;
-      final int x;
-      final int z;
-      Data(int domain, int x, int z) {
-        this.domain = domain;
-        this.x = x;
-        this.z = z;
-      }
+  /**
+   * The number of chunks dropped from the cache to save memory. Thread-safe.
+   *
+   * @return the number of evictions
+   */
+  public long evictions() {
+    return evictions.sum();
+  }
 
-      @Override
-      public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Data that = (Data) o;
-        return x == that.x && z == that.z && domain == that.domain;
-      }
+  /**
+   * The number of chunks requested ahead of time with {@link #prefetch(int, int, int)}. Thread-safe.
+   *
+   * @return the number of prefetches
+   */
+  public long prefetches() {
+    return prefetches.sum();
+  }
 
-      @Override
-      public int hashCode() {
-        return Objects.hash(domain, x, z);
-      }
+  /**
+   * The number of chunks currently cached or being loaded. Thread-safe.
+   *
+   * @return the number of chunks
+   */
+  public int cachedChunks() {
+    return chunks.size();
+  }
 
+  private ChunkFlags getChunk(int domain, int x, int z) {
+    if (Bukkit.isPrimaryThread()) {
+      throw new RuntimeException("This method was called from the primary thread");  // programmer error
     }
-    final Data data;
-    final CompletableFuture<ChunkSnapshot> future;
-    ChunkRequest(int domain, int x, int z) {
-      this.data = new Data(domain, x, z);
-      this.future = new CompletableFuture<>();
+    int chunkX = x >> 4;
+    int chunkZ = z >> 4;
+    long key = key(domain, chunkX, chunkZ);
+    Entry entry = chunks.get(key);
+    if (entry != null && entry.chunk.isDone()
+        && (entry.stamp != chunkStamps.stamp(domain, chunkX, chunkZ)
+        || System.nanoTime() - entry.snapshotNanos > MAX_SNAPSHOT_AGE_NANOS)) {
+      // blocks changed since the snapshot, or may have, so load it again. The sweep discounts the stale entry
+      chunks.remove(key, entry);
+      entry = chunks.get(key);
     }
+    if (entry == null) {
+      Entry created = new Entry(key, domain, chunkX, chunkZ);
+      entry = chunks.putIfAbsent(key, created);
+      if (entry == null) {
+        misses.increment();
+        return load(created);
+      }
+    }
+    entry.referenced = true;
+    ChunkFlags chunk = entry.chunk.getNow(null);
+    if (chunk != null) {
+      hits.increment();
+      return chunk;
+    }
+    // another thread is already loading this chunk
+    misses.increment();
+    if (!entry.snapshot.isDone()) {
+      // it may only have been prefetched, so make sure it does not wait behind other prefetches
+      requestQueue.add(entry);
+    }
+    chunk = await(entry.chunk);
+    if (chunk == null) {
+      throw new IllegalStateException("Chunk (" + entry.x + ", " + entry.z
+          + ") in domain " + entry.domain + " could not be loaded");
+    }
+    return chunk;
+  }
 
-    @Override
-    public String toString() {
-      return "ChunkRequest{" +
-          "domainId='" + data.domain + '\'' +
-          ", x=" + data.x +
-          ", z=" + data.z +
-          '}';
+  private ChunkFlags load(Entry entry) {
+    requestQueue.add(entry);
+
+    // Wait for request to be completed, then do the expensive conversion off of the main thread
+    ChunkSnapshot snapshot = await(entry.snapshot);
+    if (snapshot == null) {
+      chunks.remove(entry.key, entry);
+      IllegalStateException exception = new IllegalStateException("Chunk (" + entry.x + ", " + entry.z
+          + ") in domain " + entry.domain + " could not be loaded");
+      entry.chunk.completeExceptionally(exception);
+      throw exception;
     }
+    return convert(entry, snapshot);
   }
 
   /**
-   * mapping domain -> (x -> (z -> chunk))
+   * Wait a limited time for part of a chunk to load.
+   * A search thread that is interrupted or waits too long gives up on the chunk, as if it could not be loaded.
+   *
+   * @param future the part of the chunk
+   * @param <T>    the type of the part
+   * @return the result, or null if it did not come
    */
-  private static class ChunkMap extends HashMap<Integer, Map<Integer, Map<Integer, ChunkSnapshot>>> {
-
-    @Nullable
-    public BlockData get(int domain, int x, int y, int z) {
-      Map<Integer, Map<Integer, ChunkSnapshot>> chunkCoordinates = get(domain);
-      if (chunkCoordinates == null) {
-        return null;
-      }
-      Map<Integer, ChunkSnapshot> chunkCoordinates2 = chunkCoordinates.get(Math.floorDiv(x, 16));
-      if (chunkCoordinates2 == null) {
-        return null;
-      }
-      ChunkSnapshot snapshot = chunkCoordinates2.get(Math.floorDiv(z, 16));
-      if (snapshot == null) {
-        return null;
-      }
-      return snapshot.getBlockData(Math.floorMod(x, 16), y, Math.floorMod(z, 16));
+  private static <T> T await(CompletableFuture<T> future) {
+    try {
+      return future.get(CHUNK_WAIT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException | TimeoutException e) {
+      return null;
     }
+  }
 
-    private void save(int domain, ChunkSnapshot snapshot) {
-      Map<Integer, Map<Integer, ChunkSnapshot>> chunkCoordinates = computeIfAbsent(domain, k -> new HashMap<>());
-      Map<Integer, ChunkSnapshot> chunkCoordinates2 = chunkCoordinates.computeIfAbsent(snapshot.getX(), k -> new HashMap<>());
-      chunkCoordinates2.put(snapshot.getZ(), snapshot);
-    }
+  private ChunkFlags convert(Entry entry, ChunkSnapshot snapshot) {
+    World world = BukkitUtil.getWorld(entry.domain);
+    ChunkFlags chunk = new ChunkFlags(snapshot, world.getMinHeight(), world.getMaxHeight());
+    entry.bytes = chunk.memorySize();
+    cachedBytes.addAndGet(entry.bytes);
+    clock.add(entry);
+    entry.chunk.complete(chunk);
+    return chunk;
+  }
 
-    public void drop(int domain, ChunkSnapshot chunkSnapshot) {
-      Map<Integer, Map<Integer, ChunkSnapshot>> chunkCoordinates = get(domain);
-      if (chunkCoordinates == null) {
-        throw new IllegalArgumentException("No chunk snapshots found with world " + chunkSnapshot.getWorldName());
-      }
-      Map<Integer, ChunkSnapshot> chunkCoordinates2 = chunkCoordinates.get(chunkSnapshot.getX());
-      if (chunkCoordinates2 == null) {
-        throw new IllegalArgumentException("No chunk snapshots found in world " + chunkSnapshot.getWorldName() + " with X: " + chunkSnapshot.getX());
+  /**
+   * Sweep the clock hand over loaded chunks until the cache fits within its memory limit.
+   * Chunks read since the hand last passed them get another chance, the rest are dropped.
+   */
+  private void evict() {
+    // every entry is passed at most twice: once to clear its reference and once to drop it
+    int remaining = clock.size() * 2;
+    while (cachedBytes.get() > MAX_CACHED_BYTES && remaining-- > 0) {
+      Entry entry = clock.poll();
+      if (entry == null) {
+        return;
       }
-      ChunkSnapshot snapshot = chunkCoordinates2.remove(chunkSnapshot.getZ());
-      if (snapshot == null) {
-        throw new IllegalArgumentException("No chunk snapshots found in world " + chunkSnapshot.getWorldName() + " with X: " + chunkSnapshot.getX() + ", Z: " + chunkSnapshot.getZ());
+      if (chunks.get(entry.key) != entry) {
+        // already invalidated
+        cachedBytes.addAndGet(-entry.bytes);
+      } else if (entry.referenced) {
+        entry.referenced = false;
+        clock.add(entry);
+      } else if (chunks.remove(entry.key, entry)) {
+        cachedBytes.addAndGet(-entry.bytes);
+        evictions.increment();
       }
     }
   }
 
-  private static String printChunk(ChunkSnapshot chunk) {
-    return "Chunk{" + chunk.getX() + "," + chunk.getZ() + "}";
+  private static class Entry {
+    final long key;
+    final int domain;
+    final int x;
+    final int z;
+    final CompletableFuture<ChunkSnapshot> snapshot = new CompletableFuture<>();
+    final CompletableFuture<ChunkFlags> chunk = new CompletableFuture<>();
+    volatile boolean referenced = true;
+    volatile long stamp;  // set on the main thread before the snapshot completes
+    volatile long snapshotNanos;  // likewise
+    long bytes;  // set before the entry is added to the clock
+
+    Entry(long key, int domain, int x, int z) {
+      this.key = key;
+      this.domain = domain;
+      this.x = x;
+      this.z = z;
+    }
+
+    @Override
+    public String toString() {
+      return "Entry{" +
+          "domainId='" + domain + '\'' +
+          ", x=" + x +
+          ", z=" + z +
+          '}';
+    }
   }
 
 }
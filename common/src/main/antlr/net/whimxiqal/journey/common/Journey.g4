@@ -26,7 +26,7 @@ admin: ADMIN (debug | cache | reload=RELOAD | listNetherPortals);
 debug: DEBUG target=identifier?;
 cache: CACHE (cachePortals | cachePaths);
 cachePortals: PORTALS (clear=CLEAR);
-cachePaths: PATHS (clear=CLEAR | build=BUILD);
+cachePaths: PATHS (clear=CLEAR | build=BUILD | status=STATUS | cancel=CANCEL);
 listNetherPortals: LIST_NETHER_PORTALS page=ID?;
 
 cancel: CANCEL;
@@ -63,6 +63,7 @@ RENAME: 'rename';
 SERVER: 'server';
 SET: 'set';
 SET_WAYPOINT: 'setwaypoint';
+STATUS: 'status';
 TRUE: 'true';
 UNSET: 'unset';
 WAYPOINT: 'waypoint';
@@ -98,6 +99,7 @@ ident: ID
         | SERVER
         | SET
         | SET_WAYPOINT
+        | STATUS
         | TRUE
         | UNSET
         | WAYPOINT;
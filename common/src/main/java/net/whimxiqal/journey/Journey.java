@@ -34,7 +34,9 @@ import net.whimxiqal.journey.manager.PlayerManager;
 import net.whimxiqal.journey.manager.SearchManager;
 import net.whimxiqal.journey.manager.TunnelManager;
 import net.whimxiqal.journey.scope.ScopeManager;
+import net.whimxiqal.journey.search.ChunkGraphCache;
 import net.whimxiqal.journey.search.EverythingSearch;
+import net.whimxiqal.journey.search.LandmarkCache;
 import net.whimxiqal.journey.search.event.SearchDispatcher;
 import net.whimxiqal.journey.search.event.SearchDispatcherImpl;
 import net.whimxiqal.journey.stats.StatsManager;
@@ -56,6 +58,8 @@ public final class Journey {
   private final TunnelManager tunnelManager = new TunnelManager();
   private final StatsManager statsManager = new StatsManager();
   private final DomainManager domainManager = new DomainManager();
+  private final ChunkGraphCache chunkGraphCache = new ChunkGraphCache();
+  private final LandmarkCache landmarkCache = new LandmarkCache();
   private DataManager dataManager = new DataManagerImpl();
   private Proxy proxy;
 
@@ -97,6 +101,9 @@ public final class Journey {
   public void shutdown() {
     searchEventDispatcher.shutdown();
     searchManager.shutdown();
+    dataManager.shutdown();
+    chunkGraphCache.clear();
+    landmarkCache.clear();
     proxy.audienceProvider().close();
     statsManager.shutdown();
     proxy.logger().shutdown();
@@ -146,4 +153,12 @@ public final class Journey {
     return domainManager;
   }
 
+  public ChunkGraphCache chunkGraphCache() {
+    return chunkGraphCache;
+  }
+
+  public LandmarkCache landmarkCache() {
+    return landmarkCache;
+  }
+
 }
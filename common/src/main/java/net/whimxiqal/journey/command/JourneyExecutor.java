@@ -44,7 +44,7 @@ import net.whimxiqal.journey.message.Pager;
 import net.whimxiqal.journey.navigation.journey.PlayerJourneySession;
 import net.whimxiqal.journey.scope.ScopeUtil;
 import net.whimxiqal.journey.scope.ScopedSessionResult;
-import net.whimxiqal.journey.search.EverythingSearch;
+import net.whimxiqal.journey.search.PathCacheWarmup;
 import net.whimxiqal.journey.search.PlayerDestinationGoalSearchSession;
 import net.whimxiqal.journey.search.SearchSession;
 import net.whimxiqal.journey.search.flag.FlagSet;
@@ -182,10 +182,43 @@ public class JourneyExecutor implements CommandExecutor {
 
       @Override
       public CommandResult visitCachePaths(JourneyParser.CachePathsContext ctx) {
+        PathCacheWarmup warmup = Journey.get().searchManager().cacheWarmup();
         if (ctx.build != null) {
-          src.audience().sendMessage(Formatter.success("Building path cache... See console for progress."));
-          Journey.get().searchManager().launchSearch(new EverythingSearch());
+          if (!warmup.start()) {
+            src.audience().sendMessage(Formatter.error("The path cache is already being built"));
+            return CommandResult.failure();
+          }
+          src.audience().sendMessage(Formatter.success("Building path cache... Use ___ to see its progress.",
+              "/journey admin cache paths status"));
+          return CommandResult.success();
+        } else if (ctx.status != null) {
+          Optional<PathCacheWarmup.Progress> progress = warmup.progress();
+          if (progress.isEmpty()) {
+            src.audience().sendMessage(Formatter.info("The path cache is not being built"));
+            return CommandResult.success();
+          }
+          PathCacheWarmup.Progress p = progress.get();
+          if (p.collecting()) {
+            src.audience().sendMessage(Formatter.info("Collecting the paths to cache..."));
+            return CommandResult.success();
+          }
+          src.audience().sendMessage(Formatter.info("Building path cache: ___ of ___ paths attempted, ___ not found",
+              p.completed(), p.total(), p.failed()));
+          src.audience().sendMessage(Formatter.info("Running for ___, about ___ left",
+              formatDuration(p.elapsedMillis()), p.etaMillis() < 0 ? "?" : formatDuration(p.etaMillis())));
+          if (p.throttled()) {
+            src.audience().sendMessage(Formatter.warn("Paused while the server is busy"));
+          }
+          return CommandResult.success();
+        } else if (ctx.cancel != null) {
+          if (!warmup.cancel()) {
+            src.audience().sendMessage(Formatter.error("The path cache is not being built"));
+            return CommandResult.failure();
+          }
+          src.audience().sendMessage(Formatter.success("Stopped building the path cache."));
+          return CommandResult.success();
         } else if (ctx.clear != null) {
+          warmup.cancel();
           Journey.get().dataManager().pathRecordManager().truncate();
           src.audience().sendMessage(Formatter.success("Cleared cached paths."));
           return CommandResult.success();
@@ -603,6 +636,9 @@ public class JourneyExecutor implements CommandExecutor {
           Journey.get().searchManager().getSearch(src.uuid()).stop(true);
           src.audience().sendMessage(Formatter.info("Cancelling search..."));
           canceled = true;
+        } else if (Journey.get().searchManager().cancelWaitingSearch(src.uuid())) {
+          src.audience().sendMessage(Formatter.info("Cancelled your search waiting in line."));
+          canceled = true;
         }
         PlayerJourneySession journey = Journey.get().searchManager().getJourney(src.uuid());
         if (journey != null && journey.running()) {
@@ -759,6 +795,14 @@ public class JourneyExecutor implements CommandExecutor {
           }
         }
       }
+
+      private String formatDuration(long millis) {
+        long minutes = millis / 60000;
+        if (minutes < 60) {
+          return minutes + "m";
+        }
+        return (minutes / 60) + "h " + (minutes % 60) + "m";
+      }
     };
   }
 }
@@ -45,12 +45,78 @@ public final class Settings {
   public static final Setting<Integer> MAX_PATH_BLOCK_COUNT
       = new IntegerSetting("search.max-path-block-count", 10000);
 
+  public static final Setting<Boolean> BIDIRECTIONAL_SEARCH
+      = new BooleanSetting("search.bidirectional", true);
+
+  public static final Setting<Boolean> HIERARCHICAL_SEARCH
+      = new BooleanSetting("search.hierarchical", false);
+
+  public static final Setting<Integer> SPECULATIVE_ITINERARY_COUNT
+      = new IntegerSetting("search.speculative-itineraries", 3);
+
+  public static final Setting<Boolean> PREFETCH_CHUNKS
+      = new BooleanSetting("search.prefetch-chunks", true);
+
+  public static final Setting<Integer> SEARCH_EVENT_SAMPLE_INTERVAL
+      = new IntegerSetting("search.event-sample-interval", 1);
+
+  public static final Setting<Integer> SEARCH_EVENT_DISPATCH_MILLIS
+      = new IntegerSetting("search.event-dispatch.budget-millis", 5);
+
+  public static final Setting<Integer> SEARCH_EVENT_DISPATCH_MAX_EVENTS
+      = new IntegerSetting("search.event-dispatch.max-events", 5000);
+
+  public static final Setting<Integer> SEARCH_EVENT_QUEUE_HIGH_WATER
+      = new IntegerSetting("search.event-dispatch.high-water", 50000);
+
+  public static final Setting<Integer> SEARCH_THREADS
+      = new IntegerSetting("search.threads", 4);
+
+  public static final Setting<Integer> SEARCH_SESSION_THREADS
+      = new IntegerSetting("search.session-threads", 4);
+
+  public static final Setting<Boolean> SEARCH_VIRTUAL_THREADS
+      = new BooleanSetting("search.virtual-threads", false);
+
   public static final Setting<Integer> MAX_SEARCHES
       = new IntegerSetting("search.max-searches", 16);
 
+  public static final Setting<Integer> MAX_QUEUED_SEARCHES
+      = new IntegerSetting("search.max-queued-searches", 32);
+
+  public static final Setting<Boolean> ADAPTIVE_MAX_SEARCHES
+      = new BooleanSetting("search.adaptive-max-searches", true);
+
+  public static final Setting<Boolean> COALESCE_SEARCHES
+      = new BooleanSetting("search.coalesce", true);
+
+  public static final Setting<Integer> CACHE_WARMUP_PARALLELISM
+      = new IntegerSetting("search.cache-warmup.parallelism", 2);
+
+  public static final Setting<Integer> CACHE_WARMUP_MAX_MSPT
+      = new IntegerSetting("search.cache-warmup.max-mspt", 40);
+
+  public static final Setting<Boolean> LANDMARK_HEURISTIC
+      = new BooleanSetting("search.landmarks.enabled", false);
+
+  public static final Setting<Integer> LANDMARK_COUNT
+      = new IntegerSetting("search.landmarks.count", 8);
+
+  public static final Setting<Integer> LANDMARK_RADIUS
+      = new IntegerSetting("search.landmarks.radius", 1024);
+
+  public static final Setting<Integer> LANDMARK_MAX_AGE_HOURS
+      = new IntegerSetting("search.landmarks.max-age-hours", 24);
+
   public static final Setting<Integer> MAX_CACHED_CELLS
       = new IntegerSetting("storage.cache.max_cells", 500000) /* Somewhere around 10-20 MB */;
 
+  public static final Setting<Integer> STORAGE_POOL_SIZE
+      = new IntegerSetting("storage.pool.size", 8);
+
+  public static final Setting<Integer> STORAGE_STATEMENT_CACHE_SIZE
+      = new IntegerSetting("storage.pool.statement_cache_size", 32);
+
   public static final Setting<String> STORAGE_ADDRESS
       = new StringSetting("storage.auth.address", "my.address");
 
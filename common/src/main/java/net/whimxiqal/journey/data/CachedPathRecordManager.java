@@ -0,0 +1,423 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.Journey;
+import net.whimxiqal.journey.config.Settings;
+import net.whimxiqal.journey.navigation.ModeType;
+import net.whimxiqal.journey.navigation.Path;
+import net.whimxiqal.journey.search.PathTrial;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A {@link PathRecordManager} that keeps the paths between recently requested origins and destinations in memory,
+ * in front of another manager that actually stores them.
+ * All paths between an origin and a destination are loaded together the first time either is requested,
+ * including the fact that there are none. Least recently used pairs are evicted once the cached paths
+ * hold more than {@link Settings#MAX_CACHED_CELLS} cells in total.
+ * Writes go through to the underlying manager.
+ * A failed load is never cached, so it is tried again the next time the pair is needed.
+ * Cached paths are also indexed by the chunks they cross, so they can be dropped as soon as
+ * the blocks in one of those chunks change.
+ */
+public class CachedPathRecordManager implements PathRecordManager {
+
+  private final PathRecordManager delegate;
+  private final LinkedHashMap<Endpoints, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);  // guarded by this
+  private long cachedCells = 0;  // guarded by this
+  // bumped whenever cached entries may go stale, so entries loaded in the meantime are not cached, guarded by this
+  private long generation = 0;
+  // domain -> chunk -> endpoints of cached paths crossing it, guarded by this
+  private final Map<Integer, Map<Long, Set<Endpoints>>> chunkIndex = new HashMap<>();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * General constructor.
+   *
+   * @param delegate the manager that stores the records
+   */
+  public CachedPathRecordManager(PathRecordManager delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public void report(PathTrial trial, Set<ModeType> modeTypes, long executionTime) throws DataAccessException {
+    delegate.report(trial, modeTypes, executionTime);
+    Path path = trial.getPath();
+    if (path == null || path.getSteps().isEmpty()) {
+      return;
+    }
+    synchronized (this) {
+      Entry entry = entries.get(new Endpoints(trial.getOrigin(), trial.getDestination()));
+      if (entry == null) {
+        // not cached, so it will be loaded with this path the next time it's needed,
+        // but a load already under way may have missed it
+        generation++;
+        return;
+      }
+      // mirror the underlying manager: slower paths that need no more modes than this one are replaced
+      Iterator<CachedPath> iterator = entry.paths.iterator();
+      while (iterator.hasNext()) {
+        CachedPath cachedPath = iterator.next();
+        if (cachedPath.path.getCost() > path.getCost() && modeTypes.containsAll(cachedPath.modeTypes)) {
+          iterator.remove();
+          entry.cells -= cachedPath.path.getSteps().size();
+          cachedCells -= cachedPath.path.getSteps().size();
+        }
+      }
+      entry.paths.add(new CachedPath(Set.copyOf(modeTypes), path));
+      entry.cells += path.getSteps().size();
+      cachedCells += path.getSteps().size();
+      index(new Endpoints(trial.getOrigin(), trial.getDestination()), entry, path);
+      evict();
+    }
+  }
+
+  @Override
+  public void truncate() {
+    delegate.truncate();
+    clear();
+  }
+
+  @Override
+  public void flush() {
+    delegate.flush();
+  }
+
+  @Override
+  public void shutdown() {
+    delegate.shutdown();
+    clear();
+  }
+
+  @Override
+  public int totalRecordCellCount() {
+    return delegate.totalRecordCellCount();
+  }
+
+  @Override
+  public @NotNull List<PathTrialRecord> getRecords(Cell origin, Cell destination) {
+    return delegate.getRecords(origin, destination);
+  }
+
+  @Override
+  public @Nullable PathTrialRecord getRecord(Cell origin, Cell destination, Set<ModeType> modeTypes) {
+    return delegate.getRecord(origin, destination, modeTypes);
+  }
+
+  @Override
+  public Path getPath(Cell origin, Cell destination, Set<ModeType> modeTypes) {
+    CachedPath cachedPath = find(origin, destination, modeTypes);
+    return cachedPath == null ? null : cachedPath.path;
+  }
+
+  @Override
+  public boolean containsRecord(Cell origin, Cell destination, Set<ModeType> modeTypes) {
+    return find(origin, destination, modeTypes) != null;
+  }
+
+  /**
+   * {@inheritDoc}
+   * Pairs that are already in memory are answered from there, and the rest are loaded
+   * from the underlying manager in bulk and kept in memory, including the pairs with no paths.
+   */
+  @Override
+  public @NotNull Map<Endpoints, Path> getPaths(Collection<Cell> origins, Collection<Cell> destinations,
+                                                Set<ModeType> modeTypes) {
+    Map<Endpoints, Path> paths = new HashMap<>();
+    Set<Cell> missingOrigins = new HashSet<>();
+    Set<Cell> missingDestinations = new HashSet<>();
+    long loadGeneration;
+    synchronized (this) {
+      loadGeneration = generation;
+      for (Cell origin : origins) {
+        for (Cell destination : destinations) {
+          if (origin.domain() != destination.domain()) {
+            continue;
+          }
+          Endpoints endpoints = new Endpoints(origin, destination);
+          Entry entry = entries.get(endpoints);
+          if (entry == null) {
+            missingOrigins.add(origin);
+            missingDestinations.add(destination);
+            continue;
+          }
+          hits.increment();
+          CachedPath cachedPath = entry.find(modeTypes);
+          if (cachedPath != null) {
+            paths.put(endpoints, cachedPath.path);
+          }
+        }
+      }
+    }
+    if (missingOrigins.isEmpty()) {
+      return paths;
+    }
+    misses.increment();
+    // load outside the lock so other lookups don't wait on the database;
+    // if it fails, the exception leaves before anything is cached
+    Map<Endpoints, Entry> loaded = new HashMap<>();
+    delegate.getRecords(missingOrigins, missingDestinations)
+        .forEach((endpoints, records) -> loaded.put(endpoints, entry(records)));
+    synchronized (this) {
+      // if anything was invalidated while loading, the loaded entries may already be stale, so only use them this once
+      boolean current = loadGeneration == generation;
+      for (Map.Entry<Endpoints, Entry> loadedEntry : loaded.entrySet()) {
+        Entry entry = current ? insert(loadedEntry.getKey(), loadedEntry.getValue()) : loadedEntry.getValue();
+        CachedPath cachedPath = entry.find(modeTypes);
+        if (cachedPath != null) {
+          paths.putIfAbsent(loadedEntry.getKey(), cachedPath.path);
+        }
+      }
+      if (current) {
+        evict();
+      }
+    }
+    return paths;
+  }
+
+  /**
+   * {@inheritDoc}
+   * They are read straight from the underlying manager, so a sweep over many pairs
+   * does not push the paths that are actually in use out of memory.
+   */
+  @Override
+  public @NotNull Set<Endpoints> recordedEndpoints(Collection<Cell> origins, Collection<Cell> destinations,
+                                                   Set<ModeType> modeTypes) {
+    return delegate.recordedEndpoints(origins, destinations, modeTypes);
+  }
+
+  /**
+   * Forget the cached paths between an origin and a destination,
+   * so they are loaded again from the underlying manager the next time they are needed.
+   *
+   * @param origin      the origin
+   * @param destination the destination
+   */
+  public synchronized void invalidate(Cell origin, Cell destination) {
+    // even if it's not cached yet, it may be loading
+    generation++;
+    Endpoints endpoints = new Endpoints(origin, destination);
+    Entry entry = entries.remove(endpoints);
+    if (entry != null) {
+      cachedCells -= entry.cells;
+      unindex(endpoints, entry);
+    }
+  }
+
+  @Override
+  public void invalidateChunk(int domain, int chunkX, int chunkZ) {
+    synchronized (this) {
+      // paths crossing the chunk may be loading
+      generation++;
+      Map<Long, Set<Endpoints>> domainIndex = chunkIndex.get(domain);
+      Set<Endpoints> crossing = domainIndex == null ? null : domainIndex.get(PathChunks.key(chunkX, chunkZ));
+      if (crossing != null) {
+        for (Endpoints endpoints : List.copyOf(crossing)) {
+          invalidate(endpoints.origin(), endpoints.destination());
+        }
+      }
+    }
+    delegate.invalidateChunk(domain, chunkX, chunkZ);
+  }
+
+  /**
+   * Forget every cached path.
+   */
+  public synchronized void clear() {
+    generation++;
+    entries.clear();
+    chunkIndex.clear();
+    cachedCells = 0;
+  }
+
+  /**
+   * Get the number of cells in all cached paths.
+   *
+   * @return the number of cells
+   */
+  public synchronized long cachedCells() {
+    return cachedCells;
+  }
+
+  /**
+   * Get the number of lookups that were answered from memory.
+   *
+   * @return the hit count
+   */
+  public long hits() {
+    return hits.sum();
+  }
+
+  /**
+   * Get the number of lookups that had to go to the underlying manager.
+   *
+   * @return the miss count
+   */
+  public long misses() {
+    return misses.sum();
+  }
+
+  @Nullable
+  private CachedPath find(Cell origin, Cell destination, Set<ModeType> modeTypes) {
+    Endpoints endpoints = new Endpoints(origin, destination);
+    Entry entry;
+    long loadGeneration;
+    synchronized (this) {
+      entry = entries.get(endpoints);
+      loadGeneration = generation;
+    }
+    if (entry == null) {
+      misses.increment();
+      // load outside the lock so other lookups don't wait on the database;
+      // if it fails, the exception leaves before anything is cached
+      entry = entry(delegate.getRecords(origin, destination));
+      synchronized (this) {
+        // if anything was invalidated while loading, the entry may already be stale, so only use it this once
+        if (loadGeneration == generation) {
+          entry = insert(endpoints, entry);
+          evict();
+        }
+      }
+    } else {
+      hits.increment();
+    }
+    synchronized (this) {
+      return entry.find(modeTypes);
+    }
+  }
+
+  /**
+   * Cache a loaded entry, unless another one was cached in the meantime. Call {@link #evict()} afterwards.
+   *
+   * @return the entry now cached
+   */
+  private Entry insert(Endpoints endpoints, Entry entry) {
+    Entry previous = entries.putIfAbsent(endpoints, entry);
+    if (previous != null) {
+      return previous;
+    }
+    cachedCells += entry.cells;
+    for (CachedPath cachedPath : entry.paths) {
+      index(endpoints, entry, cachedPath.path);
+    }
+    return entry;
+  }
+
+  private static Entry entry(List<PathTrialRecord> records) {
+    Entry entry = new Entry();
+    // shortest first, so the best path is found first however the records were loaded
+    List<PathTrialRecord> sorted = new ArrayList<>(records);
+    sorted.sort(Comparator.comparingDouble(PathTrialRecord::pathCost));
+    for (PathTrialRecord record : sorted) {
+      Set<ModeType> modeTypes = Set.copyOf(record.modes().stream().map(PathTrialModeRecord::modeType).toList());
+      Path path;
+      try {
+        path = record.toPath();
+      } catch (DataAccessException e) {
+        Journey.logger().warn("Skipping an unreadable path record: " + e.getMessage());
+        continue;
+      }
+      entry.paths.add(new CachedPath(modeTypes, path));
+      entry.cells += path.getSteps().size();
+    }
+    return entry;
+  }
+
+  private void evict() {
+    long maxCells = Settings.MAX_CACHED_CELLS.getValue();
+    Iterator<Map.Entry<Endpoints, Entry>> iterator = entries.entrySet().iterator();
+    while (cachedCells > maxCells && entries.size() > 1 && iterator.hasNext()) {
+      Map.Entry<Endpoints, Entry> eldest = iterator.next();
+      cachedCells -= eldest.getValue().cells;
+      unindex(eldest.getKey(), eldest.getValue());
+      iterator.remove();
+    }
+  }
+
+  private void index(Endpoints endpoints, Entry entry, Path path) {
+    Map<Long, Set<Endpoints>> domainIndex = chunkIndex.computeIfAbsent(endpoints.origin().domain(),
+        k -> new HashMap<>());
+    for (long chunk : PathChunks.of(path)) {
+      if (entry.chunks.add(chunk)) {
+        domainIndex.computeIfAbsent(chunk, k -> new HashSet<>()).add(endpoints);
+      }
+    }
+  }
+
+  private void unindex(Endpoints endpoints, Entry entry) {
+    Map<Long, Set<Endpoints>> domainIndex = chunkIndex.get(endpoints.origin().domain());
+    if (domainIndex == null) {
+      return;
+    }
+    for (long chunk : entry.chunks) {
+      Set<Endpoints> crossing = domainIndex.get(chunk);
+      if (crossing != null) {
+        crossing.remove(endpoints);
+        if (crossing.isEmpty()) {
+          domainIndex.remove(chunk);
+        }
+      }
+    }
+    if (domainIndex.isEmpty()) {
+      chunkIndex.remove(endpoints.origin().domain());
+    }
+  }
+
+  private record CachedPath(Set<ModeType> modeTypes, Path path) {
+  }
+
+  private static final class Entry {
+    final List<CachedPath> paths = new ArrayList<>(1);
+    // a pair with no paths still takes up a little room
+    long cells = 1;
+    // every chunk crossed by any of the paths
+    final Set<Long> chunks = new HashSet<>();
+
+    @Nullable
+    CachedPath find(Set<ModeType> modeTypes) {
+      for (CachedPath cachedPath : paths) {
+        if (modeTypes.containsAll(cachedPath.modeTypes)) {
+          return cachedPath;
+        }
+      }
+      return null;
+    }
+  }
+
+}
@@ -62,4 +62,11 @@ public interface DataManager extends Initializable {
 
   TunnelDataManager netherPortalManager();
 
+  /**
+   * Finish any pending storage operations and release resources.
+   */
+  default void shutdown() {
+    // nothing by default
+  }
+
 }
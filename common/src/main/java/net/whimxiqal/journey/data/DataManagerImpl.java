@@ -27,20 +27,29 @@ import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.stream.Collectors;
+import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.Journey;
 import net.whimxiqal.journey.config.Settings;
+import net.whimxiqal.journey.data.sql.SqlConnectionController;
+import net.whimxiqal.journey.data.sql.SqlManager;
 import net.whimxiqal.journey.data.sql.SqlPathRecordManager;
 import net.whimxiqal.journey.data.sql.SqlPersonalWaypointManager;
 import net.whimxiqal.journey.data.sql.SqlTunnelDataManager;
 import net.whimxiqal.journey.data.sql.SqlPublicWaypointManager;
 import net.whimxiqal.journey.data.sql.mysql.MySqlConnectionController;
 import net.whimxiqal.journey.data.sql.sqlite.SqliteConnectionController;
+import net.whimxiqal.journey.navigation.ModeType;
+import net.whimxiqal.journey.navigation.Step;
 import net.whimxiqal.journey.util.Initializable;
 
 /**
@@ -53,6 +62,7 @@ public class DataManagerImpl implements DataManager {
   private PublicWaypointManager publicWaypointManager;
   private PathRecordManager pathRecordManager;
   private TunnelDataManager tunnelDataManager;
+  private SqlConnectionController connectionController;
 
   @Override
   public void initialize() {
@@ -61,9 +71,10 @@ public class DataManagerImpl implements DataManager {
       case SQLITE:
         String sqliteAddress = "jdbc:sqlite:" + Journey.get().proxy().dataFolder() + "/" + DATABASE_FILE_NAME;
         SqliteConnectionController sqliteController = new SqliteConnectionController(sqliteAddress);
+        connectionController = sqliteController;
         personalWaypointManager = new SqlPersonalWaypointManager(sqliteController);
         publicWaypointManager = new SqlPublicWaypointManager(sqliteController);
-        pathRecordManager = new SqlPathRecordManager(sqliteController);
+        pathRecordManager = new CachedPathRecordManager(new SqlPathRecordManager(sqliteController));
         tunnelDataManager = new SqlTunnelDataManager(sqliteController);
         if (setupSchema) {
           try (Connection connection = sqliteController.establishConnection()) {
@@ -74,6 +85,17 @@ public class DataManagerImpl implements DataManager {
             setupSchema = false;
             e.printStackTrace();
           }
+        } else {
+          try (Connection connection = sqliteController.establishConnection()) {
+            if (version() == DataVersion.V001) {
+              migrateCellsToBlobs(connection);
+            }
+            if (version() == DataVersion.V002) {
+              migratePathChunks(connection);
+            }
+          } catch (SQLException e) {
+            e.printStackTrace();
+          }
         }
         break;
 //      case MYSQL:
@@ -101,6 +123,146 @@ public class DataManagerImpl implements DataManager {
     }
   }
 
+  /**
+   * Migrate the database from {@link DataVersion#V001} to {@link DataVersion#V002},
+   * moving the cells of every cached path out of their own table into a single encoded blob on the path.
+   * The whole migration happens in one transaction, so a failure leaves the database at the old version.
+   *
+   * @param connection the connection to the database
+   * @throws SQLException if the migration fails
+   */
+  private void migrateCellsToBlobs(Connection connection) throws SQLException {
+    Journey.logger().info("Migrating cached paths to the compact cell format...");
+    boolean autoCommit = connection.getAutoCommit();
+    connection.setAutoCommit(false);
+    try {
+      try (Statement statement = connection.createStatement()) {
+        statement.addBatch("ALTER TABLE " + SqlManager.CACHED_PATHS_TABLE
+            + " ADD COLUMN cell_count INT NOT NULL DEFAULT 0");
+        statement.addBatch("ALTER TABLE " + SqlManager.CACHED_PATHS_TABLE
+            + " ADD COLUMN cells BLOB");
+        statement.executeBatch();
+      }
+
+      List<Long> pathIds = new LinkedList<>();
+      try (Statement statement = connection.createStatement();
+           ResultSet result = statement.executeQuery("SELECT id FROM " + SqlManager.CACHED_PATHS_TABLE)) {
+        while (result.next()) {
+          pathIds.add(result.getLong("id"));
+        }
+      }
+
+      int migrated = 0;
+      try (PreparedStatement select = connection.prepareStatement("SELECT x, y, z, mode_type FROM "
+          + SqlManager.CACHED_PATH_CELLS_TABLE + " WHERE path_id = ? ORDER BY path_index");
+           PreparedStatement update = connection.prepareStatement("UPDATE " + SqlManager.CACHED_PATHS_TABLE
+               + " SET cell_count = ?, cells = ? WHERE id = ?")) {
+        ModeType[] modeTypes = ModeType.values();
+        for (long pathId : pathIds) {
+          List<Step> steps = new ArrayList<>();
+          select.setLong(1, pathId);
+          try (ResultSet result = select.executeQuery()) {
+            while (result.next()) {
+              // the domain is stored on the path, not with each cell, so it doesn't matter here
+              steps.add(new Step(new Cell(result.getInt("x"), result.getInt("y"), result.getInt("z"), 0),
+                  0, modeTypes[result.getInt("mode_type")]));
+            }
+          }
+          if (steps.isEmpty()) {
+            continue;
+          }
+          update.setInt(1, steps.size());
+          update.setBytes(2, PathCellCodec.encode(steps));
+          update.setLong(3, pathId);
+          update.addBatch();
+          migrated++;
+        }
+        update.executeBatch();
+      }
+
+      try (Statement statement = connection.createStatement()) {
+        // paths without cells are useless, and their modes go with them
+        statement.addBatch("DELETE FROM " + SqlManager.CACHED_PATH_MODES_TABLE + " WHERE path_id IN (SELECT id FROM "
+            + SqlManager.CACHED_PATHS_TABLE + " WHERE cells IS NULL)");
+        statement.addBatch("DELETE FROM " + SqlManager.CACHED_PATHS_TABLE + " WHERE cells IS NULL");
+        statement.addBatch("DROP TABLE " + SqlManager.CACHED_PATH_CELLS_TABLE);
+        statement.executeBatch();
+      }
+      connection.commit();
+      DataVersion.writeVersion(DataVersion.V002);
+      Journey.logger().info("Migrated " + migrated + " cached paths.");
+    } catch (SQLException e) {
+      connection.rollback();
+      throw e;
+    } finally {
+      connection.setAutoCommit(autoCommit);
+    }
+  }
+
+  /**
+   * Migrate the database from {@link DataVersion#V002} to {@link DataVersion#V003},
+   * indexing every cached path by the chunks it crosses.
+   *
+   * @param connection the connection to the database
+   * @throws SQLException if the migration fails
+   */
+  private void migratePathChunks(Connection connection) throws SQLException {
+    Journey.logger().info("Indexing cached paths by chunk...");
+    boolean autoCommit = connection.getAutoCommit();
+    connection.setAutoCommit(false);
+    try {
+      try (Statement statement = connection.createStatement()) {
+        statement.addBatch("CREATE TABLE " + SqlManager.CACHED_PATH_CHUNKS_TABLE + " ("
+            + "path_id INTEGER NOT NULL, "
+            + "domain_id BINARY(16) NOT NULL, "
+            + "chunk_x INT NOT NULL, "
+            + "chunk_z INT NOT NULL, "
+            + "FOREIGN KEY (path_id) REFERENCES " + SqlManager.CACHED_PATHS_TABLE + " (id) "
+            + "ON DELETE CASCADE ON UPDATE CASCADE)");
+        statement.addBatch("CREATE INDEX journey_cached_path_chunks_chunk_idx ON "
+            + SqlManager.CACHED_PATH_CHUNKS_TABLE + " (domain_id, chunk_x, chunk_z)");
+        statement.addBatch("CREATE INDEX journey_cached_path_chunks_path_id_idx ON "
+            + SqlManager.CACHED_PATH_CHUNKS_TABLE + " (path_id)");
+        statement.executeBatch();
+      }
+
+      int indexed = 0;
+      try (Statement select = connection.createStatement();
+           ResultSet result = select.executeQuery("SELECT id, domain_id, cells FROM "
+               + SqlManager.CACHED_PATHS_TABLE + " WHERE cells IS NOT NULL");
+           PreparedStatement insert = connection.prepareStatement("INSERT INTO "
+               + SqlManager.CACHED_PATH_CHUNKS_TABLE + " (path_id, domain_id, chunk_x, chunk_z) VALUES (?, ?, ?, ?)")) {
+        while (result.next()) {
+          Set<Long> chunks;
+          try {
+            chunks = PathChunks.of(result.getBytes("cells"));
+          } catch (DataAccessException e) {
+            // an unreadable path is never used, so there's no need to find it again
+            Journey.logger().warn("Skipping an unreadable path record: " + e.getMessage());
+            continue;
+          }
+          for (long chunk : chunks) {
+            insert.setLong(1, result.getLong("id"));
+            insert.setBytes(2, result.getBytes("domain_id"));
+            insert.setInt(3, PathChunks.chunkX(chunk));
+            insert.setInt(4, PathChunks.chunkZ(chunk));
+            insert.addBatch();
+          }
+          indexed++;
+        }
+        insert.executeBatch();
+      }
+      connection.commit();
+      DataVersion.writeVersion(DataVersion.V003);
+      Journey.logger().info("Indexed " + indexed + " cached paths.");
+    } catch (SQLException e) {
+      connection.rollback();
+      throw e;
+    } finally {
+      connection.setAutoCommit(autoCommit);
+    }
+  }
+
   private void addBatchesToStatement(String queryResource, Statement statement) throws SQLException {
     InputStream resourceStream = this.getClass().getResourceAsStream(queryResource);
     if (resourceStream == null) {
@@ -136,4 +298,14 @@ public class DataManagerImpl implements DataManager {
   public TunnelDataManager netherPortalManager() {
     return tunnelDataManager;
   }
+
+  @Override
+  public void shutdown() {
+    if (pathRecordManager != null) {
+      pathRecordManager.shutdown();
+    }
+    if (connectionController != null) {
+      connectionController.shutdown();
+    }
+  }
 }
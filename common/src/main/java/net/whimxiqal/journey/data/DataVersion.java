@@ -38,7 +38,9 @@ public enum DataVersion implements Comparable<DataVersion> {
 
   ERROR(-1),
   V000(0),
-  V001(1);
+  V001(1),
+  V002(2),
+  V003(3);
 
   public static final String VERSION_FILE_NAME = "journeydb.ver";
   private static final Map<Integer, DataVersion> VERSIONS = new HashMap<>();
@@ -130,7 +132,7 @@ public enum DataVersion implements Comparable<DataVersion> {
   }
 
   public static DataVersion latest() {
-    return DataVersion.V001;
+    return DataVersion.V003;
   }
 
   public boolean hasError() {
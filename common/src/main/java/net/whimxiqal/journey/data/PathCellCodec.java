@@ -0,0 +1,215 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.data;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.navigation.ModeType;
+import net.whimxiqal.journey.navigation.Step;
+
+/**
+ * The compact binary format in which the cells of a stored path are kept, one blob per path.
+ *
+ * <p>The format is a format version byte, the number of cells, the first cell, then every following cell
+ * as a difference from the one before it, then the mode types of the cells as runs.
+ * Since consecutive cells of a path are almost always adjacent, a difference with every coordinate
+ * in [-1, 1] takes up a single byte, and any other difference is escaped and written as three zigzag varints.
+ * All other numbers are varints too.
+ */
+public final class PathCellCodec {
+
+  public static final byte FORMAT_VERSION = 1;
+  private static final int UNIT_DELTA_COUNT = 27;  // 3 * 3 * 3
+  private static final int ESCAPE = UNIT_DELTA_COUNT;
+
+  private PathCellCodec() {
+  }
+
+  /**
+   * Encode the cells of a path. All steps must be in the same domain.
+   *
+   * @param steps the steps of the path
+   * @return the encoded cells
+   */
+  public static byte[] encode(List<Step> steps) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(8 + steps.size() + 2 * ModeType.values().length);
+    out.write(FORMAT_VERSION);
+    writeVarInt(out, steps.size());
+    if (steps.isEmpty()) {
+      return out.toByteArray();
+    }
+
+    Cell previous = steps.get(0).location();
+    writeVarInt(out, zigzag(previous.blockX()));
+    writeVarInt(out, zigzag(previous.blockY()));
+    writeVarInt(out, zigzag(previous.blockZ()));
+    for (int i = 1; i < steps.size(); i++) {
+      Cell cell = steps.get(i).location();
+      int dx = cell.blockX() - previous.blockX();
+      int dy = cell.blockY() - previous.blockY();
+      int dz = cell.blockZ() - previous.blockZ();
+      if (Math.abs(dx) <= 1 && Math.abs(dy) <= 1 && Math.abs(dz) <= 1) {
+        out.write((dx + 1) * 9 + (dy + 1) * 3 + (dz + 1));
+      } else {
+        out.write(ESCAPE);
+        writeVarInt(out, zigzag(dx));
+        writeVarInt(out, zigzag(dy));
+        writeVarInt(out, zigzag(dz));
+      }
+      previous = cell;
+    }
+
+    // mode types, as (ordinal, length) runs
+    int runStart = 0;
+    for (int i = 1; i <= steps.size(); i++) {
+      if (i == steps.size() || steps.get(i).modeType() != steps.get(runStart).modeType()) {
+        writeVarInt(out, steps.get(runStart).modeType().ordinal());
+        writeVarInt(out, i - runStart);
+        runStart = i;
+      }
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Get the number of cells in encoded cells without decoding them.
+   *
+   * @param data the encoded cells
+   * @return the number of cells
+   */
+  public static int count(byte[] data) {
+    checkVersion(data);
+    return new Reader(data, 1).readVarInt();
+  }
+
+  /**
+   * Decode cells, passing each one to a consumer in order.
+   *
+   * @param data     the encoded cells
+   * @param consumer the consumer of every cell
+   * @throws DataAccessException if the data is malformed
+   */
+  public static void decode(byte[] data, CellConsumer consumer) throws DataAccessException {
+    checkVersion(data);
+    try {
+      Reader reader = new Reader(data, 1);
+      int count = reader.readVarInt();
+      if (count == 0) {
+        return;
+      }
+      int[] xs = new int[count];
+      int[] ys = new int[count];
+      int[] zs = new int[count];
+      xs[0] = unzigzag(reader.readVarInt());
+      ys[0] = unzigzag(reader.readVarInt());
+      zs[0] = unzigzag(reader.readVarInt());
+      for (int i = 1; i < count; i++) {
+        int delta = reader.readByte();
+        if (delta == ESCAPE) {
+          xs[i] = xs[i - 1] + unzigzag(reader.readVarInt());
+          ys[i] = ys[i - 1] + unzigzag(reader.readVarInt());
+          zs[i] = zs[i - 1] + unzigzag(reader.readVarInt());
+        } else if (delta < UNIT_DELTA_COUNT) {
+          xs[i] = xs[i - 1] + delta / 9 - 1;
+          ys[i] = ys[i - 1] + delta / 3 % 3 - 1;
+          zs[i] = zs[i - 1] + delta % 3 - 1;
+        } else {
+          throw new DataAccessException("Malformed path cell data: unknown delta " + delta);
+        }
+      }
+      ModeType[] modeTypes = ModeType.values();
+      int index = 0;
+      while (index < count) {
+        ModeType modeType = modeTypes[reader.readVarInt()];
+        int runLength = reader.readVarInt();
+        if (runLength <= 0 || index + runLength > count) {
+          throw new DataAccessException("Malformed path cell data: bad mode run length " + runLength);
+        }
+        for (int end = index + runLength; index < end; index++) {
+          consumer.accept(index, xs[index], ys[index], zs[index], modeType);
+        }
+      }
+    } catch (ArrayIndexOutOfBoundsException e) {
+      throw new DataAccessException("Malformed path cell data: " + e.getMessage());
+    }
+  }
+
+  private static void checkVersion(byte[] data) {
+    if (data == null || data.length == 0 || data[0] != FORMAT_VERSION) {
+      throw new DataAccessException("Path cell data is missing or in an unsupported format");
+    }
+  }
+
+  private static void writeVarInt(ByteArrayOutputStream out, int value) {
+    while ((value & ~0x7F) != 0) {
+      out.write((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+
+  private static int zigzag(int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+  private static int unzigzag(int value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /**
+   * A consumer of decoded cells.
+   */
+  @FunctionalInterface
+  public interface CellConsumer {
+    void accept(int index, int x, int y, int z, ModeType modeType);
+  }
+
+  private static final class Reader {
+    private final byte[] data;
+    private int position;
+
+    Reader(byte[] data, int position) {
+      this.data = data;
+      this.position = position;
+    }
+
+    int readByte() {
+      return data[position++] & 0xFF;
+    }
+
+    int readVarInt() {
+      int value = 0;
+      for (int shift = 0; shift < 35; shift += 7) {
+        int b = readByte();
+        value |= (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new DataAccessException("Malformed path cell data: varint too long");
+    }
+  }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.data;
+
+import java.util.HashSet;
+import java.util.Set;
+import net.whimxiqal.journey.navigation.Path;
+import net.whimxiqal.journey.navigation.Step;
+
+/**
+ * Utilities for the chunks that a stored path crosses, by which stored paths are found again
+ * when the blocks in a chunk change.
+ * A chunk is identified within its domain by a single long packing its x and z coordinates.
+ */
+public final class PathChunks {
+
+  private PathChunks() {
+  }
+
+  /**
+   * Get the key of a chunk within its domain.
+   *
+   * @param chunkX the chunk's x coordinate
+   * @param chunkZ the chunk's z coordinate
+   * @return the key
+   */
+  public static long key(int chunkX, int chunkZ) {
+    return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+  }
+
+  public static int chunkX(long key) {
+    return (int) (key >> 32);
+  }
+
+  public static int chunkZ(long key) {
+    return (int) key;
+  }
+
+  /**
+   * Get the keys of all chunks crossed by a path.
+   *
+   * @param path the path
+   * @return the chunk keys
+   */
+  public static Set<Long> of(Path path) {
+    Set<Long> chunks = new HashSet<>();
+    for (Step step : path.getSteps()) {
+      chunks.add(key(step.location().blockX() >> 4, step.location().blockZ() >> 4));
+    }
+    return chunks;
+  }
+
+  /**
+   * Get the keys of all chunks crossed by a path stored in the format of {@link PathCellCodec}.
+   *
+   * @param cells the encoded cells
+   * @return the chunk keys
+   * @throws DataAccessException if the cells are malformed
+   */
+  public static Set<Long> of(byte[] cells) throws DataAccessException {
+    Set<Long> chunks = new HashSet<>();
+    PathCellCodec.decode(cells, (index, x, y, z, modeType) -> chunks.add(key(x >> 4, z >> 4)));
+    return chunks;
+  }
+
+}
@@ -23,9 +23,14 @@
 
 package net.whimxiqal.journey.data;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import lombok.Value;
 import lombok.experimental.Accessors;
@@ -33,6 +38,7 @@ import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.navigation.Mode;
 import net.whimxiqal.journey.navigation.ModeType;
 import net.whimxiqal.journey.navigation.Path;
+import net.whimxiqal.journey.navigation.Step;
 import net.whimxiqal.journey.search.PathTrial;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -43,7 +49,7 @@ import org.jetbrains.annotations.Nullable;
 public interface PathRecordManager {
 
   /**
-   * Record a path trial.
+   * Record a path trial. The record may be stored asynchronously.
    *
    * @param trial            the trial
    * @param modeTypes        group of modes used to calculate this path trial
@@ -59,6 +65,33 @@ public interface PathRecordManager {
    */
   void truncate();
 
+  /**
+   * Forget every record whose path crosses a chunk, because the blocks in it have changed
+   * and the path may no longer be possible, or may no longer be the best one.
+   * The records may be forgotten asynchronously.
+   *
+   * @param domain the domain of the chunk
+   * @param chunkX the chunk's x coordinate
+   * @param chunkZ the chunk's z coordinate
+   */
+  default void invalidateChunk(int domain, int chunkX, int chunkZ) {
+    // nothing by default
+  }
+
+  /**
+   * Store every reported path trial that has not been stored yet, waiting until it is done.
+   */
+  default void flush() {
+    // nothing by default
+  }
+
+  /**
+   * Store every reported path trial that has not been stored yet and release any resources.
+   */
+  default void shutdown() {
+    flush();
+  }
+
   int totalRecordCellCount();
 
   /**
@@ -67,9 +100,34 @@ public interface PathRecordManager {
    * @param origin      the original cell
    * @param destination the destination cell
    * @return any records
+   * @throws DataAccessException if the records could not be read
    */
   @NotNull
-  List<PathTrialRecord> getRecords(Cell origin, Cell destination);
+  List<PathTrialRecord> getRecords(Cell origin, Cell destination) throws DataAccessException;
+
+  /**
+   * Get the records between many origins and destinations at once.
+   * Every origin and destination in the same domain has an entry, which is empty if there are no records between them.
+   *
+   * @param origins      the original cells
+   * @param destinations the destination cells
+   * @return the records, by their origin and destination
+   * @throws DataAccessException if the records could not be read
+   */
+  @NotNull
+  default Map<Endpoints, List<PathTrialRecord>> getRecords(Collection<Cell> origins, Collection<Cell> destinations)
+      throws DataAccessException {
+    Map<Endpoints, List<PathTrialRecord>> records = new HashMap<>();
+    for (Cell origin : origins) {
+      for (Cell destination : destinations) {
+        if (origin.domain() != destination.domain()) {
+          continue;
+        }
+        records.put(new Endpoints(origin, destination), getRecords(origin, destination));
+      }
+    }
+    return records;
+  }
 
   /**
    * Get a specific record, if it exists.
@@ -89,8 +147,9 @@ public interface PathRecordManager {
    * @param destination the destination cell
    * @param modeTypes   the mode types used to traverse to the destination
    * @return the new path
+   * @throws DataAccessException if the records could not be read
    */
-  Path getPath(Cell origin, Cell destination, Set<ModeType> modeTypes);
+  Path getPath(Cell origin, Cell destination, Set<ModeType> modeTypes) throws DataAccessException;
 
   /**
    * Return whether a record exists with the given criteria.
@@ -99,8 +158,64 @@ public interface PathRecordManager {
    * @param destination the destination cell
    * @param modeTypes   the mode types used to traverse to the destination
    * @return whether it exists
+   * @throws DataAccessException if the records could not be read
    */
-  boolean containsRecord(Cell origin, Cell destination, Set<ModeType> modeTypes);
+  boolean containsRecord(Cell origin, Cell destination, Set<ModeType> modeTypes) throws DataAccessException;
+
+  /**
+   * Get the paths between many origins and destinations at once.
+   * A path is found for every origin and destination in the same domain that has a record
+   * needing no mode types besides the given ones.
+   *
+   * @param origins      the original cells
+   * @param destinations the destination cells
+   * @param modeTypes    the mode types that may be used to traverse to the destinations
+   * @return the paths, by their origin and destination
+   * @throws DataAccessException if the records could not be read
+   */
+  @NotNull
+  default Map<Endpoints, Path> getPaths(Collection<Cell> origins, Collection<Cell> destinations,
+                                        Set<ModeType> modeTypes) throws DataAccessException {
+    Map<Endpoints, Path> paths = new HashMap<>();
+    for (Cell origin : origins) {
+      for (Cell destination : destinations) {
+        if (origin.domain() != destination.domain()) {
+          continue;
+        }
+        Path path = getPath(origin, destination, modeTypes);
+        if (path != null) {
+          paths.put(new Endpoints(origin, destination), path);
+        }
+      }
+    }
+    return paths;
+  }
+
+  /**
+   * Get which of many origins and destinations already have a path between them,
+   * like {@link #getPaths}, but without keeping anything in memory for later lookups.
+   * Meant for one-off sweeps over many pairs that are not going to be looked up again soon.
+   *
+   * @param origins      the original cells
+   * @param destinations the destination cells
+   * @param modeTypes    the mode types that may be used to traverse to the destinations
+   * @return the origins and destinations that have a path
+   * @throws DataAccessException if the records could not be read
+   */
+  @NotNull
+  default Set<Endpoints> recordedEndpoints(Collection<Cell> origins, Collection<Cell> destinations,
+                                           Set<ModeType> modeTypes) throws DataAccessException {
+    return getPaths(origins, destinations, modeTypes).keySet();
+  }
+
+  /**
+   * The ends of a recorded path.
+   *
+   * @param origin      the original cell
+   * @param destination the destination cell
+   */
+  record Endpoints(Cell origin, Cell destination) {
+  }
 
   /**
    * A record that represents a saved {@link PathTrial}.
@@ -122,6 +237,31 @@ public interface PathRecordManager {
     int domain;
     List<PathTrialCellRecord> cells;
     Collection<PathTrialModeRecord> modes;
+
+    /**
+     * Build the path stored in this record. The cells must be populated.
+     *
+     * @return the path
+     * @throws DataAccessException if the record has no cells
+     */
+    public Path toPath() throws DataAccessException {
+      if (cells.isEmpty()) {
+        throw new DataAccessException("Tried to get a path (id:" + id + "), but found no path cells");
+      }
+      List<PathTrialCellRecord> sortedCells = new ArrayList<>(cells);
+      sortedCells.sort(Comparator.comparing(PathTrialCellRecord::index));
+
+      LinkedList<Step> steps = new LinkedList<>();
+      // Add the first one because we don't move to get here
+      steps.add(new Step(sortedCells.get(0).toCell(), 0, sortedCells.get(0).modeType()));
+      for (int i = 1; i < sortedCells.size(); i++) {
+        Cell cell = sortedCells.get(i).toCell();
+        steps.add(new Step(cell,
+            cell.distanceTo(steps.getLast().location()),
+            sortedCells.get(i).modeType()));
+      }
+      return new Path(steps.getFirst().location(), steps, pathCost);
+    }
   }
 
   /**
@@ -0,0 +1,357 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.data.sql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.whimxiqal.journey.Journey;
+
+/**
+ * A connection controller that keeps its connections open and lends them out again,
+ * instead of opening a new connection for every operation.
+ *
+ * <p>The connections handed out by {@link #establishConnection()} go back to the pool when they are closed.
+ * Each pooled connection also caches the statements prepared on it, so the same query
+ * is only ever compiled once per connection. A cached statement handed out while it is still in use
+ * falls back to a new, uncached one, so nested queries on the same connection still work.
+ *
+ * <p>The main thread hardly ever waits for a connection. It may open one connection beyond the pool size,
+ * which is closed again instead of going back to the pool, and if even that one is in use,
+ * it only waits a moment for another before it fails.
+ */
+public abstract class PooledConnectionController implements SqlConnectionController {
+
+  private static final long ACQUIRE_TIMEOUT_MS = 30000;
+  private static final long MAIN_THREAD_ACQUIRE_TIMEOUT_MS = 50;
+
+  private final int maxConnections;
+  private final int statementCacheSize;
+  private final BlockingQueue<PooledConnection> idle = new LinkedBlockingQueue<>();
+  private final AtomicInteger open = new AtomicInteger(0);
+  private volatile boolean shutdown = false;
+
+  /**
+   * General constructor.
+   *
+   * @param maxConnections     the most connections to keep open at once
+   * @param statementCacheSize the most prepared statements to cache on each connection
+   */
+  protected PooledConnectionController(int maxConnections, int statementCacheSize) {
+    this.maxConnections = Math.max(1, maxConnections);
+    this.statementCacheSize = Math.max(0, statementCacheSize);
+  }
+
+  /**
+   * Open a new physical connection to the engine.
+   *
+   * @return the connection
+   * @throws SQLException if the connection could not be opened
+   */
+  protected abstract Connection openConnection() throws SQLException;
+
+  /**
+   * Prepare a newly opened physical connection before it is first lent out.
+   *
+   * @param connection the connection
+   * @throws SQLException if the connection could not be configured
+   */
+  protected void configure(Connection connection) throws SQLException {
+    // nothing by default
+  }
+
+  @Override
+  public final Connection establishConnection() throws SQLException {
+    if (shutdown) {
+      throw new SQLException("The connection pool is shut down");
+    }
+    PooledConnection pooled = acquire();
+    return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+        new Class<?>[]{Connection.class},
+        new Lease(pooled));
+  }
+
+  private PooledConnection acquire() throws SQLException {
+    PooledConnection pooled;
+    while ((pooled = idle.poll()) != null) {
+      if (!pooled.connection.isClosed()) {
+        return pooled;
+      }
+      open.decrementAndGet();
+    }
+    // the main thread may always open one more connection than the others, so it never has to wait for them
+    boolean synchronous = Journey.get().proxy().platform().synchronous();
+    if (open.incrementAndGet() <= maxConnections + (synchronous ? 1 : 0)) {
+      try {
+        Connection connection = openConnection();
+        configure(connection);
+        return new PooledConnection(connection);
+      } catch (SQLException e) {
+        open.decrementAndGet();
+        throw e;
+      }
+    }
+    open.decrementAndGet();
+    try {
+      pooled = idle.poll(synchronous ? MAIN_THREAD_ACQUIRE_TIMEOUT_MS : ACQUIRE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for a database connection", e);
+    }
+    if (pooled == null) {
+      if (synchronous) {
+        Journey.logger().error("[Storage] No database connection was free for the main thread within "
+            + MAIN_THREAD_ACQUIRE_TIMEOUT_MS + " ms");
+      }
+      throw new SQLException("Timed out waiting for a database connection");
+    }
+    return pooled;
+  }
+
+  private void release(PooledConnection pooled) {
+    try {
+      if (!pooled.connection.getAutoCommit()) {
+        pooled.connection.rollback();
+        pooled.connection.setAutoCommit(true);
+      }
+      pooled.releaseStatements();
+    } catch (SQLException e) {
+      // this connection is in an unknown state, so don't lend it out again
+      discard(pooled);
+      return;
+    }
+    if (shutdown || open.get() > maxConnections) {
+      // keep the main thread's spare connection free
+      discard(pooled);
+    } else {
+      idle.add(pooled);
+    }
+  }
+
+  private void discard(PooledConnection pooled) {
+    open.decrementAndGet();
+    try {
+      pooled.connection.close();
+    } catch (SQLException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Close every idle connection and stop lending out new ones.
+   * Connections still lent out are closed when they are returned.
+   */
+  @Override
+  public void shutdown() {
+    shutdown = true;
+    PooledConnection pooled;
+    while ((pooled = idle.poll()) != null) {
+      discard(pooled);
+    }
+    if (open.get() > 0) {
+      Journey.logger().debug("[Storage] " + open.get() + " database connections were still in use at shutdown");
+    }
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * A physical connection along with the statements cached on it.
+   */
+  private final class PooledConnection {
+    private final Connection connection;
+    private final Map<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+        if (size() <= statementCacheSize || eldest.getValue().inUse) {
+          return false;
+        }
+        try {
+          eldest.getValue().statement.close();
+        } catch (SQLException e) {
+          e.printStackTrace();
+        }
+        return true;
+      }
+    };
+    // statements that are not cached, which are closed when the connection goes back to the pool
+    private final List<Statement> transientStatements = new LinkedList<>();
+
+    private PooledConnection(Connection connection) {
+      this.connection = connection;
+    }
+
+    private PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+      if (statementCacheSize == 0) {
+        return trackTransient(doPrepare(sql, autoGeneratedKeys));
+      }
+      String key = autoGeneratedKeys + ":" + sql;
+      CachedStatement cached = statements.get(key);
+      if (cached == null) {
+        cached = new CachedStatement(doPrepare(sql, autoGeneratedKeys));
+        statements.put(key, cached);
+      } else if (cached.inUse) {
+        return trackTransient(doPrepare(sql, autoGeneratedKeys));
+      }
+      cached.inUse = true;
+      return cached.lend();
+    }
+
+    private PreparedStatement doPrepare(String sql, int autoGeneratedKeys) throws SQLException {
+      if (autoGeneratedKeys == Statement.NO_GENERATED_KEYS) {
+        return connection.prepareStatement(sql);
+      }
+      return connection.prepareStatement(sql, autoGeneratedKeys);
+    }
+
+    private <T extends Statement> T trackTransient(T statement) {
+      transientStatements.add(statement);
+      return statement;
+    }
+
+    private void releaseStatements() throws SQLException {
+      for (Statement statement : transientStatements) {
+        statement.close();
+      }
+      transientStatements.clear();
+      for (CachedStatement cached : statements.values()) {
+        cached.reset();
+      }
+    }
+  }
+
+  /**
+   * A statement that stays prepared across leases of its connection.
+   */
+  private static final class CachedStatement {
+    private final PreparedStatement statement;
+    private boolean inUse = false;
+
+    private CachedStatement(PreparedStatement statement) {
+      this.statement = statement;
+    }
+
+    private PreparedStatement lend() {
+      return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+          new Class<?>[]{PreparedStatement.class},
+          (proxy, method, args) -> {
+            switch (method.getName()) {
+              case "close":
+                reset();
+                return null;
+              case "isClosed":
+                return !inUse;
+              default:
+                return invoke(statement, method, args);
+            }
+          });
+    }
+
+    private void reset() throws SQLException {
+      if (!inUse) {
+        return;
+      }
+      inUse = false;
+      // an unfinished query would hold its read transaction open until the statement is used again
+      ResultSet resultSet = statement.getResultSet();
+      if (resultSet != null) {
+        resultSet.close();
+      }
+      statement.clearParameters();
+      statement.clearBatch();
+    }
+  }
+
+  /**
+   * A single loan of a pooled connection. Closing it returns the connection to the pool.
+   */
+  private final class Lease implements InvocationHandler {
+    private final PooledConnection pooled;
+    private boolean closed = false;
+
+    private Lease(PooledConnection pooled) {
+      this.pooled = pooled;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "close":
+          if (!closed) {
+            closed = true;
+            release(pooled);
+          }
+          return null;
+        case "isClosed":
+          return closed || pooled.connection.isClosed();
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "toString":
+          return "Pooled " + pooled.connection;
+        default:
+          break;
+      }
+      if (closed) {
+        throw new SQLException("This connection has already been returned to the pool");
+      }
+      if (method.getName().equals("prepareStatement") && args.length <= 2) {
+        // prepareStatement(String) and prepareStatement(String, int) are the only forms used here
+        if (args.length == 1) {
+          return pooled.prepare((String) args[0], Statement.NO_GENERATED_KEYS);
+        }
+        if (method.getParameterTypes()[1] == int.class) {
+          return pooled.prepare((String) args[0], (Integer) args[1]);
+        }
+      }
+      Object result = PooledConnectionController.invoke(pooled.connection, method, args);
+      if (result instanceof Statement) {
+        pooled.trackTransient((Statement) result);
+      }
+      return result;
+    }
+  }
+
+}
@@ -41,4 +41,11 @@ public interface SqlConnectionController {
 
   String booleanType();
 
+  /**
+   * Release any connections this controller is holding on to.
+   */
+  default void shutdown() {
+    // nothing by default
+  }
+
 }
@@ -38,6 +38,7 @@ public abstract class SqlManager {
   public static final String CACHED_PATHS_TABLE = "journey_cached_paths";
   public static final String CACHED_PATH_CELLS_TABLE = "journey_cached_path_cells";
   public static final String CACHED_PATH_MODES_TABLE = "journey_cached_path_modes";
+  public static final String CACHED_PATH_CHUNKS_TABLE = "journey_cached_path_chunks";
   public static final String TUNNELS_TABLE = "journey_tunnels";
 
   private final SqlConnectionController connectionController;
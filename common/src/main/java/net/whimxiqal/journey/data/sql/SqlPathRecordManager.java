@@ -31,21 +31,32 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import net.whimxiqal.journey.Journey;
 import net.whimxiqal.journey.data.DataAccessException;
+import net.whimxiqal.journey.data.PathCellCodec;
+import net.whimxiqal.journey.data.PathChunks;
 import net.whimxiqal.journey.data.PathRecordManager;
 import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.navigation.ModeType;
 import net.whimxiqal.journey.navigation.Path;
-import net.whimxiqal.journey.navigation.Step;
 import net.whimxiqal.journey.search.PathTrial;
 import net.whimxiqal.journey.util.UUIDUtil;
 import org.jetbrains.annotations.NotNull;
@@ -58,6 +69,30 @@ public class SqlPathRecordManager
     extends SqlManager
     implements PathRecordManager {
 
+  private static final long WRITER_SHUTDOWN_TIMEOUT_S = 10;
+  // three parameters each, staying well below the smallest limit on parameters in a query
+  private static final int MAX_BULK_ORIGINS = 250;
+  private static final int MAX_WRITE_ATTEMPTS = 3;
+  private static final int WRITE_RETRY_DELAY_TICKS = 100;
+
+  // reports are written behind, in batches, by a single thread so the caller never waits on the database
+  private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "Journey Database Writer");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final Queue<PendingReport> pendingReports = new ConcurrentLinkedQueue<>();
+  private final Set<PendingInvalidation> pendingInvalidations = ConcurrentHashMap.newKeySet();
+  private final AtomicBoolean writeScheduled = new AtomicBoolean(false);
+  // reports and invalidations counted as they are submitted, and as the writer finishes with them,
+  // so reads can wait for changes that have not landed yet
+  private final AtomicLong submittedWrites = new AtomicLong();
+  private final AtomicLong completedWrites = new AtomicLong();
+  // total number of cells of all records, or negative if not counted yet
+  private final AtomicLong cellTotal = new AtomicLong(-1);
+  // writes that failed in a row, only used on the writer thread
+  private int failedWriteAttempts = 0;
+
   /**
    * General constructor.
    *
@@ -82,54 +117,178 @@ public class SqlPathRecordManager
       return;
     }
 
-    // Delete any previous record if it has the same origin/destination/world and is slower
-    List<PathTrialRecord> oldRecords = getRecords(trial.getOrigin(), trial.getDestination());
-    for (PathTrialRecord oldRecord : oldRecords) {
-      try (Connection connection = getConnectionController().establishConnection()) {
-        if (oldRecord.pathCost() <= path.getCost()) {
-          continue;
+    ensureCellTotal();
+    cellTotal.addAndGet(path.getSteps().size());
+    pendingReports.add(new PendingReport(trial.getOrigin(),
+        trial.getDestination(),
+        Journey.get().domainManager().domainId(trial.getDomain()),
+        trial.getLength(),
+        path,
+        Set.copyOf(modeTypes),
+        executionTime));
+    submittedWrites.incrementAndGet();
+    scheduleWrite();
+  }
+
+  /**
+   * {@inheritDoc}
+   * Changes to the same chunk before the database writer gets to them are only handled once.
+   */
+  @Override
+  public void invalidateChunk(int domain, int chunkX, int chunkZ) {
+    if (pendingInvalidations.add(new PendingInvalidation(Journey.get().domainManager().domainId(domain),
+        chunkX, chunkZ))) {
+      submittedWrites.incrementAndGet();
+    }
+    scheduleWrite();
+  }
+
+  private void scheduleWrite() {
+    if (writeScheduled.compareAndSet(false, true)) {
+      writer.execute(this::writePendingReports);
+    }
+  }
+
+  /**
+   * Write every pending report, then apply every pending invalidation, in a single transaction.
+   * Only run on the writer thread.
+   */
+  private void writePendingReports() {
+    writeScheduled.set(false);
+    // everything submitted so far is in the queues now, and is handled below whether or not it is written
+    long submitted = submittedWrites.get();
+    try {
+      writeQueued();
+    } finally {
+      completedWrites.accumulateAndGet(submitted, Math::max);
+    }
+  }
+
+  private void writeQueued() {
+    List<PendingReport> reports = new LinkedList<>();
+    PendingReport next;
+    while ((next = pendingReports.poll()) != null) {
+      reports.add(next);
+    }
+    List<PendingInvalidation> invalidations = new LinkedList<>();
+    Iterator<PendingInvalidation> invalidationIterator = pendingInvalidations.iterator();
+    while (invalidationIterator.hasNext()) {
+      invalidations.add(invalidationIterator.next());
+      invalidationIterator.remove();
+    }
+    if (reports.isEmpty() && invalidations.isEmpty()) {
+      return;
+    }
+    try (Connection connection = getConnectionController().establishConnection()) {
+      connection.setAutoCommit(false);
+      try {
+        for (PendingReport report : reports) {
+          writeReport(connection, report);
         }
-        if (modeTypes.containsAll(oldRecord.modes().stream().map(PathTrialModeRecord::modeType).collect(Collectors.toList()))) {
-          // this path cost is better and can do it in the same or fewer modes, so delete the current one
-          connection.prepareStatement("DELETE FROM " + SqlManager.CACHED_PATHS_TABLE
-                  + " WHERE "
-                  + "id = " + oldRecord.id())
-              .execute();
+        for (PendingInvalidation invalidation : invalidations) {
+          applyInvalidation(connection, invalidation);
         }
+        connection.commit();
       } catch (SQLException e) {
-        e.printStackTrace();
-        throw new DataAccessException();
+        connection.rollback();
+        throw e;
+      }
+      failedWriteAttempts = 0;
+    } catch (SQLException e) {
+      e.printStackTrace();
+      // none of them were written
+      failedWriteAttempts++;
+      if (failedWriteAttempts < MAX_WRITE_ATTEMPTS) {
+        requeue(reports, invalidations);
+        return;
+      }
+      failedWriteAttempts = 0;
+      for (PendingReport report : reports) {
+        cellTotal.addAndGet(-report.path.getSteps().size());
+      }
+      Journey.logger().error("[Storage] Gave up saving " + reports.size() + " cached paths and forgetting "
+          + "the cached paths through " + invalidations.size() + " changed chunks after "
+          + MAX_WRITE_ATTEMPTS + " failed attempts. Cached paths through those chunks may be out of date.");
+    }
+  }
+
+  /**
+   * Put reports and invalidations that could not be written back in the queues,
+   * to be written again with the next write, or after a delay if nothing else comes first.
+   * Reads still wait for them, so they never return a path that was already invalidated.
+   */
+  private void requeue(List<PendingReport> reports, List<PendingInvalidation> invalidations) {
+    pendingReports.addAll(reports);
+    submittedWrites.addAndGet(reports.size());
+    for (PendingInvalidation invalidation : invalidations) {
+      if (pendingInvalidations.add(invalidation)) {
+        submittedWrites.incrementAndGet();
+      }
+    }
+    Journey.get().proxy().schedulingManager().schedule(() -> {
+      if (!writer.isShutdown()) {
+        scheduleWrite();
+      }
+    }, true, WRITE_RETRY_DELAY_TICKS);
+  }
+
+  private void writeReport(Connection connection, PendingReport report) throws SQLException {
+    byte[] domainId = UUIDUtil.uuidToBytes(report.domainId);
+
+    // Delete any previous record if it has the same origin/destination/world and is slower
+    //  and can be done in the same or fewer modes
+    Map<Long, Integer> slowerRecordCellCounts = new HashMap<>();
+    try (PreparedStatement statement = connection.prepareStatement(String.format(
+        "SELECT id, path_length, cell_count FROM %s WHERE origin_x = ? AND origin_y = ? AND origin_z = ? "
+            + "AND destination_x = ? AND destination_y = ? AND destination_z = ? AND domain_id = ?;",
+        SqlManager.CACHED_PATHS_TABLE))) {
+      setEndpoints(statement, report.origin, report.destination, domainId);
+      try (ResultSet result = statement.executeQuery()) {
+        while (result.next()) {
+          if (result.getDouble("path_length") > report.path.getCost()) {
+            slowerRecordCellCounts.put(result.getLong("id"), result.getInt("cell_count"));
+          }
+        }
+      }
+    }
+    for (Map.Entry<Long, Integer> slowerRecord : slowerRecordCellCounts.entrySet()) {
+      if (report.modeTypes.containsAll(recordModeTypes(connection, slowerRecord.getKey()))) {
+        deleteRecord(connection, slowerRecord.getKey());
+        cellTotal.addAndGet(-slowerRecord.getValue());
       }
     }
 
     long pathReportId = -1;
-    try (Connection connection = getConnectionController().establishConnection()) {
-      PreparedStatement statement = connection.prepareStatement(String.format(
-              "INSERT INTO %s (%s, %s, %s, %s, %s, %s, %s, %s, %s, %s) "
-                  + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?);",
-              SqlManager.CACHED_PATHS_TABLE,
-              "created",
-              "duration",
-              "path_length",
-              "origin_x",
-              "origin_y",
-              "origin_z",
-              "destination_x",
-              "destination_y",
-              "destination_z",
-              "domain_id"),
-          Statement.RETURN_GENERATED_KEYS);
+    try (PreparedStatement statement = connection.prepareStatement(String.format(
+            "INSERT INTO %s (%s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);",
+            SqlManager.CACHED_PATHS_TABLE,
+            "created",
+            "duration",
+            "path_length",
+            "origin_x",
+            "origin_y",
+            "origin_z",
+            "destination_x",
+            "destination_y",
+            "destination_z",
+            "domain_id",
+            "cell_count",
+            "cells"),
+        Statement.RETURN_GENERATED_KEYS)) {
 
       statement.setLong(1, System.currentTimeMillis() / 1000);
-      statement.setInt(2, (int) executionTime);
-      statement.setDouble(3, trial.getLength());
-      statement.setInt(4, trial.getOrigin().blockX());
-      statement.setInt(5, trial.getOrigin().blockY());
-      statement.setInt(6, trial.getOrigin().blockZ());
-      statement.setInt(7, trial.getDestination().blockX());
-      statement.setInt(8, trial.getDestination().blockY());
-      statement.setInt(9, trial.getDestination().blockZ());
-      statement.setBytes(10, UUIDUtil.uuidToBytes(Journey.get().domainManager().domainId(trial.getDomain())));
+      statement.setInt(2, (int) report.executionTime);
+      statement.setDouble(3, report.length);
+      statement.setInt(4, report.origin.blockX());
+      statement.setInt(5, report.origin.blockY());
+      statement.setInt(6, report.origin.blockZ());
+      statement.setInt(7, report.destination.blockX());
+      statement.setInt(8, report.destination.blockY());
+      statement.setInt(9, report.destination.blockZ());
+      statement.setBytes(10, domainId);
+      statement.setInt(11, report.path.getSteps().size());
+      statement.setBytes(12, PathCellCodec.encode(report.path.getSteps()));
 
       statement.execute();
 
@@ -138,63 +297,153 @@ public class SqlPathRecordManager
           pathReportId = generatedKeys.getLong(1);
         }
       }
-
-    } catch (SQLException e) {
-      e.printStackTrace();
-      throw new DataAccessException();
     }
 
     if (pathReportId < 0) {
-      throw new DataAccessException("No id found from the inserted path record");
-    }
-    ArrayList<Step> steps = path.getSteps();
-    for (int i = 0; i < steps.size(); i++) {
-      Step step = steps.get(i);
-      try (Connection connection = getConnectionController().establishConnection()) {
-        PreparedStatement statement = connection.prepareStatement(String.format(
-            "INSERT INTO %s (%s, %s, %s, %s, %s, %s) "
-                + "VALUES (?, ?, ?, ?, ?, ?);",
-            SqlManager.CACHED_PATH_CELLS_TABLE,
-            "path_id",
-            "x", "y", "z",
-            "path_index",
-            "mode_type"));
+      throw new SQLException("No id found from the inserted path record");
+    }
 
+    try (PreparedStatement statement = connection.prepareStatement(String.format(
+        "INSERT INTO %s (%s, %s) VALUES (?, ?);",
+        SqlManager.CACHED_PATH_MODES_TABLE,
+        "path_id",
+        "mode_type"))) {
+      for (ModeType modeType : report.modeTypes) {
         statement.setLong(1, pathReportId);
-        statement.setInt(2, step.location().blockX());
-        statement.setInt(3, step.location().blockY());
-        statement.setInt(4, step.location().blockZ());
-        statement.setInt(5, i);
-        statement.setInt(6, step.modeType().ordinal());
-        statement.execute();
-      } catch (SQLException e) {
-        e.printStackTrace();
-        throw new DataAccessException();
+        statement.setInt(2, modeType.ordinal());
+        statement.addBatch();
       }
+      statement.executeBatch();
     }
 
-    for (ModeType modeType : modeTypes) {
-      try (Connection connection = getConnectionController().establishConnection()) {
-        PreparedStatement statement = connection.prepareStatement(String.format(
-            "INSERT INTO %s (%s, %s) VALUES (?, ?);",
-            SqlManager.CACHED_PATH_MODES_TABLE,
-            "path_id",
-            "mode_type"));
-
+    try (PreparedStatement statement = connection.prepareStatement(String.format(
+        "INSERT INTO %s (%s, %s, %s, %s) VALUES (?, ?, ?, ?);",
+        SqlManager.CACHED_PATH_CHUNKS_TABLE,
+        "path_id",
+        "domain_id",
+        "chunk_x",
+        "chunk_z"))) {
+      for (long chunk : PathChunks.of(report.path)) {
         statement.setLong(1, pathReportId);
-        statement.setInt(2, modeType.ordinal());
+        statement.setBytes(2, domainId);
+        statement.setInt(3, PathChunks.chunkX(chunk));
+        statement.setInt(4, PathChunks.chunkZ(chunk));
+        statement.addBatch();
+      }
+      statement.executeBatch();
+    }
+  }
 
-        statement.execute();
-      } catch (SQLException e) {
-        e.printStackTrace();
-        throw new DataAccessException();
+  private void applyInvalidation(Connection connection, PendingInvalidation invalidation) throws SQLException {
+    Map<Long, Integer> crossingRecordCellCounts = new HashMap<>();
+    try (PreparedStatement statement = connection.prepareStatement(String.format(
+        "SELECT p.id, p.cell_count FROM %s p WHERE p.id IN "
+            + "(SELECT c.path_id FROM %s c WHERE c.domain_id = ? AND c.chunk_x = ? AND c.chunk_z = ?);",
+        SqlManager.CACHED_PATHS_TABLE,
+        SqlManager.CACHED_PATH_CHUNKS_TABLE))) {
+      statement.setBytes(1, UUIDUtil.uuidToBytes(invalidation.domainId));
+      statement.setInt(2, invalidation.chunkX);
+      statement.setInt(3, invalidation.chunkZ);
+      try (ResultSet result = statement.executeQuery()) {
+        while (result.next()) {
+          crossingRecordCellCounts.put(result.getLong("id"), result.getInt("cell_count"));
+        }
+      }
+    }
+    for (Map.Entry<Long, Integer> crossingRecord : crossingRecordCellCounts.entrySet()) {
+      deleteRecord(connection, crossingRecord.getKey());
+      cellTotal.addAndGet(-crossingRecord.getValue());
+    }
+  }
+
+  private Set<ModeType> recordModeTypes(Connection connection, long recordId) throws SQLException {
+    Set<ModeType> modeTypes = EnumSet.noneOf(ModeType.class);
+    try (PreparedStatement statement = connection.prepareStatement(String.format(
+        "SELECT mode_type FROM %s WHERE path_id = ?;",
+        SqlManager.CACHED_PATH_MODES_TABLE))) {
+      statement.setLong(1, recordId);
+      try (ResultSet result = statement.executeQuery()) {
+        while (result.next()) {
+          modeTypes.add(ModeType.values()[result.getInt("mode_type")]);
+        }
       }
     }
+    return modeTypes;
+  }
+
+  /**
+   * Delete a record along with its modes and chunks.
+   * Foreign keys are not enforced by every engine, so the modes and chunks are deleted explicitly.
+   */
+  private void deleteRecord(Connection connection, long recordId) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(String.format(
+        "DELETE FROM %s WHERE path_id = ?;",
+        SqlManager.CACHED_PATH_MODES_TABLE))) {
+      statement.setLong(1, recordId);
+      statement.executeUpdate();
+    }
+    try (PreparedStatement statement = connection.prepareStatement(String.format(
+        "DELETE FROM %s WHERE path_id = ?;",
+        SqlManager.CACHED_PATH_CHUNKS_TABLE))) {
+      statement.setLong(1, recordId);
+      statement.executeUpdate();
+    }
+    try (PreparedStatement statement = connection.prepareStatement(String.format(
+        "DELETE FROM %s WHERE id = ?;",
+        SqlManager.CACHED_PATHS_TABLE))) {
+      statement.setLong(1, recordId);
+      statement.executeUpdate();
+    }
+  }
+
+  private static void setEndpoints(PreparedStatement statement, Cell origin, Cell destination, byte[] domainId)
+      throws SQLException {
+    statement.setInt(1, origin.blockX());
+    statement.setInt(2, origin.blockY());
+    statement.setInt(3, origin.blockZ());
+    statement.setInt(4, destination.blockX());
+    statement.setInt(5, destination.blockY());
+    statement.setInt(6, destination.blockZ());
+    statement.setBytes(7, domainId);
+  }
+
+  @Override
+  public void flush() {
+    try {
+      writer.submit(this::writePendingReports).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      throw new DataAccessException(e.getCause().getMessage());
+    }
+  }
+
+  /**
+   * Wait for every report and invalidation submitted so far to be written,
+   * so reads never miss a path that was already reported or return one that was already invalidated.
+   */
+  private void awaitPendingWrites() {
+    if (completedWrites.get() < submittedWrites.get()) {
+      flush();
+    }
+  }
 
+  @Override
+  public void shutdown() {
+    writer.shutdown();
+    try {
+      if (!writer.awaitTermination(WRITER_SHUTDOWN_TIMEOUT_S, TimeUnit.SECONDS)) {
+        Journey.logger().error("Timed out while saving cached paths to the database");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
   }
 
   @Override
   public void truncate() {
+    // let pending reports land first so they are truncated too
+    flush();
     try (Connection connection = getConnectionController().establishConnection()) {
       PreparedStatement statement = connection.prepareStatement(String.format(
           "DELETE FROM %s;",
@@ -203,30 +452,49 @@ public class SqlPathRecordManager
 
       statement = connection.prepareStatement(String.format(
           "DELETE FROM %s;",
-          SqlManager.CACHED_PATH_CELLS_TABLE));
+          SqlManager.CACHED_PATH_MODES_TABLE));
       statement.execute();
 
       statement = connection.prepareStatement(String.format(
           "DELETE FROM %s;",
-          SqlManager.CACHED_PATH_MODES_TABLE));
+          SqlManager.CACHED_PATH_CHUNKS_TABLE));
       statement.execute();
+      cellTotal.set(0);
     } catch (SQLException e) {
       e.printStackTrace();
       throw new DataAccessException();
     }
   }
 
+  /**
+   * {@inheritDoc}
+   * The table is only counted the first time, and the total is kept up to date as paths are reported
+   * and replaced, including reports that have not been written yet.
+   */
   @Override
   public int totalRecordCellCount() {
-    try (Connection connection = getConnectionController().establishConnection()) {
-      PreparedStatement statement = connection.prepareStatement(String.format(
-          "SELECT COUNT(*) FROM %s;",
-          SqlManager.CACHED_PATH_CELLS_TABLE));
-      ResultSet result = statement.executeQuery();
-      return result.getInt(1);
-    } catch (SQLException e) {
-      e.printStackTrace();
-      throw new DataAccessException();
+    ensureCellTotal();
+    return (int) Math.min(Integer.MAX_VALUE, cellTotal.get());
+  }
+
+  private void ensureCellTotal() {
+    if (cellTotal.get() >= 0) {
+      return;
+    }
+    synchronized (cellTotal) {
+      if (cellTotal.get() >= 0) {
+        return;
+      }
+      try (Connection connection = getConnectionController().establishConnection();
+           PreparedStatement statement = connection.prepareStatement(String.format(
+               "SELECT COALESCE(SUM(cell_count), 0) FROM %s;",
+               SqlManager.CACHED_PATHS_TABLE));
+           ResultSet result = statement.executeQuery()) {
+        cellTotal.set(result.next() ? result.getLong(1) : 0);
+      } catch (SQLException e) {
+        e.printStackTrace();
+        throw new DataAccessException();
+      }
     }
   }
 
@@ -235,63 +503,51 @@ public class SqlPathRecordManager
    * but do not populate the internal cells, but <b>do</b> populate
    * the modes.
    *
+   * @param connection  the connection to query with
    * @param origin      the origin location
    * @param destination the destination location
    * @return a list of all records
    */
-  private List<PathTrialRecord> getRecordsWithoutCells(Cell origin, Cell destination) {
-    try (Connection connection = getConnectionController().establishConnection()) {
-      ResultSet recordResult = connection.prepareStatement("SELECT * FROM "
-              + SqlManager.CACHED_PATHS_TABLE
-              + " WHERE "
-              + "origin_x = " + origin.blockX() + " AND "
-              + "origin_y = " + origin.blockY() + " AND "
-              + "origin_z = " + origin.blockZ() + " AND "
-              + "destination_x = " + destination.blockX() + " AND "
-              + "destination_y = " + destination.blockY() + " AND "
-              + "destination_z = " + destination.blockZ() + " AND "
-              + "domain_id = '" + origin.domain() + "'")
-          .executeQuery();
-      List<PathTrialRecord> records = new LinkedList<>();
-      while (recordResult.next()) {
-        PathTrialRecord record = extractRecord(recordResult);
-        ResultSet modeResult = connection.prepareStatement("SELECT * FROM "
-            + SqlManager.CACHED_PATH_MODES_TABLE
-            + " WHERE "
-            + "path_id = " + record.id()).executeQuery();
-        while (modeResult.next()) {
-          record.modes().add(new PathTrialModeRecord(record,
-              ModeType.values()[(modeResult.getInt("mode_type"))]));
+  private List<PathTrialRecord> getRecordsWithoutCells(Connection connection, Cell origin, Cell destination)
+      throws SQLException {
+    List<PathTrialRecord> records = new LinkedList<>();
+    try (PreparedStatement statement = connection.prepareStatement(String.format(
+        "SELECT id, created, duration, path_length, origin_x, origin_y, origin_z, "
+            + "destination_x, destination_y, destination_z, domain_id FROM %s WHERE origin_x = ? AND origin_y = ? AND origin_z = ? "
+            + "AND destination_x = ? AND destination_y = ? AND destination_z = ? AND domain_id = ? "
+            + "ORDER BY path_length;",
+        SqlManager.CACHED_PATHS_TABLE))) {
+      setEndpoints(statement, origin, destination,
+          UUIDUtil.uuidToBytes(Journey.get().domainManager().domainId(origin.domain())));
+      try (ResultSet recordResult = statement.executeQuery()) {
+        while (recordResult.next()) {
+          records.add(extractRecord(recordResult));
         }
-        records.add(record);
       }
-
-      return records;
-    } catch (SQLException e) {
-      e.printStackTrace();
-      return Collections.emptyList();
     }
+    for (PathTrialRecord record : records) {
+      for (ModeType modeType : recordModeTypes(connection, record.id())) {
+        record.modes().add(new PathTrialModeRecord(record, modeType));
+      }
+    }
+    return records;
   }
 
   @Override
   public @NotNull List<PathTrialRecord> getRecords(Cell origin, Cell destination) {
+    awaitPendingWrites();
     try (Connection connection = getConnectionController().establishConnection()) {
-      List<PathTrialRecord> emptyRecords = getRecordsWithoutCells(origin, destination);
+      List<PathTrialRecord> emptyRecords = getRecordsWithoutCells(connection, origin, destination);
 
       // Add the subcomponents (modes and cells) to the previously empty records
       for (PathTrialRecord emptyRecord : emptyRecords) {
-        ResultSet cellResult = connection.prepareStatement("SELECT * FROM "
-            + SqlManager.CACHED_PATH_CELLS_TABLE
-            + " WHERE "
-            + "path_id = " + emptyRecord.id()).executeQuery();
-        while (cellResult.next()) {
-          emptyRecord.cells().add(extractCell(emptyRecord, cellResult));
-        }
+        loadCells(connection, emptyRecord);
       }
       return emptyRecords;
     } catch (SQLException e) {
+      // not the same as having no records, which may be cached
       e.printStackTrace();
-      return Collections.emptyList();
+      throw new DataAccessException();
     }
   }
 
@@ -315,49 +571,216 @@ public class SqlPathRecordManager
 
   @Override
   public Path getPath(Cell origin, Cell destination, Set<ModeType> modeTypeGroup) {
+    awaitPendingWrites();
     try (Connection connection = getConnectionController().establishConnection()) {
-      PathTrialRecord record = findRecordWithModes(getRecordsWithoutCells(origin, destination),
+      PathTrialRecord record = findRecordWithModes(getRecordsWithoutCells(connection, origin, destination),
           modeTypeGroup);
-
-      ResultSet cellResult = connection.prepareStatement("SELECT * FROM "
-          + SqlManager.CACHED_PATH_CELLS_TABLE
-          + " WHERE "
-          + "path_id = " + record.id()).executeQuery();
-      while (cellResult.next()) {
-        record.cells().add(extractCell(record, cellResult));
-      }
-      if (record.cells().isEmpty()) {
-        throw new DataAccessException("Tried to get a path (id:" + record.id() + "), but found no path cells");
+      if (record == null) {
+        return null;
       }
+      loadCells(connection, record);
+      return record.toPath();
+    } catch (SQLException e) {
+      // not the same as having no path
+      e.printStackTrace();
+      throw new DataAccessException();
+    }
+  }
 
-      record.cells().sort(Comparator.comparing(PathTrialCellRecord::index));
-
-      LinkedList<Step> steps = new LinkedList<>();
+  @Override
+  public boolean containsRecord(Cell origin, Cell destination, Set<ModeType> modeTypeGroup) {
+    awaitPendingWrites();
+    try (Connection connection = getConnectionController().establishConnection()) {
+      return findRecordWithModes(getRecordsWithoutCells(connection, origin, destination), modeTypeGroup) != null;
+    } catch (SQLException e) {
+      // not the same as having no record
+      e.printStackTrace();
+      throw new DataAccessException();
+    }
+  }
 
-      // Add the first one because we don't move to get here
-      steps.add(new Step(record.cells().get(0).toCell(), 0, record.cells().get(0).modeType()));
-      for (int i = 1; i < record.cells().size(); i++) {
-        Cell cell = record.cells().get(i).toCell();
-        steps.add(new Step(cell,
-            cell.distanceTo(steps.getLast().location()),
-            record.cells().get(i).modeType()));
+  /**
+   * {@inheritDoc}
+   * All records starting at the origins of a domain are found in a single query,
+   * shortest first, together with their cells.
+   */
+  @Override
+  public @NotNull Map<Endpoints, Path> getPaths(Collection<Cell> origins, Collection<Cell> destinations,
+                                                Set<ModeType> modeTypes) {
+    Map<Integer, List<Cell>> originsByDomain = new HashMap<>();
+    for (Cell origin : origins) {
+      originsByDomain.computeIfAbsent(origin.domain(), k -> new ArrayList<>()).add(origin);
+    }
+    Set<Cell> destinationSet = new HashSet<>(destinations);
+    Map<Endpoints, Path> paths = new HashMap<>();
+    awaitPendingWrites();
+    try (Connection connection = getConnectionController().establishConnection()) {
+      for (Map.Entry<Integer, List<Cell>> domainOrigins : originsByDomain.entrySet()) {
+        byte[] domainId = UUIDUtil.uuidToBytes(Journey.get().domainManager().domainId(domainOrigins.getKey()));
+        List<Cell> domainOriginList = domainOrigins.getValue();
+        for (int start = 0; start < domainOriginList.size(); start += MAX_BULK_ORIGINS) {
+          List<Cell> batch = domainOriginList.subList(start, Math.min(start + MAX_BULK_ORIGINS, domainOriginList.size()));
+          getPaths(connection, domainId, batch, destinationSet, modeTypes, paths);
+        }
       }
-
-      return new Path(steps.getFirst().location(), steps, record.pathCost());
     } catch (SQLException e) {
+      // some paths may be missing, so none of them can be trusted to be all there is
       e.printStackTrace();
-      return null;
+      throw new DataAccessException();
+    }
+    return paths;
+  }
+
+  private void getPaths(Connection connection, byte[] domainId, List<Cell> origins, Set<Cell> destinations,
+                        Set<ModeType> modeTypes, Map<Endpoints, Path> paths) throws SQLException {
+    // a record may be used if none of its modes are outside the given ones
+    String modeFilter = modeTypes.isEmpty()
+        ? ""
+        : " AND m.mode_type NOT IN (" + String.join(", ", Collections.nCopies(modeTypes.size(), "?")) + ")";
+    try (PreparedStatement statement = connection.prepareStatement(String.format(
+        "SELECT p.id, p.created, p.duration, p.path_length, p.origin_x, p.origin_y, p.origin_z, "
+            + "p.destination_x, p.destination_y, p.destination_z, p.domain_id, p.cells FROM %s p "
+            + "WHERE %s "
+            + "AND NOT EXISTS (SELECT 1 FROM %s m WHERE m.path_id = p.id%s) "
+            + "ORDER BY p.path_length;",
+        SqlManager.CACHED_PATHS_TABLE,
+        originFilter(origins.size()),
+        SqlManager.CACHED_PATH_MODES_TABLE,
+        modeFilter))) {
+      int parameter = setOriginFilter(statement, 1, domainId, origins);
+      for (ModeType modeType : modeTypes) {
+        statement.setInt(parameter++, modeType.ordinal());
+      }
+      try (ResultSet result = statement.executeQuery()) {
+        while (result.next()) {
+          PathTrialRecord record = extractRecord(result);
+          Endpoints endpoints = new Endpoints(
+              new Cell(record.originX(), record.originY(), record.originZ(), record.domain()),
+              new Cell(record.destinationX(), record.destinationY(), record.destinationZ(), record.domain()));
+          if (!destinations.contains(endpoints.destination()) || paths.containsKey(endpoints)) {
+            // shortest first, so a path we already have is better
+            continue;
+          }
+          decodeCells(record, result.getBytes("cells"));
+          try {
+            paths.put(endpoints, record.toPath());
+          } catch (DataAccessException e) {
+            Journey.logger().warn("Skipping an unreadable path record: " + e.getMessage());
+          }
+        }
+      }
     }
   }
 
+  /**
+   * {@inheritDoc}
+   * All records starting at the origins of a domain are found in one query, shortest first, together with their cells,
+   * and all of their modes in one more.
+   */
   @Override
-  public boolean containsRecord(Cell origin, Cell destination, Set<ModeType> modeTypeGroup) {
+  public @NotNull Map<Endpoints, List<PathTrialRecord>> getRecords(Collection<Cell> origins,
+                                                                   Collection<Cell> destinations) {
+    Map<Endpoints, List<PathTrialRecord>> records = new HashMap<>();
+    Map<Integer, List<Cell>> originsByDomain = new HashMap<>();
+    for (Cell origin : origins) {
+      originsByDomain.computeIfAbsent(origin.domain(), k -> new ArrayList<>()).add(origin);
+    }
+    Set<Cell> destinationSet = new HashSet<>(destinations);
+    awaitPendingWrites();
     try (Connection connection = getConnectionController().establishConnection()) {
-      return findRecordWithModes(getRecordsWithoutCells(origin, destination), modeTypeGroup) != null;
+      for (Map.Entry<Integer, List<Cell>> domainOrigins : originsByDomain.entrySet()) {
+        byte[] domainId = UUIDUtil.uuidToBytes(Journey.get().domainManager().domainId(domainOrigins.getKey()));
+        List<Cell> domainOriginList = domainOrigins.getValue();
+        for (int start = 0; start < domainOriginList.size(); start += MAX_BULK_ORIGINS) {
+          List<Cell> batch = domainOriginList.subList(start, Math.min(start + MAX_BULK_ORIGINS, domainOriginList.size()));
+          records.putAll(getRecords(connection, domainId, batch, destinationSet));
+        }
+      }
     } catch (SQLException e) {
+      // not the same as having no records, which may be cached
       e.printStackTrace();
-      return false;
+      throw new DataAccessException();
+    }
+    return records;
+  }
+
+  /**
+   * Get the records from one batch of origins of a domain to any of the destinations,
+   * with an entry for every pair only once they have all been read.
+   */
+  private Map<Endpoints, List<PathTrialRecord>> getRecords(Connection connection, byte[] domainId, List<Cell> origins,
+                                                           Set<Cell> destinations) throws SQLException {
+    Map<Endpoints, List<PathTrialRecord>> records = new HashMap<>();
+    for (Cell origin : origins) {
+      for (Cell destination : destinations) {
+        if (origin.domain() == destination.domain()) {
+          records.put(new Endpoints(origin, destination), new ArrayList<>(1));
+        }
+      }
+    }
+    Map<Long, PathTrialRecord> recordsById = new HashMap<>();
+    try (PreparedStatement statement = connection.prepareStatement(String.format(
+        "SELECT p.id, p.created, p.duration, p.path_length, p.origin_x, p.origin_y, p.origin_z, "
+            + "p.destination_x, p.destination_y, p.destination_z, p.domain_id, p.cells FROM %s p "
+            + "WHERE %s ORDER BY p.path_length;",
+        SqlManager.CACHED_PATHS_TABLE,
+        originFilter(origins.size())))) {
+      setOriginFilter(statement, 1, domainId, origins);
+      try (ResultSet result = statement.executeQuery()) {
+        while (result.next()) {
+          PathTrialRecord record = extractRecord(result);
+          List<PathTrialRecord> pairRecords = records.get(new Endpoints(
+              new Cell(record.originX(), record.originY(), record.originZ(), record.domain()),
+              new Cell(record.destinationX(), record.destinationY(), record.destinationZ(), record.domain())));
+          if (pairRecords == null) {
+            // not one of the destinations
+            continue;
+          }
+          decodeCells(record, result.getBytes("cells"));
+          pairRecords.add(record);
+          recordsById.put(record.id(), record);
+        }
+      }
     }
+    if (recordsById.isEmpty()) {
+      return records;
+    }
+    try (PreparedStatement statement = connection.prepareStatement(String.format(
+        "SELECT m.path_id, m.mode_type FROM %s m JOIN %s p ON m.path_id = p.id WHERE %s;",
+        SqlManager.CACHED_PATH_MODES_TABLE,
+        SqlManager.CACHED_PATHS_TABLE,
+        originFilter(origins.size())))) {
+      setOriginFilter(statement, 1, domainId, origins);
+      try (ResultSet result = statement.executeQuery()) {
+        while (result.next()) {
+          PathTrialRecord record = recordsById.get(result.getLong("path_id"));
+          if (record != null) {
+            record.modes().add(new PathTrialModeRecord(record, ModeType.values()[result.getInt("mode_type")]));
+          }
+        }
+      }
+    }
+    return records;
+  }
+
+  /**
+   * The condition that a path, aliased as "p", is in a domain and starts at one of a number of origins.
+   * Its parameters are set with {@link #setOriginFilter}.
+   */
+  private static String originFilter(int originCount) {
+    return "p.domain_id = ? AND (p.origin_x, p.origin_y, p.origin_z) IN (VALUES "
+        + String.join(", ", Collections.nCopies(originCount, "(?, ?, ?)")) + ")";
+  }
+
+  private static int setOriginFilter(PreparedStatement statement, int parameter, byte[] domainId, List<Cell> origins)
+      throws SQLException {
+    statement.setBytes(parameter++, domainId);
+    for (Cell origin : origins) {
+      statement.setInt(parameter++, origin.blockX());
+      statement.setInt(parameter++, origin.blockY());
+      statement.setInt(parameter++, origin.blockZ());
+    }
+    return parameter;
   }
 
   private PathTrialRecord extractRecord(final ResultSet resultSet) throws SQLException {
@@ -378,16 +801,33 @@ public class SqlPathRecordManager
     );
   }
 
-  private PathTrialCellRecord extractCell(final PathTrialRecord record,
-                                          final ResultSet resultSet) throws SQLException {
-    return new PathTrialCellRecord(
-        record,
-        resultSet.getInt("x"),
-        resultSet.getInt("y"),
-        resultSet.getInt("z"),
-        resultSet.getInt("path_index"),
-        ModeType.values()[resultSet.getInt("mode_type")]
-    );
+  private record PendingInvalidation(UUID domainId, int chunkX, int chunkZ) {
+  }
+
+  private record PendingReport(Cell origin, Cell destination, UUID domainId, double length, Path path,
+                               Set<ModeType> modeTypes, long executionTime) {
+  }
+
+  private void loadCells(Connection connection, PathTrialRecord record) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(String.format(
+        "SELECT cells FROM %s WHERE id = ?;",
+        SqlManager.CACHED_PATHS_TABLE))) {
+      statement.setLong(1, record.id());
+      try (ResultSet result = statement.executeQuery()) {
+        if (!result.next()) {
+          return;
+        }
+        decodeCells(record, result.getBytes("cells"));
+      }
+    }
+  }
+
+  private static void decodeCells(PathTrialRecord record, byte[] cells) {
+    if (cells == null) {
+      return;
+    }
+    PathCellCodec.decode(cells, (index, x, y, z, modeType) ->
+        record.cells().add(new PathTrialCellRecord(record, x, y, z, index, modeType)));
   }
 
 }
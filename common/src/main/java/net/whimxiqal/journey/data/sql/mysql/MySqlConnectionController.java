@@ -29,12 +29,12 @@ import java.sql.SQLException;
 import java.util.Properties;
 import net.whimxiqal.journey.Journey;
 import net.whimxiqal.journey.config.Settings;
-import net.whimxiqal.journey.data.sql.SqlConnectionController;
+import net.whimxiqal.journey.data.sql.PooledConnectionController;
 
 /**
  * MySQL-implementation of the SQL connection controller.
  */
-public class MySqlConnectionController implements SqlConnectionController {
+public class MySqlConnectionController extends PooledConnectionController {
 
   private final String address = String.format("jdbc:mysql://%s/%s",
       Settings.STORAGE_ADDRESS.getValue(),
@@ -42,13 +42,14 @@ public class MySqlConnectionController implements SqlConnectionController {
   private final Properties databaseProperties;
 
   public MySqlConnectionController() {
+    super(Settings.STORAGE_POOL_SIZE.getValue(), Settings.STORAGE_STATEMENT_CACHE_SIZE.getValue());
     databaseProperties = new Properties();
     databaseProperties.setProperty("user", Settings.STORAGE_USERNAME.getValue());
     databaseProperties.setProperty("password", Settings.STORAGE_PASSWORD.getValue());
   }
 
   @Override
-  public final Connection establishConnection() throws SQLException {
+  protected Connection openConnection() throws SQLException {
     try {
       return DriverManager.getConnection(address, databaseProperties);
     } catch (SQLException e) {
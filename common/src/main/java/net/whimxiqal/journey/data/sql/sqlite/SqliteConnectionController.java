@@ -23,26 +23,57 @@
 
 package net.whimxiqal.journey.data.sql.sqlite;
 
-import net.whimxiqal.journey.data.sql.SqlConnectionController;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
-import lombok.Value;
-import lombok.experimental.Accessors;
+import java.sql.Statement;
+import net.whimxiqal.journey.config.Settings;
+import net.whimxiqal.journey.data.sql.PooledConnectionController;
 
 /**
  * An SQL connection controller designed for the SQLite engine.
+ *
+ * <p>Connections use write-ahead logging, so reads are never blocked by the database writer
+ * and writers only wait on each other.
  */
-@Value
-@Accessors(fluent = true)
-public class SqliteConnectionController implements SqlConnectionController {
-  String address;
+public class SqliteConnectionController extends PooledConnectionController {
+
+  private static final int BUSY_TIMEOUT_MS = 5000;
+  private static final int PAGE_CACHE_KIB = 8192;
+
+  private final String address;
+
+  /**
+   * General constructor.
+   *
+   * @param address the JDBC address of the database file
+   */
+  public SqliteConnectionController(String address) {
+    super(Settings.STORAGE_POOL_SIZE.getValue(), Settings.STORAGE_STATEMENT_CACHE_SIZE.getValue());
+    this.address = address;
+  }
+
+  public String address() {
+    return address;
+  }
 
   @Override
-  public Connection establishConnection() throws SQLException {
+  protected Connection openConnection() throws SQLException {
     return DriverManager.getConnection(address);
   }
 
+  @Override
+  protected void configure(Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("PRAGMA journal_mode = WAL");
+      // with WAL, NORMAL only risks the last transactions on power loss, never corruption
+      statement.execute("PRAGMA synchronous = NORMAL");
+      statement.execute("PRAGMA cache_size = -" + PAGE_CACHE_KIB);
+      statement.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MS);
+      statement.execute("PRAGMA temp_store = MEMORY");
+    }
+  }
+
   @Override
   public String booleanType() {
     return "INTEGER";
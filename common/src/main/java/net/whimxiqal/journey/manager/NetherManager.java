@@ -48,6 +48,8 @@ import net.whimxiqal.journey.navigation.NetherTunnel;
 public final class NetherManager {
 
   private final Map<Cell, Cell> portalConnections = new ConcurrentHashMap<>();
+  // portal locations that were last found to have a portal, and the stamp of the chunks around them at the time
+  private final Map<Cell, Long> verifiedPortals = new ConcurrentHashMap<>();
 
   public void load() {
     Journey.get().dataManager()
@@ -71,12 +73,57 @@ public final class NetherManager {
         linksVerified.add(tunnel);
       } else {
         portalConnections.remove(tunnel.origin(), tunnel.destination());
+        verifiedPortals.remove(tunnel.origin());
+        verifiedPortals.remove(tunnel.destination());
         Journey.get().dataManager().netherPortalManager().removeTunnels(tunnel.origin(), tunnel.destination(), TunnelType.NETHER);
       }
     }
     return linksVerified;
   }
 
+  /**
+   * Check whether there is still a nether portal at a location.
+   * The world is only searched again if blocks near the location have changed since it was last found.
+   *
+   * @param location the location of the portal
+   * @return true if there is a portal
+   */
+  public boolean verifyPortal(Cell location) {
+    long stamp = nearbyChunkStamp(location);
+    Long verifiedStamp = verifiedPortals.get(location);
+    if (stamp >= 0 && verifiedStamp != null && verifiedStamp == stamp) {
+      return true;
+    }
+    if (locateAll(location, 1).isEmpty()) {
+      verifiedPortals.remove(location);
+      return false;
+    }
+    if (stamp >= 0) {
+      verifiedPortals.put(location, stamp);
+    }
+    return true;
+  }
+
+  /**
+   * Get the greatest modification stamp of the chunk of a location and those around it,
+   * which covers any portal found from the location.
+   */
+  private long nearbyChunkStamp(Cell location) {
+    long stamp = 0;
+    for (int x = -1; x <= 1; x++) {
+      for (int z = -1; z <= 1; z++) {
+        long chunkStamp = Journey.get().proxy().platform().chunkStamp(location.domain(),
+            (location.blockX() >> 4) + x,
+            (location.blockZ() >> 4) + z);
+        if (chunkStamp < 0) {
+          return -1;
+        }
+        stamp = Math.max(stamp, chunkStamp);
+      }
+    }
+    return stamp;
+  }
+
   public void lookForPortal(Cell origin, Supplier<Cell> destination) {
     Optional<PortalGroup> originGroup = locateAll(origin,
         8,
@@ -160,6 +207,7 @@ public final class NetherManager {
 
   public void reset() {
     portalConnections.clear();
+    verifiedPortals.clear();
     Journey.get().dataManager().netherPortalManager().removeTunnels(TunnelType.NETHER);
   }
 
@@ -0,0 +1,139 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.manager;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import net.kyori.adventure.audience.Audience;
+import net.whimxiqal.journey.search.SearchSession;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A bounded queue of searches waiting for their turn to run.
+ * Searches of players are admitted before searches of any other caller,
+ * and otherwise in the order their callers first asked.
+ * Every caller holds at most one place in line: asking again replaces the waiting search but keeps the place.
+ *
+ * <p>Not thread-safe, it is only used on the main thread.
+ */
+final class SearchAdmissionQueue {
+
+  private final Map<UUID, Entry> players = new LinkedHashMap<>();
+  private final Map<UUID, Entry> others = new LinkedHashMap<>();
+
+  /**
+   * Add a search to the line, or replace the search its caller has waiting.
+   *
+   * @param caller   the caller
+   * @param audience the audience of the caller
+   * @param session  the session
+   * @param capacity the most searches that may wait at once
+   * @return the place in line, starting at 1, or -1 if the line is full
+   */
+  int offer(UUID caller, Audience audience, SearchSession session, int capacity) {
+    Map<UUID, Entry> lane = lane(session);
+    Entry previous = lane.get(caller);
+    if (previous == null && size() >= capacity) {
+      return -1;
+    }
+    long queuedNanos = previous == null ? System.nanoTime() : previous.queuedNanos();
+    lane.put(caller, new Entry(caller, audience, session, queuedNanos));
+    return position(caller);
+  }
+
+  /**
+   * Remove the search that should run next.
+   *
+   * @return the entry, or null if nobody is waiting
+   */
+  @Nullable
+  Entry poll() {
+    Map<UUID, Entry> lane = players.isEmpty() ? others : players;
+    Iterator<Entry> iterator = lane.values().iterator();
+    if (!iterator.hasNext()) {
+      return null;
+    }
+    Entry next = iterator.next();
+    iterator.remove();
+    return next;
+  }
+
+  /**
+   * Remove the search a caller has waiting.
+   *
+   * @param caller the caller
+   * @return the entry, or null if the caller has nothing waiting
+   */
+  @Nullable
+  Entry remove(UUID caller) {
+    Entry entry = players.remove(caller);
+    return entry == null ? others.remove(caller) : entry;
+  }
+
+  /**
+   * Get the place in line of a caller.
+   *
+   * @param caller the caller
+   * @return the place, starting at 1, or -1 if the caller has nothing waiting
+   */
+  int position(UUID caller) {
+    int position = 1;
+    for (UUID waiting : players.keySet()) {
+      if (waiting.equals(caller)) {
+        return position;
+      }
+      position++;
+    }
+    for (UUID waiting : others.keySet()) {
+      if (waiting.equals(caller)) {
+        return position;
+      }
+      position++;
+    }
+    return -1;
+  }
+
+  boolean isEmpty() {
+    return players.isEmpty() && others.isEmpty();
+  }
+
+  int size() {
+    return players.size() + others.size();
+  }
+
+  void clear() {
+    players.clear();
+    others.clear();
+  }
+
+  private Map<UUID, Entry> lane(SearchSession session) {
+    return session.getCallerType() == SearchSession.Caller.PLAYER ? players : others;
+  }
+
+  record Entry(UUID caller, Audience audience, SearchSession session, long queuedNanos) {
+  }
+
+}
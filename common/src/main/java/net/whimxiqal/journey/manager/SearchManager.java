@@ -26,14 +26,22 @@ package net.whimxiqal.journey.manager;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import net.whimxiqal.journey.Journey;
 import net.whimxiqal.journey.config.Settings;
 import net.whimxiqal.journey.message.Formatter;
 import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.navigation.journey.JourneySession;
 import net.whimxiqal.journey.navigation.journey.PlayerJourneySession;
+import net.whimxiqal.journey.search.PathCacheWarmup;
+import net.whimxiqal.journey.search.ResultState;
+import net.whimxiqal.journey.search.SearchExecutor;
 import net.whimxiqal.journey.search.SearchSession;
 import net.whimxiqal.journey.search.flag.Flags;
 import net.kyori.adventure.audience.Audience;
@@ -49,11 +57,28 @@ import org.jetbrains.annotations.Nullable;
  */
 public final class SearchManager implements Initializable {
 
+  private static final long SESSION_SHUTDOWN_TIMEOUT_MS = 1000;
+  private static final int LOCATION_UPDATE_PERIOD = 5;  // ticks
+  private static final double MOVING_AVERAGE_WEIGHT = 0.2;
+
   private final Map<UUID, PlayerJourneySession> playerJourneys = new ConcurrentHashMap<>();
   private final Map<UUID, Cell> cachedPlayerLocations = new ConcurrentHashMap<>();
   private final Map<UUID, SearchSession> playerSearches = new ConcurrentHashMap<>();
   private final ConcurrentHashMap<UUID, SearchSession> nextPlayerSearches = new ConcurrentHashMap<>();
+  private final SearchAdmissionQueue waitingSearches = new SearchAdmissionQueue();
+  // searches whose computation may be shared, by their coalescing key
+  private final Map<Object, SearchSession> coalescingSearches = new ConcurrentHashMap<>();
+  private final LongAdder coalescedSearches = new LongAdder();
+  private final PathCacheWarmup cacheWarmup = new PathCacheWarmup();
+  // moving averages of how long searches wait in line and how long they run, for tuning max-searches
+  private volatile double averageWaitMillis = 0;
+  private volatile double averageRunMillis = 0;
+  // moving average of the fraction of expected ticks the server actually ran, from 0 to 1
+  private volatile double tickHealth = 1;
+  private long lastTickCheckNanos = 0;
   private UUID locationUpdateTaskId;
+  private ExecutorService trialExecutor;
+  private SearchExecutor sessionExecutor;
 
   /**
    * Store a journey. Stops the previously running journey if there was one.
@@ -106,8 +131,21 @@ public final class SearchManager implements Initializable {
       return;
     }
 
-    if (playerSearches.size() >= Settings.MAX_SEARCHES.getValue()) {
-      audience.sendMessage(Formatter.error("There are too many people searching right now, try again later."));
+    admitWaitingSearches();
+    if (!waitingSearches.isEmpty() || playerSearches.size() >= maxSearches()) {
+      // wait in line
+      int position = waitingSearches.offer(caller, audience, session, Settings.MAX_QUEUED_SEARCHES.getValue());
+      if (position < 0) {
+        audience.sendMessage(Formatter.error("There are too many people searching right now, try again later."));
+        return;
+      }
+      if (averageRunMillis > 0) {
+        long estimatedSeconds = (long) Math.ceil(Math.ceil((double) position / maxSearches()) * averageRunMillis / 1000);
+        audience.sendMessage(Formatter.warn("There are too many people searching right now. You are number ___ in line, about ___ seconds to go.",
+            position, estimatedSeconds));
+      } else {
+        audience.sendMessage(Formatter.warn("There are too many people searching right now. You are number ___ in line.", position));
+      }
       return;
     }
 
@@ -115,8 +153,113 @@ public final class SearchManager implements Initializable {
     doLaunchSearch(caller, audience, session);
   }
 
+  /**
+   * Launch waiting searches while there is room for them.
+   */
+  private void admitWaitingSearches() {
+    while (!waitingSearches.isEmpty() && playerSearches.size() < maxSearches()) {
+      SearchAdmissionQueue.Entry entry = waitingSearches.poll();
+      if (entry == null) {
+        return;
+      }
+      averageWaitMillis = movingAverage(averageWaitMillis, (System.nanoTime() - entry.queuedNanos()) / 1_000_000d);
+      if (playerSearches.containsKey(entry.caller())) {
+        nextPlayerSearches.put(entry.caller(), entry.session());
+        continue;
+      }
+      doLaunchSearch(entry.caller(), entry.audience(), entry.session());
+    }
+  }
+
+  /**
+   * Get the most searches that may run at once right now.
+   * It is {@link Settings#MAX_SEARCHES}, unless {@link Settings#ADAPTIVE_MAX_SEARCHES} is set, in which case it shrinks
+   * with the server's tick rate and does not grow while every search worker is busy with a backlog.
+   *
+   * @return the limit
+   */
+  public int maxSearches() {
+    return maxSearches(Settings.MAX_SEARCHES.getValue(),
+        Settings.ADAPTIVE_MAX_SEARCHES.getValue(),
+        tickHealth,
+        sessionExecutor != null && sessionExecutor.queued() > Settings.SEARCH_SESSION_THREADS.getValue(),
+        playerSearches.size());
+  }
+
+  /**
+   * Get the most searches that may run at once.
+   *
+   * @param max        the configured limit
+   * @param adaptive   whether the limit adapts to the server's health
+   * @param tickHealth the fraction of the expected tick rate the server is running at, from 0 to 1
+   * @param backlogged whether every search worker is busy with a backlog
+   * @param running    the number of searches running now
+   * @return the limit
+   */
+  static int maxSearches(int max, boolean adaptive, double tickHealth, boolean backlogged, int running) {
+    if (!adaptive) {
+      return max;
+    }
+    int limit = (int) Math.ceil(max * tickHealth);
+    if (backlogged) {
+      limit = Math.min(limit, running);
+    }
+    return Math.max(1, limit);
+  }
+
+  /**
+   * Get the number of searches waiting in line to run.
+   *
+   * @return the number of waiting searches
+   */
+  public int waitingSearches() {
+    return waitingSearches.size();
+  }
+
+  /**
+   * Get the moving average of how long searches waited in line before running.
+   *
+   * @return the average wait, in milliseconds
+   */
+  public double averageWaitMillis() {
+    return averageWaitMillis;
+  }
+
+  /**
+   * Get the moving average of how long searches ran.
+   *
+   * @return the average run time, in milliseconds
+   */
+  public double averageRunMillis() {
+    return averageRunMillis;
+  }
+
+  /**
+   * Get the total number of searches that shared the computation of another search instead of running their own.
+   *
+   * @return the coalesced search count
+   */
+  public long coalescedSearches() {
+    return coalescedSearches.sum();
+  }
+
+  /**
+   * Remove a search that is waiting in line to run.
+   *
+   * @param callerId the caller id
+   * @return true if the caller had a search waiting
+   */
+  public boolean cancelWaitingSearch(@NotNull UUID callerId) {
+    return waitingSearches.remove(callerId) != null;
+  }
+
+  private static double movingAverage(double average, double sample) {
+    return average == 0 ? sample : average + MOVING_AVERAGE_WEIGHT * (sample - average);
+  }
+
   private void doLaunchSearch(UUID caller, Audience audience, SearchSession session) {
     Journey.get().statsManager().incrementSearches();
+    long startNanos = System.nanoTime();
     playerSearches.put(caller, session);
     session.initialize();
 
@@ -130,12 +273,33 @@ public final class SearchManager implements Initializable {
         .append(Formatter.hover(Component.text("Searching...").color(Formatter.INFO), hoverText.get())));
 
     int timeout = session.flags().getValueFor(Flags.TIMEOUT);
-    session.search(timeout).thenRun(() -> Journey.get().proxy().schedulingManager().schedule(() -> {
+    CompletableFuture<ResultState> result = null;
+    Object coalescingKey = Settings.COALESCE_SEARCHES.getValue() ? session.coalescingKey() : null;
+    if (coalescingKey != null) {
+      SearchSession leader = coalescingSearches.get(coalescingKey);
+      if (leader != null) {
+        // somebody is already solving the same problem, so just wait for their answers
+        result = session.follow(leader, timeout);
+        if (result != null) {
+          coalescedSearches.increment();
+        }
+      }
+    }
+    if (result == null) {
+      result = session.search(timeout);
+      if (coalescingKey != null) {
+        coalescingSearches.put(coalescingKey, session);
+        result.thenRun(() -> coalescingSearches.remove(coalescingKey, session));
+      }
+    }
+    result.thenRun(() -> Journey.get().proxy().schedulingManager().schedule(() -> {
+      averageRunMillis = movingAverage(averageRunMillis, (System.nanoTime() - startNanos) / 1_000_000d);
       if (nextPlayerSearches.containsKey(caller)) {
         SearchSession newSession = nextPlayerSearches.remove(caller);
         doLaunchSearch(caller, audience, newSession);
       } else {
         playerSearches.remove(caller);
+        admitWaitingSearches();
       }
     }, false, 0));
   }
@@ -181,7 +345,44 @@ public final class SearchManager implements Initializable {
     playerJourney.visit(location);
   }
 
+  /**
+   * Get the executor on which the separate parts of a search may be calculated at the same time.
+   * It has a bounded number of threads, and its tasks must not wait on other tasks of the same executor.
+   *
+   * @return the executor
+   */
+  public Executor trialExecutor() {
+    return trialExecutor;
+  }
+
+  /**
+   * Get the executor on which the units of work of every search session are run.
+   * Units of player searches take priority over those of background searches.
+   * Its tasks may wait on tasks of the {@link #trialExecutor()}, but never the other way around.
+   *
+   * @return the executor, or null if this manager is not initialized
+   */
+  public SearchExecutor sessionExecutor() {
+    return sessionExecutor;
+  }
+
+  /**
+   * Get the background job that warms up the path cache.
+   *
+   * @return the warm-up
+   */
+  public PathCacheWarmup cacheWarmup() {
+    return cacheWarmup;
+  }
+
   public void initialize() {
+    boolean virtualThreads = Settings.SEARCH_VIRTUAL_THREADS.getValue();
+    sessionExecutor = new SearchExecutor(Settings.SEARCH_SESSION_THREADS.getValue(), "Journey Search Session", virtualThreads);
+
+    // Trials are bounded by processors rather than by waiting, so pooled platform threads suit them best
+    int threads = Math.max(1, Settings.SEARCH_THREADS.getValue());
+    trialExecutor = Executors.newFixedThreadPool(threads, SearchExecutor.platformThreadFactory("Journey Search Worker"));
+
     // task for updating player locations lazily
     locationUpdateTaskId = Journey.get().proxy().schedulingManager().scheduleRepeat(() -> {
       for (UUID journeyingPlayer : playerJourneys.keySet()) {
@@ -190,10 +391,30 @@ public final class SearchManager implements Initializable {
             .onlinePlayer(journeyingPlayer)
             .ifPresent(player -> registerLocation(journeyingPlayer, player.location()));
       }
-    }, false, 5);
+      updateTickHealth();
+      // the limit may have grown since the last search finished
+      admitWaitingSearches();
+    }, false, LOCATION_UPDATE_PERIOD);
+
+    cacheWarmup.resumeLater();
+  }
+
+  private void updateTickHealth() {
+    long now = System.nanoTime();
+    if (lastTickCheckNanos != 0) {
+      double expected = LOCATION_UPDATE_PERIOD * 50_000_000d;  // 50 ms per tick
+      tickHealth = movingAverage(tickHealth, Math.min(1, expected / (now - lastTickCheckNanos)));
+    }
+    lastTickCheckNanos = now;
   }
 
   public void shutdown() {
+    Journey.logger().debug("Searches waited in line for " + Math.round(averageWaitMillis)
+        + " ms and ran for " + Math.round(averageRunMillis) + " ms on average, "
+        + coalescedSearches.sum() + " shared the computation of another");
+    waitingSearches.clear();
+    // save the warm-up's progress before its trials are interrupted
+    cacheWarmup.shutdown();
     // cancel all searches
     playerSearches.values().forEach(session -> session.stop(false));
     // stop all journeys
@@ -202,6 +423,15 @@ public final class SearchManager implements Initializable {
       Journey.get().proxy().schedulingManager().cancelTask(locationUpdateTaskId);
       locationUpdateTaskId = null;
     }
+    // session units finish quickly once their sessions are stopped, so give them a moment before interrupting
+    if (sessionExecutor != null) {
+      sessionExecutor.shutdown(SESSION_SHUTDOWN_TIMEOUT_MS);
+      sessionExecutor = null;
+    }
+    if (trialExecutor != null) {
+      trialExecutor.shutdownNow();
+      trialExecutor = null;
+    }
   }
 
 }
@@ -31,6 +31,7 @@ import net.whimxiqal.journey.Journey;
 import net.whimxiqal.journey.search.SearchSession;
 import net.whimxiqal.journey.search.event.ModeFailureEvent;
 import net.whimxiqal.journey.search.event.ModeSuccessEvent;
+import net.whimxiqal.journey.search.event.SearchEvent;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -65,6 +66,82 @@ public abstract class Mode {
     return options;
   }
 
+  /**
+   * Collect and return all the locations from which the given location is reachable
+   * based on the implementation of this mode.
+   * This is the inverse of {@link #getDestinations(Cell)}, used to search backwards from a goal,
+   * and is only available if this mode {@link #isReversible()}.
+   *
+   * @param destination the location to reach
+   * @return all options, where each location is a possible previous location
+   */
+  @NotNull
+  public final Collection<Option> getSources(@NotNull Cell destination) {
+    if (!isReversible()) {
+      throw new UnsupportedOperationException("Mode " + type() + " cannot determine where its movement comes from");
+    }
+    List<Option> options = new LinkedList<>();
+    int domain = destination.domain();
+    collectSources(domain, destination.blockX(), destination.blockY(), destination.blockZ(),
+        (x, y, z, cost) -> options.add(new Option(new Cell(x, y, z, domain), cost)));
+    return options;
+  }
+
+  /**
+   * Push all the destinations that are reachable from an original location into a sink.
+   * This is equivalent to {@link #getDestinations(Cell)}, but nothing is allocated,
+   * so searches should prefer it.
+   *
+   * @param domain the domain of the original location
+   * @param x      the x coordinate of the original location
+   * @param y      the y coordinate of the original location
+   * @param z      the z coordinate of the original location
+   * @param sink   the sink to receive every option
+   */
+  public final void expandDestinations(int domain, int x, int y, int z, @NotNull OptionSink sink) {
+    collectDestinations(domain, x, y, z, sink);
+  }
+
+  /**
+   * Push all the locations from which the given location is reachable into a sink.
+   * This is equivalent to {@link #getSources(Cell)}, without the allocations.
+   *
+   * @param domain the domain of the location to reach
+   * @param x      the x coordinate of the location to reach
+   * @param y      the y coordinate of the location to reach
+   * @param z      the z coordinate of the location to reach
+   * @param sink   the sink to receive every option, where each location is a possible previous location
+   */
+  public final void expandSources(int domain, int x, int y, int z, @NotNull OptionSink sink) {
+    if (!isReversible()) {
+      throw new UnsupportedOperationException("Mode " + type() + " cannot determine where its movement comes from");
+    }
+    collectSources(domain, x, y, z, sink);
+  }
+
+  /**
+   * Whether this mode can generate the locations that lead to a location,
+   * with {@link #getSources(Cell)} or {@link #expandSources(int, int, int, int, OptionSink)}.
+   * Searches can only be run from both ends at once if all of their modes are reversible.
+   *
+   * @return true if reversible
+   */
+  public boolean isReversible() {
+    return false;
+  }
+
+  /**
+   * Get a key which is equal for two modes only if they offer exactly the same options from every location,
+   * so that what is learned about the world with one of them may be reused by the other.
+   * By default, every mode has its own key, which is always safe.
+   *
+   * @return the behavior key
+   */
+  @NotNull
+  public Object behaviorKey() {
+    return this;
+  }
+
   /**
    * Accept a location and its distance to the list of possible options.
    * This adds it to the list and performs other somewhat unnecessary management operations.
@@ -79,7 +156,29 @@ public abstract class Mode {
                               @NotNull List<Option> options) {
     options.add(new Option(destination, distance));
     delay();
-    Journey.get().dispatcher().dispatch(new ModeSuccessEvent(session, destination, type()));
+    if (Journey.get().dispatcher().isObserved(session, SearchEvent.EventType.MODE_SUCCESS)) {
+      Journey.get().dispatcher().dispatch(new ModeSuccessEvent(session, destination, type()));
+    }
+  }
+
+  /**
+   * Accept a location and its distance into the sink of possible options.
+   * This is the allocation-free counterpart of {@link #accept(Cell, double, List)}
+   * for implementations of {@link #collectDestinations(int, int, int, int, OptionSink)}.
+   *
+   * @param domain   the domain of the destination
+   * @param x        the x coordinate of the accepted destination
+   * @param y        the y coordinate of the accepted destination
+   * @param z        the z coordinate of the accepted destination
+   * @param distance the distance to the destination
+   * @param sink     the sink, passed from the previous caller
+   */
+  protected final void accept(int domain, int x, int y, int z, double distance, @NotNull OptionSink sink) {
+    sink.accept(x, y, z, distance);
+    delay();
+    if (Journey.get().dispatcher().isObserved(session, SearchEvent.EventType.MODE_SUCCESS)) {
+      Journey.get().dispatcher().dispatch(new ModeSuccessEvent(session, new Cell(x, y, z, domain), type()));
+    }
   }
 
   /**
@@ -92,7 +191,26 @@ public abstract class Mode {
    */
   protected final void reject(@NotNull Cell destination) {
     delay();
-    Journey.get().dispatcher().dispatch(new ModeFailureEvent(session, destination, type()));
+    if (Journey.get().dispatcher().isObserved(session, SearchEvent.EventType.MODE_FAILURE)) {
+      Journey.get().dispatcher().dispatch(new ModeFailureEvent(session, destination, type()));
+    }
+  }
+
+  /**
+   * Reject a location.
+   * This is the counterpart of {@link #reject(Cell)}
+   * for implementations of {@link #collectDestinations(int, int, int, int, OptionSink)}.
+   *
+   * @param domain the domain of the rejected destination
+   * @param x      the x coordinate of the rejected destination
+   * @param y      the y coordinate of the rejected destination
+   * @param z      the z coordinate of the rejected destination
+   */
+  protected final void reject(int domain, int x, int y, int z) {
+    delay();
+    if (Journey.get().dispatcher().isObserved(session, SearchEvent.EventType.MODE_FAILURE)) {
+      Journey.get().dispatcher().dispatch(new ModeFailureEvent(session, new Cell(x, y, z, domain), type()));
+    }
   }
 
   private void delay() {
@@ -107,7 +225,46 @@ public abstract class Mode {
     }
   }
 
-  protected abstract void collectDestinations(@NotNull Cell origin, @NotNull List<Option> options);
+  /**
+   * Collect all the destinations that are reachable from an original location into a list,
+   * by way of {@link #collectDestinations(int, int, int, int, OptionSink)}.
+   *
+   * @param origin  the original location
+   * @param options the options list
+   */
+  protected final void collectDestinations(@NotNull Cell origin, @NotNull List<Option> options) {
+    int domain = origin.domain();
+    collectDestinations(domain, origin.blockX(), origin.blockY(), origin.blockZ(),
+        (x, y, z, cost) -> options.add(new Option(new Cell(x, y, z, domain), cost)));
+  }
+
+  /**
+   * Push all the destinations that are reachable from an original location into a sink,
+   * using {@link #accept(int, int, int, int, double, OptionSink)} and {@link #reject(int, int, int, int)}.
+   *
+   * @param domain the domain of the original location
+   * @param x      the x coordinate of the original location
+   * @param y      the y coordinate of the original location
+   * @param z      the z coordinate of the original location
+   * @param sink   the sink
+   */
+  protected abstract void collectDestinations(int domain, int x, int y, int z, @NotNull OptionSink sink);
+
+  /**
+   * Push all the locations from which the given location may be reached with this mode into a sink.
+   * By default, a reversible mode is assumed to be symmetric, meaning every move may be made backwards
+   * with the same cost, so the sources are just the destinations.
+   * Reversible modes whose movement is not symmetric must override this.
+   *
+   * @param domain the domain of the location to reach
+   * @param x      the x coordinate of the location to reach
+   * @param y      the y coordinate of the location to reach
+   * @param z      the z coordinate of the location to reach
+   * @param sink   the sink
+   */
+  protected void collectSources(int domain, int x, int y, int z, @NotNull OptionSink sink) {
+    collectDestinations(domain, x, y, z, sink);
+  }
 
   /**
    * Get the mode type.
@@ -117,6 +274,25 @@ public abstract class Mode {
   @NotNull
   public abstract ModeType type();
 
+  /**
+   * A receiver of movement options, given as the coordinates of a location in the domain being expanded
+   * and the cost to get there.
+   */
+  @FunctionalInterface
+  public interface OptionSink {
+
+    /**
+     * Receive an option.
+     *
+     * @param x    the x coordinate of the location
+     * @param y    the y coordinate of the location
+     * @param z    the z coordinate of the location
+     * @param cost the cost to reach the location
+     */
+    void accept(int x, int y, int z, double cost);
+
+  }
+
   /**
    * A record to store a movement option. It just contains a location and a distance to that location.
    */
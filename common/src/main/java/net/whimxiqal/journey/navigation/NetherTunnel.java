@@ -51,8 +51,8 @@ public final class NetherTunnel implements Tunnel, Verifiable {
 
   @Override
   public boolean verify() {
-    return Journey.get().netherManager().locateAll(origin, 1).size() > 0
-        && Journey.get().netherManager().locateAll(destination, 1).size() > 0;
+    return Journey.get().netherManager().verifyPortal(origin)
+        && Journey.get().netherManager().verifyPortal(destination);
   }
 
   @Override
@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.navigation;
+
+import java.util.Arrays;
+
+/**
+ * A reusable buffer of movement options, to be filled by
+ * {@link Mode#expandDestinations(int, int, int, int, Mode.OptionSink)} and read back by index.
+ * Searches keep one for their whole run and {@link #clear()} it before each expansion,
+ * so expanding a cell does not allocate anything once the buffer has grown large enough.
+ *
+ * <p>Not thread-safe.
+ */
+public final class OptionBuffer implements Mode.OptionSink {
+
+  private static final int INITIAL_CAPACITY = 32;
+
+  private int[] xs = new int[INITIAL_CAPACITY];
+  private int[] ys = new int[INITIAL_CAPACITY];
+  private int[] zs = new int[INITIAL_CAPACITY];
+  private double[] costs = new double[INITIAL_CAPACITY];
+  private int size = 0;
+
+  @Override
+  public void accept(int x, int y, int z, double cost) {
+    if (size == xs.length) {
+      int capacity = size << 1;
+      xs = Arrays.copyOf(xs, capacity);
+      ys = Arrays.copyOf(ys, capacity);
+      zs = Arrays.copyOf(zs, capacity);
+      costs = Arrays.copyOf(costs, capacity);
+    }
+    xs[size] = x;
+    ys[size] = y;
+    zs[size] = z;
+    costs[size] = cost;
+    size++;
+  }
+
+  /**
+   * Remove all options.
+   */
+  public void clear() {
+    size = 0;
+  }
+
+  /**
+   * The number of options in the buffer.
+   *
+   * @return the size
+   */
+  public int size() {
+    return size;
+  }
+
+  public int x(int index) {
+    return xs[index];
+  }
+
+  public int y(int index) {
+    return ys[index];
+  }
+
+  public int z(int index) {
+    return zs[index];
+  }
+
+  public double cost(int index) {
+    return costs[index];
+  }
+
+}
@@ -27,8 +27,11 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
 import java.util.function.Predicate;
 import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.Journey;
 import net.whimxiqal.journey.Tunnel;
 import org.jetbrains.annotations.NotNull;
 
@@ -37,11 +40,15 @@ import org.jetbrains.annotations.NotNull;
  */
 public class Path implements Serializable {
 
+  // not every block change bumps a chunk stamp, so a passed test is only trusted for so long
+  private static final long MAX_UNTESTED_NANOS = 30_000_000_000L;
+
   private final Cell origin;
   private final ArrayList<Step> steps;
   private final double cost;
   private final Runnable prompt;
   private final Predicate<Cell> completedWith;
+  private transient volatile Tested lastTested = null;
 
   /**
    * General constructor.
@@ -143,16 +150,74 @@ public class Path implements Serializable {
 
   /**
    * Verify if the path is still valid and traversable with the given mode collection.
+   * If it passed with the same modes less than 30 seconds ago, and none of the chunks it crosses
+   * have changed since, it is not checked again.
    *
    * @param modes all modes
    * @return true if the path can be traversed, or false if it is impassable
    */
   public boolean test(Collection<Mode> modes) {
+    Set<ModeType> modeTypes = EnumSet.noneOf(ModeType.class);
+    modes.forEach(mode -> modeTypes.add(mode.type()));
+    // read before testing, so a change during the test is caught by the next one
+    long stamp = chunkStamp();
+    long now = System.nanoTime();
+    Tested tested = lastTested;
+    if (stamp >= 0 && tested != null && stamp == tested.stamp && modeTypes.equals(tested.modeTypes)
+        && now - tested.nanos < MAX_UNTESTED_NANOS) {
+      return true;
+    }
+    if (!testSteps(modes)) {
+      return false;
+    }
+    lastTested = new Tested(modeTypes, stamp, now);
+    return true;
+  }
+
+  /**
+   * Get the greatest modification stamp of the chunks this path crosses.
+   *
+   * @return the stamp, or negative if unknown
+   */
+  private long chunkStamp() {
+    PlatformProxy platform = Journey.get().proxy().platform();
+    long stamp = 0;
+    int lastDomain = 0;
+    int lastChunkX = 0;
+    int lastChunkZ = 0;
+    boolean first = true;
+    for (Step step : steps) {
+      Cell location = step.location();
+      int chunkX = location.blockX() >> 4;
+      int chunkZ = location.blockZ() >> 4;
+      if (!first && location.domain() == lastDomain && chunkX == lastChunkX && chunkZ == lastChunkZ) {
+        continue;  // consecutive steps are mostly in the same chunk
+      }
+      first = false;
+      lastDomain = location.domain();
+      lastChunkX = chunkX;
+      lastChunkZ = chunkZ;
+      long chunkStamp = platform.chunkStamp(lastDomain, chunkX, chunkZ);
+      if (chunkStamp < 0) {
+        return -1;
+      }
+      stamp = Math.max(stamp, chunkStamp);
+    }
+    return stamp;
+  }
+
+  private boolean testSteps(Collection<Mode> modes) {
+    OptionBuffer options = new OptionBuffer();
     stepLoop:
     for (int i = 0; i < steps.size() - 1; i++) {
+      Cell location = steps.get(i).location();
+      Cell next = steps.get(i + 1).location();
       for (Mode mode : modes) {
-        for (Mode.Option option : mode.getDestinations(steps.get(i).location())) {
-          if (steps.get(i + 1).location().equals(option.location())) {
+        options.clear();
+        mode.expandDestinations(location.domain(), location.blockX(), location.blockY(), location.blockZ(), options);
+        for (int j = 0; j < options.size(); j++) {
+          if (next.domain() == location.domain()
+              && options.x(j) == next.blockX() && options.y(j) == next.blockY() && options.z(j) == next.blockZ()) {
             continue stepLoop;  // we found a mode that gave us a fitting option. Continue to the next step.
           }
         }
@@ -172,6 +237,12 @@ public class Path implements Serializable {
     return getDestination().domain();
   }
 
+  /**
+   * The modes with which a path passed its last test, the stamp of its chunks at the time, and when it was.
+   */
+  private record Tested(Set<ModeType> modeTypes, long stamp, long nanos) {
+  }
+
   public void runPrompt() {
     prompt.run();
   }
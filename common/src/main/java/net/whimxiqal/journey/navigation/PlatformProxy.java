@@ -76,4 +76,52 @@ public interface PlatformProxy {
   Consumer<CustomChart> bStatsChartConsumer();
 
   Map<String, Map<String, Integer>> domainResourceKeys();
+
+  /**
+   * Start loading a chunk that a search is likely to need soon, so it is ready by the time it is read.
+   * This is only a hint, so platforms that can read blocks from any thread may ignore it. Thread-safe.
+   *
+   * @param domain the domain of the chunk
+   * @param chunkX the chunk's x coordinate
+   * @param chunkZ the chunk's z coordinate
+   */
+  void prefetchChunk(int domain, int chunkX, int chunkZ);
+
+  /**
+   * Get the modification stamp of a chunk. The stamp of a chunk is greater after its blocks change
+   * than it was before, so results that depend on the chunk only have to be checked again once it grows.
+   * Platforms that don't track changes return a negative stamp, and results must always be checked. Thread-safe.
+   *
+   * @param domain the domain of the chunk
+   * @param chunkX the chunk's x coordinate
+   * @param chunkZ the chunk's z coordinate
+   * @return the stamp, or negative if unknown
+   */
+  long chunkStamp(int domain, int chunkX, int chunkZ);
+
+  /**
+   * Get how long the server has recently taken to run a tick, on average.
+   * Background work uses it to back off while the server has no time to spare.
+   *
+   * @return the average tick time in milliseconds, or 0 if unknown
+   */
+  double averageTickMillis();
+
+  /**
+   * Whether a chunk is loaded, so reading its blocks needs neither loading nor generating it.
+   *
+   * @param domain the domain of the chunk
+   * @param chunkX the chunk's x coordinate
+   * @param chunkZ the chunk's z coordinate
+   * @return true if loaded
+   */
+  boolean isChunkLoaded(int domain, int chunkX, int chunkZ);
+
+  /**
+   * Get the cell at which players spawn in a domain.
+   *
+   * @param domain the domain
+   * @return the spawn cell, or empty if the domain has none
+   */
+  Optional<Cell> spawn(int domain);
 }
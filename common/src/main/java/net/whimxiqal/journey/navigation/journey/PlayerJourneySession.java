@@ -32,6 +32,7 @@ import net.whimxiqal.journey.message.Formatter;
 import net.whimxiqal.journey.navigation.Itinerary;
 import net.whimxiqal.journey.navigation.Path;
 import net.whimxiqal.journey.navigation.Step;
+import net.whimxiqal.journey.search.PathRepair;
 import net.whimxiqal.journey.search.SearchSession;
 import net.whimxiqal.journey.tools.AlternatingList;
 import org.jetbrains.annotations.NotNull;
@@ -43,6 +44,7 @@ public class PlayerJourneySession implements JourneySession {
   public static final double PARTICLE_UNIT_DISTANCE = 0.5;  // number of blocks between which particles will be shown
   public static final int PARTICLE_CYCLE_COUNT = 1;
   public static final float PARTICLE_SPAWN_DENSITY = 0.6f;
+  public static final double OFF_PATH_DISTANCE_SQUARED = 9;  // squared distance from the path at which the path is repaired
 
   private final UUID playerUuid;
   private final LinkedList<JourneyStep> journeySteps = new LinkedList<>();
@@ -53,6 +55,9 @@ public class PlayerJourneySession implements JourneySession {
   private State state = State.STOPPED_INCOMPLETE;
   private UUID illuminationTaskId;
   private AlternatingList.Traversal<Path, Path, Path> traversal;
+  private Path currentPath;
+  private PathRepair pathRepair;
+  private boolean repairing = false;
 
   /**
    * General constructor.
@@ -95,7 +100,7 @@ public class PlayerJourneySession implements JourneySession {
    * @return the destination location
    */
   public final Cell currentPathDestination() {
-    return traversal.get().getDestination();
+    return currentPath.getDestination();
   }
 
   protected final AlternatingList.Traversal<Path,
@@ -113,7 +118,7 @@ public class PlayerJourneySession implements JourneySession {
     if (state != State.RUNNING) {
       return;
     }
-    while (traversal().get().completedWith(locatable) || traversal().get().getCost() == 0) {
+    while (currentPath.completedWith(locatable) || currentPath.getCost() == 0) {
       // We have reached our destination for the given path
       if (traversal().hasNext()) {
         // There is another path after this one, move on to the next one
@@ -154,7 +159,7 @@ public class PlayerJourneySession implements JourneySession {
     // block-by-block search to see if the player has walked into a future location
     if (!madeProgress) {
       int i = 0;
-      double closestDistanceSquared = locatable.distanceToSquared(traversal.get().getDestination());
+      double closestDistanceSquared = locatable.distanceToSquared(currentPath.getDestination());
       boolean foundLocation = false;
       for (JourneyStep step : journeySteps) {
         if (locatable.domain() == step.domain()) {
@@ -174,12 +179,15 @@ public class PlayerJourneySession implements JourneySession {
         }
         // recalculate journeyStepsLength
         journeyStepsLength = journeySteps.stream().mapToDouble(JourneyStep::length).sum();
+      } else if (closestDistanceSquared > OFF_PATH_DISTANCE_SQUARED) {
+        // the player has wandered off, so find the way back onto the path from here
+        repairPath(locatable);
       }
     }
 
     // add next steps from the traversal
-    ArrayList<Step> steps = traversal().get().getSteps();
-    while (journeyStepsLength < CACHED_JOURNEY_STEPS_LENGTH && lastAddedJourneyStepIndex + 1 < traversal().get().getSteps().size()) {
+    ArrayList<Step> steps = currentPath.getSteps();
+    while (journeyStepsLength < CACHED_JOURNEY_STEPS_LENGTH && lastAddedJourneyStepIndex + 1 < steps.size()) {
       Cell origin = steps.get(lastAddedJourneyStepIndex).location();
       Step nextStep = steps.get(lastAddedJourneyStepIndex + 1);
       JourneyStep jStep = new JourneyStep(playerUuid, origin, nextStep.location(), nextStep.modeType());
@@ -208,9 +216,46 @@ public class PlayerJourneySession implements JourneySession {
   }
 
   private void startPath() {
+    startPath(traversal().get());
+    pathRepair = null;
+  }
+
+  private void startPath(Path path) {
     state = State.RUNNING;
+    currentPath = path;
     lastAddedJourneyStepIndex = 0;
     journeySteps.clear();
+    journeyStepsLength = 0;
+  }
+
+  /**
+   * Repair the current path from the player's location asynchronously, and follow the repaired path
+   * if the player is still on the same path by the time it is found.
+   * Only one repair runs at a time.
+   *
+   * @param location the player's location
+   */
+  private void repairPath(Cell location) {
+    if (repairing || !PathRepair.canRepair(currentPath)) {
+      return;
+    }
+    if (pathRepair == null || pathRepair.path() != currentPath) {
+      pathRepair = new PathRepair(currentPath, session.modes());
+    }
+    PathRepair repair = pathRepair;
+    repairing = true;
+    Journey.get().proxy().schedulingManager().schedule(() -> {
+      Path repaired = repair.repair(location);
+      Journey.get().proxy().schedulingManager().schedule(() -> {
+        repairing = false;
+        if (repaired == null || state != State.RUNNING || currentPath != repair.path()) {
+          return;
+        }
+        startPath(repaired);
+        pathRepair = new PathRepair(repaired, session.modes());
+        Journey.get().proxy().platform().entityCellLocation(playerUuid).ifPresent(this::visit);
+      }, false);
+    }, true);
   }
 
   private void illuminateTrail() {
@@ -25,29 +25,27 @@ package net.whimxiqal.journey.search;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.PriorityQueue;
-import java.util.Queue;
+import java.util.function.BooleanSupplier;
 import java.util.function.Predicate;
 import lombok.Getter;
-import lombok.Setter;
 import net.whimxiqal.journey.Journey;
 import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.config.Settings;
 import net.whimxiqal.journey.navigation.Mode;
 import net.whimxiqal.journey.navigation.ModeType;
+import net.whimxiqal.journey.navigation.OptionBuffer;
 import net.whimxiqal.journey.navigation.Path;
 import net.whimxiqal.journey.navigation.Step;
+import net.whimxiqal.journey.search.event.SearchEvent;
 import net.whimxiqal.journey.search.event.StartPathSearchEvent;
 import net.whimxiqal.journey.search.event.StepSearchEvent;
 import net.whimxiqal.journey.search.event.StopPathSearchEvent;
 import net.whimxiqal.journey.search.event.VisitationSearchEvent;
 import net.whimxiqal.journey.search.function.CostFunction;
+import net.whimxiqal.journey.search.graph.IndexedMinHeap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -61,6 +59,8 @@ import org.jetbrains.annotations.Nullable;
 public class AbstractPathTrial implements Resulted {
 
   private final static double CALCULATION_MULTIPLIER_PER_BLOCK = 1.1;
+  private final static int INITIAL_NODE_CAPACITY = 1024;
+  private final static double HIERARCHICAL_MIN_DISTANCE_SQUARED = 64 * 64;
 
   private final SearchSession session;
   @Getter
@@ -83,6 +83,8 @@ public class AbstractPathTrial implements Resulted {
   private boolean fromCache;
   private long startExecutionTime = -1;
   private int maxCellCount = Settings.MAX_PATH_BLOCK_COUNT.getValue();
+  // whether the running attempt is no longer wanted
+  private BooleanSupplier canceled = () -> false;
 
   /**
    * General constructor.
@@ -159,13 +161,35 @@ public class AbstractPathTrial implements Resulted {
 
   /**
    * Attempt to calculate a path given some modes of transportation.
+   * Only one thread attempts a trial at a time, so a concurrent attempt waits for and reuses the result.
    *
    * @param useCacheIfPossible whether the cache should be used for retrieving previous results
    * @return a result object
    */
   @NotNull
   public TrialResult attempt(boolean useCacheIfPossible) {
+    return attempt(useCacheIfPossible, () -> false);
+  }
+
+  /**
+   * Attempt to calculate a path, but give up early if it stops being wanted while it is searched.
+   * A search given up like this is canceled and not cached, so the next attempt searches again.
+   *
+   * @param useCacheIfPossible whether the cache should be used for retrieving previous results
+   * @param canceled           whether the path is no longer wanted, checked as the search goes
+   * @return a result object
+   */
+  @NotNull
+  public synchronized TrialResult attempt(boolean useCacheIfPossible, BooleanSupplier canceled) {
+    this.canceled = canceled;
+    try {
+      return doAttempt(useCacheIfPossible);
+    } finally {
+      this.canceled = () -> false;
+    }
+  }
 
+  private TrialResult doAttempt(boolean useCacheIfPossible) {
     // Return the saved states, but only if we want that result.
     //  If we don't want to use the cache, but this result is from the cache,
     //  then don't return this.
@@ -183,69 +207,93 @@ public class AbstractPathTrial implements Resulted {
     Journey.get().dispatcher().dispatch(new StartPathSearchEvent(session, this));
     startExecutionTime = System.currentTimeMillis();
 
-    Queue<Node> upcoming = new PriorityQueue<>(Comparator.comparingDouble(node -> node.score + costFunction.apply(node.data.location()) * CALCULATION_MULTIPLIER_PER_BLOCK));
-    Map<Cell, Node> visited = new HashMap<>();
+    Cell goal = goal();
+    if (goal != null
+        && Settings.HIERARCHICAL_SEARCH.getValue()
+        && origin.distanceToSquared(goal) >= HIERARCHICAL_MIN_DISTANCE_SQUARED) {
+      TrialResult result = searchHierarchical(goal);
+      if (result != null) {
+        return result;
+      }
+      // The chunk-level plan did not produce a path, so search block by block
+    }
+    CostFunction reverseCostFunction = goal == null ? null : reverseCostFunction();
+    if (reverseCostFunction != null
+        && Settings.BIDIRECTIONAL_SEARCH.getValue()
+        && modes.stream().allMatch(Mode::isReversible)) {
+      TrialResult result = searchBidirectional(goal, reverseCostFunction);
+      if (result != null) {
+        return result;
+      }
+      // The bidirectional search could not produce a verified path, so search the long way
+    }
+    return searchForward();
+  }
+
+  private TrialResult searchForward() {
+    CellNodeTable nodes = new CellNodeTable(domain, INITIAL_NODE_CAPACITY);
+    IndexedMinHeap upcoming = new IndexedMinHeap(INITIAL_NODE_CAPACITY);
+    ChunkPrefetcher prefetcher = new ChunkPrefetcher(domain);
+    OptionBuffer options = new OptionBuffer();
 
-    Node originNode = new Node(new Step(origin, 0, ModeType.NONE),
-        null, 0);
-    upcoming.add(originNode);
-    visited.put(origin, originNode);
-    Journey.get().dispatcher().dispatch(new VisitationSearchEvent(session, originNode.getData()));
+    int originNode = nodes.add(CellNodeTable.pack(origin), 0, heuristic(origin),
+        CellNodeTable.NO_NODE, 0, ModeType.NONE);
+    upcoming.insert(originNode, nodes.estimate(originNode));
+    dispatchVisitation(nodes, originNode);
 
-    Node current;
+    int current;
+    Cell currentCell;
     while (!upcoming.isEmpty()) {
       synchronized (session) {
-        if (session.state.shouldStop()) {
+        if (session.state.shouldStop() || canceled.getAsBoolean()) {
           // Canceled! Fail here, but don't cache it because it's not the true solution for this path.
           return resultCancel();
         }
       }
 
-      if (visited.size() > maxCellCount) {
+      if (nodes.size() > maxCellCount) {
         // We ran out of allocated memory. Let's just call it here and say we failed and cache the failure.
         return resultFail();
       }
 
       current = upcoming.poll();
-      assert current != null;
-      Journey.get().dispatcher().dispatch(new StepSearchEvent(session, current.getData()));
+      currentCell = nodes.cell(current);
+      prefetcher.visit(currentCell);
+      dispatchStep(nodes, current);
 
-      if (completer.test(current)) {
+      if (completer.test(currentCell)) {
         // We found it!
-        double length = current.getScore();
-        completer.test(current);
+        double length = nodes.score(current);
         LinkedList<Step> steps = new LinkedList<>();
         do {
-          steps.addFirst(current.getData());
-          current = current.getPrevious();
-        } while (current != null);
+          steps.addFirst(nodes.step(current));
+          current = nodes.previous(current);
+        } while (current != CellNodeTable.NO_NODE);
         return resultSucceed(length, steps);
       }
 
       // Need to keep going
+      double currentScore = nodes.score(current);
       for (Mode mode : modes) {
-        for (Mode.Option option : mode.getDestinations(current.getData().location())) {
-          if (visited.containsKey(option.location())) {
+        options.clear();
+        mode.expandDestinations(domain, currentCell.blockX(), currentCell.blockY(), currentCell.blockZ(), options);
+        for (int i = 0; i < options.size(); i++) {
+          double score = currentScore + options.cost(i);
+          long key = CellNodeTable.pack(options.x(i), options.y(i), options.z(i));
+          int that = nodes.indexOf(key);
+          if (that != CellNodeTable.NO_NODE) {
             // Already visited, but see if it is better to come from this new direction
-            Node that = visited.get(option.location());
-            if (current.getScore() + option.cost() < that.getScore()) {
-              that.setPrevious(current);
-              that.setScore(current.getScore() + option.cost());
-              that.setData(new Step(that.getData().location(),
-                  option.cost(),
-                  mode.type()));
+            if (score < nodes.score(that)) {
+              nodes.improve(that, score, current, options.cost(i), mode.type());
+              // Re-queue with its better estimate, even if it was already expanded
+              upcoming.insertOrUpdate(that, nodes.estimate(that));
             }
           } else {
             // Not visited. Set up node, give it a score, and add it to the system
-            Node nextNode = new Node(
-                new Step(option.location(),
-                    option.cost(),
-                    mode.type()),
-                current,
-                current.getScore() + option.cost());
-            upcoming.add(nextNode);
-            visited.put(option.location(), nextNode);
-            Journey.get().dispatcher().dispatch(new VisitationSearchEvent(session, nextNode.getData()));
+            Cell location = new Cell(options.x(i), options.y(i), options.z(i), domain);
+            int nextNode = nodes.add(key, score, heuristic(location), current, options.cost(i), mode.type());
+            upcoming.insert(nextNode, nodes.estimate(nextNode));
+            dispatchVisitation(nodes, nextNode);
           }
         }
       }
@@ -255,17 +303,329 @@ public class AbstractPathTrial implements Resulted {
     return resultFail();
   }
 
+  /**
+   * Search from both ends at once, alternating between a frontier growing forwards from the origin
+   * and a frontier growing backwards from the goal.
+   * Every cell reached by both frontiers joins the two halves into a path, and the search stops once
+   * neither frontier has an estimate left below the best such path, so it is no longer than the path
+   * a search in one direction would find.
+   *
+   * <p>The backwards half is built from {@link Mode#getSources} and is checked against the regular
+   * forward movement of the modes before it is accepted, so a mode that claims to be reversible
+   * but is not quite symmetric can never produce an untraversable path.
+   *
+   * @param goal the cell that completes this trial
+   * @return the result, or null if the search should be run again in only one direction
+   */
+  @Nullable
+  private TrialResult searchBidirectional(Cell goal, CostFunction reverseCostFunction) {
+    Frontier forward = new Frontier(false, costFunction);
+    Frontier backward = new Frontier(true, reverseCostFunction);
+    forward.start(origin);
+    backward.start(goal);
+
+    double bestLength = Double.MAX_VALUE;
+    long meetingKey = 0;
+    Frontier frontier;
+    Frontier other;
+    while (!forward.upcoming.isEmpty() && !backward.upcoming.isEmpty()) {
+      synchronized (session) {
+        if (session.state.shouldStop() || canceled.getAsBoolean()) {
+          // Canceled! Fail here, but don't cache it because it's not the true solution for this path.
+          return resultCancel();
+        }
+      }
+
+      if (forward.nodes.size() + backward.nodes.size() > maxCellCount) {
+        if (bestLength < Double.MAX_VALUE) {
+          break;  // out of room to prove it is the best, but it is a path all the same
+        }
+        return resultFail();
+      }
+
+      // A path through a cell still waiting in either frontier costs at least that cell's estimate,
+      // so once one frontier's smallest estimate reaches the best path, no better path is left to find
+      if (bestLength < Double.MAX_VALUE
+          && Math.max(forward.upcoming.key(forward.upcoming.peek()),
+          backward.upcoming.key(backward.upcoming.peek())) >= bestLength) {
+        break;
+      }
+
+      // Grow whichever frontier is smaller so the two stay balanced
+      if (forward.upcoming.size() <= backward.upcoming.size()) {
+        frontier = forward;
+        other = backward;
+      } else {
+        frontier = backward;
+        other = forward;
+      }
+
+      int current = frontier.upcoming.poll();
+      long currentKey = frontier.nodes.key(current);
+      Cell currentCell = frontier.nodes.cell(current);
+      frontier.prefetcher.visit(currentCell);
+      dispatchStep(frontier.nodes, current);
+
+      int met = other.nodes.indexOf(currentKey);
+      if (met != CellNodeTable.NO_NODE) {
+        double length = frontier.nodes.score(current) + other.nodes.score(met);
+        if (length < bestLength) {
+          bestLength = length;
+          meetingKey = currentKey;
+        }
+      }
+
+      double currentScore = frontier.nodes.score(current);
+      for (Mode mode : modes) {
+        frontier.options.clear();
+        if (frontier.reverse) {
+          mode.expandSources(domain, currentCell.blockX(), currentCell.blockY(), currentCell.blockZ(), frontier.options);
+        } else {
+          mode.expandDestinations(domain, currentCell.blockX(), currentCell.blockY(), currentCell.blockZ(), frontier.options);
+        }
+        for (int i = 0; i < frontier.options.size(); i++) {
+          double stepCost = frontier.options.cost(i);
+          double score = currentScore + stepCost;
+          long key = CellNodeTable.pack(frontier.options.x(i), frontier.options.y(i), frontier.options.z(i));
+          int that = frontier.nodes.indexOf(key);
+          if (that != CellNodeTable.NO_NODE) {
+            if (score < frontier.nodes.score(that)) {
+              frontier.nodes.improve(that, score, current, stepCost, mode.type());
+              frontier.upcoming.insertOrUpdate(that, frontier.nodes.estimate(that));
+            } else {
+              continue;
+            }
+          } else {
+            Cell location = new Cell(frontier.options.x(i), frontier.options.y(i), frontier.options.z(i), domain);
+            that = frontier.add(key, location, score, current, stepCost, mode.type());
+          }
+          int otherNode = other.nodes.indexOf(key);
+          if (otherNode != CellNodeTable.NO_NODE && score + other.nodes.score(otherNode) < bestLength) {
+            bestLength = score + other.nodes.score(otherNode);
+            meetingKey = key;
+          }
+        }
+      }
+    }
+
+    if (bestLength == Double.MAX_VALUE) {
+      if (forward.upcoming.isEmpty()) {
+        // Everything reachable from the origin was expanded without touching the goal's side
+        return resultFail();
+      }
+      // Only the backward side ran out, which the forward movement of the modes does not have to agree with
+      return null;
+    }
+
+    LinkedList<Step> steps = new LinkedList<>();
+    int node = forward.nodes.indexOf(meetingKey);
+    do {
+      steps.addFirst(forward.nodes.step(node));
+      node = forward.nodes.previous(node);
+    } while (node != CellNodeTable.NO_NODE);
+    int meetingIndex = steps.size() - 1;
+    // Backward nodes point towards the goal and hold the cost and mode of the move into that next node
+    node = backward.nodes.indexOf(meetingKey);
+    while (backward.nodes.previous(node) != CellNodeTable.NO_NODE) {
+      int next = backward.nodes.previous(node);
+      steps.addLast(new Step(backward.nodes.cell(next), backward.nodes.stepCost(node), backward.nodes.modeType(node)));
+      node = next;
+    }
+
+    if (!traversable(steps, meetingIndex)) {
+      return null;
+    }
+    return resultSucceed(bestLength, steps);
+  }
+
+  /**
+   * Plan over the chunk-level graph of this domain, whose nodes are the cells at which movement enters
+   * a chunk and whose edges are block-level routes across a single chunk.
+   * The edges are cached between searches, so long paths only have to search the chunks around the corridor
+   * they pass through, and only the first time those chunks are crossed.
+   * The cell limit applies to the number of chunk entrances instead of the number of blocks.
+   *
+   * <p>Chunk searches are bounded and cached routes may be outdated, so a failure here is not conclusive,
+   * and a found path is checked against the modes before it is accepted.
+   *
+   * @param goal the cell that completes this trial
+   * @return the result, or null if the search should be run again block by block
+   */
+  @Nullable
+  private TrialResult searchHierarchical(Cell goal) {
+    ChunkGraph graph = Journey.get().chunkGraphCache().graph(domain, modes);
+    CellNodeTable nodes = new CellNodeTable(domain, INITIAL_NODE_CAPACITY);
+    IndexedMinHeap upcoming = new IndexedMinHeap(INITIAL_NODE_CAPACITY);
+    ChunkPrefetcher prefetcher = new ChunkPrefetcher(domain);
+    // The edge along which each entrance was best reached, by node
+    List<ChunkGraph.Segment> arrivals = new ArrayList<>();
+    long goalKey = CellNodeTable.pack(goal);
+
+    int originNode = nodes.add(CellNodeTable.pack(origin), 0, heuristic(origin),
+        CellNodeTable.NO_NODE, 0, ModeType.NONE);
+    arrivals.add(null);
+    upcoming.insert(originNode, nodes.estimate(originNode));
+
+    while (!upcoming.isEmpty()) {
+      synchronized (session) {
+        if (session.state.shouldStop() || canceled.getAsBoolean()) {
+          return resultCancel();
+        }
+      }
+
+      if (nodes.size() > maxCellCount) {
+        return null;
+      }
+
+      int current = upcoming.poll();
+      Cell currentCell = nodes.cell(current);
+      prefetcher.visit(currentCell);
+      dispatchStep(nodes, current);
+
+      if (nodes.key(current) == goalKey) {
+        LinkedList<Integer> chain = new LinkedList<>();
+        for (int node = current; node != originNode; node = nodes.previous(node)) {
+          chain.addFirst(node);
+        }
+        List<Step> steps = new ArrayList<>();
+        steps.add(nodes.step(originNode));
+        for (int node : chain) {
+          arrivals.get(node).appendTo(steps);
+        }
+        if (!traversable(steps, 0)) {
+          return null;
+        }
+        return resultSucceed(nodes.score(current), steps);
+      }
+
+      double currentScore = nodes.score(current);
+      for (ChunkGraph.Segment segment : graph.segments(currentCell, modes, goal)) {
+        double score = currentScore + segment.cost();
+        long key = CellNodeTable.pack(segment.end());
+        int that = nodes.indexOf(key);
+        if (that == CellNodeTable.NO_NODE) {
+          that = nodes.add(key, score, heuristic(segment.end()), current, segment.cost(), ModeType.NONE);
+          arrivals.add(segment);
+          upcoming.insert(that, nodes.estimate(that));
+          dispatchVisitation(nodes, that);
+        } else if (score < nodes.score(that)) {
+          nodes.improve(that, score, current, segment.cost(), ModeType.NONE);
+          arrivals.set(that, segment);
+          upcoming.insertOrUpdate(that, nodes.estimate(that));
+        }
+      }
+    }
+
+    return null;
+  }
+
+  private void dispatchStep(CellNodeTable nodes, int node) {
+    if (Journey.get().dispatcher().isObserved(session, SearchEvent.EventType.STEP)) {
+      Journey.get().dispatcher().dispatch(new StepSearchEvent(session, nodes.step(node)));
+    }
+  }
+
+  private void dispatchVisitation(CellNodeTable nodes, int node) {
+    if (Journey.get().dispatcher().isObserved(session, SearchEvent.EventType.VISITATION)) {
+      Journey.get().dispatcher().dispatch(new VisitationSearchEvent(session, nodes.step(node)));
+    }
+  }
+
+  /**
+   * Check that every move after the given index can be made with the forward movement of the modes.
+   */
+  private boolean traversable(List<Step> steps, int startIndex) {
+    OptionBuffer options = new OptionBuffer();
+    Cell previous = null;
+    stepLoop:
+    for (Step step : steps.subList(startIndex, steps.size())) {
+      if (previous != null) {
+        Cell location = step.location();
+        for (Mode mode : modes) {
+          options.clear();
+          mode.expandDestinations(domain, previous.blockX(), previous.blockY(), previous.blockZ(), options);
+          for (int i = 0; i < options.size(); i++) {
+            if (options.x(i) == location.blockX() && options.y(i) == location.blockY() && options.z(i) == location.blockZ()) {
+              previous = location;
+              continue stepLoop;
+            }
+          }
+        }
+        return false;
+      }
+      previous = step.location();
+    }
+    return true;
+  }
+
+  /**
+   * Get the single cell which completes this trial, if there is one.
+   * If there is, and all modes are reversible, the trial may search from both ends at once.
+   *
+   * @return the goal, or null if completion cannot be pinned down to a single cell
+   */
+  @Nullable
+  protected Cell goal() {
+    return null;
+  }
+
+  /**
+   * Get the cost function which estimates the cost from the origin to a cell.
+   * Only used if there is a {@link #goal()}, to search backwards from it.
+   *
+   * @return the cost function, or null if this trial cannot be searched backwards
+   */
+  @Nullable
+  protected CostFunction reverseCostFunction() {
+    return null;
+  }
+
+  /**
+   * The estimated remaining cost from a cell, calculated once when the cell is first visited.
+   */
+  private double heuristic(Cell cell) {
+    return costFunction.apply(cell) * CALCULATION_MULTIPLIER_PER_BLOCK;
+  }
+
+  /**
+   * One side of a bidirectional search.
+   */
+  private class Frontier {
+    final boolean reverse;
+    final CostFunction costFunction;
+    final CellNodeTable nodes = new CellNodeTable(domain, INITIAL_NODE_CAPACITY);
+    final IndexedMinHeap upcoming = new IndexedMinHeap(INITIAL_NODE_CAPACITY);
+    final ChunkPrefetcher prefetcher = new ChunkPrefetcher(domain);
+    final OptionBuffer options = new OptionBuffer();
+
+    Frontier(boolean reverse, CostFunction costFunction) {
+      this.reverse = reverse;
+      this.costFunction = costFunction;
+    }
+
+    void start(Cell cell) {
+      add(CellNodeTable.pack(cell), cell, 0, CellNodeTable.NO_NODE, 0, ModeType.NONE);
+    }
+
+    int add(long key, Cell cell, double score, int previous, double stepCost, ModeType modeType) {
+      int node = nodes.add(key, score, costFunction.apply(cell) * CALCULATION_MULTIPLIER_PER_BLOCK, previous, stepCost, modeType);
+      upcoming.insert(node, nodes.estimate(node));
+      dispatchVisitation(nodes, node);
+      return node;
+    }
+  }
+
   public void setMaxCellCount(int maxCellCount) {
     this.maxCellCount = maxCellCount;
   }
 
   /**
-   * An interface to represent when a node is considered successful and therefore
+   * An interface to represent when a cell is considered successful and therefore
    * the end of a successful path.
-   * At this point in the algorithm, the path up until and through this node is returned.
+   * At this point in the algorithm, the path up until and through this cell is returned.
    */
   @FunctionalInterface
-  public interface Completer extends Predicate<Node> {
+  public interface Completer extends Predicate<Cell> {
   }
 
   /**
@@ -289,39 +649,4 @@ public class AbstractPathTrial implements Resulted {
     }
   }
 
-  /**
-   * A single node representing a possible movement during traversal.
-   */
-  public static class Node {
-    @Getter
-    @Setter
-    private Step data;
-    @Getter
-    @Setter
-    private Node previous;
-    /**
-     * The value to store how far away this node is from the original node.
-     * So, how far it is to traverse the space from the origin until this node is reached.
-     */
-    @Getter
-    @Setter
-    private double score;
-
-    /**
-     * General constructor.
-     *
-     * @param data     the step
-     * @param previous the previous node that we came from to get here
-     * @param score    our score so far throughout the pathfinding algorithm
-     */
-    public Node(@NotNull Step data, Node previous, double score) {
-      this.data = data;
-      this.previous = previous;
-      this.score = score;
-    }
-
-  }
-
-
-
-}
\ No newline at end of file
+}
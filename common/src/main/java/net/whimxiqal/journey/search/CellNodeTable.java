@@ -0,0 +1,198 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.search;
+
+import java.util.Arrays;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.navigation.ModeType;
+import net.whimxiqal.journey.navigation.Step;
+import net.whimxiqal.journey.tools.LongIntHashMap;
+
+/**
+ * The node storage of a single path search.
+ * Every node visited by the search gets a dense integer index, and all of its
+ * state lives in parallel primitive arrays at that index instead of in its own object.
+ * Cells are looked up through a {@link LongIntHashMap} keyed by packed coordinates.
+ *
+ * <p>All cells of a single path search share one domain, so the domain is held once
+ * by the table and only the x, y, and z coordinates are packed into the key:
+ * 26 bits for x, 26 bits for z, and 12 bits for y.
+ * That covers the entire Minecraft world border and build height.
+ */
+final class CellNodeTable {
+
+  static final int NO_NODE = -1;
+  private static final ModeType[] MODE_TYPES = ModeType.values();
+  private static final int HORIZONTAL_BITS = 26;
+  private static final int VERTICAL_BITS = 12;
+  private static final long HORIZONTAL_MASK = (1L << HORIZONTAL_BITS) - 1;
+  private static final long VERTICAL_MASK = (1L << VERTICAL_BITS) - 1;
+
+  private final int domain;
+  private final LongIntHashMap lookup;
+  private long[] keys;
+  private double[] scores;      // g: cost from the origin
+  private double[] heuristics;  // h: estimated cost to the goal, calculated once per node
+  private int[] previous;
+  private double[] stepCosts;
+  private byte[] modeTypes;
+  private int size = 0;
+
+  CellNodeTable(int domain, int initialCapacity) {
+    this.domain = domain;
+    int capacity = Math.max(initialCapacity, 16);
+    this.lookup = new LongIntHashMap(capacity);
+    this.keys = new long[capacity];
+    this.scores = new double[capacity];
+    this.heuristics = new double[capacity];
+    this.previous = new int[capacity];
+    this.stepCosts = new double[capacity];
+    this.modeTypes = new byte[capacity];
+  }
+
+  static long pack(int x, int y, int z) {
+    return ((x & HORIZONTAL_MASK) << (HORIZONTAL_BITS + VERTICAL_BITS))
+        | ((z & HORIZONTAL_MASK) << VERTICAL_BITS)
+        | (y & VERTICAL_MASK);
+  }
+
+  static long pack(Cell cell) {
+    return pack(cell.blockX(), cell.blockY(), cell.blockZ());
+  }
+
+  static int unpackX(long key) {
+    return (int) (key >> (HORIZONTAL_BITS + VERTICAL_BITS));  // arithmetic shift restores the sign
+  }
+
+  static int unpackY(long key) {
+    return (int) (key << (Long.SIZE - VERTICAL_BITS) >> (Long.SIZE - VERTICAL_BITS));
+  }
+
+  static int unpackZ(long key) {
+    return (int) (key << HORIZONTAL_BITS >> (Long.SIZE - HORIZONTAL_BITS));
+  }
+
+  int size() {
+    return size;
+  }
+
+  int domain() {
+    return domain;
+  }
+
+  /**
+   * Get the index of the node at a cell.
+   *
+   * @param cell the cell
+   * @return the index, or {@link #NO_NODE} if the cell has not been visited
+   */
+  int indexOf(Cell cell) {
+    return lookup.get(pack(cell));
+  }
+
+  int indexOf(long key) {
+    return lookup.get(key);
+  }
+
+  /**
+   * Add a newly visited node.
+   *
+   * @return the index of the new node
+   */
+  int add(long key, double score, double heuristic, int previousNode, double stepCost, ModeType modeType) {
+    if (size == keys.length) {
+      grow();
+    }
+    int index = size++;
+    keys[index] = key;
+    scores[index] = score;
+    heuristics[index] = heuristic;
+    previous[index] = previousNode;
+    stepCosts[index] = stepCost;
+    modeTypes[index] = (byte) modeType.ordinal();
+    lookup.put(key, index);
+    return index;
+  }
+
+  /**
+   * Record that a node is reached more cheaply by coming from another node.
+   */
+  void improve(int index, double score, int previousNode, double stepCost, ModeType modeType) {
+    scores[index] = score;
+    previous[index] = previousNode;
+    stepCosts[index] = stepCost;
+    modeTypes[index] = (byte) modeType.ordinal();
+  }
+
+  double score(int index) {
+    return scores[index];
+  }
+
+  double heuristic(int index) {
+    return heuristics[index];
+  }
+
+  /**
+   * The estimated total cost of a path through this node, used to order the open set.
+   */
+  double estimate(int index) {
+    return scores[index] + heuristics[index];
+  }
+
+  int previous(int index) {
+    return previous[index];
+  }
+
+  double stepCost(int index) {
+    return stepCosts[index];
+  }
+
+  long key(int index) {
+    return keys[index];
+  }
+
+  ModeType modeType(int index) {
+    return MODE_TYPES[modeTypes[index]];
+  }
+
+  Cell cell(int index) {
+    long key = keys[index];
+    return new Cell(unpackX(key), unpackY(key), unpackZ(key), domain);
+  }
+
+  Step step(int index) {
+    return new Step(cell(index), stepCosts[index], modeType(index));
+  }
+
+  private void grow() {
+    int capacity = keys.length << 1;
+    keys = Arrays.copyOf(keys, capacity);
+    scores = Arrays.copyOf(scores, capacity);
+    heuristics = Arrays.copyOf(heuristics, capacity);
+    previous = Arrays.copyOf(previous, capacity);
+    stepCosts = Arrays.copyOf(stepCosts, capacity);
+    modeTypes = Arrays.copyOf(modeTypes, capacity);
+  }
+
+}
@@ -0,0 +1,281 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.ModeType;
+import net.whimxiqal.journey.navigation.OptionBuffer;
+import net.whimxiqal.journey.navigation.Step;
+import net.whimxiqal.journey.search.graph.IndexedMinHeap;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A chunk-level abstraction of one domain, for one set of modes, used to plan long paths hierarchically.
+ * Every chunk column is a cluster, and the nodes of the abstract graph are the cells at which movement
+ * enters a chunk.
+ * The edges leaving an entrance are the cheapest block-level routes from it to each part of the chunk's border,
+ * found with a small search confined to the chunk. The routes are kept with the edges,
+ * so a path planned over entrances is already refined down to the block level.
+ *
+ * <p>Edges are only calculated the first time a search expands their entrance,
+ * and they are dropped when their chunk or a neighbouring chunk changes, to be rebuilt when next needed.
+ * Not every change to the world is reported, so a chunk's edges are also rebuilt once they reach a maximum age.
+ */
+final class ChunkGraph {
+
+  static final int CHUNK_BITS = 4;
+  private static final int MAX_CACHED_CHUNKS = 2048;
+  private static final int MAX_CHUNK_CELL_COUNT = 4096;
+  private static final int EXIT_BAND_HEIGHT = 4;
+  private static final long MAX_EDGE_AGE_NANOS = TimeUnit.MINUTES.toNanos(5);
+  private static final ModeType[] MODE_TYPES = ModeType.values();
+
+  private final int domain;
+  // chunk -> edges, in order of access so the least recently used chunk is evicted first
+  private final Map<Long, ChunkEdges> chunks = new LinkedHashMap<>(64, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Long, ChunkEdges> eldest) {
+      return size() > MAX_CACHED_CHUNKS;
+    }
+  };
+
+  ChunkGraph(int domain) {
+    this.domain = domain;
+  }
+
+  static int chunkCoordinate(int blockCoordinate) {
+    return blockCoordinate >> CHUNK_BITS;
+  }
+
+  static long chunkKey(int chunkX, int chunkZ) {
+    return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+  }
+
+  static long chunkKey(Cell cell) {
+    return chunkKey(chunkCoordinate(cell.blockX()), chunkCoordinate(cell.blockZ()));
+  }
+
+  /**
+   * Get the edges leaving an entrance, calculating them if they are not known yet.
+   * If a target is given and lies in the same chunk as the entrance, the route to the target is
+   * calculated as well and included in the returned edges. Routes to targets are never cached.
+   *
+   * @param entrance the cell at which movement enters the chunk
+   * @param modes    the modes with which to move
+   * @param target   a cell to which a route should be found, if it lies in this chunk
+   * @return the edges
+   */
+  List<Segment> segments(Cell entrance, Collection<Mode> modes, @Nullable Cell target) {
+    long chunk = chunkKey(entrance);
+    long entranceKey = CellNodeTable.pack(entrance);
+    boolean findTarget = target != null && chunkKey(target) == chunk;
+    if (!findTarget) {
+      synchronized (chunks) {
+        ChunkEdges edges = chunks.get(chunk);
+        if (edges != null) {
+          if (System.nanoTime() - edges.created > MAX_EDGE_AGE_NANOS) {
+            chunks.remove(chunk);
+          } else {
+            List<Segment> segments = edges.entrances.get(entranceKey);
+            if (segments != null) {
+              return segments;
+            }
+          }
+        }
+      }
+    }
+
+    // Explore outside the lock, so other searches are not held up by this one
+    List<Segment> exits = new ArrayList<>();
+    Segment toTarget = explore(entrance, modes, findTarget ? target : null, exits);
+    List<Segment> segments = Collections.unmodifiableList(exits);
+    synchronized (chunks) {
+      chunks.computeIfAbsent(chunk, k -> new ChunkEdges()).entrances.put(entranceKey, segments);
+    }
+    if (toTarget == null) {
+      return segments;
+    }
+    List<Segment> withTarget = new ArrayList<>(exits.size() + 1);
+    withTarget.add(toTarget);
+    withTarget.addAll(exits);
+    return withTarget;
+  }
+
+  /**
+   * Forget the edges of a chunk and of the chunks around it, because movement near a border
+   * depends on blocks on both sides of it.
+   *
+   * @param chunkX the x coordinate of the chunk that changed
+   * @param chunkZ the z coordinate of the chunk that changed
+   */
+  void invalidate(int chunkX, int chunkZ) {
+    synchronized (chunks) {
+      for (int x = chunkX - 1; x <= chunkX + 1; x++) {
+        for (int z = chunkZ - 1; z <= chunkZ + 1; z++) {
+          chunks.remove(chunkKey(x, z));
+        }
+      }
+    }
+  }
+
+  int size() {
+    synchronized (chunks) {
+      return chunks.size();
+    }
+  }
+
+  /**
+   * Run a uniform-cost search from the entrance which never expands a cell outside the entrance's chunk.
+   * Every cell reached outside the chunk is an exit, and for every neighbouring chunk only the cheapest exit
+   * within each band of heights is kept, which keeps the abstract graph small.
+   */
+  @Nullable
+  private Segment explore(Cell entrance, Collection<Mode> modes, @Nullable Cell target, List<Segment> exits) {
+    long chunk = chunkKey(entrance);
+    long targetKey = target == null ? 0 : CellNodeTable.pack(target);
+    Segment toTarget = null;
+    Set<ExitBand> exitBands = new HashSet<>();
+    CellNodeTable nodes = new CellNodeTable(domain, 256);
+    IndexedMinHeap upcoming = new IndexedMinHeap(256);
+    OptionBuffer options = new OptionBuffer();
+    upcoming.insert(nodes.add(CellNodeTable.pack(entrance), 0, 0, CellNodeTable.NO_NODE, 0, ModeType.NONE), 0);
+
+    while (!upcoming.isEmpty() && nodes.size() <= MAX_CHUNK_CELL_COUNT) {
+      int current = upcoming.poll();
+      Cell cell = nodes.cell(current);
+      if (chunkKey(cell) != chunk) {
+        // Uniform-cost order means the first exit found in a band is the cheapest one
+        if (exitBands.add(new ExitBand(chunkKey(cell), Math.floorDiv(cell.blockY(), EXIT_BAND_HEIGHT)))) {
+          exits.add(segment(nodes, current));
+        }
+        continue;
+      }
+      if (target != null && toTarget == null && nodes.key(current) == targetKey) {
+        toTarget = segment(nodes, current);
+      }
+
+      double currentScore = nodes.score(current);
+      for (Mode mode : modes) {
+        options.clear();
+        mode.expandDestinations(domain, cell.blockX(), cell.blockY(), cell.blockZ(), options);
+        for (int i = 0; i < options.size(); i++) {
+          double score = currentScore + options.cost(i);
+          long key = CellNodeTable.pack(options.x(i), options.y(i), options.z(i));
+          int that = nodes.indexOf(key);
+          if (that == CellNodeTable.NO_NODE) {
+            upcoming.insert(nodes.add(key, score, 0, current, options.cost(i), mode.type()), score);
+          } else if (score < nodes.score(that) && upcoming.contains(that)) {
+            nodes.improve(that, score, current, options.cost(i), mode.type());
+            upcoming.decreaseKey(that, score);
+          }
+        }
+      }
+    }
+    return toTarget;
+  }
+
+  private static Segment segment(CellNodeTable nodes, int end) {
+    int count = 0;
+    for (int node = end; nodes.previous(node) != CellNodeTable.NO_NODE; node = nodes.previous(node)) {
+      count++;
+    }
+    long[] keys = new long[count];
+    double[] stepCosts = new double[count];
+    byte[] modeTypes = new byte[count];
+    int node = end;
+    for (int i = count - 1; i >= 0; i--) {
+      keys[i] = nodes.key(node);
+      stepCosts[i] = nodes.stepCost(node);
+      modeTypes[i] = (byte) nodes.modeType(node).ordinal();
+      node = nodes.previous(node);
+    }
+    return new Segment(nodes.cell(end), nodes.score(end), keys, stepCosts, modeTypes);
+  }
+
+  /**
+   * The edges leaving each entrance of one chunk.
+   */
+  private static final class ChunkEdges {
+    private final long created = System.nanoTime();
+    private final Map<Long, List<Segment>> entrances = new HashMap<>();
+  }
+
+  /**
+   * A band of heights along the border with a neighbouring chunk, within which only one exit is kept.
+   */
+  private record ExitBand(long chunk, int band) {
+  }
+
+  /**
+   * An edge of the abstract graph: a block-level route from an entrance to an exit (or a target),
+   * stored compactly since many of them are cached at once.
+   */
+  static final class Segment {
+    private final Cell end;
+    private final double cost;
+    private final long[] keys;
+    private final double[] stepCosts;
+    private final byte[] modeTypes;
+
+    private Segment(Cell end, double cost, long[] keys, double[] stepCosts, byte[] modeTypes) {
+      this.end = end;
+      this.cost = cost;
+      this.keys = keys;
+      this.stepCosts = stepCosts;
+      this.modeTypes = modeTypes;
+    }
+
+    Cell end() {
+      return end;
+    }
+
+    double cost() {
+      return cost;
+    }
+
+    /**
+     * Add the steps of this route, not including the cell at which it starts.
+     *
+     * @param steps the steps to add to
+     */
+    void appendTo(List<Step> steps) {
+      for (int i = 0; i < keys.length; i++) {
+        Cell cell = new Cell(CellNodeTable.unpackX(keys[i]), CellNodeTable.unpackY(keys[i]), CellNodeTable.unpackZ(keys[i]), end.domain());
+        steps.add(new Step(cell, stepCosts[i], MODE_TYPES[modeTypes[i]]));
+      }
+    }
+  }
+
+}
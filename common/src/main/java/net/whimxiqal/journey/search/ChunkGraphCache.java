@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.search;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import net.whimxiqal.journey.navigation.Mode;
+
+/**
+ * The store of the chunk-level graphs used to plan long paths hierarchically.
+ * There is one graph for every domain and set of mode behaviors that has been searched,
+ * so a graph is only shared by searches whose modes would move through the world identically
+ * (see {@link Mode#behaviorKey()}).
+ */
+public final class ChunkGraphCache {
+
+  private static final int MAX_GRAPHS_PER_DOMAIN = 16;
+
+  private final Map<Integer, Map<Set<Object>, ChunkGraph>> graphs = new ConcurrentHashMap<>();
+
+  ChunkGraph graph(int domain, Collection<Mode> modes) {
+    Set<Object> behaviors = new HashSet<>();
+    modes.forEach(mode -> behaviors.add(mode.behaviorKey()));
+    Map<Set<Object>, ChunkGraph> domainGraphs = graphs.computeIfAbsent(domain, k -> new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Set<Object>, ChunkGraph> eldest) {
+        return size() > MAX_GRAPHS_PER_DOMAIN;
+      }
+    });
+    synchronized (domainGraphs) {
+      return domainGraphs.computeIfAbsent(behaviors, k -> new ChunkGraph(domain));
+    }
+  }
+
+  /**
+   * Notify the cache that blocks in a chunk have changed, so any routes through it must be found again.
+   *
+   * @param domain the domain
+   * @param chunkX the chunk's x coordinate
+   * @param chunkZ the chunk's z coordinate
+   */
+  public void invalidate(int domain, int chunkX, int chunkZ) {
+    Map<Set<Object>, ChunkGraph> domainGraphs = graphs.get(domain);
+    if (domainGraphs == null) {
+      return;
+    }
+    synchronized (domainGraphs) {
+      domainGraphs.values().forEach(graph -> graph.invalidate(chunkX, chunkZ));
+    }
+  }
+
+  /**
+   * Forget every graph.
+   */
+  public void clear() {
+    graphs.clear();
+  }
+
+}
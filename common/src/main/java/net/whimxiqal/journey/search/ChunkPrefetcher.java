@@ -0,0 +1,138 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.whimxiqal.journey.search;
+
+import java.util.Set;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.Journey;
+import net.whimxiqal.journey.config.Settings;
+import net.whimxiqal.journey.navigation.PlatformProxy;
+
+/**
+ * Hints to the platform which chunks a search is about to read, so they can be loaded ahead of time
+ * instead of holding up the search thread when it first reaches them.
+ * Chunks are requested around the ends of every path trial that must be calculated,
+ * along the straight line between them, and ahead of the cells a search expands in the direction its frontier
+ * is moving.
+ *
+ * <p>Each instance tracks the frontier of a single search loop, so it is not thread-safe.
+ */
+final class ChunkPrefetcher {
+
+  // how many chunks along a straight line between two cells are requested, from the start of the line
+  private static final int MAX_LINE_CHUNKS = 16;
+  // how many chunks ahead of an expanded cell are requested
+  private static final int FRONTIER_LOOKAHEAD = 2;
+
+  private final int domain;
+  private final boolean enabled;
+  private boolean visited = false;
+  private int lastChunkX;
+  private int lastChunkZ;
+
+  ChunkPrefetcher(int domain) {
+    this.domain = domain;
+    this.enabled = Settings.PREFETCH_CHUNKS.getValue();
+  }
+
+  private static long key(int domain, int chunkX, int chunkZ) {
+    return ((long) domain << 44) | ((chunkX & 0x3FFFFFL) << 22) | (chunkZ & 0x3FFFFFL);
+  }
+
+  /**
+   * Request the chunks around two cells of the same domain and the chunks along the line between them,
+   * skipping any chunk already requested for the same graph.
+   *
+   * @param origin      the start of the line
+   * @param destination the end of the line
+   * @param requested   the keys of the chunks already requested, to which new requests are added
+   */
+  static void prefetchCorridor(Cell origin, Cell destination, Set<Long> requested) {
+    if (!Settings.PREFETCH_CHUNKS.getValue() || origin.domain() != destination.domain()) {
+      return;
+    }
+    PlatformProxy platform = Journey.get().proxy().platform();
+    int originChunkX = origin.blockX() >> 4;
+    int originChunkZ = origin.blockZ() >> 4;
+    int destinationChunkX = destination.blockX() >> 4;
+    int destinationChunkZ = destination.blockZ() >> 4;
+    prefetchAround(platform, origin.domain(), originChunkX, originChunkZ, requested);
+    prefetchAround(platform, origin.domain(), destinationChunkX, destinationChunkZ, requested);
+
+    // walk the line in chunk-sized steps along its longer axis
+    int distanceX = destinationChunkX - originChunkX;
+    int distanceZ = destinationChunkZ - originChunkZ;
+    int length = Math.max(Math.abs(distanceX), Math.abs(distanceZ));
+    int steps = Math.min(length, MAX_LINE_CHUNKS);
+    for (int i = 2; i <= steps; i++) {
+      // the first chunk along the line is already covered by the ones around the origin
+      prefetchOnce(platform, origin.domain(),
+          originChunkX + Math.round((float) distanceX * i / length),
+          originChunkZ + Math.round((float) distanceZ * i / length),
+          requested);
+    }
+  }
+
+  private static void prefetchAround(PlatformProxy platform, int domain, int chunkX, int chunkZ, Set<Long> requested) {
+    for (int x = -1; x <= 1; x++) {
+      for (int z = -1; z <= 1; z++) {
+        prefetchOnce(platform, domain, chunkX + x, chunkZ + z, requested);
+      }
+    }
+  }
+
+  private static void prefetchOnce(PlatformProxy platform, int domain, int chunkX, int chunkZ, Set<Long> requested) {
+    if (requested.add(key(domain, chunkX, chunkZ))) {
+      platform.prefetchChunk(domain, chunkX, chunkZ);
+    }
+  }
+
+  /**
+   * Record that the search expanded a cell. If the cell is in a different chunk than the last one,
+   * request the chunks that lie further in the direction the search moved.
+   *
+   * @param cell the expanded cell
+   */
+  void visit(Cell cell) {
+    if (!enabled) {
+      return;
+    }
+    int chunkX = cell.blockX() >> 4;
+    int chunkZ = cell.blockZ() >> 4;
+    if (visited && chunkX == lastChunkX && chunkZ == lastChunkZ) {
+      return;
+    }
+    if (visited) {
+      int directionX = Integer.signum(chunkX - lastChunkX);
+      int directionZ = Integer.signum(chunkZ - lastChunkZ);
+      PlatformProxy platform = Journey.get().proxy().platform();
+      for (int i = 1; i <= FRONTIER_LOOKAHEAD; i++) {
+        platform.prefetchChunk(domain, chunkX + directionX * i, chunkZ + directionZ * i);
+      }
+    }
+    visited = true;
+    lastChunkX = chunkX;
+    lastChunkZ = chunkZ;
+  }
+
+}
@@ -1,5 +1,6 @@
 package net.whimxiqal.journey.search;
 
+import java.util.Set;
 import java.util.UUID;
 import net.kyori.adventure.text.Component;
 import net.whimxiqal.journey.Cell;
@@ -18,11 +19,21 @@ public abstract class DestinationGoalSearchSession extends GraphGoalSearchSessio
     this.persistentDestination = persistentDestination;
   }
 
+  @Override
+  protected Object goal() {
+    return destination;
+  }
+
   @Override
   DestinationSearchGraph createSearchGraph() {
     return new DestinationSearchGraph(this, origin, destination);
   }
 
+  @Override
+  protected void collectPathEnds(Set<Cell> origins, Set<Cell> destinations) {
+    destinations.add(destination);
+  }
+
   @Override
   protected void initSearchExtra() {
     if (origin.domain() == destination.domain()) {
@@ -1,11 +1,13 @@
 package net.whimxiqal.journey.search;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.Tunnel;
 import net.whimxiqal.journey.navigation.Mode;
 import net.whimxiqal.journey.tools.AlternatingList;
-import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.NotNull;
 
 public class DestinationSearchGraph extends SearchGraph {
 
@@ -48,19 +50,21 @@ public class DestinationSearchGraph extends SearchGraph {
   }
 
   /**
-   * Calculate an itinerary trial using this graph.
-   * If none is found, then return null.
+   * Calculate itinerary trials using this graph.
+   * If none are found, then return an empty list.
    *
-   * @return the itinerary trial
+   * @return the itinerary trials
    */
-  @Nullable
+  @NotNull
   @Override
-  public ItineraryTrial calculate(boolean mustUseCache) {
-    AlternatingList<Tunnel, PathTrial, Object> graphPath = findMinimumPath(originNode, destinationNode, trial -> !(mustUseCache && trial.isFromCache()));
-    if (graphPath == null) {
-      return null;
-    } else {
-      return new ItineraryTrial(session, origin, graphPath);
+  public List<ItineraryTrial> calculate(boolean mustUseCache, int count) {
+    List<ItineraryTrial> trials = new ArrayList<>(count);
+    for (AlternatingList<Tunnel, PathTrial, Object> graphPath : findMinimumPaths(originNode,
+        node -> node.equals(destinationNode),
+        trial -> !(mustUseCache && trial.isFromCache()),
+        count)) {
+      trials.add(new ItineraryTrial(session, origin, graphPath));
     }
+    return trials;
   }
 }
@@ -11,6 +11,11 @@ public abstract class DomainGoalSearchSession extends GraphGoalSearchSession<Dom
     this.domain = destinationDomain;
   }
 
+  @Override
+  protected Object goal() {
+    return domain;
+  }
+
   @Override
   protected void resumeSearch() {
     if (domain == origin.domain()) {
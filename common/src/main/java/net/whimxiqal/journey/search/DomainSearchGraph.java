@@ -1,9 +1,11 @@
 package net.whimxiqal.journey.search;
 
+import java.util.ArrayList;
+import java.util.List;
 import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.Tunnel;
 import net.whimxiqal.journey.tools.AlternatingList;
-import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.NotNull;
 
 /**
  * A {@link SearchGraph} for finding a path to a specific domain
@@ -17,17 +19,17 @@ public class DomainSearchGraph extends SearchGraph {
     this.destinationDomain = domain;
   }
 
-  @Nullable
+  @NotNull
   @Override
-  public ItineraryTrial calculate(boolean mustUseCache) {
-    AlternatingList<Tunnel, PathTrial, Object> graphPath = findMinimumPath(originNode,
+  public List<ItineraryTrial> calculate(boolean mustUseCache, int count) {
+    List<ItineraryTrial> trials = new ArrayList<>(count);
+    for (AlternatingList<Tunnel, PathTrial, Object> graphPath : findMinimumPaths(originNode,
         node -> node.destination().domain() == destinationDomain,
-        trial -> !(mustUseCache && trial.isFromCache()));
-    if (graphPath == null) {
-      return null;
-    } else {
-      return new ItineraryTrial(session, origin, graphPath);
+        trial -> !(mustUseCache && trial.isFromCache()),
+        count)) {
+      trials.add(new ItineraryTrial(session, origin, graphPath));
     }
+    return trials;
   }
 
 }
@@ -8,23 +8,26 @@ import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import net.kyori.adventure.audience.Audience;
+import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.Journey;
 import net.whimxiqal.journey.Tunnel;
+import net.whimxiqal.journey.data.DataAccessException;
+import net.whimxiqal.journey.data.PathRecordManager;
 import net.whimxiqal.journey.message.Formatter;
 import net.whimxiqal.journey.navigation.Mode;
 import net.whimxiqal.journey.navigation.ModeType;
 import net.whimxiqal.journey.search.event.StartSearchEvent;
 import net.whimxiqal.journey.search.flag.Flags;
-import net.whimxiqal.journey.util.SimpleTimer;
 
+/**
+ * The session in which the {@link PathCacheWarmup} calculates the paths between every pair of tunnels.
+ * It holds the modes and tunnels of the warm-up, but it is never run by the search manager:
+ * the warm-up attempts its trials in parallel on its own schedule instead.
+ * The {@link LandmarkCache} also calculates its distances with the modes of this session.
+ */
 public class EverythingSearch extends SearchSession {
 
   private static final int MAX_CELL_COUNT = 10000;  // smaller than normal so we can get through these path trials pretty quick
-  private static final int LOG_PERIOD_MS = 5000;
-  private final LinkedList<PathTrial> pathTrials = new LinkedList<>();
-  private double totalLengthToCalculate = 0;
-  private double lengthCalculated = 0;
-  private final SimpleTimer logTimer = new SimpleTimer();
 
   public EverythingSearch() {
     super(Journey.JOURNEY_CALLER, Caller.OTHER);
@@ -37,23 +40,23 @@ public class EverythingSearch extends SearchSession {
 
   @Override
   protected void resumeSearch() {
-    boolean shouldInit = false;
-    synchronized (this) {
-      if (state == ResultState.IDLE) {
-        shouldInit = true;
-        state = ResultState.RUNNING;
-      }
-    }
-    if (shouldInit) {
-      initSearch();
-    }
-    runSearchUnit();
+    // the trials are attempted by the warm-up, so there is nothing to resume
+    markStopped();
   }
 
-  private void initSearch() {
-    Journey.logger().info("Performing preliminary caching to speed up search times...");
+  /**
+   * Start this session and collect a trial for every path from the exit of one tunnel
+   * to the entrance of another in the same domain that isn't cached yet.
+   *
+   * @param skipped the pairs of endpoints to leave out
+   * @return the trials, which save their paths when they complete
+   * @throws DataAccessException if it could not be read which paths are cached already
+   */
+  List<PathTrial> start(Set<PathRecordManager.Endpoints> skipped) {
+    synchronized (this) {
+      state = ResultState.RUNNING;
+    }
     super.timer.start();
-    logTimer.start();
     Journey.get().dispatcher().dispatch(new StartSearchEvent(this));
     Journey.get().debugManager().broadcast(Formatter.debug("Started a search for caller ___, modes:___, tunnels:___",
             getCallerId(),
@@ -84,44 +87,32 @@ public class EverythingSearch extends SearchSession {
 
     // Collect path trials
     Set<ModeType> modeTypes = modes.stream().map(Mode::type).collect(Collectors.toSet());
+    Set<Cell> pathOrigins = new HashSet<>();
+    Set<Cell> pathDestinations = new HashSet<>();
+    for (Tunnel tunnel : this.tunnels) {
+      pathOrigins.add(tunnel.destination());
+      pathDestinations.add(tunnel.origin());
+    }
+    // if this fails, it is not known which paths are cached, so nothing is started rather than everything
+    Set<PathRecordManager.Endpoints> cached = Journey.get().dataManager()
+        .pathRecordManager()
+        .recordedEndpoints(pathOrigins, pathDestinations, modeTypes);
+    List<PathTrial> pathTrials = new LinkedList<>();
     for (Integer domain : allDomains) {
       for (Tunnel pathTrialOriginTunnel : tunnelsByDestinationDomain.get(domain)) {
         for (Tunnel pathTrialDestinationTunnel : tunnelsByOriginDomain.get(domain)) {
-          if (!Journey.get().dataManager()
-              .pathRecordManager()
-              .containsRecord(pathTrialOriginTunnel.destination(), pathTrialDestinationTunnel.origin(), modeTypes)) {
-            PathTrial pathTrial = PathTrial.approximate(this, pathTrialOriginTunnel.destination(), pathTrialDestinationTunnel.origin(),
+          PathRecordManager.Endpoints endpoints = new PathRecordManager.Endpoints(pathTrialOriginTunnel.destination(),
+              pathTrialDestinationTunnel.origin());
+          if (!cached.contains(endpoints) && !skipped.contains(endpoints)) {
+            PathTrial pathTrial = PathTrial.approximate(this, endpoints.origin(), endpoints.destination(),
                 modes, true);
+            pathTrial.setMaxCellCount(MAX_CELL_COUNT);
             pathTrials.add(pathTrial);
-            totalLengthToCalculate += pathTrial.getLength();
           }
         }
       }
     }
-  }
-
-  private void runSearchUnit() {
-    if (pathTrials.isEmpty()) {
-      Journey.logger().info("Caching complete!");
-      markStopped();
-      return;
-    }
-    if (logTimer.elapsed() > LOG_PERIOD_MS) {
-      logTimer.start(); // restart timer
-      Journey.logger().info("Caching path data... " + String.format("%.2f", lengthCalculated / totalLengthToCalculate * 100) + " % complete");
-    }
-    synchronized (this) {
-      if (state.shouldStop()) {
-        markStopped();
-        return;
-      }
-    }
-
-    PathTrial trial = pathTrials.pop();
-    double preCalculatedLength = trial.getLength();
-    trial.setMaxCellCount(MAX_CELL_COUNT);
-    trial.attempt(false);  // ignore result
-    lengthCalculated += preCalculatedLength;
+    return pathTrials;
   }
 
   @Override
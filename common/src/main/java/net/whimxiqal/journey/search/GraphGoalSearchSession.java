@@ -23,8 +23,10 @@
 
 package net.whimxiqal.journey.search;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -33,8 +35,10 @@ import java.util.UUID;
 import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.Journey;
 import net.whimxiqal.journey.Tunnel;
+import net.whimxiqal.journey.config.Settings;
 import net.whimxiqal.journey.message.Formatter;
 import net.whimxiqal.journey.navigation.Itinerary;
+import net.whimxiqal.journey.navigation.Mode;
 import net.whimxiqal.journey.search.event.FoundSolutionEvent;
 import net.whimxiqal.journey.search.event.IgnoreCacheSearchEvent;
 import net.whimxiqal.journey.search.event.StartSearchEvent;
@@ -108,6 +112,17 @@ public abstract class GraphGoalSearchSession<G extends SearchGraph> extends Sear
 
     stateInfo.searchGraph = createSearchGraph();
 
+    // Load the cached paths between all ends at once, rather than one lookup per pair
+    Set<Cell> pathOrigins = new HashSet<>();
+    Set<Cell> pathDestinations = new HashSet<>();
+    pathOrigins.add(origin);
+    for (Tunnel tunnel : this.tunnels) {
+      pathOrigins.add(tunnel.destination());
+      pathDestinations.add(tunnel.origin());
+    }
+    collectPathEnds(pathOrigins, pathDestinations);
+    stateInfo.searchGraph.prefetchCachedPaths(pathOrigins, pathDestinations, this.modes);
+
     // Collect path trials
     for (Integer domain : stateInfo.allDomains) {
       for (Tunnel pathTrialOriginTunnel : stateInfo.tunnelsByDestinationDomain.get(domain)) {
@@ -128,6 +143,45 @@ public abstract class GraphGoalSearchSession<G extends SearchGraph> extends Sear
 
   abstract G createSearchGraph();
 
+  /**
+   * Get the goal of this search, for the purposes of its {@link #coalescingKey()}.
+   *
+   * @return the goal, or null if this search may not share its computation
+   */
+  protected Object goal() {
+    return null;
+  }
+
+  @Override
+  public Object coalescingKey() {
+    Object goal = goal();
+    if (goal == null || getAlgorithmStepDelay() > 0) {
+      // animations show the progress of a single caller's search
+      return null;
+    }
+    Set<Object> behaviors = new HashSet<>();
+    for (Mode mode : modes) {
+      behaviors.add(mode.behaviorKey());
+    }
+    Set<TunnelKey> tunnelKeys = new HashSet<>();
+    for (Tunnel tunnel : tunnels) {
+      tunnelKeys.add(new TunnelKey(tunnel.origin(), tunnel.destination(), tunnel.cost()));
+    }
+    // only callers on the very same cell share a search, so every itinerary starts where its caller stands
+    return new CoalescingKey(origin, persistentOrigin, goal, behaviors, tunnelKeys);
+  }
+
+  /**
+   * Add the ends of any path trials that {@link #initSearchExtra()} adds to the search graph,
+   * so they can be loaded from the cache along with the rest.
+   *
+   * @param origins      the origins of the path trials
+   * @param destinations the destinations of the path trials
+   */
+  protected void collectPathEnds(Set<Cell> origins, Set<Cell> destinations) {
+    // do nothing by default
+  }
+
   protected void initSearchExtra() {
     // do nothing by default
   }
@@ -140,31 +194,88 @@ public abstract class GraphGoalSearchSession<G extends SearchGraph> extends Sear
       }
     }
 
-    // Create itinerary
-    ItineraryTrial itineraryTrial = stateInfo.searchGraph.calculate(stateInfo.cachingStatus == CachingStatus.ALWAYS_USE);
+    int itineraryCount = Math.max(1, Settings.SPECULATIVE_ITINERARY_COUNT.getValue());
+    boolean useCacheIfPossible = stateInfo.cachingStatus != CachingStatus.NEVER_USE;
+
+    // Create itineraries
+    List<ItineraryTrial> itineraryTrials = stateInfo.searchGraph.calculate(stateInfo.cachingStatus == CachingStatus.ALWAYS_USE, itineraryCount);
 
     synchronized (this) {
-      if (state.shouldStop() || itineraryTrial == null) {
+      if (state.shouldStop() || itineraryTrials.isEmpty()) {
         // even if itinerary trial exists, we were too late :(
         markStopped();
         return;
       }
     }
 
-    // Solve itinerary (We have an overall solution with individual paths that aren't verified/calculated)
-    ItineraryTrial.TrialResult trialResult = itineraryTrial.attempt(stateInfo.cachingStatus != CachingStatus.NEVER_USE);
+    boolean changedProblem = false;
+    ItineraryTrial.Speculation speculation = null;
+    if (itineraryTrials.size() > 1) {
+      // Speculatively solve the path trials of the runners-up in the background, behind those of the best itinerary,
+      //  so the next best itineraries are ready if the best one turns out not to work
+      Set<PathTrial> pathTrials = Collections.newSetFromMap(new IdentityHashMap<>());
+      pathTrials.addAll(itineraryTrials.get(0).pathTrials());
+      List<PathTrial> runnerUpPathTrials = new LinkedList<>();
+      for (ItineraryTrial itineraryTrial : itineraryTrials.subList(1, itineraryTrials.size())) {
+        for (PathTrial pathTrial : itineraryTrial.pathTrials()) {
+          if (pathTrials.add(pathTrial)) {
+            runnerUpPathTrials.add(pathTrial);
+          }
+        }
+      }
+      speculation = new ItineraryTrial.Speculation(runnerUpPathTrials, useCacheIfPossible);
+    }
 
-    synchronized (this) {
-      if (trialResult.itinerary().isPresent()) {
-        // There is an itinerary solution!
-        if (stateInfo.bestItinerary == null || trialResult.itinerary().get().cost() < stateInfo.bestItinerary.cost()) {
-          stateInfo.bestItinerary = trialResult.itinerary().get();
-          state = ResultState.RUNNING_SUCCESSFUL;
-          Journey.get().dispatcher().dispatch(new FoundSolutionEvent(this, trialResult.itinerary().get()));
+    // Solve itineraries (We have overall solutions with individual paths that may not be verified/calculated yet)
+    for (int i = 0; i < itineraryTrials.size(); i++) {
+      ItineraryTrial.TrialResult trialResult;
+      if (i == 0) {
+        // the best itinerary goes first, and is published as soon as it is solved
+        trialResult = itineraryTrials.get(0).attempt(useCacheIfPossible,
+            speculation == null ? () -> { } : speculation::start);
+      } else {
+        if (i == 1) {
+          for (PathTrial.TrialResult pathTrialResult : speculation.await()) {
+            if (pathTrialResult.changedProblem()) {
+              changedProblem = true;
+            }
+          }
+        }
+        trialResult = itineraryTrials.get(i).attempt(useCacheIfPossible);
+      }
+      if (trialResult.changedProblem()) {
+        changedProblem = true;
+      }
+
+      synchronized (this) {
+        if (state.shouldStop()) {
+          if (speculation != null) {
+            speculation.cancel();
+          }
+          markStopped();
+          return;
+        }
+        if (trialResult.itinerary().isPresent()) {
+          // There is an itinerary solution!
+          if (stateInfo.bestItinerary == null || trialResult.itinerary().get().cost() < stateInfo.bestItinerary.cost()) {
+            stateInfo.bestItinerary = trialResult.itinerary().get();
+            state = ResultState.RUNNING_SUCCESSFUL;
+            Journey.get().dispatcher().dispatch(new FoundSolutionEvent(this, trialResult.itinerary().get()));
+            shareSolution(trialResult.itinerary().get());
+          }
+        }
+      }
+      if (i == 0 && trialResult.itinerary().isPresent()) {
+        // the runners-up are only needed if the best itinerary does not work out
+        if (speculation != null) {
+          speculation.cancel();
         }
+        break;
       }
+    }
 
-      if (!trialResult.changedProblem()) {
+    synchronized (this) {
+      if (!changedProblem) {
         // This result did not change the problem.
         // If run again, then, we would get the same solution to the graph.
         if (stateInfo.cachingStatus == CachingStatus.ALWAYS_USE) {
@@ -183,6 +294,13 @@ public abstract class GraphGoalSearchSession<G extends SearchGraph> extends Sear
     }
   }
 
+  private record TunnelKey(Cell origin, Cell destination, int cost) {
+  }
+
+  private record CoalescingKey(Cell origin, boolean persistentOrigin, Object goal, Set<Object> modeBehaviors,
+                               Set<TunnelKey> tunnels) {
+  }
+
   protected class State {
     final Set<Integer> allDomains = new HashSet<>();
     final Map<Integer, List<Tunnel>> tunnelsByOriginDomain = new HashMap<>();
@@ -23,10 +23,16 @@
 
 package net.whimxiqal.journey.search;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 import lombok.Value;
 import lombok.experimental.Accessors;
 import net.whimxiqal.journey.Tunnel;
@@ -77,22 +83,27 @@ public class ItineraryTrial implements Resulted {
    */
   @NotNull
   public TrialResult attempt(boolean useCacheIfPossible) {
+    return attempt(useCacheIfPossible, () -> {
+    });
+  }
+
+  /**
+   * Attempt to calculate an itinerary, and do something else while its path trials are being calculated.
+   *
+   * @param useCacheIfPossible whether the cache should be used for retrieving previous results
+   * @param onceStarted        run on this thread once the path trials have been handed out,
+   *                           so anything it hands out itself waits behind them
+   * @return a result object
+   */
+  @NotNull
+  TrialResult attempt(boolean useCacheIfPossible, Runnable onceStarted) {
     Journey.get().dispatcher().dispatch(new StartItinerarySearchEvent(session, this));
 
     state = ResultState.RUNNING;
     boolean failed = false;
     boolean changedProblem = false;
-    for (PathTrial pathTrial : alternatingList.getMinors()) {
-
-      synchronized (this) {
-        if (session.state.shouldStop()) {
-          // officially stop
-          session.markStopped();
-          return new TrialResult(Optional.empty(), true);  // doesn't really matter if changed problem
-        }
-      }
-
-      PathTrial.TrialResult pathTrialResult = pathTrial.attempt(useCacheIfPossible);
+    for (PathTrial.TrialResult pathTrialResult : attemptAll(alternatingList.getMinors(), useCacheIfPossible,
+        onceStarted)) {
       if (pathTrialResult.changedProblem()) {
         changedProblem = true;
       }
@@ -100,6 +111,15 @@ public class ItineraryTrial implements Resulted {
         failed = true;
       }
     }
+
+    synchronized (this) {
+      if (session.state.shouldStop()) {
+        // officially stop
+        session.markStopped();
+        return new TrialResult(Optional.empty(), true);  // doesn't really matter if changed problem
+      }
+    }
+
     if (failed) {
       state = ResultState.STOPPED_FAILED;
       Journey.get().dispatcher().dispatch(new StopItinerarySearchEvent(session, this));
@@ -138,11 +158,129 @@ public class ItineraryTrial implements Resulted {
         length)), changedProblem);
   }
 
+  /**
+   * Attempt every path trial at the same time, since they do not depend on each other.
+   * All but the last are handed to the search manager's trial executor, and the last is run on this thread
+   * while it would otherwise be waiting.
+   * Each path trial stops on its own if the session is stopped.
+   *
+   * @param trials             the path trials
+   * @param useCacheIfPossible whether the cache should be used for retrieving previous results
+   * @param onceStarted        run on this thread once all but the last path trial are handed out
+   * @return the results, in the order of the path trials
+   */
+  static List<PathTrial.TrialResult> attemptAll(Collection<PathTrial> trials, boolean useCacheIfPossible,
+                                                Runnable onceStarted) {
+    List<PathTrial> pathTrials = new ArrayList<>(trials);
+    Executor executor = Journey.get().searchManager().trialExecutor();
+    List<CompletableFuture<PathTrial.TrialResult>> futures = new ArrayList<>(pathTrials.size());
+    for (int i = 0; i < pathTrials.size() - 1; i++) {
+      PathTrial pathTrial = pathTrials.get(i);
+      if (executor == null) {
+        futures.add(CompletableFuture.completedFuture(pathTrial.attempt(useCacheIfPossible)));
+      } else {
+        futures.add(CompletableFuture.supplyAsync(() -> pathTrial.attempt(useCacheIfPossible), executor));
+      }
+    }
+    onceStarted.run();
+
+    List<PathTrial.TrialResult> results = new ArrayList<>(pathTrials.size());
+    PathTrial.TrialResult last = pathTrials.isEmpty() ? null : pathTrials.get(pathTrials.size() - 1).attempt(useCacheIfPossible);
+    for (CompletableFuture<PathTrial.TrialResult> future : futures) {
+      results.add(join(future));
+    }
+    if (last != null) {
+      results.add(last);
+    }
+    return results;
+  }
+
+  private static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Get the path trials between the tunnels of this itinerary, in order.
+   *
+   * @return the path trials
+   */
+  public Collection<PathTrial> pathTrials() {
+    return alternatingList.getMinors();
+  }
+
   @Override
   public ResultState getState() {
     return this.state;
   }
 
+  /**
+   * Path trials attempted in the background in case they are needed later,
+   * which are called off once it is clear that they are not.
+   */
+  static final class Speculation {
+    private final List<PathTrial> trials;
+    private final boolean useCacheIfPossible;
+    private final AtomicBoolean canceled = new AtomicBoolean(false);
+    private final List<CompletableFuture<PathTrial.TrialResult>> futures = new ArrayList<>();
+
+    Speculation(Collection<PathTrial> trials, boolean useCacheIfPossible) {
+      this.trials = new ArrayList<>(trials);
+      this.useCacheIfPossible = useCacheIfPossible;
+    }
+
+    /**
+     * Hand every path trial to the search manager's trial executor.
+     * Without an executor, nothing happens until {@link #await()}.
+     */
+    void start() {
+      Executor executor = Journey.get().searchManager().trialExecutor();
+      if (executor == null) {
+        return;
+      }
+      for (PathTrial pathTrial : trials) {
+        futures.add(CompletableFuture.supplyAsync(() -> canceled.get()
+            ? null
+            : pathTrial.attempt(useCacheIfPossible, canceled::get), executor));
+      }
+    }
+
+    /**
+     * Give up on every path trial that is not done yet. The ones given up are not cached.
+     */
+    void cancel() {
+      canceled.set(true);
+    }
+
+    /**
+     * Wait for every path trial to finish, attempting them on this thread if they were never handed out.
+     *
+     * @return the results, in the order of the path trials
+     */
+    List<PathTrial.TrialResult> await() {
+      List<PathTrial.TrialResult> results = new ArrayList<>(trials.size());
+      if (futures.isEmpty()) {
+        for (PathTrial pathTrial : trials) {
+          results.add(pathTrial.attempt(useCacheIfPossible, canceled::get));
+        }
+        return results;
+      }
+      for (CompletableFuture<PathTrial.TrialResult> future : futures) {
+        PathTrial.TrialResult result = join(future);
+        if (result != null) {
+          results.add(result);
+        }
+      }
+      return results;
+    }
+  }
+
   /**
    * A result of a trial attempt.
    * @see #attempt(boolean)
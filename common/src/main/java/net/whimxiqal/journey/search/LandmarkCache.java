@@ -0,0 +1,500 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.Journey;
+import net.whimxiqal.journey.Tunnel;
+import net.whimxiqal.journey.config.Settings;
+import net.whimxiqal.journey.data.DataAccessException;
+import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.ModeType;
+import net.whimxiqal.journey.navigation.PlatformProxy;
+import net.whimxiqal.journey.search.function.CostFunction;
+import net.whimxiqal.journey.search.function.LandmarkCostFunction;
+import net.whimxiqal.journey.search.graph.IndexedMinHeap;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The store of the landmark distances used by the {@link LandmarkCostFunction}.
+ * Every domain gets a few landmarks, picked from its spawn, its nether portals, and its public waypoints
+ * to be far apart from each other. The travel distances from each landmark to the chunks around it
+ * are found with a search over the {@link ChunkGraph} that stops at a set radius.
+ *
+ * <p>This is off unless {@link Settings#LANDMARK_HEURISTIC} is turned on, because the estimate is not admissible:
+ * trials using it may find longer paths than the shortest ones. See {@link LandmarkCostFunction}.
+ *
+ * <p>Distances are calculated in the background the first time a domain is searched, with the modes of an
+ * {@link EverythingSearch}, and are only used by trials that move with the same types of modes.
+ * Only chunks that are already loaded are crossed, so nothing is loaded or generated for them,
+ * and the calculation pauses while the server is busy, like the {@link PathCacheWarmup}.
+ * They are saved to the data folder and calculated again once they grow old, since the terrain changes.
+ */
+public final class LandmarkCache {
+
+  private static final String DIRECTORY_NAME = "landmarks";
+  private static final int FILE_VERSION = 1;
+  private static final int MAX_NODES = 100000;  // entrances to expand from every landmark
+  private static final int SLICE_NODES = 2000;  // entrances to expand in one unit of work
+  private static final int THROTTLE_DELAY_TICKS = 20;
+
+  private final Map<Integer, Table> tables = new ConcurrentHashMap<>();
+  private final Set<Integer> pending = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Get a cost function to a destination that uses the landmarks of its domain, if their distances are known
+   * for these modes. Otherwise, the distances are calculated in the background for next time.
+   *
+   * @param destination the destination
+   * @param modes       the modes with which the destination is searched for
+   * @param reverse     whether to estimate the cost from the destination instead of to it
+   * @param fallback    the cost function to use where the landmarks don't help
+   * @return the cost function
+   */
+  public CostFunction costFunction(Cell destination, Collection<Mode> modes, boolean reverse, CostFunction fallback) {
+    Table table = table(destination.domain());
+    if (table == null || table.landmarks.length == 0 || !table.modeTypes.equals(modeTypes(modes))) {
+      return fallback;
+    }
+    return new LandmarkCostFunction(destination, table, reverse, fallback);
+  }
+
+  /**
+   * Forget every table. Saved tables are loaded again when next needed.
+   */
+  public void clear() {
+    tables.clear();
+  }
+
+  @Nullable
+  private Table table(int domain) {
+    Table table = tables.get(domain);
+    if ((table == null || table.isStale()) && pending.add(domain)) {
+      // the modes of a session are made on the main thread
+      Journey.get().proxy().schedulingManager().schedule(() -> prepare(domain, table), false);
+    }
+    return table;
+  }
+
+  private void prepare(int domain, @Nullable Table current) {
+    EverythingSearch session = new EverythingSearch();
+    session.initialize();
+    boolean submitted = execute(() -> {
+      try {
+        if (current == null) {
+          Table saved = read(domain);
+          if (saved != null) {
+            tables.put(domain, saved);
+            if (!saved.isStale()) {
+              pending.remove(domain);
+              return;
+            }
+          }
+        }
+        List<Cell> landmarks = selectLandmarks(domain, session.tunnels());
+        new Calculation(domain, session, landmarks).run();
+      } catch (Exception e) {
+        pending.remove(domain);
+        Journey.logger().error("Could not prepare the landmarks of domain " + domain);
+        e.printStackTrace();
+      }
+    });
+    if (!submitted) {
+      pending.remove(domain);
+    }
+  }
+
+  /**
+   * Pick landmarks that are spread out: starting from the spawn, every next landmark is the candidate
+   * furthest from those picked already.
+   */
+  private static List<Cell> selectLandmarks(int domain, Collection<Tunnel> tunnels) {
+    List<Cell> candidates = new ArrayList<>();
+    Journey.get().proxy().platform().spawn(domain).ifPresent(candidates::add);
+    for (Tunnel tunnel : tunnels) {
+      if (tunnel.origin().domain() == domain) {
+        candidates.add(tunnel.origin());
+      }
+      if (tunnel.destination().domain() == domain) {
+        candidates.add(tunnel.destination());
+      }
+    }
+    try {
+      Journey.get().dataManager().publicWaypointManager().getAll().values().stream()
+          .filter(cell -> cell.domain() == domain)
+          .forEach(candidates::add);
+    } catch (DataAccessException e) {
+      Journey.logger().warn("Could not use public waypoints as landmarks: " + e.getMessage());
+    }
+
+    List<Cell> landmarks = new ArrayList<>();
+    int count = Math.max(0, Settings.LANDMARK_COUNT.getValue());
+    while (landmarks.size() < count && !candidates.isEmpty()) {
+      Cell furthest = null;
+      double furthestDistance = -1;
+      for (Cell candidate : candidates) {
+        double distance = Double.MAX_VALUE;
+        for (Cell landmark : landmarks) {
+          distance = Math.min(distance, candidate.distanceToSquared(landmark));
+        }
+        if (distance > furthestDistance) {
+          furthest = candidate;
+          furthestDistance = distance;
+        }
+      }
+      if (furthestDistance == 0) {
+        break;  // the rest coincide with landmarks already
+      }
+      landmarks.add(furthest);
+      candidates.remove(furthest);
+    }
+    return landmarks;
+  }
+
+  private static boolean execute(Runnable unit) {
+    SearchExecutor executor = Journey.get().searchManager().sessionExecutor();
+    if (executor == null) {
+      return false;
+    }
+    try {
+      executor.execute(SearchExecutor.Lane.BACKGROUND, unit);
+      return true;
+    } catch (RejectedExecutionException e) {
+      return false;  // Journey is shutting down
+    }
+  }
+
+  private static Set<ModeType> modeTypes(Collection<Mode> modes) {
+    Set<ModeType> modeTypes = EnumSet.noneOf(ModeType.class);
+    modes.forEach(mode -> modeTypes.add(mode.type()));
+    return modeTypes;
+  }
+
+  /**
+   * Calculate the distances from some landmarks of a domain right away, on this thread, and use them from now on.
+   *
+   * @param domain    the domain
+   * @param session   the session whose modes are used
+   * @param landmarks the landmarks
+   */
+  void calculate(int domain, SearchSession session, List<Cell> landmarks) {
+    Calculation calculation = new Calculation(domain, session, landmarks);
+    while (!calculation.step(Integer.MAX_VALUE)) {
+      if (Thread.currentThread().isInterrupted()) {
+        return;
+      }
+    }
+    calculation.finish();
+  }
+
+  /**
+   * The calculation of the distances from every landmark of a domain, a slice of each search at a time
+   * so the workers of the search executor are not held up for long.
+   */
+  private final class Calculation implements Runnable {
+    private final int domain;
+    private final SearchSession session;
+    private final List<Cell> landmarks;
+    private final Map<Long, float[]> distances = new HashMap<>();
+    private final double radius = Settings.LANDMARK_RADIUS.getValue();
+    private int landmark = -1;
+    // the search from the current landmark, or null between landmarks
+    private ChunkGraph graph;
+    private CellNodeTable nodes;
+    private IndexedMinHeap upcoming;
+
+    Calculation(int domain, SearchSession session, List<Cell> landmarks) {
+      this.domain = domain;
+      this.session = session;
+      this.landmarks = landmarks;
+    }
+
+    @Override
+    public void run() {
+      try {
+        if (Journey.get().proxy().platform().averageTickMillis() >= Settings.CACHE_WARMUP_MAX_MSPT.getValue()) {
+          // the server is busy, so try again in a moment
+          Journey.get().proxy().schedulingManager().schedule(this::resume, true, THROTTLE_DELAY_TICKS);
+          return;
+        }
+        if (step(SLICE_NODES)) {
+          finish();
+        } else if (Thread.currentThread().isInterrupted()) {
+          pending.remove(domain);
+        } else {
+          resume();
+        }
+      } catch (Exception e) {
+        pending.remove(domain);
+        Journey.logger().error("Could not calculate the landmark distances of domain " + domain);
+        e.printStackTrace();
+      }
+    }
+
+    private void resume() {
+      if (!execute(this)) {
+        pending.remove(domain);
+      }
+    }
+
+    private void finish() {
+      Table table = new Table(System.currentTimeMillis(), modeTypes(session.modes()),
+          landmarks.toArray(new Cell[0]), distances);
+      tables.put(domain, table);
+      pending.remove(domain);
+      write(domain, table);
+      Journey.logger().debug("Calculated the distances from " + landmarks.size()
+          + " landmarks to " + distances.size() + " chunks in domain " + domain);
+    }
+
+    /**
+     * Continue a uniform-cost search over the chunk graph from each landmark in turn, noting the distance at which
+     * every chunk is first entered.
+     *
+     * @param maxNodes the most entrances to expand
+     * @return true once the distances from every landmark are known, or false if there is more to do
+     * or the thread was interrupted
+     */
+    boolean step(int maxNodes) {
+      int expanded = 0;
+      while (expanded < maxNodes) {
+        if (upcoming == null) {
+          if (landmark + 1 >= landmarks.size()) {
+            return true;
+          }
+          start(++landmark);
+          continue;
+        }
+        if (upcoming.isEmpty() || nodes.size() > MAX_NODES) {
+          upcoming = null;
+          continue;
+        }
+        if (Thread.currentThread().isInterrupted()) {
+          return false;
+        }
+        expand();
+        expanded++;
+      }
+      return false;
+    }
+
+    private void start(int landmark) {
+      graph = Journey.get().chunkGraphCache().graph(domain, session.modes());
+      nodes = new CellNodeTable(domain, 1024);
+      upcoming = new IndexedMinHeap(1024);
+      Cell start = landmarks.get(landmark);
+      upcoming.insert(nodes.add(CellNodeTable.pack(start), 0, 0, CellNodeTable.NO_NODE, 0, ModeType.NONE), 0);
+    }
+
+    private void expand() {
+      int current = upcoming.poll();
+      Cell cell = nodes.cell(current);
+      double currentScore = nodes.score(current);
+      if (currentScore > radius) {
+        upcoming = null;  // every other entrance is further still
+        return;
+      }
+      if (!loadedAround(cell)) {
+        return;  // never load or generate chunks for landmarks
+      }
+      float[] chunkDistances = distances.computeIfAbsent(ChunkGraph.chunkKey(cell), k -> {
+        float[] empty = new float[landmarks.size()];
+        Arrays.fill(empty, Float.NaN);
+        return empty;
+      });
+      if (Float.isNaN(chunkDistances[landmark])) {
+        chunkDistances[landmark] = (float) currentScore;
+      }
+
+      for (ChunkGraph.Segment segment : graph.segments(cell, session.modes(), null)) {
+        double score = currentScore + segment.cost();
+        long key = CellNodeTable.pack(segment.end());
+        int that = nodes.indexOf(key);
+        if (that == CellNodeTable.NO_NODE) {
+          upcoming.insert(nodes.add(key, score, 0, current, segment.cost(), ModeType.NONE), score);
+        } else if (score < nodes.score(that) && upcoming.contains(that)) {
+          nodes.improve(that, score, current, segment.cost(), ModeType.NONE);
+          upcoming.decreaseKey(that, score);
+        }
+      }
+    }
+
+    /**
+     * Whether a cell's chunk and the chunks around it are loaded, since movement out of a chunk
+     * looks at the blocks across its border.
+     */
+    private boolean loadedAround(Cell cell) {
+      PlatformProxy platform = Journey.get().proxy().platform();
+      int chunkX = cell.blockX() >> 4;
+      int chunkZ = cell.blockZ() >> 4;
+      for (int x = chunkX - 1; x <= chunkX + 1; x++) {
+        for (int z = chunkZ - 1; z <= chunkZ + 1; z++) {
+          if (!platform.isChunkLoaded(domain, x, z)) {
+            return false;
+          }
+        }
+      }
+      return true;
+    }
+  }
+
+  @Nullable
+  private static Path file(int domain) {
+    Path dataFolder = Journey.get().proxy().dataFolder();
+    if (dataFolder == null) {
+      return null;
+    }
+    return dataFolder.resolve(DIRECTORY_NAME).resolve(Journey.get().domainManager().domainId(domain) + ".dat");
+  }
+
+  private static void write(int domain, Table table) {
+    Path file = file(domain);
+    if (file == null) {
+      return;
+    }
+    try {
+      Files.createDirectories(file.getParent());
+      Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+        table.write(out);
+      }
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      Journey.logger().error("Could not save the landmarks of domain " + domain + ": " + e.getMessage());
+    }
+  }
+
+  @Nullable
+  private static Table read(int domain) {
+    Path file = file(domain);
+    if (file == null || !Files.exists(file)) {
+      return null;
+    }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      return Table.read(in, domain);
+    } catch (IOException e) {
+      Journey.logger().warn("Could not load the landmarks of domain " + domain + ", so they will be calculated again: "
+          + e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * The distances from the landmarks of one domain to its chunks.
+   */
+  private static final class Table implements LandmarkCostFunction.Distances {
+    private final long calculatedMillis;
+    private final Set<ModeType> modeTypes;
+    private final Cell[] landmarks;
+    private final Map<Long, float[]> distances;
+
+    Table(long calculatedMillis, Set<ModeType> modeTypes, Cell[] landmarks, Map<Long, float[]> distances) {
+      this.calculatedMillis = calculatedMillis;
+      this.modeTypes = modeTypes;
+      this.landmarks = landmarks;
+      this.distances = distances;
+    }
+
+    @Override
+    public float[] fromLandmarks(int chunkX, int chunkZ) {
+      return distances.get(ChunkGraph.chunkKey(chunkX, chunkZ));
+    }
+
+    boolean isStale() {
+      return System.currentTimeMillis() - calculatedMillis > Settings.LANDMARK_MAX_AGE_HOURS.getValue() * 3600000L;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+      out.writeInt(FILE_VERSION);
+      out.writeLong(calculatedMillis);
+      out.writeInt(modeTypes.size());
+      for (ModeType modeType : modeTypes) {
+        out.writeUTF(modeType.name());
+      }
+      out.writeInt(landmarks.length);
+      for (Cell landmark : landmarks) {
+        out.writeInt(landmark.blockX());
+        out.writeInt(landmark.blockY());
+        out.writeInt(landmark.blockZ());
+      }
+      out.writeInt(distances.size());
+      for (Map.Entry<Long, float[]> entry : distances.entrySet()) {
+        out.writeLong(entry.getKey());
+        for (float distance : entry.getValue()) {
+          out.writeFloat(distance);
+        }
+      }
+    }
+
+    static Table read(DataInputStream in, int domain) throws IOException {
+      if (in.readInt() != FILE_VERSION) {
+        throw new IOException("unknown version");
+      }
+      long calculatedMillis = in.readLong();
+      Set<ModeType> modeTypes = EnumSet.noneOf(ModeType.class);
+      int modeTypeCount = in.readInt();
+      for (int i = 0; i < modeTypeCount; i++) {
+        try {
+          modeTypes.add(ModeType.valueOf(in.readUTF()));
+        } catch (IllegalArgumentException e) {
+          throw new IOException("unknown mode type");
+        }
+      }
+      Cell[] landmarks = new Cell[in.readInt()];
+      for (int i = 0; i < landmarks.length; i++) {
+        landmarks[i] = new Cell(in.readInt(), in.readInt(), in.readInt(), domain);
+      }
+      int chunkCount = in.readInt();
+      Map<Long, float[]> distances = new HashMap<>(chunkCount * 2);
+      for (int i = 0; i < chunkCount; i++) {
+        long chunk = in.readLong();
+        float[] chunkDistances = new float[landmarks.length];
+        for (int j = 0; j < chunkDistances.length; j++) {
+          chunkDistances[j] = in.readFloat();
+        }
+        distances.put(chunk, chunkDistances);
+      }
+      return new Table(calculatedMillis, modeTypes, landmarks, distances);
+    }
+  }
+
+}
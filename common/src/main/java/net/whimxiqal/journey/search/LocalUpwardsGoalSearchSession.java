@@ -61,7 +61,7 @@ public abstract class LocalUpwardsGoalSearchSession extends SearchSession {
         origin,
         this.modes,
         new HeightCostFunction(),
-        node -> reachesGoal(node.getData().location()),
+        this::reachesGoal,
         false
     );
 
@@ -0,0 +1,455 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.search;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.Journey;
+import net.whimxiqal.journey.config.Settings;
+import net.whimxiqal.journey.data.PathRecordManager;
+import net.whimxiqal.journey.util.SimpleTimer;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A background job that fills the path cache with the paths between every pair of tunnels,
+ * so searches that cross several tunnels can reuse them.
+ * A few trials are attempted at a time in the background lane of the {@link SearchExecutor},
+ * and no new ones are started while the server's ticks run long.
+ *
+ * <p>Progress is saved to a checkpoint in the data folder so the warm-up resumes after a restart.
+ * The paths that were found are already cached, so the checkpoint only has to record
+ * the pairs of tunnels between which no path was found, which are not attempted again.
+ */
+public final class PathCacheWarmup {
+
+  private static final String CHECKPOINT_FILE_NAME = "path-cache-warmup.txt";
+  private static final String CHECKPOINT_HEADER = "journey path cache warm-up v1";
+  private static final int TICK_PERIOD = 20;  // ticks
+  private static final int RESUME_DELAY = 20 * 60;  // ticks after startup, to let the server settle first
+  private static final long CHECKPOINT_PERIOD_MS = 30000;
+  private static final long LOG_PERIOD_MS = 60000;
+
+  private final Object checkpointLock = new Object();
+  private final LinkedList<PathTrial> pending = new LinkedList<>();
+  private final Set<PathRecordManager.Endpoints> failed = new HashSet<>();
+  private final SimpleTimer timer = new SimpleTimer();
+  private final SimpleTimer logTimer = new SimpleTimer();
+  private final SimpleTimer checkpointTimer = new SimpleTimer();
+  private EverythingSearch session;  // null when not warming up
+  private UUID taskId;
+  private boolean collecting;
+  private boolean throttled;
+  private boolean checkpointDirty;
+  private int running;
+  private int total;
+  private int completed;
+  private int notFound;
+  private double totalLength;
+  private double completedLength;
+
+  /**
+   * Start warming up the path cache, continuing from the checkpoint if there is one.
+   * Must be called on the main thread.
+   *
+   * @return false if the cache is already warming up
+   */
+  public boolean start() {
+    synchronized (this) {
+      if (session != null) {
+        return false;
+      }
+    }
+    Set<PathRecordManager.Endpoints> skipped = readCheckpoint();
+    EverythingSearch started = new EverythingSearch();
+    started.initialize();
+    synchronized (this) {
+      if (session != null) {
+        return false;
+      }
+      session = started;
+      pending.clear();
+      failed.clear();
+      failed.addAll(skipped);
+      collecting = true;
+      throttled = false;
+      checkpointDirty = true;
+      running = 0;
+      total = 0;
+      completed = 0;
+      notFound = 0;
+      totalLength = 0;
+      completedLength = 0;
+      timer.start();
+      logTimer.start();
+      checkpointTimer.start();
+      taskId = Journey.get().proxy().schedulingManager().scheduleRepeat(this::tick, false, TICK_PERIOD);
+    }
+    Journey.logger().info("Warming up the path cache to speed up search times...");
+    // collecting the trials reads the whole cache, so keep it off the main thread
+    if (!execute(() -> collect(started, skipped))) {
+      cancel();
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Start warming up the path cache a little while after startup if a checkpoint was left behind
+   * by a warm-up that had not completed.
+   */
+  public void resumeLater() {
+    Path file = checkpointFile();
+    if (file == null || !Files.exists(file)) {
+      return;
+    }
+    Journey.get().proxy().schedulingManager().schedule(() -> {
+      if (start()) {
+        Journey.logger().info("Resuming the path cache warm-up from its checkpoint");
+      }
+    }, false, RESUME_DELAY);
+  }
+
+  /**
+   * Stop warming up the path cache and discard the checkpoint,
+   * so the next warm-up starts from scratch.
+   *
+   * @return false if the cache was not warming up
+   */
+  public boolean cancel() {
+    EverythingSearch stopped = stopSession();
+    synchronized (checkpointLock) {
+      try {
+        Path file = checkpointFile();
+        if (file != null) {
+          Files.deleteIfExists(file);
+        }
+      } catch (IOException e) {
+        Journey.logger().error("Could not delete the path cache warm-up checkpoint: " + e.getMessage());
+      }
+    }
+    return stopped != null;
+  }
+
+  /**
+   * Stop warming up the path cache, saving a checkpoint to resume from on the next startup.
+   */
+  public void shutdown() {
+    List<String> lines;
+    synchronized (this) {
+      if (session == null) {
+        return;
+      }
+      lines = checkpointLines();
+    }
+    stopSession();
+    synchronized (checkpointLock) {
+      writeCheckpoint(lines);
+    }
+  }
+
+  /**
+   * Get the progress of the warm-up.
+   *
+   * @return the progress, or empty if the cache is not warming up
+   */
+  public synchronized Optional<Progress> progress() {
+    if (session == null) {
+      return Optional.empty();
+    }
+    long elapsed = timer.elapsed();
+    long remaining = -1;
+    if (!collecting && completedLength > 0) {
+      remaining = Math.round(elapsed * (totalLength - completedLength) / completedLength);
+    }
+    return Optional.of(new Progress(completed, total, failed.size(), running, collecting, throttled, elapsed, remaining));
+  }
+
+  private void collect(EverythingSearch owner, Set<PathRecordManager.Endpoints> skipped) {
+    List<PathTrial> trials;
+    try {
+      trials = owner.start(skipped);
+    } catch (Exception e) {
+      Journey.logger().error("Could not collect the paths to warm up the path cache with");
+      e.printStackTrace();
+      cancel();
+      return;
+    }
+    synchronized (this) {
+      if (session != owner) {
+        return;  // stopped in the meantime
+      }
+      pending.addAll(trials);
+      total = trials.size();
+      for (PathTrial trial : trials) {
+        totalLength += trial.getLength();
+      }
+      collecting = false;
+    }
+    Journey.logger().info("Warming up the path cache with " + trials.size() + " paths");
+  }
+
+  private void tick() {
+    EverythingSearch owner;
+    List<String> lines = null;
+    synchronized (this) {
+      owner = session;
+      if (owner == null || collecting) {
+        return;
+      }
+      if (pending.isEmpty() && running == 0) {
+        owner = null;  // done
+      } else {
+        throttled = Journey.get().proxy().platform().averageTickMillis() >= Settings.CACHE_WARMUP_MAX_MSPT.getValue();
+        if (!throttled) {
+          int parallelism = Math.max(1, Settings.CACHE_WARMUP_PARALLELISM.getValue());
+          while (running < parallelism && !pending.isEmpty()) {
+            if (!attempt(owner, pending.peek())) {
+              break;
+            }
+            pending.pop();
+          }
+        }
+        if (logTimer.elapsed() > LOG_PERIOD_MS) {
+          logTimer.start();
+          Journey.logger().info("Warming up the path cache... " + completed + "/" + total + " paths attempted"
+              + (throttled ? ", paused while the server is busy" : ""));
+        }
+        if (checkpointDirty && checkpointTimer.elapsed() > CHECKPOINT_PERIOD_MS) {
+          checkpointTimer.start();
+          checkpointDirty = false;
+          lines = checkpointLines();
+        }
+      }
+    }
+    if (owner == null) {
+      finish();
+    } else if (lines != null) {
+      List<String> checkpoint = lines;
+      Journey.get().proxy().schedulingManager().schedule(() -> {
+        synchronized (checkpointLock) {
+          synchronized (this) {
+            if (session != owner) {
+              return;  // a stopped warm-up already dealt with its checkpoint
+            }
+          }
+          writeCheckpoint(checkpoint);
+        }
+      }, true);
+    }
+  }
+
+  // must hold the lock on this
+  private boolean attempt(EverythingSearch owner, PathTrial trial) {
+    double length = trial.getLength();
+    PathRecordManager.Endpoints endpoints = new PathRecordManager.Endpoints(trial.getOrigin(), trial.getDestination());
+    boolean submitted = execute(() -> {
+      ResultState result;
+      try {
+        trial.attempt(false);  // the trial saves its own path
+        result = trial.getState();
+      } catch (Exception e) {
+        e.printStackTrace();
+        result = ResultState.STOPPED_ERROR;
+      }
+      completeTrial(owner, endpoints, length, result);
+    });
+    if (submitted) {
+      running++;
+    }
+    return submitted;
+  }
+
+  private synchronized void completeTrial(EverythingSearch owner, PathRecordManager.Endpoints endpoints,
+                                          double length, ResultState result) {
+    if (session != owner) {
+      return;
+    }
+    running--;
+    if (result == ResultState.STOPPED_CANCELED) {
+      return;  // stopping, so it will be attempted again when resumed
+    }
+    completed++;
+    completedLength += length;
+    if (result != ResultState.STOPPED_SUCCESSFUL) {
+      failed.add(endpoints);
+      notFound++;
+      checkpointDirty = true;
+    }
+  }
+
+  private void finish() {
+    int found;
+    int missing;
+    long elapsed;
+    synchronized (this) {
+      found = completed - notFound;
+      missing = notFound;
+      elapsed = timer.elapsed();
+    }
+    if (cancel()) {
+      Journey.logger().info("Path cache warm-up complete! Cached " + found + " paths in " + (elapsed / 1000) + " seconds"
+          + (missing == 0 ? "" : ", no path was found for " + missing));
+    }
+  }
+
+  private EverythingSearch stopSession() {
+    EverythingSearch stopped;
+    UUID stoppedTaskId;
+    synchronized (this) {
+      stopped = session;
+      stoppedTaskId = taskId;
+      session = null;
+      taskId = null;
+      pending.clear();
+      running = 0;
+    }
+    if (stoppedTaskId != null) {
+      Journey.get().proxy().schedulingManager().cancelTask(stoppedTaskId);
+    }
+    if (stopped != null) {
+      // trials still running notice the session stopping and give up
+      stopped.stop(true);
+      stopped.markStopped();
+    }
+    return stopped;
+  }
+
+  private boolean execute(Runnable unit) {
+    SearchExecutor executor = Journey.get().searchManager().sessionExecutor();
+    if (executor == null) {
+      return false;
+    }
+    try {
+      executor.execute(SearchExecutor.Lane.BACKGROUND, unit);
+      return true;
+    } catch (RejectedExecutionException e) {
+      return false;  // Journey is shutting down
+    }
+  }
+
+  // must hold the lock on this
+  private List<String> checkpointLines() {
+    List<String> lines = new ArrayList<>(failed.size() + 1);
+    lines.add(CHECKPOINT_HEADER);
+    for (PathRecordManager.Endpoints endpoints : failed) {
+      lines.add(formatCell(endpoints.origin()) + " " + formatCell(endpoints.destination()));
+    }
+    return lines;
+  }
+
+  private static String formatCell(Cell cell) {
+    return Journey.get().domainManager().domainId(cell.domain())
+        + " " + cell.blockX() + " " + cell.blockY() + " " + cell.blockZ();
+  }
+
+  private static Cell parseCell(String[] tokens, int offset) {
+    return new Cell(Integer.parseInt(tokens[offset + 1]),
+        Integer.parseInt(tokens[offset + 2]),
+        Integer.parseInt(tokens[offset + 3]),
+        Journey.get().domainManager().domainIndex(UUID.fromString(tokens[offset])));
+  }
+
+  // must hold the checkpoint lock
+  private void writeCheckpoint(List<String> lines) {
+    Path file = checkpointFile();
+    if (file == null) {
+      return;
+    }
+    try {
+      Path temporary = file.resolveSibling(CHECKPOINT_FILE_NAME + ".tmp");
+      Files.write(temporary, lines, StandardCharsets.UTF_8);
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      Journey.logger().error("Could not save the path cache warm-up checkpoint: " + e.getMessage());
+    }
+  }
+
+  private Set<PathRecordManager.Endpoints> readCheckpoint() {
+    Set<PathRecordManager.Endpoints> skipped = new HashSet<>();
+    List<String> lines;
+    synchronized (checkpointLock) {
+      Path file = checkpointFile();
+      if (file == null || !Files.exists(file)) {
+        return skipped;
+      }
+      try {
+        lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+      } catch (IOException e) {
+        Journey.logger().error("Could not read the path cache warm-up checkpoint: " + e.getMessage());
+        return skipped;
+      }
+    }
+    if (lines.isEmpty() || !lines.get(0).equals(CHECKPOINT_HEADER)) {
+      Journey.logger().warn("Ignoring the path cache warm-up checkpoint because it is in an unknown format");
+      return skipped;
+    }
+    for (String line : lines.subList(1, lines.size())) {
+      String[] tokens = line.trim().split(" ");
+      if (tokens.length != 8) {
+        continue;
+      }
+      try {
+        skipped.add(new PathRecordManager.Endpoints(parseCell(tokens, 0), parseCell(tokens, 4)));
+      } catch (IllegalArgumentException e) {
+        Journey.logger().warn("Ignoring malformed line in the path cache warm-up checkpoint: " + line);
+      }
+    }
+    return skipped;
+  }
+
+  @Nullable
+  private static Path checkpointFile() {
+    Path dataFolder = Journey.get().proxy().dataFolder();
+    return dataFolder == null ? null : dataFolder.resolve(CHECKPOINT_FILE_NAME);
+  }
+
+  /**
+   * A snapshot of the progress of a warm-up.
+   *
+   * @param completed     the number of paths attempted so far
+   * @param total         the number of paths to attempt
+   * @param failed        the number of paths that could not be found, including those of earlier runs
+   * @param running       the number of paths being attempted right now
+   * @param collecting    whether the paths to attempt are still being collected
+   * @param throttled     whether the warm-up is paused because the server is busy
+   * @param elapsedMillis how long the warm-up has been running since it was last started
+   * @param etaMillis     an estimate of how long the warm-up will take to complete, or negative if unknown
+   */
+  public record Progress(int completed, int total, int failed, int running,
+                         boolean collecting, boolean throttled, long elapsedMillis, long etaMillis) {
+  }
+
+}
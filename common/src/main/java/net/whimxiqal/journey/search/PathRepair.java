@@ -0,0 +1,198 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.ModeType;
+import net.whimxiqal.journey.navigation.OptionBuffer;
+import net.whimxiqal.journey.navigation.Path;
+import net.whimxiqal.journey.navigation.Step;
+import net.whimxiqal.journey.search.graph.IndexedMinHeap;
+import net.whimxiqal.journey.tools.LongIntHashMap;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A planner that repairs a calculated {@link Path} when whoever follows it wanders off of it.
+ *
+ * <p>The planned path already knows the exact remaining cost from each of its cells to its destination,
+ * so instead of searching for the destination again, a repair searches from the new location
+ * for the cheapest way back onto any cell of the path, valued at its cost to get there plus the path's
+ * remaining cost from there.
+ * Only the area between the new location and the path is explored.
+ */
+public final class PathRepair {
+
+  private static final int MAX_REPAIR_CELL_COUNT = 4096;
+  private static final int SAMPLE_INTERVAL = 8;
+
+  private final Path path;
+  private final List<Step> steps;
+  private final Collection<Mode> modes;
+  private final int domain;
+  // the cost from each step to the end of the path
+  private final double[] remaining;
+  private final LongIntHashMap stepIndices;
+  // the cells on the path used to estimate the remaining cost, and their remaining costs
+  private final Cell[] samples;
+  private final double[] sampleRemaining;
+
+  /**
+   * General constructor.
+   *
+   * @param path  the path to repair
+   * @param modes the modes with which the path may be rejoined
+   */
+  public PathRepair(Path path, Collection<Mode> modes) {
+    this.path = path;
+    this.steps = path.getSteps();
+    this.modes = modes;
+    this.domain = path.getDestination().domain();
+    this.remaining = new double[steps.size()];
+    this.stepIndices = new LongIntHashMap(steps.size());
+    for (int i = steps.size() - 2; i >= 0; i--) {
+      remaining[i] = remaining[i + 1] + steps.get(i + 1).length();
+    }
+    for (int i = 0; i < steps.size(); i++) {
+      // Later steps win, so a path that crosses itself is rejoined as far along as possible
+      stepIndices.put(CellNodeTable.pack(steps.get(i).location()), i);
+    }
+    int sampleCount = (steps.size() - 1) / SAMPLE_INTERVAL + 1;
+    this.samples = new Cell[sampleCount];
+    this.sampleRemaining = new double[sampleCount];
+    for (int i = 0; i < sampleCount; i++) {
+      // The last sample is always the destination, so the estimate never exceeds the straight-line distance to it
+      int index = Math.max(steps.size() - 1 - i * SAMPLE_INTERVAL, 0);
+      samples[i] = steps.get(index).location();
+      sampleRemaining[i] = remaining[index];
+    }
+  }
+
+  /**
+   * Whether a path can be repaired. Paths through tunnels cannot be.
+   *
+   * @param path the path
+   * @return true if it can be repaired
+   */
+  public static boolean canRepair(Path path) {
+    List<Step> steps = path.getSteps();
+    return steps.size() > 1 && steps.stream().noneMatch(step -> step.modeType() == ModeType.TUNNEL);
+  }
+
+  /**
+   * Get the path that this planner repairs.
+   *
+   * @return the path
+   */
+  public Path path() {
+    return path;
+  }
+
+  /**
+   * Find the cheapest path from the given location to the end of the planned path,
+   * by way of some cell on the planned path.
+   *
+   * @param from the new location
+   * @return the repaired path, or null if the planned path could not be rejoined nearby
+   */
+  @Nullable
+  public Path repair(Cell from) {
+    if (from.domain() != domain) {
+      return null;
+    }
+    CellNodeTable nodes = new CellNodeTable(domain, 256);
+    IndexedMinHeap upcoming = new IndexedMinHeap(256);
+    OptionBuffer options = new OptionBuffer();
+    int start = nodes.add(CellNodeTable.pack(from), 0, heuristic(from), CellNodeTable.NO_NODE, 0, ModeType.NONE);
+    upcoming.insert(start, nodes.estimate(start));
+
+    double bestCost = Double.MAX_VALUE;
+    int bestNode = CellNodeTable.NO_NODE;
+    int bestStep = -1;
+    while (!upcoming.isEmpty() && nodes.size() <= MAX_REPAIR_CELL_COUNT) {
+      int current = upcoming.poll();
+      if (nodes.estimate(current) >= bestCost) {
+        // Nothing left to explore can rejoin the path any cheaper
+        break;
+      }
+      int stepIndex = stepIndices.get(nodes.key(current));
+      if (stepIndex != LongIntHashMap.MISSING) {
+        double cost = nodes.score(current) + remaining[stepIndex];
+        if (cost < bestCost) {
+          bestCost = cost;
+          bestNode = current;
+          bestStep = stepIndex;
+        }
+        // The rest of the way is already known
+        continue;
+      }
+
+      Cell currentCell = nodes.cell(current);
+      double currentScore = nodes.score(current);
+      for (Mode mode : modes) {
+        options.clear();
+        mode.expandDestinations(currentCell.domain(), currentCell.blockX(), currentCell.blockY(), currentCell.blockZ(), options);
+        for (int i = 0; i < options.size(); i++) {
+          double score = currentScore + options.cost(i);
+          long key = CellNodeTable.pack(options.x(i), options.y(i), options.z(i));
+          int that = nodes.indexOf(key);
+          if (that == CellNodeTable.NO_NODE) {
+            Cell location = new Cell(options.x(i), options.y(i), options.z(i), currentCell.domain());
+            that = nodes.add(key, score, heuristic(location), current, options.cost(i), mode.type());
+            upcoming.insert(that, nodes.estimate(that));
+          } else if (score < nodes.score(that)) {
+            nodes.improve(that, score, current, options.cost(i), mode.type());
+            upcoming.insertOrUpdate(that, nodes.estimate(that));
+          }
+        }
+      }
+    }
+
+    if (bestNode == CellNodeTable.NO_NODE) {
+      return null;
+    }
+    LinkedList<Step> repaired = new LinkedList<>();
+    for (int node = bestNode; node != CellNodeTable.NO_NODE; node = nodes.previous(node)) {
+      repaired.addFirst(nodes.step(node));
+    }
+    repaired.addAll(steps.subList(bestStep + 1, steps.size()));
+    return new Path(from, new ArrayList<>(repaired), bestCost);
+  }
+
+  /**
+   * A lower bound on the cost from a cell to the end of the path, by way of the path's samples.
+   */
+  private double heuristic(Cell cell) {
+    double min = Double.MAX_VALUE;
+    for (int i = 0; i < samples.length; i++) {
+      min = Math.min(min, cell.distanceTo(samples[i]) + sampleRemaining[i]);
+    }
+    return min;
+  }
+
+}
@@ -26,6 +26,8 @@ package net.whimxiqal.journey.search;
 import java.util.Collection;
 import lombok.Getter;
 import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.Journey;
+import net.whimxiqal.journey.config.Settings;
 import net.whimxiqal.journey.navigation.Mode;
 import net.whimxiqal.journey.navigation.Path;
 import net.whimxiqal.journey.search.function.CostFunction;
@@ -51,8 +53,8 @@ public class PathTrial extends AbstractPathTrial {
                     boolean fromCache,
                     boolean saveOnComplete) {
     super(session, origin, modes,
-        costFunction(destination),
-        node -> node.getData().location().distanceToSquared(destination)
+        costFunction(destination, modes, false),
+        cell -> cell.distanceToSquared(destination)
             <= SUFFICIENT_COMPLETION_DISTANCE_SQUARED,
         length,
         path,
@@ -62,7 +64,24 @@ public class PathTrial extends AbstractPathTrial {
     this.destination = destination;
   }
 
-  private static CostFunction costFunction(Cell destination) {return new EuclideanPlanarAverageCostFunction(destination);}
+  private static CostFunction costFunction(Cell target, Collection<Mode> modes, boolean reverse) {
+    CostFunction estimate = new EuclideanPlanarAverageCostFunction(target);
+    if (!Settings.LANDMARK_HEURISTIC.getValue()) {
+      return estimate;
+    }
+    return Journey.get().landmarkCache().costFunction(target, modes, reverse, estimate);
+  }
+
+  @Override
+  protected Cell goal() {
+    // Completion requires landing exactly on the destination, so it can be searched from both ends
+    return destination;
+  }
+
+  @Override
+  protected CostFunction reverseCostFunction() {
+    return costFunction(getOrigin(), getModes(), true);
+  }
 
   /**
    * Get a path trial that is already determined to be successful.
@@ -120,7 +139,7 @@ public class PathTrial extends AbstractPathTrial {
                                       boolean saveOnComplete) {
     return new PathTrial(session, origin, destination,
         modes,
-        costFunction(destination).apply(origin), null,
+        costFunction(destination, modes, false).apply(origin), null,
         ResultState.IDLE, false, saveOnComplete);
   }
 
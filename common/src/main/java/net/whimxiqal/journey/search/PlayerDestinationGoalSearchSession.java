@@ -28,6 +28,7 @@ import net.kyori.adventure.audience.Audience;
 import net.kyori.adventure.text.Component;
 import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.Journey;
+import net.whimxiqal.journey.search.event.SearchEvent;
 import net.whimxiqal.journey.search.flag.FlagSet;
 import net.whimxiqal.journey.search.flag.Flags;
 
@@ -57,6 +58,8 @@ public class PlayerDestinationGoalSearchSession extends DestinationGoalSearchSes
     int stepDelay = flags.getValueFor(Flags.ANIMATE);
     if (stepDelay > 0) {
       sessionState.animationManager().setAnimating(true);
+      Journey.get().dispatcher().subscribe(this, SearchEvent.EventType.STEP,
+          SearchEvent.EventType.MODE_SUCCESS, SearchEvent.EventType.MODE_FAILURE);
       setAlgorithmStepDelay(stepDelay);
     } else {
       sessionState.animationManager().setAnimating(false);
@@ -5,6 +5,7 @@ import net.kyori.adventure.audience.Audience;
 import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.Journey;
 import net.whimxiqal.journey.JourneyPlayer;
+import net.whimxiqal.journey.search.event.SearchEvent;
 import net.whimxiqal.journey.search.flag.Flags;
 
 public class PlayerDomainGoalSearchSession extends DomainGoalSearchSession implements PlayerSessionStateful {
@@ -35,6 +36,8 @@ public class PlayerDomainGoalSearchSession extends DomainGoalSearchSession imple
     int stepDelay = flags.getValueFor(Flags.ANIMATE);
     if (stepDelay > 0) {
       sessionState.animationManager().setAnimating(true);
+      Journey.get().dispatcher().subscribe(this, SearchEvent.EventType.STEP,
+          SearchEvent.EventType.MODE_SUCCESS, SearchEvent.EventType.MODE_FAILURE);
       setAlgorithmStepDelay(stepDelay);
     } else {
       sessionState.animationManager().setAnimating(false);
@@ -26,6 +26,7 @@ package net.whimxiqal.journey.search;
 import java.util.UUID;
 import net.whimxiqal.journey.Journey;
 import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.search.event.SearchEvent;
 import net.whimxiqal.journey.search.flag.FlagSet;
 import net.whimxiqal.journey.search.flag.Flags;
 import net.kyori.adventure.audience.Audience;
@@ -58,6 +59,8 @@ public class PlayerSurfaceGoalSearchSession extends LocalUpwardsGoalSearchSessio
     int stepDelay = flags.getValueFor(Flags.ANIMATE);
     if (stepDelay > 0) {
       sessionState.animationManager().setAnimating(true);
+      Journey.get().dispatcher().subscribe(this, SearchEvent.EventType.STEP,
+          SearchEvent.EventType.MODE_SUCCESS, SearchEvent.EventType.MODE_FAILURE);
       setAlgorithmStepDelay(stepDelay);
     } else {
       sessionState.animationManager().setAnimating(false);
@@ -0,0 +1,265 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.search;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.whimxiqal.journey.Journey;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The executor that runs the units of work of every {@link SearchSession}, owned by Journey
+ * instead of borrowed from the platform's shared asynchronous scheduler.
+ *
+ * <p>Work is split into lanes: units of player searches always run before units of background searches,
+ * like the {@link EverythingSearch}. Within a lane, units run in the order they were submitted.
+ * Since a session only submits its next unit once its previous one is done, this alone gives every session
+ * in a lane a fair share of the workers. Background units never take the last worker,
+ * so a long background unit, which may not yield until it is done, can never hold up every player search.
+ *
+ * <p>At most the given number of units run at once. If virtual threads are requested and the runtime
+ * supports them, every unit runs on a new virtual thread, which makes blocking on the platform
+ * (like waiting for a chunk to load) cheap. Otherwise, units run on reused platform daemon threads.
+ */
+public final class SearchExecutor {
+
+  private final ExecutorService threads;
+  private final boolean virtual;
+  private final int workers;
+  private final int backgroundWorkers;
+  private final PriorityQueue<LaneTask> queue = new PriorityQueue<>();  // guarded by this
+  private long sequence = 0;  // guarded by this
+  private int running = 0;  // guarded by this
+  private int backgroundRunning = 0;  // guarded by this
+  private boolean shutdown = false;  // guarded by this
+
+  /**
+   * General constructor.
+   *
+   * @param threads        the number of units that may run at once
+   * @param name           the name of each worker thread
+   * @param virtualThreads whether to use virtual threads, if supported
+   */
+  public SearchExecutor(int threads, String name, boolean virtualThreads) {
+    ExecutorService perTask = virtualThreads ? virtualThreadPerTaskExecutor(name) : null;
+    this.virtual = perTask != null;
+    this.threads = perTask != null ? perTask : Executors.newCachedThreadPool(platformThreadFactory(name));
+    this.workers = Math.max(1, threads);
+    // with a single worker there is nothing to keep back
+    this.backgroundWorkers = Math.max(1, workers - 1);
+  }
+
+  /**
+   * Run a unit of work of a session in the session's lane.
+   *
+   * @param session the session
+   * @param unit    the unit of work
+   * @throws RejectedExecutionException if this executor has been shut down
+   */
+  public void execute(SearchSession session, Runnable unit) {
+    execute(session.getCallerType() == SearchSession.Caller.PLAYER ? Lane.PLAYER : Lane.BACKGROUND, unit);
+  }
+
+  /**
+   * Run a unit of work in a lane.
+   *
+   * @param lane the lane
+   * @param unit the unit of work
+   * @throws RejectedExecutionException if this executor has been shut down
+   */
+  public synchronized void execute(Lane lane, Runnable unit) {
+    if (shutdown) {
+      throw new RejectedExecutionException("The search executor has been shut down");
+    }
+    queue.add(new LaneTask(lane, sequence++, unit));
+    dispatch();
+  }
+
+  /**
+   * Start queued units while there are free workers.
+   */
+  private synchronized void dispatch() {
+    while (running < workers && !queue.isEmpty()) {
+      boolean background = queue.peek().lane == Lane.BACKGROUND;
+      if (background && backgroundRunning >= backgroundWorkers) {
+        // player units come first, so only background units are left
+        return;
+      }
+      LaneTask task = queue.poll();
+      running++;
+      if (background) {
+        backgroundRunning++;
+      }
+      try {
+        threads.execute(() -> run(task));
+      } catch (RejectedExecutionException e) {
+        // the threads were stopped by a forced shutdown
+        running--;
+        if (background) {
+          backgroundRunning--;
+        }
+        queue.clear();
+        return;
+      }
+    }
+  }
+
+  private void run(LaneTask task) {
+    try {
+      task.run();
+    } finally {
+      synchronized (this) {
+        running--;
+        if (task.lane == Lane.BACKGROUND) {
+          backgroundRunning--;
+        }
+        dispatch();
+        notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Whether the workers are virtual threads.
+   *
+   * @return true if virtual
+   */
+  public boolean isVirtual() {
+    return virtual;
+  }
+
+  /**
+   * Get the number of units waiting for a worker.
+   *
+   * @return the queued unit count
+   */
+  public synchronized int queued() {
+    return queue.size();
+  }
+
+  /**
+   * Stop accepting work and wait a moment for queued and running units to finish,
+   * then interrupt whatever is left.
+   *
+   * @param timeoutMillis how long to wait for running units
+   */
+  public void shutdown(long timeoutMillis) {
+    long deadline = System.currentTimeMillis() + timeoutMillis;
+    synchronized (this) {
+      shutdown = true;
+      try {
+        long remaining;
+        while ((running > 0 || !queue.isEmpty()) && (remaining = deadline - System.currentTimeMillis()) > 0) {
+          wait(remaining);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      queue.clear();
+    }
+    threads.shutdownNow();
+  }
+
+  /**
+   * Get a thread factory making platform daemon threads.
+   *
+   * @param name the thread name
+   * @return the factory
+   */
+  public static ThreadFactory platformThreadFactory(String name) {
+    AtomicInteger count = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, name + " " + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /**
+   * Get a thread factory making virtual threads, which are only available on Java 21 and later.
+   * They are looked up reflectively so Journey still runs on older versions.
+   *
+   * @param name the thread name
+   * @return the factory, or null if virtual threads are not supported
+   */
+  @Nullable
+  private static ThreadFactory virtualThreadFactory(String name) {
+    try {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name + " ", 1L);
+      return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      Journey.logger().debug("Virtual threads are not supported, using platform threads for " + name);
+      return null;
+    }
+  }
+
+  @Nullable
+  private static ExecutorService virtualThreadPerTaskExecutor(String name) {
+    ThreadFactory factory = virtualThreadFactory(name);
+    if (factory == null) {
+      return null;
+    }
+    try {
+      return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+          .invoke(null, factory);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      Journey.logger().debug("Virtual threads are not supported, using platform threads for " + name);
+      return null;
+    }
+  }
+
+  /**
+   * The lanes of work, in order of priority.
+   */
+  public enum Lane {
+    PLAYER,
+    BACKGROUND
+  }
+
+  private record LaneTask(Lane lane, long sequence, Runnable unit) implements Runnable, Comparable<LaneTask> {
+
+    @Override
+    public void run() {
+      unit.run();
+    }
+
+    @Override
+    public int compareTo(@NotNull LaneTask other) {
+      int compare = lane.compareTo(other.lane);
+      if (compare != 0) {
+        return compare;
+      }
+      return Long.compare(sequence, other.sequence);
+    }
+  }
+
+}
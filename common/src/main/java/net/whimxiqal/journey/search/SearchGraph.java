@@ -24,15 +24,21 @@
 package net.whimxiqal.journey.search;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import net.whimxiqal.journey.Tunnel;
 import net.whimxiqal.journey.Journey;
 import net.whimxiqal.journey.data.DataAccessException;
+import net.whimxiqal.journey.data.PathRecordManager;
 import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.navigation.Mode;
 import net.whimxiqal.journey.navigation.ModeType;
+import net.whimxiqal.journey.navigation.Path;
 import net.whimxiqal.journey.search.graph.WeightedGraph;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 /**
@@ -43,6 +49,9 @@ public abstract class SearchGraph extends WeightedGraph<Tunnel, PathTrial> {
   protected final GraphGoalSearchSession<?> session;
   protected final Cell origin;
   protected final Tunnel originNode;
+  @Nullable
+  private Map<PathRecordManager.Endpoints, Path> cachedPaths = null;
+  private final Set<Long> prefetchedChunks = ConcurrentHashMap.newKeySet();
 
   public SearchGraph(GraphGoalSearchSession<?> session, Cell origin) {
     this.session = session;
@@ -54,6 +63,25 @@ public abstract class SearchGraph extends WeightedGraph<Tunnel, PathTrial> {
     return originNode;
   }
 
+  /**
+   * Load every cached path that may become an edge of this graph in one go,
+   * instead of looking each one up as it is added.
+   *
+   * @param origins      the origins of the path trials that will be added
+   * @param destinations the destinations of the path trials that will be added
+   * @param modes        the modes used to traverse the paths
+   */
+  public void prefetchCachedPaths(Collection<Cell> origins, Collection<Cell> destinations, Collection<Mode> modes) {
+    Set<ModeType> modeTypes = modes.stream().map(Mode::type).collect(Collectors.toSet());
+    try {
+      cachedPaths = Journey.get().dataManager()
+          .pathRecordManager()
+          .getPaths(origins, destinations, modeTypes);
+    } catch (DataAccessException e) {
+      e.printStackTrace();
+    }
+  }
+
   /**
    * Add a path trial to the search graph that supposedly goes
    * from the origin of the entire search to a tunnel.
@@ -89,24 +117,34 @@ public abstract class SearchGraph extends WeightedGraph<Tunnel, PathTrial> {
                             Tunnel destinationNode,
                             Collection<Mode> modes, boolean saveOnComplete) {
     // First, try to access a cached path
-    Set<ModeType> modeTypes = modes.stream().map(Mode::type).collect(Collectors.toSet());
     boolean added = false;
-    try {
-      if (Journey.get().dataManager()
-          .pathRecordManager()
-          .containsRecord(origin, destination, modeTypes)) {
-        addPathTrial(PathTrial.cached(session, origin, destination,
-                modes,
-                Journey.get().dataManager()
-                    .pathRecordManager()
-                    .getPath(origin, destination, modeTypes)),
-            originNode, destinationNode);
+    if (cachedPaths != null) {
+      Path cachedPath = cachedPaths.get(new PathRecordManager.Endpoints(origin, destination));
+      if (cachedPath != null) {
+        addPathTrial(PathTrial.cached(session, origin, destination, modes, cachedPath), originNode, destinationNode);
         added = true;
       }
-    } catch (DataAccessException e) {
-      e.printStackTrace();
+    } else {
+      Set<ModeType> modeTypes = modes.stream().map(Mode::type).collect(Collectors.toSet());
+      try {
+        if (Journey.get().dataManager()
+            .pathRecordManager()
+            .containsRecord(origin, destination, modeTypes)) {
+          addPathTrial(PathTrial.cached(session, origin, destination,
+                  modes,
+                  Journey.get().dataManager()
+                      .pathRecordManager()
+                      .getPath(origin, destination, modeTypes)),
+              originNode, destinationNode);
+          added = true;
+        }
+      } catch (DataAccessException e) {
+        e.printStackTrace();
+      }
     }
     if (!added) {
+      // The trial will read the blocks between its ends, so start loading them
+      ChunkPrefetcher.prefetchCorridor(origin, destination, prefetchedChunks);
       addPathTrial(PathTrial.approximate(session, origin, destination, modes, saveOnComplete), originNode, destinationNode);
     }
   }
@@ -125,6 +163,25 @@ public abstract class SearchGraph extends WeightedGraph<Tunnel, PathTrial> {
     return edge.getLength();
   }
 
+  /**
+   * Calculate the best itinerary trial using this graph.
+   *
+   * @param mustUseCache whether only path trials from the cache may be used
+   * @return the itinerary trial, or null if there is none
+   */
   @Nullable
-  abstract public ItineraryTrial calculate(boolean mustUseCache);
+  public ItineraryTrial calculate(boolean mustUseCache) {
+    List<ItineraryTrial> trials = calculate(mustUseCache, 1);
+    return trials.isEmpty() ? null : trials.get(0);
+  }
+
+  /**
+   * Calculate the best itinerary trials using this graph, best first.
+   *
+   * @param mustUseCache whether only path trials from the cache may be used
+   * @param count        the maximum number of itinerary trials
+   * @return the itinerary trials, of which there may be fewer than the given count
+   */
+  @NotNull
+  abstract public List<ItineraryTrial> calculate(boolean mustUseCache, int count);
 }
@@ -33,6 +33,8 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 import net.kyori.adventure.audience.Audience;
 import net.kyori.adventure.text.Component;
@@ -43,6 +45,7 @@ import net.whimxiqal.journey.message.Formatter;
 import net.whimxiqal.journey.navigation.Itinerary;
 import net.whimxiqal.journey.navigation.Mode;
 import net.whimxiqal.journey.navigation.ModeType;
+import net.whimxiqal.journey.search.event.FoundSolutionEvent;
 import net.whimxiqal.journey.search.event.StopSearchEvent;
 import net.whimxiqal.journey.search.flag.FlagSet;
 import net.whimxiqal.journey.util.SimpleTimer;
@@ -69,6 +72,10 @@ public abstract class SearchSession implements Resulted, Describable {
   private List<Component> description = Collections.emptyList();
   private int algorithmStepDelay = 0;
   protected final SimpleTimer timer = new SimpleTimer();
+  // sessions following this one, see follow(SearchSession, int)
+  private final List<SearchSession> followers = new CopyOnWriteArrayList<>();
+  private Itinerary sharedSolution = null;  // guarded by this
+  private SearchSession leader = null;  // guarded by this
 
   protected SearchSession(UUID callerId, Caller callerType) {
     this.callerId = callerId;
@@ -95,7 +102,7 @@ public abstract class SearchSession implements Resulted, Describable {
         return;
       }
     }
-    Journey.get().proxy().schedulingManager().schedule(() -> {
+    Runnable unit = () -> {
       try {
         if (this.getState() == ResultState.STOPPING_FAILED) {
           audience().sendMessage(Formatter.error("Time limit surpassed. Cancelling search..."));
@@ -111,13 +118,26 @@ public abstract class SearchSession implements Resulted, Describable {
         e.printStackTrace();
       }
       doSearch();
-    }, true);
+    };
+    SearchExecutor executor = Journey.get().searchManager().sessionExecutor();
+    if (executor == null) {
+      Journey.get().proxy().schedulingManager().schedule(unit, true);
+      return;
+    }
+    try {
+      executor.execute(this, unit);
+    } catch (RejectedExecutionException e) {
+      // Journey is shutting down
+      markStopped();
+      future.complete(getState());
+    }
   }
 
   /**
    * Resume the search by running a portion of the search algorithm but quitting before spending too long.
    * The purpose of this method is to split up the execution of searches into multiple tasks so many
    * concurrent searches may make progress even with limited async threads.
+   * Each portion is run on the {@link SearchExecutor}.
    *
    * @throws SearchException search exception
    */
@@ -135,9 +155,97 @@ public abstract class SearchSession implements Resulted, Describable {
     state = state.stoppedResult();
     if (state != previousState) {
       Journey.get().dispatcher().dispatch(new StopSearchEvent(this));
+      Journey.get().dispatcher().unsubscribe(this);
+      for (SearchSession follower : followers) {
+        follower.leaderStopped(state);
+      }
+      followers.clear();
     }
   }
 
+  /**
+   * Get a key identifying the problem this session solves, such that any two sessions
+   * with equal keys would find the same solutions. Sessions with equal keys running at the same time
+   * may then share one computation, see {@link #follow(SearchSession, int)}.
+   * Only valid after {@link #initialize()}.
+   *
+   * @return the key, or null if this session may not share its computation
+   */
+  public Object coalescingKey() {
+    return null;
+  }
+
+  /**
+   * Perform the titular search operation by following the search of another session solving the same problem,
+   * instead of searching separately. Every solution the leader finds is found for this session too,
+   * and this session stops when the leader does. If the leader is canceled or errors before this session
+   * has a solution, this session continues the search on its own.
+   *
+   * @param leader  the session to follow, with an equal {@link #coalescingKey()}
+   * @param timeout the timeout, in seconds
+   * @return the future, like {@link #search(int)}, or null if the leader is already stopping
+   */
+  public final CompletableFuture<ResultState> follow(SearchSession leader, int timeout) {
+    synchronized (leader) {
+      if (leader.state.shouldStop()) {
+        return null;
+      }
+      synchronized (this) {
+        if (state != ResultState.IDLE) {
+          throw new IllegalStateException("Only an idle search session may follow another");
+        }
+        this.leader = leader;
+        state = ResultState.RUNNING;
+        timer.start();
+        leader.followers.add(this);
+        if (leader.sharedSolution != null) {
+          adoptSolution(leader.sharedSolution);
+        }
+      }
+    }
+    if (timeout > 0) {
+      Journey.get().proxy().schedulingManager().schedule(() -> stop(false), false, timeout * 20 /* ticks per second */);
+    }
+    return future;
+  }
+
+  /**
+   * Give a solution found by this session to every session following it.
+   * Must be called while holding this session's lock.
+   *
+   * @param itinerary the solution
+   */
+  protected final void shareSolution(Itinerary itinerary) {
+    sharedSolution = itinerary;
+    for (SearchSession follower : followers) {
+      follower.adoptSolution(itinerary);
+    }
+  }
+
+  private synchronized void adoptSolution(Itinerary itinerary) {
+    if (state.shouldStop()) {
+      return;
+    }
+    state = ResultState.RUNNING_SUCCESSFUL;
+    Journey.get().dispatcher().dispatch(new FoundSolutionEvent(this, itinerary));
+  }
+
+  private synchronized void leaderStopped(ResultState leaderState) {
+    if (leader == null) {
+      // already stopped on its own
+      return;
+    }
+    leader = null;
+    if (!state.isSuccessful() && (leaderState == ResultState.STOPPED_CANCELED || leaderState == ResultState.STOPPED_ERROR)) {
+      // the leader gave up without an answer, but this caller still wants one
+      state = ResultState.IDLE;
+      doSearch();
+      return;
+    }
+    markStopped();
+    future.complete(state);
+  }
+
   /**
    * Terminate the search operation. It is up to the implementation
    * of this search session object to implement the actual cancellation behavior;
@@ -147,6 +255,13 @@ public abstract class SearchSession implements Resulted, Describable {
    */
   public synchronized final void stop(boolean cancel) {
     state = state.stoppingResult(cancel);
+    if (leader != null) {
+      // nothing is running for a follower, so it stops right away
+      leader.followers.remove(this);
+      leader = null;
+      markStopped();
+      future.complete(state);
+    }
   }
 
   @Override
@@ -23,7 +23,17 @@
 
 package net.whimxiqal.journey.search.event;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import net.whimxiqal.journey.config.Settings;
 import net.whimxiqal.journey.search.SearchSession;
 import java.util.HashMap;
 import java.util.Map;
@@ -32,13 +42,34 @@ import java.util.function.Consumer;
 /**
  * A dispatcher of events used during the execution of a
  * {@link SearchSession}.
+ *
+ * <p>{@link SearchEvent.EventType#isHighFrequency() High frequency} events are only worth creating
+ * if something will handle them. They are observed for a session if the session subscribed to them,
+ * like when it is being animated, or if the platform reports that something outside of Journey listens to them,
+ * in which case only one in every {@link Settings#SEARCH_EVENT_SAMPLE_INTERVAL} of them is kept.
+ *
+ * <p>Once the queue holds {@link Settings#SEARCH_EVENT_QUEUE_HIGH_WATER} events, it is saturated:
+ * high frequency events are dropped until the queue has been drained below that mark again.
+ * Other events are never dropped.
  */
 public abstract class SearchDispatcher {
 
   protected final Map<SearchEvent.EventType, SearchEventConversion<SearchEvent, Object>> eventConversions = new HashMap<>();
   protected Consumer<Object> externalDispatcher;
+  private Predicate<SearchEvent.EventType> externalSubscriptionCheck = type -> true;
   private boolean edited = false;
   protected final ConcurrentLinkedQueue<SearchEvent> events = new ConcurrentLinkedQueue<>();
+  private final Map<UUID, Set<SearchEvent.EventType>> sessionSubscriptions = new ConcurrentHashMap<>();
+  // bitmask of event type ordinals that something outside of Journey listens to
+  private volatile int externallyObserved = ~0;
+  private final AtomicLongArray sampleCounters = new AtomicLongArray(SearchEvent.EventType.values().length);
+  // ConcurrentLinkedQueue#size is linear, so track the depth ourselves
+  protected final AtomicInteger queueDepth = new AtomicInteger();
+  protected final LongAdder dispatchedEvents = new LongAdder();
+  protected final LongAdder droppedEvents = new LongAdder();
+  protected final LongAdder coalescedEvents = new LongAdder();
+  protected volatile long lastDrainNanos;
+  protected volatile long lastDrainLatencyNanos;
 
   public <E> Editor<E> editor() {
     if (edited) {
@@ -49,13 +80,149 @@ public abstract class SearchDispatcher {
   }
 
   public <S extends SearchEvent> void dispatch(S event) {
+    if (event.type().isHighFrequency() && isSaturated()) {
+      droppedEvents.increment();
+      return;
+    }
+    event.enqueuedNanos = System.nanoTime();
+    queueDepth.incrementAndGet();
     events.add(event);
   }
 
+  /**
+   * Whether the queue of events waiting to be dispatched has reached its high-water mark,
+   * in which case high frequency events are dropped. Thread-safe.
+   *
+   * @return true if saturated
+   */
+  public boolean isSaturated() {
+    return queueDepth.get() >= Settings.SEARCH_EVENT_QUEUE_HIGH_WATER.getValue();
+  }
+
+  /**
+   * Get the number of events waiting to be dispatched.
+   *
+   * @return the queue depth
+   */
+  public int queueDepth() {
+    return queueDepth.get();
+  }
+
+  /**
+   * Get the total number of events passed to the platform.
+   *
+   * @return the dispatched event count
+   */
+  public long dispatchedEvents() {
+    return dispatchedEvents.sum();
+  }
+
+  /**
+   * Get the total number of high frequency events dropped because the queue was saturated.
+   *
+   * @return the dropped event count
+   */
+  public long droppedEvents() {
+    return droppedEvents.sum();
+  }
+
+  /**
+   * Get the total number of visitation events folded into a later visitation of the same session.
+   *
+   * @return the coalesced event count
+   */
+  public long coalescedEvents() {
+    return coalescedEvents.sum();
+  }
+
+  /**
+   * Get how long the most recent drain of the queue took.
+   *
+   * @return the duration, in nanoseconds
+   */
+  public long lastDrainNanos() {
+    return lastDrainNanos;
+  }
+
+  /**
+   * Get the longest time an event dispatched in the most recent drain had waited in the queue.
+   *
+   * @return the latency, in nanoseconds
+   */
+  public long lastDrainLatencyNanos() {
+    return lastDrainLatencyNanos;
+  }
+
   public boolean isEmpty() {
     return events.isEmpty();
   }
 
+  /**
+   * Whether an event of the given type should be created and dispatched for a session.
+   * Events that are not high frequency are always observed,
+   * and high frequency events are never observed while the queue {@link #isSaturated() is saturated}. Thread-safe.
+   *
+   * @param session the session the event would be for
+   * @param type    the type of event
+   * @return true if the event should be dispatched
+   */
+  public boolean isObserved(SearchSession session, SearchEvent.EventType type) {
+    if (!type.isHighFrequency()) {
+      return true;
+    }
+    if (isSaturated()) {
+      return false;
+    }
+    if (!sessionSubscriptions.isEmpty()
+        && sessionSubscriptions.getOrDefault(session.uuid(), Collections.emptySet()).contains(type)) {
+      return true;
+    }
+    if ((externallyObserved & (1 << type.ordinal())) == 0) {
+      return false;
+    }
+    int sampleInterval = Settings.SEARCH_EVENT_SAMPLE_INTERVAL.getValue();
+    return sampleInterval <= 1 || sampleCounters.getAndIncrement(type.ordinal()) % sampleInterval == 0;
+  }
+
+  /**
+   * Observe every event of the given types for a session, until it {@link #unsubscribe}s. Thread-safe.
+   *
+   * @param session the session
+   * @param types   the event types
+   */
+  public void subscribe(SearchSession session, SearchEvent.EventType... types) {
+    Set<SearchEvent.EventType> subscriptions = EnumSet.noneOf(SearchEvent.EventType.class);
+    Collections.addAll(subscriptions, types);
+    sessionSubscriptions.merge(session.uuid(), subscriptions, (existing, added) -> {
+      Set<SearchEvent.EventType> merged = EnumSet.copyOf(existing);
+      merged.addAll(added);
+      return merged;
+    });
+  }
+
+  /**
+   * Remove all of a session's subscriptions. Thread-safe.
+   *
+   * @param session the session
+   */
+  public void unsubscribe(SearchSession session) {
+    sessionSubscriptions.remove(session.uuid());
+  }
+
+  /**
+   * Ask the platform again which event types are listened to from outside of Journey.
+   * This should be run regularly on the thread that the platform's listeners are registered on.
+   */
+  protected void refreshExternalSubscriptions() {
+    int observed = 0;
+    for (SearchEvent.EventType type : SearchEvent.EventType.values()) {
+      if (externalSubscriptionCheck.test(type)) {
+        observed |= 1 << type.ordinal();
+      }
+    }
+    externallyObserved = observed;
+  }
+
   public final static class Editor<E> {
     private final SearchDispatcher dispatcher;
 
@@ -68,6 +235,16 @@ public abstract class SearchDispatcher {
       dispatcher.externalDispatcher = (Consumer<Object>) externalDispatcher;
     }
 
+    /**
+     * Set the check for whether anything besides Journey itself listens to an event type.
+     * By default, every event type is assumed to have listeners.
+     *
+     * @param externalSubscriptionCheck the check
+     */
+    public void setExternalSubscriptionCheck(Predicate<SearchEvent.EventType> externalSubscriptionCheck) {
+      dispatcher.externalSubscriptionCheck = externalSubscriptionCheck;
+    }
+
     @SuppressWarnings("unchecked")
     public <S extends SearchEvent> void registerEvent(SearchEventConversion<S, E> eventConversion,
                                                             SearchEvent.EventType eventType) {
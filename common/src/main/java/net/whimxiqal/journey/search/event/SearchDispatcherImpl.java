@@ -24,19 +24,88 @@
 package net.whimxiqal.journey.search.event;
 
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import net.whimxiqal.journey.Journey;
+import net.whimxiqal.journey.config.Settings;
 import net.whimxiqal.journey.util.Initializable;
 
+/**
+ * The search dispatcher that drains its queue once every tick on the main thread.
+ * Each drain is bounded by {@link Settings#SEARCH_EVENT_DISPATCH_MILLIS} and
+ * {@link Settings#SEARCH_EVENT_DISPATCH_MAX_EVENTS} so that a burst of searches cannot stall the server;
+ * whatever is left over waits for the next tick.
+ * While the queue holds more than a single drain's worth of events, consecutive visitation events
+ * of the same session are coalesced into the latest one.
+ */
 public final class SearchDispatcherImpl extends SearchDispatcher implements Initializable {
   private UUID dispatchTaskUuid;
+  private boolean saturated = false;
 
   @Override
   public void initialize() {
-    dispatchTaskUuid = Journey.get().proxy().schedulingManager().scheduleRepeat(() -> {
-      while (!events.isEmpty()) {
-        dispatchHelper(events.remove());
+    dispatchTaskUuid = Journey.get().proxy().schedulingManager().scheduleRepeat(this::drain, false, 1);
+  }
+
+  private void drain() {
+    refreshExternalSubscriptions();
+    long start = System.nanoTime();
+    int budgetMillis = Settings.SEARCH_EVENT_DISPATCH_MILLIS.getValue();
+    long deadline = budgetMillis > 0 ? start + TimeUnit.MILLISECONDS.toNanos(budgetMillis) : Long.MAX_VALUE;
+    int maxEvents = Settings.SEARCH_EVENT_DISPATCH_MAX_EVENTS.getValue();
+    if (maxEvents <= 0) {
+      maxEvents = Integer.MAX_VALUE;
+    }
+    boolean behind = queueDepth.get() > maxEvents;
+    if (isSaturated() != saturated) {
+      saturated = !saturated;
+      if (saturated) {
+        Journey.logger().debug("Search event queue is saturated (" + queueDepth.get()
+            + " events), dropping high frequency events");
+      } else {
+        Journey.logger().debug("Search event queue is no longer saturated");
+      }
+    }
+
+    int dispatched = 0;
+    long latency = 0;
+    SearchEvent event;
+    while (dispatched < maxEvents && (event = events.poll()) != null) {
+      queueDepth.decrementAndGet();
+      if (behind) {
+        event = coalesce(event);
+      }
+      latency = Math.max(latency, start - event.enqueuedNanos);
+      dispatchHelper(event);
+      dispatched++;
+      if (System.nanoTime() >= deadline) {
+        break;
       }
-    }, false, 1);
+    }
+    dispatchedEvents.add(dispatched);
+    lastDrainLatencyNanos = latency;
+    lastDrainNanos = System.nanoTime() - start;
+  }
+
+  /**
+   * Skip over every visitation event queued directly behind this one for the same session.
+   *
+   * @param event the event just taken from the queue
+   * @return the last event of the burst
+   */
+  private SearchEvent coalesce(SearchEvent event) {
+    if (event.type() != SearchEvent.EventType.VISITATION) {
+      return event;
+    }
+    SearchEvent next;
+    while ((next = events.peek()) != null
+        && next.type() == SearchEvent.EventType.VISITATION
+        && next.getSession() == event.getSession()) {
+      events.poll();
+      queueDepth.decrementAndGet();
+      coalescedEvents.increment();
+      event = next;
+    }
+    return event;
   }
 
   /**
@@ -58,6 +127,9 @@ public final class SearchDispatcherImpl extends SearchDispatcher implements Init
 
   public void shutdown() {
     Journey.get().proxy().schedulingManager().cancelTask(dispatchTaskUuid);
+    Journey.logger().debug("Search event dispatcher: " + dispatchedEvents() + " dispatched, "
+        + droppedEvents() + " dropped, " + coalescedEvents() + " coalesced, "
+        + queueDepth() + " left in queue");
   }
 
 }
@@ -35,6 +35,8 @@ public abstract class SearchEvent {
   public static int ID = 4;
   private final SearchSession session;
   private final Date date = new Date();
+  // set by the dispatcher when queued, to measure dispatch latency
+  long enqueuedNanos;
 
   /**
    * General constructor.
@@ -71,18 +73,36 @@ public abstract class SearchEvent {
    * This value is used for keying purposes upon registration.
    */
   public enum EventType {
-    FOUND_SOLUTION,
-    IGNORE_CACHE,
-    MODE_FAILURE,
-    MODE_SUCCESS,
-    START_ITINERARY,
-    START_PATH,
-    START,
-    STEP,
-    STOP_ITINERARY,
-    STOP_PATH,
-    STOP,
-    VISITATION
+    FOUND_SOLUTION(false),
+    IGNORE_CACHE(false),
+    MODE_FAILURE(true),
+    MODE_SUCCESS(true),
+    START_ITINERARY(false),
+    START_PATH(false),
+    START(false),
+    STEP(true),
+    STOP_ITINERARY(false),
+    STOP_PATH(false),
+    STOP(false),
+    VISITATION(true);
+
+    private final boolean highFrequency;
+
+    EventType(boolean highFrequency) {
+      this.highFrequency = highFrequency;
+    }
+
+    /**
+     * Whether events of this type are dispatched for individual cells during a search,
+     * as opposed to once per search, itinerary, or path.
+     * These are only created if somebody is listening for them,
+     * see {@link SearchDispatcher#isObserved(SearchSession, EventType)}.
+     *
+     * @return true if high frequency
+     */
+    public boolean isHighFrequency() {
+      return highFrequency;
+    }
   }
 
 }
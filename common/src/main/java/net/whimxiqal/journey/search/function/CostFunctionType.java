@@ -29,5 +29,6 @@ public enum CostFunctionType {
   MANHATTAN_DISTANCE,
   HEIGHT,
   EUCLIDEAN_PLANAR_AVERAGE,
+  LANDMARK,
   OTHER
 }
@@ -0,0 +1,119 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.search.function;
+
+import net.whimxiqal.journey.Cell;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * This scoring function uses landmarks (the "ALT" technique): cells to and from which the true travel distances
+ * were calculated ahead of time. By the triangle inequality, getting from a cell to the destination costs at least
+ * as much as the difference between the distances from a landmark to the destination and from the landmark to the cell.
+ * Unlike a straight-line estimate, this accounts for the detours that terrain forces, like ravines, walls, and oceans.
+ *
+ * <p>The distances are only known per chunk, so the bound is relaxed by a little to make up for where
+ * in their chunks the cell and the destination lie. Where it isn't known, the other cost function is used,
+ * and the greater of the two estimates is used otherwise.
+ *
+ * <p>This estimate is not admissible. The relaxation does not always cover where in its chunk a cell lies,
+ * and the distances are found over the graph of chunk entrances, which only crosses
+ * between chunks at some of their border cells, so they may be longer than the true ones.
+ * It can overestimate, and a trial using it may find a longer path than the shortest one, in exchange
+ * for searching less.
+ */
+public class LandmarkCostFunction implements CostFunction {
+
+  // the furthest a cell may be from where movement enters its chunk, roughly
+  private final static double CHUNK_SLACK = 24;
+
+  private final Cell destination;
+  private final Distances distances;
+  private final boolean reverse;
+  private final CostFunction fallback;
+  private final float[] destinationDistances;
+
+  /**
+   * Constructor.
+   *
+   * @param destination the cell to which the cost is estimated
+   * @param distances   the distances from the landmarks of the destination's domain
+   * @param reverse     whether the cost is estimated from the destination to a cell instead
+   * @param fallback    the cost function to use where the landmarks give no better estimate
+   */
+  public LandmarkCostFunction(Cell destination, Distances distances, boolean reverse, CostFunction fallback) {
+    this.destination = destination;
+    this.distances = distances;
+    this.reverse = reverse;
+    this.fallback = fallback;
+    this.destinationDistances = distances.fromLandmarks(destination.blockX() >> 4, destination.blockZ() >> 4);
+  }
+
+  @Override
+  public CostFunctionType getType() {
+    return CostFunctionType.LANDMARK;
+  }
+
+  @Override
+  public Double apply(Cell cell) {
+    double estimate = fallback.apply(cell);
+    if (destinationDistances == null) {
+      return estimate;
+    }
+    float[] cellDistances = distances.fromLandmarks(cell.blockX() >> 4, cell.blockZ() >> 4);
+    if (cellDistances == null) {
+      return estimate;
+    }
+    double bound = 0;
+    for (int i = 0; i < destinationDistances.length; i++) {
+      // NaN where a landmark didn't reach the chunk, which never compares greater
+      double difference = reverse
+          ? cellDistances[i] - destinationDistances[i]
+          : destinationDistances[i] - cellDistances[i];
+      if (difference > bound) {
+        bound = difference;
+      }
+    }
+    return Math.max(estimate, bound - CHUNK_SLACK);
+  }
+
+  /**
+   * The distances from the landmarks of a domain to its chunks.
+   */
+  @FunctionalInterface
+  public interface Distances {
+
+    /**
+     * Get the distance from each landmark to the closest place at which movement enters a chunk,
+     * always in the same order of landmarks.
+     *
+     * @param chunkX the chunk's x coordinate
+     * @param chunkZ the chunk's z coordinate
+     * @return the distances, which are NaN for landmarks that didn't reach the chunk, or null if none did
+     */
+    @Nullable
+    float[] fromLandmarks(int chunkX, int chunkZ);
+
+  }
+
+}
@@ -0,0 +1,238 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.search.graph;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary min-heap of non-negative integer elements, each with a double key.
+ * The heap keeps track of where every element lives so an element's key can be
+ * changed in place in logarithmic time, which {@link java.util.PriorityQueue} cannot do.
+ *
+ * <p>Elements are expected to be dense indices into some other storage,
+ * like the node arrays of a search, so the position table grows as needed
+ * to fit the largest element inserted.
+ */
+public final class IndexedMinHeap {
+
+  private static final int ABSENT = -1;
+
+  private int[] heap;       // heap position -> element
+  private double[] keys;    // element -> key
+  private int[] positions;  // element -> heap position, or ABSENT
+  private int size = 0;
+
+  /**
+   * General constructor.
+   *
+   * @param initialCapacity the number of elements to make room for up front
+   */
+  public IndexedMinHeap(int initialCapacity) {
+    int capacity = Math.max(initialCapacity, 2);
+    heap = new int[capacity];
+    keys = new double[capacity];
+    positions = new int[capacity];
+    Arrays.fill(positions, ABSENT);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Whether the element is currently queued in this heap.
+   *
+   * @param element the element
+   * @return true if queued
+   */
+  public boolean contains(int element) {
+    return element < positions.length && positions[element] != ABSENT;
+  }
+
+  /**
+   * Get the key of a queued element.
+   *
+   * @param element the element
+   * @return the key
+   */
+  public double key(int element) {
+    if (!contains(element)) {
+      throw new NoSuchElementException("Element " + element + " is not in the heap");
+    }
+    return keys[element];
+  }
+
+  /**
+   * Add an element which is not yet queued.
+   *
+   * @param element the element
+   * @param key     the key to order it by
+   */
+  public void insert(int element, double key) {
+    if (element < 0) {
+      throw new IllegalArgumentException("Heap elements must be non-negative");
+    }
+    ensureElementCapacity(element + 1);
+    if (positions[element] != ABSENT) {
+      throw new IllegalArgumentException("Element " + element + " is already in the heap");
+    }
+    if (size == heap.length) {
+      heap = Arrays.copyOf(heap, heap.length << 1);
+    }
+    heap[size] = element;
+    positions[element] = size;
+    keys[element] = key;
+    siftUp(size++);
+  }
+
+  /**
+   * Lower the key of a queued element.
+   *
+   * @param element the element
+   * @param key     the new key, which must not be larger than the current one
+   */
+  public void decreaseKey(int element, double key) {
+    if (key > key(element)) {
+      throw new IllegalArgumentException("The new key " + key + " is larger than the current key " + keys[element]);
+    }
+    keys[element] = key;
+    siftUp(positions[element]);
+  }
+
+  /**
+   * Insert the element if it is not queued, otherwise move it to its new key.
+   *
+   * @param element the element
+   * @param key     the key
+   */
+  public void insertOrUpdate(int element, double key) {
+    if (!contains(element)) {
+      insert(element, key);
+      return;
+    }
+    double previous = keys[element];
+    keys[element] = key;
+    if (key < previous) {
+      siftUp(positions[element]);
+    } else {
+      siftDown(positions[element]);
+    }
+  }
+
+  /**
+   * Get the element with the smallest key without removing it.
+   *
+   * @return the element
+   */
+  public int peek() {
+    if (size == 0) {
+      throw new NoSuchElementException("The heap is empty");
+    }
+    return heap[0];
+  }
+
+  /**
+   * Remove and return the element with the smallest key.
+   *
+   * @return the element
+   */
+  public int poll() {
+    int top = peek();
+    positions[top] = ABSENT;
+    size--;
+    if (size > 0) {
+      heap[0] = heap[size];
+      positions[heap[0]] = 0;
+      siftDown(0);
+    }
+    return top;
+  }
+
+  /**
+   * Remove every element.
+   */
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      positions[heap[i]] = ABSENT;
+    }
+    size = 0;
+  }
+
+  private void ensureElementCapacity(int capacity) {
+    if (capacity <= positions.length) {
+      return;
+    }
+    int newCapacity = Math.max(capacity, positions.length << 1);
+    int oldCapacity = positions.length;
+    positions = Arrays.copyOf(positions, newCapacity);
+    Arrays.fill(positions, oldCapacity, newCapacity, ABSENT);
+    keys = Arrays.copyOf(keys, newCapacity);
+  }
+
+  private void siftUp(int position) {
+    int element = heap[position];
+    double key = keys[element];
+    while (position > 0) {
+      int parentPosition = (position - 1) >>> 1;
+      int parent = heap[parentPosition];
+      if (keys[parent] <= key) {
+        break;
+      }
+      heap[position] = parent;
+      positions[parent] = position;
+      position = parentPosition;
+    }
+    heap[position] = element;
+    positions[element] = position;
+  }
+
+  private void siftDown(int position) {
+    int element = heap[position];
+    double key = keys[element];
+    int half = size >>> 1;
+    while (position < half) {
+      int childPosition = (position << 1) + 1;
+      int child = heap[childPosition];
+      int rightPosition = childPosition + 1;
+      if (rightPosition < size && keys[heap[rightPosition]] < keys[child]) {
+        childPosition = rightPosition;
+        child = heap[childPosition];
+      }
+      if (key <= keys[child]) {
+        break;
+      }
+      heap[position] = child;
+      positions[child] = position;
+      position = childPosition;
+    }
+    heap[position] = element;
+    positions[element] = position;
+  }
+
+}
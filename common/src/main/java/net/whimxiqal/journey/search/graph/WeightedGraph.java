@@ -23,15 +23,23 @@
 
 package net.whimxiqal.journey.search.graph;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Predicate;
-import net.whimxiqal.journey.Journey;
 import net.whimxiqal.journey.tools.AlternatingList;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -43,40 +51,79 @@ import org.jetbrains.annotations.Nullable;
  * to the graph when traversing from one node to another.
  * The solution of any solved path is one which minimized the distance between the nodes.
  *
- * <p>The {@link #findMinimumPath} method uses Dijkstra's algorithm.
+ * <p>The {@link #findMinimumPath} method uses Dijkstra's algorithm,
+ * and {@link #findMinimumPaths} uses it repeatedly to find the next best paths too.
+ *
+ * <p>Nodes are numbered in the order they are added and their outgoing edges are kept in arrays.
+ * The state of a query lives in scratch space borrowed for the duration of the query,
+ * so queries do not modify the graph and may run on several threads at once.
  *
  * @param <N> the graph node type
  * @param <E> the graph edge type
  */
 public abstract class WeightedGraph<N, E> {
 
-  private final Set<Node> nodes = new HashSet<>();
-  private final Table edgeTable = new Table();
-  private final HashMap<N, Node> dataToNodes = new HashMap<>();
+  private static final int NO_NODE = -1;
+  private static final int INITIAL_DEGREE = 4;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<N, Integer> dataToNodes = new HashMap<>();
+  private final List<N> nodeData = new ArrayList<>();
+  // the destination nodes and edges leaving each node, and how many there are
+  private int[][] edgeTargets = new int[16][];
+  private Object[][] edges = new Object[16][];
+  private int[] degrees = new int[16];
+  private final ConcurrentLinkedQueue<Scratch> scratchPool = new ConcurrentLinkedQueue<>();
 
   /**
    * Add an edge to the graph.
+   * An existing edge between the same nodes is replaced.
    *
    * @param origin      the origin node of the edge
    * @param destination the destination node of the edge
    * @param edge        the edge itself
    */
   public void addEdge(@NotNull N origin, @NotNull N destination, @NotNull E edge) {
-    Node originNode = makeOrGetNode(origin);
-    Node destinationNode = makeOrGetNode(destination);
-    this.nodes.add(originNode);
-    this.nodes.add(destinationNode);
-    this.edgeTable.put(originNode, destinationNode, edge);
+    lock.writeLock().lock();
+    try {
+      int originNode = makeOrGetNode(origin);
+      int destinationNode = makeOrGetNode(destination);
+      int degree = degrees[originNode];
+      for (int i = 0; i < degree; i++) {
+        if (edgeTargets[originNode][i] == destinationNode) {
+          edges[originNode][i] = edge;
+          return;
+        }
+      }
+      if (edgeTargets[originNode] == null) {
+        edgeTargets[originNode] = new int[INITIAL_DEGREE];
+        edges[originNode] = new Object[INITIAL_DEGREE];
+      } else if (degree == edgeTargets[originNode].length) {
+        edgeTargets[originNode] = Arrays.copyOf(edgeTargets[originNode], degree << 1);
+        edges[originNode] = Arrays.copyOf(edges[originNode], degree << 1);
+      }
+      edgeTargets[originNode][degree] = destinationNode;
+      edges[originNode][degree] = edge;
+      degrees[originNode] = degree + 1;
+    } finally {
+      lock.writeLock().unlock();
+    }
   }
 
-  private Node makeOrGetNode(N data) {
-    Node existingNode = dataToNodes.get(data);
+  private int makeOrGetNode(N data) {
+    Integer existingNode = dataToNodes.get(data);
     if (existingNode != null) {
       return existingNode;
     }
-    existingNode = new Node(data);
-    dataToNodes.put(data, existingNode);
-    return existingNode;
+    int node = nodeData.size();
+    nodeData.add(data);
+    dataToNodes.put(data, node);
+    if (node == degrees.length) {
+      edgeTargets = Arrays.copyOf(edgeTargets, node << 1);
+      edges = Arrays.copyOf(edges, node << 1);
+      degrees = Arrays.copyOf(degrees, node << 1);
+    }
+    return node;
   }
 
   protected final AlternatingList<N, E, Object> findMinimumPath(N origin, N destination, Predicate<E> edgeFilter) {
@@ -85,71 +132,187 @@ public abstract class WeightedGraph<N, E> {
 
   @Nullable
   protected final AlternatingList<N, E, Object> findMinimumPath(N origin, Predicate<N> done, Predicate<E> edgeFilter) {
-    Node originNode = makeOrGetNode(origin);
+    lock.readLock().lock();
+    Scratch scratch = borrowScratch();
+    try {
+      int originNode = nodeOf(origin);
+      if (originNode == NO_NODE) {
+        // The origin has no edges, so it can only reach itself
+        return done.test(origin) ? AlternatingList.<N, E, Object>builder(origin).build() : null;
+      }
+      List<Integer> path = findMinimumPath(scratch, originNode, done, edgeFilter, new BitSet(), Collections.emptySet());
+      if (path == null) {
+        return null;  // Could not find it
+      }
+      return toAlternatingList(path);
+    } finally {
+      scratchPool.offer(scratch);
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Find the shortest paths from the origin to a node that satisfies the predicate,
+   * in order of increasing length, using Yen's k-shortest paths algorithm.
+   * No path visits the same node twice.
+   *
+   * @param origin     the origin
+   * @param done       the predicate determining whether a node is a destination
+   * @param edgeFilter the predicate determining whether an edge may be used
+   * @param count      the maximum number of paths to find
+   * @return the paths, shortest first. Fewer than the requested count are returned if there are no more paths.
+   */
+  @NotNull
+  protected final List<AlternatingList<N, E, Object>> findMinimumPaths(N origin, Predicate<N> done, Predicate<E> edgeFilter, int count) {
+    if (count <= 0) {
+      return new ArrayList<>();
+    }
+    lock.readLock().lock();
+    Scratch scratch = borrowScratch();
+    try {
+      int originNode = nodeOf(origin);
+      if (originNode == NO_NODE) {
+        // The origin has no edges, so it can only reach itself
+        List<AlternatingList<N, E, Object>> paths = new ArrayList<>(1);
+        if (done.test(origin)) {
+          paths.add(AlternatingList.<N, E, Object>builder(origin).build());
+        }
+        return paths;
+      }
+      List<List<Integer>> found = new ArrayList<>(count);
+      List<Integer> first = findMinimumPath(scratch, originNode, done, edgeFilter, new BitSet(), Collections.emptySet());
+      if (first != null) {
+        found.add(first);
+      }
 
-    PriorityQueue<Node> toVisit = new PriorityQueue<>(Comparator.comparingDouble(n -> n.distance));
-    Set<Node> visited = new HashSet<>();
+      PriorityQueue<Candidate> candidates = new PriorityQueue<>(Comparator.comparingDouble(candidate -> candidate.length));
+      Set<List<Integer>> seen = new HashSet<>(found);
+      while (!found.isEmpty() && found.size() < count) {
+        List<Integer> previous = found.get(found.size() - 1);
+        for (int i = 0; i < previous.size() - 1; i++) {
+          int spur = previous.get(i);
+          List<Integer> root = previous.subList(0, i + 1);
+
+          // Paths sharing this root may not leave the spur the same way again
+          Set<Object> excludedEdges = Collections.newSetFromMap(new IdentityHashMap<>());
+          for (List<Integer> path : found) {
+            if (path.size() > i + 1 && path.subList(0, i + 1).equals(root)) {
+              excludedEdges.add(edge(path.get(i), path.get(i + 1)));
+            }
+          }
+          // Nor may they loop back through the root
+          BitSet excludedNodes = new BitSet();
+          for (int j = 0; j < i; j++) {
+            excludedNodes.set(root.get(j));
+          }
+
+          List<Integer> spurPath = findMinimumPath(scratch, spur, done, edgeFilter, excludedNodes, excludedEdges);
+          if (spurPath == null) {
+            continue;
+          }
+          List<Integer> path = new ArrayList<>(root.subList(0, i));
+          path.addAll(spurPath);
+          if (seen.add(path)) {
+            candidates.add(new Candidate(path, length(path)));
+          }
+        }
+        if (candidates.isEmpty()) {
+          break;
+        }
+        found.add(candidates.poll().path);
+      }
+
+      List<AlternatingList<N, E, Object>> paths = new ArrayList<>(found.size());
+      for (List<Integer> path : found) {
+        paths.add(toAlternatingList(path));
+      }
+      return paths;
+    } finally {
+      scratchPool.offer(scratch);
+      lock.readLock().unlock();
+    }
+  }
 
-    originNode.setDistance(0);
-    originNode.setPrevious(null);
-    toVisit.add(originNode);
+  @SuppressWarnings("unchecked")
+  @Nullable
+  private List<Integer> findMinimumPath(Scratch scratch, int originNode, Predicate<N> done, Predicate<E> edgeFilter,
+                                        BitSet excludedNodes, Set<Object> excludedEdges) {
+    scratch.reset(nodeData.size());
+    scratch.reach(originNode, 0, NO_NODE);
 
-    Node current;
-    while (!toVisit.isEmpty()) {
-      current = toVisit.poll();
-      visited.add(current);
+    while (!scratch.toVisit.isEmpty()) {
+      int current = scratch.toVisit.poll();
+      scratch.close(current);
 
-      if (done.test(current.data)) {
+      if (done.test(nodeData.get(current))) {
         // We've reached destination. Package solution.
-        AlternatingList.Builder<N, E, Object> pathBuilder = AlternatingList.builder(current.data);
-        while (!current.equals(originNode)) {
-          pathBuilder.addFirst(current.getPrevious().data,
-              Objects.requireNonNull(this.edgeTable.getEdge(current.getPrevious(), current)));
-          current = current.getPrevious();
+        LinkedList<Integer> path = new LinkedList<>();
+        for (int node = current; node != NO_NODE; node = scratch.previous[node]) {
+          path.addFirst(node);
         }
-
-        resetNodes();
-        return pathBuilder.build();
+        return path;
       }
+
       // Not yet done
-      Map<Node, E> edges = edgeTable.edgesFrom(current);
-      if (edges == null) {
-        continue;
-      }
-      for (Map.Entry<Node, E> outlet : edgeTable.edgesFrom(current).entrySet()) {
-        // outlet.getKey() is destination
-        // outlet.getValue() is edge from 'current' to destination
-        if (!edgeFilter.test(outlet.getValue())) {
+      double currentDistance = scratch.distance[current];
+      int[] targets = edgeTargets[current];
+      Object[] outlets = edges[current];
+      for (int i = 0; i < degrees[current]; i++) {
+        int target = targets[i];
+        E edge = (E) outlets[i];
+        if (!edgeFilter.test(edge) || excludedEdges.contains(edge) || excludedNodes.get(target)) {
           // manually filtered out this edge
           continue;
         }
-        if (visited.contains(outlet.getKey())) {
+        if (scratch.isClosed(target)) {
           // we've already gotten to this node (in a faster way)
           continue;
         }
-        // the outlet constructs with max double distance, aka, infinite distance
-        if (outlet.getKey().getDistance() > current.getDistance() + edgeLength(outlet.getValue())) {
+        double distance = currentDistance + edgeLength(edge) + nodeWeight(nodeData.get(target));
+        if (!scratch.isReached(target) || distance < scratch.distance[target]) {
           // A better path for this node would be to come from current.
-          toVisit.remove(outlet.getKey());  // Remove from waiting queue in case it was already queued before
-          outlet.getKey().setDistance(current.getDistance()
-              + edgeLength(outlet.getValue())
-              + nodeWeight(outlet.getKey().getData()));
-          outlet.getKey().setPrevious(current);
-          toVisit.add(outlet.getKey());
+          scratch.reach(target, distance, current);
         }
       }
     }
 
-    resetNodes();
-    return null;  // Could not find it
+    return null;
+  }
+
+  private int nodeOf(N data) {
+    Integer node = dataToNodes.get(data);
+    return node == null ? NO_NODE : node;
+  }
+
+  @SuppressWarnings("unchecked")
+  private E edge(int start, int end) {
+    for (int i = 0; i < degrees[start]; i++) {
+      if (edgeTargets[start][i] == end) {
+        return (E) edges[start][i];
+      }
+    }
+    throw new IllegalStateException("There is no edge between nodes " + start + " and " + end);
+  }
+
+  private double length(List<Integer> path) {
+    double length = 0;
+    for (int i = 1; i < path.size(); i++) {
+      length += edgeLength(edge(path.get(i - 1), path.get(i))) + nodeWeight(nodeData.get(path.get(i)));
+    }
+    return length;
+  }
 
+  private AlternatingList<N, E, Object> toAlternatingList(List<Integer> path) {
+    AlternatingList.Builder<N, E, Object> pathBuilder = AlternatingList.builder(nodeData.get(path.get(0)));
+    for (int i = 1; i < path.size(); i++) {
+      pathBuilder.addLast(edge(path.get(i - 1), path.get(i)), nodeData.get(path.get(i)));
+    }
+    return pathBuilder.build();
   }
 
-  private void resetNodes() {
-    this.nodes.forEach(node -> {
-      node.setDistance(Double.MAX_VALUE);
-      node.setPrevious(null);
-    });
+  private Scratch borrowScratch() {
+    Scratch scratch = scratchPool.poll();
+    return scratch == null ? new Scratch() : scratch;
   }
 
   protected abstract double nodeWeight(N nodeData);
@@ -157,100 +320,63 @@ public abstract class WeightedGraph<N, E> {
   protected abstract double edgeLength(E edge);
 
   /**
-   * A node of this {@link WeightedGraph}.
-   * This node acts as a wrapper around some important data which this
-   * graph is wrapping to organize a path from the internal data piece,
-   * intermittently using edges to get there.
+   * The state of a single query.
+   * Instead of clearing every node before each query, the query's generation is stored
+   * alongside each node's state when it is set, and state from any other generation is ignored.
    */
-  private class Node {
-
-    private final N data;
-    private double distance = Double.MAX_VALUE;
-    private Node previous = null;
-
-    /**
-     * General constructor.
-     *
-     * @param data the content of the node
-     */
-    public Node(N data) {
-      this.data = data;
-    }
-
-    /**
-     * Get the data wrapped into this node.
-     *
-     * @return the data
-     */
-    public N getData() {
-      return data;
-    }
-
-    /**
-     * Get the current total distance of this node from the origin.
-     *
-     * @return the distance
-     */
-    public double getDistance() {
-      return distance;
+  private static final class Scratch {
+    private final IndexedMinHeap toVisit = new IndexedMinHeap(16);
+    private double[] distance = new double[0];
+    private int[] previous = new int[0];
+    // the generation in which each node was reached and in which it was closed
+    private int[] reached = new int[0];
+    private int[] closed = new int[0];
+    private int generation = 0;
+
+    void reset(int nodeCount) {
+      if (distance.length < nodeCount) {
+        distance = Arrays.copyOf(distance, nodeCount);
+        previous = Arrays.copyOf(previous, nodeCount);
+        reached = Arrays.copyOf(reached, nodeCount);
+        closed = Arrays.copyOf(closed, nodeCount);
+      }
+      toVisit.clear();
+      generation++;
+      if (generation == Integer.MAX_VALUE) {
+        // Start over before the generations wrap around and old state looks new again
+        Arrays.fill(reached, 0);
+        Arrays.fill(closed, 0);
+        generation = 1;
+      }
     }
 
-    /**
-     * Set the current total distance of this node from the origin.
-     *
-     * @param distance the distance
-     */
-    public void setDistance(double distance) {
-      this.distance = distance;
+    boolean isReached(int node) {
+      return reached[node] == generation;
     }
 
-    /**
-     * Get the node previous to this one in the current operation
-     * trying to solve the graph.
-     *
-     * @return the previous node
-     */
-    public Node getPrevious() {
-      return previous;
+    void reach(int node, double nodeDistance, int previousNode) {
+      reached[node] = generation;
+      distance[node] = nodeDistance;
+      previous[node] = previousNode;
+      toVisit.insertOrUpdate(node, nodeDistance);
     }
 
-    /**
-     * Set the node previous to this one in the current operation
-     * trying to solve the graph.
-     *
-     * @param previous set the previous node
-     */
-    public void setPrevious(Node previous) {
-      this.previous = previous;
+    boolean isClosed(int node) {
+      return closed[node] == generation;
     }
 
-    @Override
-    public String toString() {
-      return String.format("Node: {data: %s, distance: %s, weight: %f}",
-          data.hashCode(),
-          distance > Double.MAX_VALUE * .9
-              ? "inf"
-              : distance, nodeWeight(data));
+    void close(int node) {
+      closed[node] = generation;
     }
   }
 
-  private class Table {
-    private final Map<Node, Map<Node, E>> edgeMap = new HashMap<>();
-
-    public void put(Node start, Node end, E edge) {
-      edgeMap.computeIfAbsent(start, (k) -> new HashMap<>()).put(end, edge);
-    }
-
-    public Map<Node, E> edgesFrom(Node start) {
-      return edgeMap.get(start);
-    }
+  private static final class Candidate {
+    private final List<Integer> path;
+    private final double length;
 
-    public E getEdge(Node start, Node end) {
-      if (edgeMap.containsKey(start)) {
-        return edgeMap.get(start).get(end);
-      } else {
-        return null;
-      }
+    private Candidate(List<Integer> path, double length) {
+      this.path = path;
+      this.length = length;
     }
   }
 
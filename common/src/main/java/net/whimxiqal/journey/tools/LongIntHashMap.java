@@ -0,0 +1,158 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.tools;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from primitive longs to non-negative primitive ints.
+ * Keys and values are kept in flat arrays with linear probing, so there are no
+ * boxed keys or entry objects, which matters for maps holding hundreds of thousands
+ * of entries like the visited set of a path search.
+ *
+ * <p>Values must be non-negative because a negative value marks an empty slot.
+ * Entries cannot be removed individually; use {@link #clear()} instead.
+ */
+public final class LongIntHashMap {
+
+  public static final int MISSING = -1;
+  private static final double MAX_LOAD_FACTOR = 0.6;
+
+  private long[] keys;
+  private int[] values;
+  private int mask;
+  private int size = 0;
+  private int resizeThreshold;
+
+  /**
+   * General constructor.
+   *
+   * @param expectedSize the number of entries expected, to avoid early resizing
+   */
+  public LongIntHashMap(int expectedSize) {
+    int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / MAX_LOAD_FACTOR)) - 1) << 1;
+    allocate(capacity);
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new int[capacity];
+    Arrays.fill(values, MISSING);
+    mask = capacity - 1;
+    resizeThreshold = (int) (capacity * MAX_LOAD_FACTOR);
+  }
+
+  private static int slot(long key, int mask) {
+    // murmur3 64-bit finalizer, so packed coordinates spread over the whole table
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    key *= 0xc4ceb9fe1a85ec53L;
+    key ^= key >>> 33;
+    return (int) key & mask;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Get the value mapped to the key.
+   *
+   * @param key the key
+   * @return the value, or {@link #MISSING} if there is none
+   */
+  public int get(long key) {
+    int slot = slot(key, mask);
+    while (values[slot] != MISSING) {
+      if (keys[slot] == key) {
+        return values[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    return MISSING;
+  }
+
+  public boolean containsKey(long key) {
+    return get(key) != MISSING;
+  }
+
+  /**
+   * Map a key to a value.
+   *
+   * @param key   the key
+   * @param value the value, which must be non-negative
+   * @return the previous value, or {@link #MISSING} if there was none
+   */
+  public int put(long key, int value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("Values must be non-negative");
+    }
+    int slot = slot(key, mask);
+    while (values[slot] != MISSING) {
+      if (keys[slot] == key) {
+        int previous = values[slot];
+        values[slot] = value;
+        return previous;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    if (++size > resizeThreshold) {
+      rehash(keys.length << 1);
+    }
+    return MISSING;
+  }
+
+  /**
+   * Remove all entries, keeping the allocated capacity.
+   */
+  public void clear() {
+    Arrays.fill(values, MISSING);
+    size = 0;
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    allocate(capacity);
+    for (int i = 0; i < oldValues.length; i++) {
+      if (oldValues[i] == MISSING) {
+        continue;
+      }
+      int slot = slot(oldKeys[i], mask);
+      while (values[slot] != MISSING) {
+        slot = (slot + 1) & mask;
+      }
+      keys[slot] = oldKeys[i];
+      values[slot] = oldValues[i];
+    }
+  }
+
+}
@@ -32,6 +32,8 @@ CREATE TABLE journey_cached_paths (
     destination_y   INT             NOT NULL,
     destination_z   INT             NOT NULL,
     domain_id       BINARY(16)      NOT NULL,
+    cell_count      INT             NOT NULL    DEFAULT 0,
+    cells           BLOB,
     INDEX journey_cached_paths_idx (
         origin_x, origin_y, origin_z,
         destination_x, destination_y, destination_z,
@@ -39,29 +41,27 @@ CREATE TABLE journey_cached_paths (
     )
 );
 
-CREATE TABLE journey_cached_path_cells (
+CREATE TABLE journey_cached_path_modes (
     path_id         INT         NOT NULL,
-    x               INT         NOT NULL,
-    y               INT         NOT NULL,
-    z               INT         NOT NULL,
-    path_index      INT         NOT NULL,
-    mode_type       SMALLINT    NOT NULL,
-    FOREIGN KEY (path_id)
+    mode_type       SMALLINT  NOT NULL,
+    FOREIGN KEY     (path_id)
         REFERENCES  journey_cached_paths (id)
         ON DELETE   CASCADE
         ON UPDATE   CASCADE,
-    UNIQUE  (path_id, path_index),
+    UNIQUE  (path_id, mode_type),
     INDEX   (path_id)
 );
 
-CREATE TABLE journey_cached_path_modes (
+CREATE TABLE journey_cached_path_chunks (
     path_id         INT         NOT NULL,
-    mode_type       SMALLINT  NOT NULL,
+    domain_id       BINARY(16)  NOT NULL,
+    chunk_x         INT         NOT NULL,
+    chunk_z         INT         NOT NULL,
     FOREIGN KEY     (path_id)
         REFERENCES  journey_cached_paths (id)
         ON DELETE   CASCADE
         ON UPDATE   CASCADE,
-    UNIQUE  (path_id, mode_type),
+    INDEX   (domain_id, chunk_x, chunk_z),
     INDEX   (path_id)
 );
 
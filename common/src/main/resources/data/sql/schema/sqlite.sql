@@ -31,7 +31,9 @@ CREATE TABLE journey_cached_paths (
     destination_x   INT             NOT NULL,
     destination_y   INT             NOT NULL,
     destination_z   INT             NOT NULL,
-    domain_id       BINARY(16)      NOT NULL
+    domain_id       BINARY(16)      NOT NULL,
+    cell_count      INT             NOT NULL    DEFAULT 0,
+    cells           BLOB
 );
 CREATE INDEX journey_cached_paths_idx ON journey_cached_paths (
 	origin_x, origin_y, origin_z,
@@ -39,21 +41,6 @@ CREATE INDEX journey_cached_paths_idx ON journey_cached_paths (
 	domain_id
 );
 
-CREATE TABLE journey_cached_path_cells (
-    path_id         INTEGER     NOT NULL,
-    x               INT         NOT NULL,
-    y               INT         NOT NULL,
-    z               INT         NOT NULL,
-    path_index      INT         NOT NULL,
-    mode_type       SMALLINT    NOT NULL,
-    FOREIGN KEY (path_id)
-        REFERENCES  journey_cached_paths (id)
-        ON DELETE   CASCADE
-        ON UPDATE   CASCADE,
-    UNIQUE  (path_id, path_index)
-);
-CREATE INDEX journey_cached_path_cells_path_id_idx ON journey_cached_path_cells (path_id);
-
 CREATE TABLE journey_cached_path_modes (
     path_id         INTEGER   NOT NULL,
     mode_type       SMALLINT  NOT NULL,
@@ -65,6 +52,19 @@ CREATE TABLE journey_cached_path_modes (
 );
 CREATE INDEX journey_cached_path_modes_path_id_idx ON journey_cached_path_modes (path_id);
 
+CREATE TABLE journey_cached_path_chunks (
+    path_id         INTEGER     NOT NULL,
+    domain_id       BINARY(16)  NOT NULL,
+    chunk_x         INT         NOT NULL,
+    chunk_z         INT         NOT NULL,
+    FOREIGN KEY     (path_id)
+        REFERENCES  journey_cached_paths (id)
+        ON DELETE   CASCADE
+        ON UPDATE   CASCADE
+);
+CREATE INDEX journey_cached_path_chunks_chunk_idx ON journey_cached_path_chunks (domain_id, chunk_x, chunk_z);
+CREATE INDEX journey_cached_path_chunks_path_id_idx ON journey_cached_path_chunks (path_id);
+
 -- Journey Tunnel Cache
 
 CREATE TABLE journey_tunnels (
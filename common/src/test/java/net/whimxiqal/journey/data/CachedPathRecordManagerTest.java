@@ -0,0 +1,209 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.JourneyTestHarness;
+import net.whimxiqal.journey.navigation.ModeType;
+import net.whimxiqal.journey.navigation.Path;
+import net.whimxiqal.journey.navigation.Step;
+import net.whimxiqal.journey.search.PathTrial;
+import net.whimxiqal.journey.search.PlayerDestinationGoalSearchSession;
+import net.whimxiqal.journey.search.SearchSession;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CachedPathRecordManagerTest extends JourneyTestHarness {
+
+  private static final int DOMAIN = 0;
+  private static final Set<ModeType> MODES = Set.of(ModeType.WALK);
+
+  private static final Cell A = new Cell(0, 0, 0, DOMAIN);
+  private static final Cell B = new Cell(10, 0, 0, DOMAIN);
+  private static final Cell C = new Cell(0, 0, 40, DOMAIN);
+  private static final Cell D = new Cell(10, 0, 40, DOMAIN);
+
+  /**
+   * Counts every pair of endpoints it has to look up, and may run something in the middle of a lookup
+   * or fail the next lookups.
+   */
+  private static class CountingPathRecordManager extends TestPathRecordManager {
+    int lookups = 0;
+    Runnable duringLookup = null;
+    int failures = 0;
+
+    @Override
+    public @NotNull List<PathTrialRecord> getRecords(Cell origin, Cell destination) {
+      lookups++;
+      if (failures > 0) {
+        failures--;
+        throw new DataAccessException("unavailable");
+      }
+      List<PathTrialRecord> records = super.getRecords(origin, destination);
+      if (duringLookup != null) {
+        Runnable runnable = duringLookup;
+        duringLookup = null;
+        runnable.run();
+      }
+      return records;
+    }
+  }
+
+  private static Path straightPath(Cell origin, Cell destination) {
+    List<Step> steps = new ArrayList<>();
+    steps.add(new Step(origin, 0, ModeType.NONE));
+    for (int x = origin.blockX() + 1; x <= destination.blockX(); x++) {
+      steps.add(new Step(new Cell(x, origin.blockY(), origin.blockZ(), origin.domain()), 1, ModeType.WALK));
+    }
+    return new Path(origin, steps, steps.size() - 1);
+  }
+
+  private static void report(PathRecordManager manager, Cell origin, Cell destination) {
+    SearchSession session = new PlayerDestinationGoalSearchSession(UUID.randomUUID(), origin, destination, true);
+    manager.report(PathTrial.successful(session, origin, destination, List.of(), straightPath(origin, destination)),
+        MODES, 0);
+  }
+
+  @Test
+  void bulkLookupFillsCache() {
+    CountingPathRecordManager delegate = new CountingPathRecordManager();
+    CachedPathRecordManager cache = new CachedPathRecordManager(delegate);
+    report(cache, A, B);
+    report(cache, C, D);
+
+    Map<PathRecordManager.Endpoints, Path> paths = cache.getPaths(List.of(A, C), List.of(B, D), MODES);
+    Assertions.assertEquals(Set.of(new PathRecordManager.Endpoints(A, B), new PathRecordManager.Endpoints(C, D)),
+        paths.keySet());
+    Assertions.assertEquals(10, paths.get(new PathRecordManager.Endpoints(A, B)).getCost(), 0.001);
+    Assertions.assertEquals(4, delegate.lookups);
+
+    // every pair is in memory now, including the ones without a path
+    Assertions.assertEquals(paths, cache.getPaths(List.of(A, C), List.of(B, D), MODES));
+    Assertions.assertNotNull(cache.getPath(A, B, MODES));
+    Assertions.assertNull(cache.getPath(A, D, MODES));
+    Assertions.assertFalse(cache.containsRecord(C, B, MODES));
+    Assertions.assertEquals(4, delegate.lookups);
+
+    // paths needing other modes are still not used
+    Assertions.assertTrue(cache.getPaths(List.of(A), List.of(B), Set.of(ModeType.FLY)).isEmpty());
+    Assertions.assertEquals(4, delegate.lookups);
+  }
+
+  @Test
+  void invalidatedPairsLoadAgain() {
+    CountingPathRecordManager delegate = new CountingPathRecordManager();
+    CachedPathRecordManager cache = new CachedPathRecordManager(delegate);
+    Assertions.assertTrue(cache.getPaths(List.of(A), List.of(B), MODES).isEmpty());
+    Assertions.assertEquals(1, delegate.lookups);
+
+    // the cached pair has no path, so a new one is only seen once it is loaded again
+    report(delegate, A, B);
+    Assertions.assertTrue(cache.getPaths(List.of(A), List.of(B), MODES).isEmpty());
+    cache.invalidate(A, B);
+    Assertions.assertEquals(1, cache.getPaths(List.of(A), List.of(B), MODES).size());
+    Assertions.assertEquals(2, delegate.lookups);
+  }
+
+  @Test
+  void invalidationDuringLoadIsNotLost() {
+    CountingPathRecordManager delegate = new CountingPathRecordManager();
+    CachedPathRecordManager cache = new CachedPathRecordManager(delegate);
+    report(cache, A, B);
+
+    // the chunk changes after the path was read, so what was read must not be cached
+    delegate.duringLookup = () -> cache.invalidateChunk(DOMAIN, 0, 0);
+    Assertions.assertNotNull(cache.getPath(A, B, MODES));
+    Assertions.assertNotNull(cache.getPath(A, B, MODES));
+    Assertions.assertEquals(2, delegate.lookups);
+    Assertions.assertNotNull(cache.getPath(A, B, MODES));
+    Assertions.assertEquals(2, delegate.lookups);
+
+    delegate.duringLookup = () -> cache.invalidateChunk(DOMAIN, 0, 2);
+    Assertions.assertTrue(cache.getPaths(List.of(C), List.of(D), MODES).isEmpty());
+    Assertions.assertTrue(cache.getPaths(List.of(C), List.of(D), MODES).isEmpty());
+    Assertions.assertEquals(4, delegate.lookups);
+  }
+
+  @Test
+  void reportDuringLoadIsNotLost() {
+    CountingPathRecordManager delegate = new CountingPathRecordManager();
+    CachedPathRecordManager cache = new CachedPathRecordManager(delegate);
+
+    // a path is found after the lookup came up empty
+    delegate.duringLookup = () -> report(cache, A, B);
+    Assertions.assertNull(cache.getPath(A, B, MODES));
+    Assertions.assertNotNull(cache.getPath(A, B, MODES));
+    Assertions.assertEquals(2, delegate.lookups);
+  }
+
+  @Test
+  void failedLoadIsNotCached() {
+    CountingPathRecordManager delegate = new CountingPathRecordManager();
+    CachedPathRecordManager cache = new CachedPathRecordManager(delegate);
+    report(cache, A, B);
+
+    delegate.failures = 1;
+    Assertions.assertThrows(DataAccessException.class, () -> cache.getPath(A, B, MODES));
+    Assertions.assertEquals(0, cache.cachedCells());
+
+    // the next lookup goes to the underlying manager again
+    Assertions.assertNotNull(cache.getPath(A, B, MODES));
+    Assertions.assertTrue(cache.containsRecord(A, B, MODES));
+    Assertions.assertEquals(2, delegate.lookups);
+  }
+
+  @Test
+  void failedBulkLoadIsNotCached() {
+    CountingPathRecordManager delegate = new CountingPathRecordManager();
+    CachedPathRecordManager cache = new CachedPathRecordManager(delegate);
+    report(cache, A, B);
+
+    // a failed load must not leave any of its pairs cached as having no path
+    delegate.failures = 1;
+    Assertions.assertThrows(DataAccessException.class, () -> cache.getPaths(List.of(A), List.of(B, D), MODES));
+    Assertions.assertEquals(0, cache.cachedCells());
+
+    Assertions.assertEquals(1, cache.getPaths(List.of(A), List.of(B, D), MODES).size());
+    Assertions.assertEquals(3, delegate.lookups);
+  }
+
+  @Test
+  void recordedEndpointsAreNotCached() {
+    CountingPathRecordManager delegate = new CountingPathRecordManager();
+    CachedPathRecordManager cache = new CachedPathRecordManager(delegate);
+    report(delegate, A, B);
+
+    Assertions.assertEquals(Set.of(new PathRecordManager.Endpoints(A, B)),
+        cache.recordedEndpoints(List.of(A, C), List.of(B, D), MODES));
+    Assertions.assertEquals(0, cache.cachedCells());
+    Assertions.assertEquals(0, cache.misses());
+  }
+
+}
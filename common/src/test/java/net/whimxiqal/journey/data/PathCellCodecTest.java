@@ -0,0 +1,88 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.navigation.ModeType;
+import net.whimxiqal.journey.navigation.Step;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class PathCellCodecTest {
+
+  @Test
+  void roundTrips() {
+    Random random = new Random(0);
+    List<Step> steps = new ArrayList<>();
+    int x = -1000;
+    int y = 64;
+    int z = 123456;
+    ModeType modeType = ModeType.WALK;
+    for (int i = 0; i < 2000; i++) {
+      if (random.nextInt(50) == 0) {
+        modeType = ModeType.values()[random.nextInt(ModeType.values().length)];
+      }
+      if (random.nextInt(100) == 0) {
+        x += random.nextInt(40) - 20;  // not adjacent, like through a tunnel
+      } else {
+        x += random.nextInt(3) - 1;
+        y += random.nextInt(3) - 1;
+        z += random.nextInt(3) - 1;
+      }
+      steps.add(new Step(new Cell(x, y, z, 0), 1, modeType));
+    }
+
+    byte[] data = PathCellCodec.encode(steps);
+    Assertions.assertEquals(steps.size(), PathCellCodec.count(data));
+    Assertions.assertTrue(data.length < steps.size() * 2);
+
+    List<Step> decoded = new ArrayList<>();
+    PathCellCodec.decode(data, (index, cellX, cellY, cellZ, cellModeType) -> {
+      Assertions.assertEquals(decoded.size(), index);
+      decoded.add(new Step(new Cell(cellX, cellY, cellZ, 0), 1, cellModeType));
+    });
+    Assertions.assertEquals(steps.size(), decoded.size());
+    for (int i = 0; i < steps.size(); i++) {
+      Assertions.assertEquals(steps.get(i).location(), decoded.get(i).location());
+      Assertions.assertEquals(steps.get(i).modeType(), decoded.get(i).modeType());
+    }
+  }
+
+  @Test
+  void rejectsMalformedData() {
+    Assertions.assertThrows(DataAccessException.class, () -> PathCellCodec.decode(new byte[0], (i, x, y, z, m) -> {
+    }));
+    byte[] truncated = PathCellCodec.encode(List.of(
+        new Step(new Cell(0, 0, 0, 0), 0, ModeType.WALK),
+        new Step(new Cell(1, 0, 0, 0), 1, ModeType.WALK)));
+    byte[] data = new byte[truncated.length - 1];
+    System.arraycopy(truncated, 0, data, 0, data.length);
+    Assertions.assertThrows(DataAccessException.class, () -> PathCellCodec.decode(data, (i, x, y, z, m) -> {
+    }));
+  }
+
+}
@@ -92,7 +92,20 @@ public class TestPathRecordManager implements PathRecordManager {
 
   @Override
   public @NotNull List<PathTrialRecord> getRecords(Cell origin, Cell destination) {
-    return pathTrialRecords;
+    List<PathTrialRecord> records = new LinkedList<>();
+    for (PathTrialRecord record : pathTrialRecords) {
+      if (record.originX() == origin.blockX()
+          && record.originY() == origin.blockY()
+          && record.originZ() == origin.blockZ()
+          && record.domain() == origin.domain()
+          && record.destinationX() == destination.blockX()
+          && record.destinationY() == destination.blockY()
+          && record.destinationZ() == destination.blockZ()
+          && origin.domain() == destination.domain()) {
+        records.add(record);
+      }
+    }
+    return records;
   }
 
   @Override
@@ -0,0 +1,129 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.manager;
+
+import java.util.UUID;
+import net.kyori.adventure.audience.Audience;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.JourneyTestHarness;
+import net.whimxiqal.journey.search.EverythingSearch;
+import net.whimxiqal.journey.search.PlayerDestinationGoalSearchSession;
+import net.whimxiqal.journey.search.SearchSession;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SearchAdmissionQueueTest extends JourneyTestHarness {
+
+  private static final int CAPACITY = 8;
+
+  private static SearchSession playerSession(UUID player) {
+    return new PlayerDestinationGoalSearchSession(player, new Cell(0, 0, 0, 0), new Cell(1, 0, 0, 0), true);
+  }
+
+  @Test
+  void playersBeforeOthers() {
+    SearchAdmissionQueue queue = new SearchAdmissionQueue();
+    UUID other1 = UUID.randomUUID();
+    UUID player1 = UUID.randomUUID();
+    UUID other2 = UUID.randomUUID();
+    UUID player2 = UUID.randomUUID();
+    Assertions.assertEquals(1, queue.offer(other1, Audience.empty(), new EverythingSearch(), CAPACITY));
+    Assertions.assertEquals(1, queue.offer(player1, Audience.empty(), playerSession(player1), CAPACITY));
+    Assertions.assertEquals(3, queue.offer(other2, Audience.empty(), new EverythingSearch(), CAPACITY));
+    Assertions.assertEquals(2, queue.offer(player2, Audience.empty(), playerSession(player2), CAPACITY));
+
+    Assertions.assertEquals(1, queue.position(player1));
+    Assertions.assertEquals(2, queue.position(player2));
+    Assertions.assertEquals(3, queue.position(other1));
+    Assertions.assertEquals(4, queue.position(other2));
+    Assertions.assertEquals(4, queue.size());
+
+    Assertions.assertEquals(player1, queue.poll().caller());
+    Assertions.assertEquals(player2, queue.poll().caller());
+    Assertions.assertEquals(other1, queue.poll().caller());
+    Assertions.assertEquals(other2, queue.poll().caller());
+    Assertions.assertNull(queue.poll());
+    Assertions.assertTrue(queue.isEmpty());
+  }
+
+  @Test
+  void replacingKeepsPlace() {
+    SearchAdmissionQueue queue = new SearchAdmissionQueue();
+    UUID player1 = UUID.randomUUID();
+    UUID player2 = UUID.randomUUID();
+    UUID player3 = UUID.randomUUID();
+    queue.offer(player1, Audience.empty(), playerSession(player1), CAPACITY);
+    queue.offer(player2, Audience.empty(), playerSession(player2), CAPACITY);
+    queue.offer(player3, Audience.empty(), playerSession(player3), CAPACITY);
+    long replacedNanos = System.nanoTime();
+
+    // asking again replaces the search without losing the place or the time spent waiting
+    SearchSession replacement = playerSession(player2);
+    Assertions.assertEquals(2, queue.offer(player2, Audience.empty(), replacement, CAPACITY));
+    Assertions.assertEquals(3, queue.size());
+
+    Assertions.assertEquals(player1, queue.poll().caller());
+    SearchAdmissionQueue.Entry second = queue.poll();
+    Assertions.assertEquals(player2, second.caller());
+    Assertions.assertSame(replacement, second.session());
+    Assertions.assertTrue(second.queuedNanos() <= replacedNanos);
+    Assertions.assertEquals(player3, queue.poll().caller());
+  }
+
+  @Test
+  void capacity() {
+    SearchAdmissionQueue queue = new SearchAdmissionQueue();
+    UUID player1 = UUID.randomUUID();
+    UUID player2 = UUID.randomUUID();
+    UUID player3 = UUID.randomUUID();
+    Assertions.assertEquals(1, queue.offer(player1, Audience.empty(), playerSession(player1), 2));
+    Assertions.assertEquals(2, queue.offer(player2, Audience.empty(), playerSession(player2), 2));
+    Assertions.assertEquals(-1, queue.offer(player3, Audience.empty(), playerSession(player3), 2));
+    Assertions.assertEquals(-1, queue.position(player3));
+
+    // a caller already in line may still replace their search
+    Assertions.assertEquals(1, queue.offer(player1, Audience.empty(), playerSession(player1), 2));
+
+    Assertions.assertNotNull(queue.remove(player1));
+    Assertions.assertNull(queue.remove(player1));
+    Assertions.assertEquals(1, queue.position(player2));
+    Assertions.assertEquals(2, queue.offer(player3, Audience.empty(), playerSession(player3), 2));
+  }
+
+  @Test
+  void maxSearches() {
+    Assertions.assertEquals(16, SearchManager.maxSearches(16, false, 0.1, true, 0));
+    Assertions.assertEquals(16, SearchManager.maxSearches(16, true, 1, false, 3));
+
+    // shrinks with the tick rate
+    Assertions.assertEquals(8, SearchManager.maxSearches(16, true, 0.5, false, 3));
+    Assertions.assertEquals(1, SearchManager.maxSearches(16, true, 0, false, 3));
+
+    // does not grow past the running searches while the workers are backlogged
+    Assertions.assertEquals(3, SearchManager.maxSearches(16, true, 1, true, 3));
+    Assertions.assertEquals(8, SearchManager.maxSearches(16, true, 0.5, true, 12));
+    Assertions.assertEquals(1, SearchManager.maxSearches(16, true, 1, true, 0));
+  }
+
+}
@@ -148,4 +148,29 @@ public class TestPlatformProxy implements PlatformProxy {
   public Map<String, Map<String, Integer>> domainResourceKeys() {
     return Collections.singletonMap("whimxiqal", TestPlatformProxy.worlds.values().stream().collect(Collectors.toMap(k -> k.name, k -> Journey.get().domainManager().domainIndex(k.uuid))));
   }
+
+  @Override
+  public void prefetchChunk(int domain, int chunkX, int chunkZ) {
+    // nothing, test worlds are always in memory
+  }
+
+  @Override
+  public long chunkStamp(int domain, int chunkX, int chunkZ) {
+    return -1;  // test worlds may be changed directly
+  }
+
+  @Override
+  public double averageTickMillis() {
+    return 0;
+  }
+
+  @Override
+  public boolean isChunkLoaded(int domain, int chunkX, int chunkZ) {
+    return worlds.containsKey(domain);
+  }
+
+  @Override
+  public Optional<Cell> spawn(int domain) {
+    return Optional.empty();
+  }
 }
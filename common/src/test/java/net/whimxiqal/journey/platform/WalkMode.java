@@ -23,8 +23,6 @@
 
 package net.whimxiqal.journey.platform;
 
-import java.util.List;
-import net.whimxiqal.journey.Cell;
 import net.whimxiqal.journey.navigation.Mode;
 import net.whimxiqal.journey.navigation.ModeType;
 import net.whimxiqal.journey.search.SearchSession;
@@ -36,25 +34,35 @@ public class WalkMode extends Mode {
   }
 
   @Override
-  protected void collectDestinations(@NotNull Cell origin, @NotNull List<Option> options) {
-    TestWorld world = TestPlatformProxy.worlds.get(origin.domain());
+  protected void collectDestinations(int domain, int x, int y, int z, @NotNull OptionSink sink) {
+    TestWorld world = TestPlatformProxy.worlds.get(domain);
     assert world != null;
-    for (int[] pair : new int[][]{{origin.blockX() - 1, origin.blockY()},
-        {origin.blockX() + 1, origin.blockY()},
-        {origin.blockX(), origin.blockY() - 1},
-        {origin.blockX(), origin.blockY() + 1}}) {
-      int x = pair[0];
-      int y = pair[1];
-      if (x < 0 || x >= world.lengthX || y < 0 || y >= world.lengthY) {
+    for (int[] pair : new int[][]{{x - 1, y},
+        {x + 1, y},
+        {x, y - 1},
+        {x, y + 1}}) {
+      int nextX = pair[0];
+      int nextY = pair[1];
+      if (nextX < 0 || nextX >= world.lengthX || nextY < 0 || nextY >= world.lengthY) {
         continue;  // this is past the border -- we can't go here
       }
-      if (world.cells[y][x] == CellType.BARRIER) {
+      if (world.cells[nextY][nextX] == CellType.BARRIER) {
         continue;  // this is a barrier cell -- we can't go here
       }
-      options.add(Option.between(origin, x, y, 0));
+      sink.accept(nextX, nextY, 0, 1);
     }
   }
 
+  @Override
+  public boolean isReversible() {
+    return true;
+  }
+
+  @Override
+  public @NotNull Object behaviorKey() {
+    return type();
+  }
+
   @Override
   public @NotNull ModeType type() {
     return ModeType.WALK;
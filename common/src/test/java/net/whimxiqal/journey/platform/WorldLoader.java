@@ -125,6 +125,33 @@ public final class WorldLoader {
     }
   }
 
+  /**
+   * Add a world made of rows of cells in the same format as the world resources,
+   * except that its points of interest and tunnels are ignored.
+   *
+   * @param name the name of the world
+   * @param rows the rows of cells, by increasing y
+   * @return the domain of the new world
+   */
+  public static int addWorld(String name, String... rows) {
+    TestWorld world = new TestWorld();
+    world.name = name;
+    world.uuid = UUID.randomUUID();
+    world.lengthY = rows.length;
+    for (String row : rows) {
+      world.lengthX = Math.max(world.lengthX, row.length());
+    }
+    world.cells = new CellType[world.lengthY][world.lengthX];
+    for (int y = 0; y < rows.length; y++) {
+      for (int x = 0; x < world.lengthX; x++) {
+        world.cells[y][x] = x < rows[y].length() ? cellTypes.getOrDefault(rows[y].charAt(x), CellType.BLANK) : CellType.BLANK;
+      }
+    }
+    int domain = Journey.get().domainManager().domainIndex(world.uuid);
+    TestPlatformProxy.worlds.put(domain, world);
+    return domain;
+  }
+
   public static TestWorld getWorld(String name) {
     for (TestWorld world : TestPlatformProxy.worlds.values()) {
       if (world.name.equals(name)) {
@@ -0,0 +1,216 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.search;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.JourneyTestHarness;
+import net.whimxiqal.journey.config.Settings;
+import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.Path;
+import net.whimxiqal.journey.platform.CellType;
+import net.whimxiqal.journey.platform.TestPlatformProxy;
+import net.whimxiqal.journey.platform.TestWorld;
+import net.whimxiqal.journey.platform.WalkMode;
+import net.whimxiqal.journey.platform.WorldLoader;
+import net.whimxiqal.journey.search.function.CostFunction;
+import net.whimxiqal.journey.search.function.CostFunctionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BidirectionalSearchTest extends JourneyTestHarness {
+
+  private static final int WIDTH = 100;
+  private static final int HEIGHT = 21;
+
+  private boolean bidirectional;
+  private boolean hierarchical;
+
+  /**
+   * A maze of walls every 10 blocks, each with a single gap alternating between the top and the bottom.
+   */
+  static String[] serpentine() {
+    String[] rows = new String[HEIGHT];
+    for (int y = 0; y < HEIGHT; y++) {
+      StringBuilder row = new StringBuilder();
+      for (int x = 0; x < WIDTH; x++) {
+        boolean wall = x > 0 && x % 10 == 0 && y != ((x / 10) % 2 == 0 ? 1 : HEIGHT - 2);
+        row.append(wall ? 'X' : ' ');
+      }
+      rows[y] = row.toString();
+    }
+    return rows;
+  }
+
+  /**
+   * Half of the Manhattan distance, which never overestimates the cost of walking.
+   */
+  static CostFunction underestimate(Cell target) {
+    return new CostFunction() {
+      @Override
+      public CostFunctionType getType() {
+        return CostFunctionType.OTHER;
+      }
+
+      @Override
+      public Double apply(Cell cell) {
+        return 0.5 * (Math.abs(cell.blockX() - target.blockX()) + Math.abs(cell.blockY() - target.blockY()));
+      }
+    };
+  }
+
+  static int shortestLength(int domain, Cell origin, Cell destination) {
+    TestWorld world = TestPlatformProxy.worlds.get(domain);
+    int[][] distance = new int[world.lengthY][world.lengthX];
+    for (int[] row : distance) {
+      java.util.Arrays.fill(row, -1);
+    }
+    Deque<int[]> queue = new ArrayDeque<>();
+    distance[origin.blockY()][origin.blockX()] = 0;
+    queue.add(new int[]{origin.blockX(), origin.blockY()});
+    while (!queue.isEmpty()) {
+      int[] cell = queue.poll();
+      for (int[] next : new int[][]{{cell[0] - 1, cell[1]}, {cell[0] + 1, cell[1]}, {cell[0], cell[1] - 1}, {cell[0], cell[1] + 1}}) {
+        if (next[0] < 0 || next[0] >= world.lengthX || next[1] < 0 || next[1] >= world.lengthY
+            || world.cells[next[1]][next[0]] == CellType.BARRIER || distance[next[1]][next[0]] >= 0) {
+          continue;
+        }
+        distance[next[1]][next[0]] = distance[cell[1]][cell[0]] + 1;
+        queue.add(next);
+      }
+    }
+    return distance[destination.blockY()][destination.blockX()];
+  }
+
+  @BeforeEach
+  void saveSettings() {
+    bidirectional = Settings.BIDIRECTIONAL_SEARCH.getValue();
+    hierarchical = Settings.HIERARCHICAL_SEARCH.getValue();
+    Settings.HIERARCHICAL_SEARCH.setValue(false);
+  }
+
+  @AfterEach
+  void restoreSettings() {
+    Settings.BIDIRECTIONAL_SEARCH.setValue(bidirectional);
+    Settings.HIERARCHICAL_SEARCH.setValue(hierarchical);
+  }
+
+  private Path search(Cell origin, Cell destination, boolean bidirectional) {
+    Settings.BIDIRECTIONAL_SEARCH.setValue(bidirectional);
+    SearchSession session = new PlayerDestinationGoalSearchSession(UUID.randomUUID(), origin, destination, true);
+    session.initialize();
+    GoalTrial trial = new GoalTrial(session, origin, destination);
+    return trial.attempt(false).path().orElse(null);
+  }
+
+  @Test
+  void matchesForwardSearch() {
+    int domain = WorldLoader.addWorld("bidirectional", serpentine());
+    Cell origin = new Cell(1, 10, 0, domain);
+    Cell destination = new Cell(WIDTH - 2, 10, 0, domain);
+    int shortest = shortestLength(domain, origin, destination);
+
+    Path forward = search(origin, destination, false);
+    Path both = search(origin, destination, true);
+    Assertions.assertNotNull(forward);
+    Assertions.assertNotNull(both);
+    Assertions.assertEquals(shortest, forward.getCost(), 0.001);
+    Assertions.assertEquals(forward.getCost(), both.getCost(), 0.001);
+    Assertions.assertEquals(destination, both.getDestination());
+  }
+
+  @Test
+  void unreachable() {
+    String[] rows = serpentine();
+    rows[1] = rows[1].substring(0, 20) + 'X' + rows[1].substring(21);  // close the second gap
+    int domain = WorldLoader.addWorld("bidirectional-closed", rows);
+    Cell origin = new Cell(1, 10, 0, domain);
+    Cell destination = new Cell(WIDTH - 2, 10, 0, domain);
+    Assertions.assertNull(search(origin, destination, true));
+  }
+
+  @Test
+  void backwardDeadEndFallsBackToForward() {
+    int domain = WorldLoader.addWorld("bidirectional-dead-end", serpentine());
+    Cell origin = new Cell(1, 10, 0, domain);
+    Cell destination = new Cell(WIDTH - 2, 10, 0, domain);
+    Settings.BIDIRECTIONAL_SEARCH.setValue(true);
+    SearchSession session = new PlayerDestinationGoalSearchSession(UUID.randomUUID(), origin, destination, true);
+    session.initialize();
+
+    // nothing seems to lead to the goal when searching backwards, but it can still be walked to
+    GoalTrial trial = new GoalTrial(session, origin, destination, List.of(new NoSourcesMode(session)));
+    Path path = trial.attempt(false).path().orElse(null);
+    Assertions.assertNotNull(path);
+    Assertions.assertEquals(destination, path.getDestination());
+    Assertions.assertEquals(shortestLength(domain, origin, destination), path.getCost(), 0.001);
+  }
+
+  /**
+   * Walking that claims to be reversible, but never finds where a move came from.
+   */
+  private static final class NoSourcesMode extends WalkMode {
+    NoSourcesMode(SearchSession session) {
+      super(session);
+    }
+
+    @Override
+    protected void collectSources(int domain, int x, int y, int z, OptionSink sink) {
+      // nothing
+    }
+  }
+
+  /**
+   * A trial to a goal cell which estimates its cost with {@link #underestimate(Cell)} in both directions.
+   */
+  static final class GoalTrial extends AbstractPathTrial {
+    private final Cell goal;
+
+    GoalTrial(SearchSession session, Cell origin, Cell goal) {
+      this(session, origin, goal, session.modes());
+    }
+
+    GoalTrial(SearchSession session, Cell origin, Cell goal, Collection<Mode> modes) {
+      super(session, origin, modes, underestimate(goal), goal::equals, false);
+      this.goal = goal;
+    }
+
+    @Override
+    protected Cell goal() {
+      return goal;
+    }
+
+    @Override
+    protected CostFunction reverseCostFunction() {
+      return underestimate(getOrigin());
+    }
+  }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.JourneyTestHarness;
+import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.Step;
+import net.whimxiqal.journey.platform.CellType;
+import net.whimxiqal.journey.platform.TestPlatformProxy;
+import net.whimxiqal.journey.platform.WalkMode;
+import net.whimxiqal.journey.platform.WorldLoader;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ChunkGraphTest extends JourneyTestHarness {
+
+  private static String[] open(int width, int height) {
+    String[] rows = new String[height];
+    for (int y = 0; y < height; y++) {
+      rows[y] = " ".repeat(width);
+    }
+    return rows;
+  }
+
+  private static Collection<Mode> modes(int domain) {
+    SearchSession session = new PlayerDestinationGoalSearchSession(UUID.randomUUID(),
+        new Cell(0, 0, 0, domain), new Cell(1, 0, 0, domain), true);
+    session.initialize();
+    return session.modes();
+  }
+
+  private static Map<Cell, Double> exitCosts(List<ChunkGraph.Segment> segments) {
+    return segments.stream().collect(Collectors.toMap(ChunkGraph.Segment::end, ChunkGraph.Segment::cost));
+  }
+
+  @Test
+  void entrancesExitOncePerBand() {
+    int domain = WorldLoader.addWorld("chunk-graph-bands", open(40, 5));
+    ChunkGraph graph = new ChunkGraph(domain);
+
+    // Heights 0-3 and height 4 are separate bands on each side of the middle chunk
+    Map<Cell, Double> exits = exitCosts(graph.segments(new Cell(20, 2, 0, domain), modes(domain), null));
+    Assertions.assertEquals(Map.of(
+        new Cell(15, 2, 0, domain), 5.0,
+        new Cell(15, 4, 0, domain), 7.0,
+        new Cell(32, 2, 0, domain), 12.0,
+        new Cell(32, 4, 0, domain), 14.0), exits);
+  }
+
+  @Test
+  void segmentsFollowBlocks() {
+    int domain = WorldLoader.addWorld("chunk-graph-segments", open(40, 5));
+    ChunkGraph graph = new ChunkGraph(domain);
+    Cell entrance = new Cell(1, 2, 0, domain);
+    Cell target = new Cell(5, 3, 0, domain);
+
+    List<ChunkGraph.Segment> segments = graph.segments(entrance, modes(domain), target);
+    Assertions.assertEquals(target, segments.get(0).end());
+    Assertions.assertEquals(5, segments.get(0).cost(), 0.001);
+    List<Step> steps = new ArrayList<>();
+    segments.get(0).appendTo(steps);
+    Assertions.assertEquals(5, steps.size());
+    Assertions.assertEquals(target, steps.get(steps.size() - 1).location());
+    for (int i = 1; i < steps.size(); i++) {
+      Assertions.assertEquals(1, steps.get(i - 1).location().distanceToSquared(steps.get(i).location()), 0.001);
+    }
+
+    // The route to the target is never cached, but the exits are
+    Assertions.assertEquals(Map.of(
+            new Cell(16, 2, 0, domain), 15.0,
+            new Cell(16, 4, 0, domain), 17.0),
+        exitCosts(graph.segments(entrance, modes(domain), null)));
+    Assertions.assertEquals(1, graph.size());
+  }
+
+  @Test
+  void invalidationRebuildsNearbyChunks() {
+    int domain = WorldLoader.addWorld("chunk-graph-invalidation", open(40, 5));
+    ChunkGraph graph = new ChunkGraph(domain);
+    Cell entrance = new Cell(1, 2, 0, domain);
+    List<ChunkGraph.Segment> before = graph.segments(entrance, modes(domain), null);
+    Assertions.assertSame(before, graph.segments(entrance, modes(domain), null));
+
+    // Wall off the chunk except for a gap at the bottom
+    for (int y = 1; y < 5; y++) {
+      TestPlatformProxy.worlds.get(domain).cells[y][10] = CellType.BARRIER;
+    }
+    Assertions.assertSame(before, graph.segments(entrance, modes(domain), null));
+
+    // A change in a neighbouring chunk affects routes across the border
+    graph.invalidate(1, 0);
+    Assertions.assertEquals(0, graph.size());
+    Assertions.assertEquals(Map.of(
+            new Cell(16, 0, 0, domain), 17.0,
+            new Cell(16, 4, 0, domain), 21.0),
+        exitCosts(graph.segments(entrance, modes(domain), null)));
+
+    // Changes far away do not
+    List<ChunkGraph.Segment> after = graph.segments(entrance, modes(domain), null);
+    graph.invalidate(2, 0);
+    Assertions.assertSame(after, graph.segments(entrance, modes(domain), null));
+  }
+
+  @Test
+  void graphsSharedOnlyByIdenticalModes() {
+    int domain = WorldLoader.addWorld("chunk-graph-cache", open(20, 5));
+    ChunkGraphCache cache = new ChunkGraphCache();
+    ChunkGraph walking = cache.graph(domain, modes(domain));
+    Assertions.assertSame(walking, cache.graph(domain, modes(domain)));
+
+    // A mode that may behave differently for each session never shares a graph
+    SearchSession session = new PlayerDestinationGoalSearchSession(UUID.randomUUID(),
+        new Cell(0, 0, 0, domain), new Cell(1, 0, 0, domain), true);
+    Mode unique = new WalkMode(session) {
+      @Override
+      public @NotNull Object behaviorKey() {
+        return this;
+      }
+    };
+    ChunkGraph uniqueGraph = cache.graph(domain, List.of(unique));
+    Assertions.assertNotSame(walking, uniqueGraph);
+    Assertions.assertNotSame(uniqueGraph, cache.graph(domain, List.of(new WalkMode(session) {
+      @Override
+      public @NotNull Object behaviorKey() {
+        return this;
+      }
+    })));
+  }
+
+}
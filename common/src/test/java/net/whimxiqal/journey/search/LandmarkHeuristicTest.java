@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.search;
+
+import java.util.List;
+import java.util.UUID;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.Journey;
+import net.whimxiqal.journey.JourneyTestHarness;
+import net.whimxiqal.journey.config.Settings;
+import net.whimxiqal.journey.navigation.Path;
+import net.whimxiqal.journey.platform.WorldLoader;
+import net.whimxiqal.journey.search.function.CostFunctionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LandmarkHeuristicTest extends JourneyTestHarness {
+
+  private boolean landmarks;
+  private boolean hierarchical;
+
+  @BeforeEach
+  void saveSettings() {
+    landmarks = Settings.LANDMARK_HEURISTIC.getValue();
+    hierarchical = Settings.HIERARCHICAL_SEARCH.getValue();
+    Settings.HIERARCHICAL_SEARCH.setValue(false);
+  }
+
+  @AfterEach
+  void restoreSettings() {
+    Settings.LANDMARK_HEURISTIC.setValue(landmarks);
+    Settings.HIERARCHICAL_SEARCH.setValue(hierarchical);
+  }
+
+  private static SearchSession session(Cell origin, Cell destination) {
+    SearchSession session = new PlayerDestinationGoalSearchSession(UUID.randomUUID(), origin, destination, true);
+    session.initialize();
+    return session;
+  }
+
+  private static Path search(Cell origin, Cell destination, boolean landmarks) {
+    Settings.LANDMARK_HEURISTIC.setValue(landmarks);
+    SearchSession session = session(origin, destination);
+    PathTrial trial = PathTrial.approximate(session, origin, destination, session.modes(), false);
+    return trial.attempt(false).path().orElse(null);
+  }
+
+  @Test
+  void comparePathLengths() {
+    int domain = WorldLoader.addWorld("landmarks", BidirectionalSearchTest.serpentine());
+    Cell origin = new Cell(1, 10, 0, domain);
+    Cell destination = new Cell(98, 10, 0, domain);
+    SearchSession session = session(origin, destination);
+    Journey.get().landmarkCache().calculate(domain, session, List.of(new Cell(1, 1, 0, domain)));
+    Assertions.assertEquals(CostFunctionType.LANDMARK, Journey.get().landmarkCache()
+        .costFunction(destination, session.modes(), false, BidirectionalSearchTest.underestimate(destination))
+        .getType());
+
+    Path without = search(origin, destination, false);
+    Path with = search(origin, destination, true);
+    Assertions.assertNotNull(without);
+    Assertions.assertNotNull(with);
+    Assertions.assertEquals(destination, with.getDestination());
+
+    // neither estimate is admissible, so neither path has to be the shortest, but the landmarks must not make it much worse
+    int shortest = BidirectionalSearchTest.shortestLength(domain, origin, destination);
+    Assertions.assertTrue(without.getCost() >= shortest - 0.001);
+    Assertions.assertTrue(with.getCost() >= shortest - 0.001);
+    Assertions.assertTrue(with.getCost() <= Math.max(1.5 * shortest, without.getCost()),
+        "shortest: " + shortest + ", with landmarks: " + with.getCost() + ", without: " + without.getCost());
+  }
+
+}
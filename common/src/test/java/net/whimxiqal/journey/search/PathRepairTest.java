@@ -0,0 +1,138 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.JourneyTestHarness;
+import net.whimxiqal.journey.navigation.Mode;
+import net.whimxiqal.journey.navigation.ModeType;
+import net.whimxiqal.journey.navigation.Path;
+import net.whimxiqal.journey.navigation.Step;
+import net.whimxiqal.journey.navigation.journey.PlayerJourneySession;
+import net.whimxiqal.journey.platform.WorldLoader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class PathRepairTest extends JourneyTestHarness {
+
+  private static final int WIDTH = 40;
+  private static final int HEIGHT = 21;
+  private static final int PATH_Y = 10;
+
+  private static String[] world(int wallFromX) {
+    String[] rows = new String[HEIGHT];
+    for (int y = 0; y < HEIGHT; y++) {
+      StringBuilder row = new StringBuilder();
+      for (int x = 0; x < WIDTH; x++) {
+        row.append(y == PATH_Y + 2 && x >= wallFromX ? 'X' : ' ');
+      }
+      rows[y] = row.toString();
+    }
+    return rows;
+  }
+
+  /**
+   * A straight path along one row, from one side of the world to the other.
+   */
+  private static Path straightPath(int domain) {
+    List<Step> steps = new ArrayList<>();
+    steps.add(new Step(new Cell(1, PATH_Y, 0, domain), 0, ModeType.NONE));
+    for (int x = 2; x < WIDTH - 1; x++) {
+      steps.add(new Step(new Cell(x, PATH_Y, 0, domain), 1, ModeType.WALK));
+    }
+    return new Path(steps.get(0).location(), steps, steps.size() - 1);
+  }
+
+  private static Collection<Mode> modes(int domain) {
+    SearchSession session = new PlayerDestinationGoalSearchSession(UUID.randomUUID(),
+        new Cell(0, 0, 0, domain), new Cell(1, 0, 0, domain), true);
+    session.initialize();
+    return session.modes();
+  }
+
+  private static void assertWalkable(Path path) {
+    List<Step> steps = path.getSteps();
+    for (int i = 1; i < steps.size(); i++) {
+      Assertions.assertEquals(1, steps.get(i - 1).location().distanceToSquared(steps.get(i).location()), 0.001);
+    }
+  }
+
+  @Test
+  void rejoinsCheapestPoint() {
+    int domain = WorldLoader.addWorld("repair-open", world(WIDTH));
+    Path path = straightPath(domain);
+    Cell from = new Cell(20, PATH_Y + 4, 0, domain);
+    Assertions.assertTrue(from.distanceToSquared(new Cell(20, PATH_Y, 0, domain)) > PlayerJourneySession.OFF_PATH_DISTANCE_SQUARED);
+
+    Path repaired = new PathRepair(path, modes(domain)).repair(from);
+    Assertions.assertNotNull(repaired);
+    Assertions.assertEquals(from, repaired.getSteps().get(0).location());
+    Assertions.assertEquals(path.getDestination(), repaired.getDestination());
+    Assertions.assertEquals(4 + (WIDTH - 2 - 20), repaired.getCost(), 0.001);
+    Assertions.assertEquals(BidirectionalSearchTest.shortestLength(domain, from, path.getDestination()), repaired.getCost(), 0.001);
+    assertWalkable(repaired);
+  }
+
+  @Test
+  void rejoinsAroundWall() {
+    // The only way back to the path is around the far end of a wall, behind where the path was left
+    int domain = WorldLoader.addWorld("repair-wall", world(5));
+    Path path = straightPath(domain);
+    Cell from = new Cell(20, PATH_Y + 4, 0, domain);
+
+    Path repaired = new PathRepair(path, modes(domain)).repair(from);
+    Assertions.assertNotNull(repaired);
+    Assertions.assertEquals(path.getDestination(), repaired.getDestination());
+    Assertions.assertEquals(16 + 4 + (WIDTH - 2 - 4), repaired.getCost(), 0.001);
+    Assertions.assertEquals(BidirectionalSearchTest.shortestLength(domain, from, path.getDestination()), repaired.getCost(), 0.001);
+    assertWalkable(repaired);
+  }
+
+  @Test
+  void onPathKeepsRemainder() {
+    int domain = WorldLoader.addWorld("repair-on-path", world(WIDTH));
+    Path path = straightPath(domain);
+    Path repaired = new PathRepair(path, modes(domain)).repair(new Cell(30, PATH_Y, 0, domain));
+    Assertions.assertNotNull(repaired);
+    Assertions.assertEquals(WIDTH - 2 - 30, repaired.getCost(), 0.001);
+    Assertions.assertEquals(WIDTH - 2 - 30 + 1, repaired.getSteps().size());
+  }
+
+  @Test
+  void cannotRepair() {
+    int domain = WorldLoader.addWorld("repair-unrepairable", world(WIDTH));
+    Path path = straightPath(domain);
+    Assertions.assertNull(new PathRepair(path, modes(domain)).repair(new Cell(20, PATH_Y, 0, domain + 1000)));
+
+    List<Step> steps = new ArrayList<>(path.getSteps());
+    steps.set(5, new Step(steps.get(5).location(), 1, ModeType.TUNNEL));
+    Assertions.assertTrue(PathRepair.canRepair(path));
+    Assertions.assertFalse(PathRepair.canRepair(new Path(path.getOrigin(), steps, path.getCost())));
+  }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import net.whimxiqal.journey.Cell;
+import net.whimxiqal.journey.Journey;
+import net.whimxiqal.journey.JourneyTestHarness;
+import net.whimxiqal.journey.platform.WorldLoader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SearchCoalescingTest extends JourneyTestHarness {
+
+  private static int domain = -1;
+
+  private static int domain() {
+    if (domain < 0) {
+      domain = WorldLoader.addWorld("coalescing", BidirectionalSearchTest.serpentine());
+    }
+    return domain;
+  }
+
+  private static SearchSession session(Cell origin) {
+    SearchSession session = new PlayerDestinationGoalSearchSession(UUID.randomUUID(),
+        origin, new Cell(98, 10, 0, domain()), true);
+    session.initialize();
+    return session;
+  }
+
+  private static void awaitEvents() throws InterruptedException {
+    while (!Journey.get().dispatcher().isEmpty()) {
+      Thread.sleep(50);
+    }
+  }
+
+  @Test
+  void keyedOnOriginCell() {
+    Cell origin = new Cell(1, 10, 0, domain());
+    Assertions.assertNotNull(session(origin).coalescingKey());
+    Assertions.assertEquals(session(origin).coalescingKey(), session(origin).coalescingKey());
+    // same chunk section, but a different cell
+    Assertions.assertNotEquals(session(origin).coalescingKey(), session(new Cell(2, 10, 0, domain())).coalescingKey());
+  }
+
+  @Test
+  void followerSharesSolution() throws Exception {
+    Cell origin = new Cell(1, 10, 0, domain());
+    SearchSession leader = session(origin);
+    SearchSession follower = session(origin);
+    CompletableFuture<ResultState> followed = follower.follow(leader, 0);
+    Assertions.assertNotNull(followed);
+
+    Assertions.assertEquals(ResultState.STOPPED_SUCCESSFUL, leader.search(0).get(10, TimeUnit.SECONDS));
+    Assertions.assertEquals(ResultState.STOPPED_SUCCESSFUL, followed.get(10, TimeUnit.SECONDS));
+    awaitEvents();
+    Assertions.assertSame(sessionItineraries.get(leader.uuid()), sessionItineraries.get(follower.uuid()));
+
+    // nobody may follow a search that has already stopped
+    Assertions.assertNull(session(origin).follow(leader, 0));
+  }
+
+  @Test
+  void followerSearchesAloneWhenLeaderCanceled() throws Exception {
+    Cell origin = new Cell(1, 10, 0, domain());
+    SearchSession leader = session(origin);
+    SearchSession follower = session(origin);
+    CompletableFuture<ResultState> followed = follower.follow(leader, 0);
+    Assertions.assertNotNull(followed);
+
+    leader.stop(true);
+    leader.markStopped();
+    Assertions.assertEquals(ResultState.STOPPED_CANCELED, leader.getState());
+    Assertions.assertEquals(ResultState.STOPPED_SUCCESSFUL, followed.get(10, TimeUnit.SECONDS));
+    awaitEvents();
+    Assertions.assertNull(sessionItineraries.get(leader.uuid()));
+    Assertions.assertNotNull(sessionItineraries.get(follower.uuid()));
+  }
+
+  @Test
+  void followersStopConcurrentlyWithLeader() throws InterruptedException, ExecutionException, TimeoutException {
+    Cell origin = new Cell(1, 10, 0, domain());
+    SearchSession leader = session(origin);
+    List<SearchSession> followers = new ArrayList<>();
+    for (int i = 0; i < 32; i++) {
+      followers.add(session(origin));
+    }
+
+    // followers join and leave on other threads while the leader runs, which takes the locks of both
+    // sessions in every order in which they are used
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    CompletableFuture<ResultState> led = leader.search(0);
+    List<Future<CompletableFuture<ResultState>>> joins = new ArrayList<>();
+    for (int i = 0; i < followers.size(); i++) {
+      SearchSession follower = followers.get(i);
+      boolean leave = i % 2 == 0;
+      joins.add(pool.submit(() -> {
+        CompletableFuture<ResultState> followed = follower.follow(leader, 0);
+        if (followed != null && leave) {
+          follower.stop(true);
+        }
+        return followed;
+      }));
+    }
+    Assertions.assertEquals(ResultState.STOPPED_SUCCESSFUL, led.get(10, TimeUnit.SECONDS));
+    for (Future<CompletableFuture<ResultState>> join : joins) {
+      CompletableFuture<ResultState> followed = join.get(10, TimeUnit.SECONDS);
+      if (followed != null) {
+        // joined before the leader stopped, so it must stop as well
+        Assertions.assertTrue(followed.get(10, TimeUnit.SECONDS).isStopped());
+      }
+    }
+    pool.shutdown();
+  }
+
+}
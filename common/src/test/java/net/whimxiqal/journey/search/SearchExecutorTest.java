@@ -0,0 +1,92 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.search;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SearchExecutorTest {
+
+  @Test
+  void runsPlayerLaneFirstAndEachLaneInOrder() throws InterruptedException {
+    SearchExecutor executor = new SearchExecutor(1, "Test Search Session", false);
+    CountDownLatch blocker = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(5);
+    List<String> order = new CopyOnWriteArrayList<>();
+
+    // occupy the only worker so everything after queues up
+    executor.execute(SearchExecutor.Lane.BACKGROUND, () -> {
+      try {
+        blocker.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    executor.execute(SearchExecutor.Lane.BACKGROUND, () -> { order.add("background 1"); done.countDown(); });
+    executor.execute(SearchExecutor.Lane.PLAYER, () -> { order.add("player 1"); done.countDown(); });
+    executor.execute(SearchExecutor.Lane.BACKGROUND, () -> { order.add("background 2"); done.countDown(); });
+    executor.execute(SearchExecutor.Lane.PLAYER, () -> { order.add("player 2"); done.countDown(); });
+    executor.execute(SearchExecutor.Lane.PLAYER, () -> { order.add("player 3"); done.countDown(); });
+    Assertions.assertEquals(5, executor.queued());
+    blocker.countDown();
+
+    Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+    Assertions.assertEquals(List.of("player 1", "player 2", "player 3", "background 1", "background 2"), order);
+    executor.shutdown(1000);
+  }
+
+  @Test
+  void backgroundLeavesWorkerForPlayers() throws InterruptedException {
+    SearchExecutor executor = new SearchExecutor(3, "Test Search Session", false);
+    CountDownLatch blocker = new CountDownLatch(1);
+    CountDownLatch started = new CountDownLatch(2);
+    CountDownLatch player = new CountDownLatch(1);
+    for (int i = 0; i < 3; i++) {
+      executor.execute(SearchExecutor.Lane.BACKGROUND, () -> {
+        started.countDown();
+        try {
+          blocker.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+    }
+    Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+    Assertions.assertEquals(1, executor.queued());
+
+    // the third background unit waits, but a player unit gets the worker kept free
+    executor.execute(SearchExecutor.Lane.PLAYER, player::countDown);
+    Assertions.assertTrue(player.await(5, TimeUnit.SECONDS));
+    Assertions.assertEquals(1, executor.queued());
+
+    blocker.countDown();
+    executor.shutdown(1000);
+    Assertions.assertEquals(0, executor.queued());
+  }
+
+}
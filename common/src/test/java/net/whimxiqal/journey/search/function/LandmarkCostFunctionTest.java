@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.search.function;
+
+import net.whimxiqal.journey.Cell;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class LandmarkCostFunctionTest {
+
+  private static final double DELTA = 0.001;
+  private static final CostFunction ZERO = new CostFunction() {
+    @Override
+    public CostFunctionType getType() {
+      return CostFunctionType.OTHER;
+    }
+
+    @Override
+    public Double apply(Cell cell) {
+      return 0d;
+    }
+  };
+
+  // one landmark in chunk 0, from which a wall forces a long detour to chunk 4 and beyond
+  private final LandmarkCostFunction.Distances distances = (chunkX, chunkZ) -> {
+    if (chunkZ != 0 || chunkX < 0) {
+      return null;
+    }
+    if (chunkX == 3) {
+      return new float[]{Float.NaN};
+    }
+    return new float[]{chunkX < 4 ? chunkX * 16 : 1000 + chunkX * 16};
+  };
+
+  @Test
+  void apply() {
+    CostFunction forward = new LandmarkCostFunction(new Cell(80, 0, 0, 0), distances, false, ZERO);
+    Assertions.assertEquals(1080 - 16 - 24, forward.apply(new Cell(16, 0, 0, 0)), DELTA);
+    Assertions.assertEquals(0, forward.apply(new Cell(48, 0, 0, 0)), DELTA);  // not reached
+    Assertions.assertEquals(0, forward.apply(new Cell(0, 0, 100, 0)), DELTA);  // unknown chunk
+    Assertions.assertEquals(0, forward.apply(new Cell(90, 0, 0, 0)), DELTA);  // moving away from the landmark
+
+    CostFunction reverse = new LandmarkCostFunction(new Cell(16, 0, 0, 0), distances, true, ZERO);
+    Assertions.assertEquals(1080 - 16 - 24, reverse.apply(new Cell(80, 0, 0, 0)), DELTA);
+    Assertions.assertEquals(0, reverse.apply(new Cell(0, 0, 0, 0)), DELTA);
+  }
+
+  @Test
+  void fallback() {
+    CostFunction function = new LandmarkCostFunction(new Cell(80, 0, 0, 0), distances, false, new CostFunction() {
+      @Override
+      public CostFunctionType getType() {
+        return CostFunctionType.OTHER;
+      }
+
+      @Override
+      public Double apply(Cell cell) {
+        return 5000d;
+      }
+    });
+    Assertions.assertEquals(5000, function.apply(new Cell(16, 0, 0, 0)), DELTA);
+  }
+}
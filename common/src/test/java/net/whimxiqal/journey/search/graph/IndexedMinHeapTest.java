@@ -0,0 +1,74 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.search.graph;
+
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class IndexedMinHeapTest {
+
+  @Test
+  void pollsInKeyOrder() {
+    IndexedMinHeap heap = new IndexedMinHeap(2);
+    Random random = new Random(0);
+    double[] keys = new double[500];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = random.nextDouble() * 100;
+      heap.insert(i, keys[i]);
+    }
+    Assertions.assertEquals(keys.length, heap.size());
+    double last = Double.NEGATIVE_INFINITY;
+    while (!heap.isEmpty()) {
+      int element = heap.poll();
+      Assertions.assertFalse(heap.contains(element));
+      Assertions.assertTrue(keys[element] >= last);
+      last = keys[element];
+    }
+  }
+
+  @Test
+  void updatesKeysInPlace() {
+    IndexedMinHeap heap = new IndexedMinHeap(4);
+    heap.insert(0, 10);
+    heap.insert(1, 20);
+    heap.insert(2, 30);
+    heap.decreaseKey(2, 5);
+    Assertions.assertEquals(2, heap.peek());
+    Assertions.assertEquals(5, heap.key(2));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> heap.decreaseKey(0, 50));
+
+    heap.insertOrUpdate(2, 25);  // increase
+    heap.insertOrUpdate(7, 1);   // insert, beyond the initial capacity
+    Assertions.assertEquals(7, heap.poll());
+    Assertions.assertEquals(0, heap.poll());
+    Assertions.assertEquals(1, heap.poll());
+    Assertions.assertEquals(2, heap.poll());
+    Assertions.assertTrue(heap.isEmpty());
+
+    heap.insert(2, 3);  // elements may be queued again after being polled
+    Assertions.assertEquals(2, heap.poll());
+  }
+
+}
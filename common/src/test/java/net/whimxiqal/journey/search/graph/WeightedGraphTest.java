@@ -23,8 +23,11 @@
 
 package net.whimxiqal.journey.search.graph;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import net.whimxiqal.journey.JourneyTestHarness;
 import net.whimxiqal.journey.tools.AlternatingList;
 import org.junit.jupiter.api.Assertions;
@@ -75,6 +78,93 @@ class WeightedGraphTest extends JourneyTestHarness {
     Assertions.assertEquals(2, edgesIt.next().length);
   }
 
+  @Test
+  void findMinimumPaths() {
+    Graph graph = new Graph();
+    Node A = new Node(0);
+    Node B = new Node(0);
+    Node C = new Node(0);
+    Node D = new Node(0);
+    Node E = new Node(0);
+    Node F = new Node(0);
+    graph.addEdge(A, B, new Edge(9));
+    graph.addEdge(A, C, new Edge(4));
+    graph.addEdge(C, B, new Edge(4));
+    graph.addEdge(B, D, new Edge(12));
+    graph.addEdge(B, E, new Edge(5));
+    graph.addEdge(C, E, new Edge(13));
+    graph.addEdge(D, F, new Edge(2));
+    graph.addEdge(E, D, new Edge(3));
+    graph.addEdge(E, F, new Edge(15));
+    List<AlternatingList<Node, Edge, Object>> results = graph.findMinimumPaths(A, node -> node == F, e -> true, 4);
+    Assertions.assertEquals(4, results.size());
+
+    // A -> C -> B -> E -> D -> F
+    Assertions.assertEquals(18, length(results.get(0)));
+    Assertions.assertEquals(6, results.get(0).getMajors().size());
+    // A -> B -> E -> D -> F
+    Assertions.assertEquals(19, length(results.get(1)));
+    Iterator<Node> nodesIt = results.get(1).getMajors().iterator();
+    Assertions.assertEquals(A, nodesIt.next());
+    Assertions.assertEquals(B, nodesIt.next());
+    Assertions.assertEquals(E, nodesIt.next());
+    Assertions.assertEquals(D, nodesIt.next());
+    Assertions.assertEquals(F, nodesIt.next());
+    // A -> C -> B -> D -> F and A -> C -> E -> D -> F
+    Assertions.assertEquals(22, length(results.get(2)));
+    Assertions.assertEquals(22, length(results.get(3)));
+    Assertions.assertNotEquals(new ArrayList<>(results.get(2).getMajors()), new ArrayList<>(results.get(3).getMajors()));
+
+    // There are only eight simple paths
+    Assertions.assertEquals(8, graph.findMinimumPaths(A, node -> node == F, e -> true, 10).size());
+  }
+
+  @Test
+  void concurrentQueries() throws InterruptedException {
+    Graph graph = new Graph();
+    Node[] nodes = new Node[50];
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = new Node(1);
+    }
+    for (int i = 0; i < nodes.length; i++) {
+      graph.addEdge(nodes[i], nodes[(i + 1) % nodes.length], new Edge(1));
+      graph.addEdge(nodes[i], nodes[(i + 7) % nodes.length], new Edge(20));
+    }
+
+    int threadCount = 8;
+    AtomicInteger failures = new AtomicInteger();
+    Thread[] threads = new Thread[threadCount];
+    for (int t = 0; t < threadCount; t++) {
+      int offset = t;
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < 200; i++) {
+          Node origin = nodes[(offset + i) % nodes.length];
+          Node destination = nodes[(offset + i + 20) % nodes.length];
+          AlternatingList<Node, Edge, Object> result = graph.findMinimumPath(origin, destination, e -> true);
+          // The only cheapest path takes the twenty short edges, one node at a time
+          List<Node> expected = new ArrayList<>();
+          for (int step = 0; step <= 20; step++) {
+            expected.add(nodes[(offset + i + step) % nodes.length]);
+          }
+          if (result == null
+              || !expected.equals(new ArrayList<>(result.getMajors()))
+              || result.getMinors().stream().anyMatch(edge -> edge.length != 1)) {
+            failures.incrementAndGet();
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    Assertions.assertEquals(0, failures.get());
+  }
+
+  private static double length(AlternatingList<Node, Edge, Object> path) {
+    return path.getMinors().stream().mapToDouble(edge -> edge.length).sum();
+  }
+
   private class Graph extends WeightedGraph<Node, Edge> {
 
     @Override
@@ -0,0 +1,51 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) whimxiqal
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package net.whimxiqal.journey.tools;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class LongIntHashMapTest {
+
+  @Test
+  void putAndGet() {
+    LongIntHashMap map = new LongIntHashMap(4);
+    for (int i = 0; i < 10000; i++) {
+      Assertions.assertEquals(LongIntHashMap.MISSING, map.put(i * 31L - 5000, i));
+    }
+    Assertions.assertEquals(10000, map.size());
+    for (int i = 0; i < 10000; i++) {
+      Assertions.assertEquals(i, map.get(i * 31L - 5000));
+    }
+    Assertions.assertEquals(LongIntHashMap.MISSING, map.get(1));
+    Assertions.assertEquals(0, map.put(-5000, 7));
+    Assertions.assertEquals(7, map.get(-5000));
+    Assertions.assertEquals(10000, map.size());
+
+    map.clear();
+    Assertions.assertTrue(map.isEmpty());
+    Assertions.assertFalse(map.containsKey(-5000));
+  }
+
+}